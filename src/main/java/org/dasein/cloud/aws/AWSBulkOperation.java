@@ -0,0 +1,620 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudErrorType;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the same mutation to many resources, reporting the outcome for every resource individually.
+ * <p>Actions which accept many IDs in one call (e.g. <code>TerminateInstances</code> with <code>InstanceId.N</code>)
+ * are chunked into the largest allowed batches. When a batch is rejected because of one of its resources (a missing
+ * instance, an instance in the wrong state) it is split in half until the offending resources are isolated, so the
+ * rest of the batch still goes through. Actions which take a single ID per call are fanned out instead. Either way
+ * at most {@value #P_PARALLELISM} calls are in flight at once and throttled calls are retried with exponential
+ * backoff, so a bulk operation slows down rather than fails when it hits the API rate limit. The backoff is waited
+ * out on the executor's scheduler rather than on a worker, which carries on with other calls in the meantime.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public class AWSBulkOperation {
+    static private final Logger logger = AWSCloud.getLogger(AWSBulkOperation.class);
+
+    static public final String P_PARALLELISM       = "bulkParallelism";
+    static public final int    DEFAULT_PARALLELISM = 8;
+
+    /**
+     * Largest number of IDs sent in a single multi-ID call.
+     */
+    static public final int MAX_BATCH_SIZE = 1000;
+
+    static private final int MAX_THROTTLE_RETRIES = 5;
+
+    /**
+     * A call acting on several resources at once.
+     */
+    public interface BatchAction {
+        void invoke( @Nonnull List<String> resourceIds ) throws CloudException, InternalException;
+    }
+
+    /**
+     * A call acting on a single resource.
+     */
+    public interface SingleAction {
+        void invoke( @Nonnull String resourceId ) throws CloudException, InternalException;
+    }
+
+    /**
+     * A call looking up a value of a single resource.
+     */
+    public interface LookupAction {
+        @Nullable String lookup( @Nonnull String resourceId ) throws CloudException, InternalException;
+    }
+
+    /**
+     * Receives the outcome for each resource as soon as its call completes, on the thread which made the call.
+     */
+    public interface OutcomeListener {
+        void outcomeReady( @Nonnull Outcome outcome );
+    }
+
+    /**
+     * The outcome of a bulk operation for a single resource.
+     */
+    static public final class Outcome {
+        private final String         resourceId;
+        private final String         value;
+        private final CloudException error;
+
+        Outcome( @Nonnull String resourceId, @Nullable CloudException error ) {
+            this(resourceId, null, error);
+        }
+
+        Outcome( @Nonnull String resourceId, @Nullable String value, @Nullable CloudException error ) {
+            this.resourceId = resourceId;
+            this.value = value;
+            this.error = error;
+        }
+
+        public @Nonnull String getResourceId() {
+            return resourceId;
+        }
+
+        /**
+         * @return the value looked up by {@link #invokeLookup(String, Collection, LookupAction)}, or null if there
+         * was none or the lookup failed
+         */
+        public @Nullable String getValue() {
+            return value;
+        }
+
+        /**
+         * @return the error for this resource, or null if the operation succeeded
+         */
+        public @Nullable CloudException getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return ( error == null );
+        }
+
+        @Override
+        public String toString() {
+            return resourceId + ( error == null ? " [ok]" : " [" + error.getMessage() + "]" );
+        }
+    }
+
+    /**
+     * The per-resource outcomes of a bulk operation, in the order the resources were given.
+     */
+    static public final class Report {
+        private final String               operation;
+        private final Map<String, Outcome> outcomes;
+        private final long                 elapsed;
+
+        Report( @Nonnull String operation, @Nonnull Map<String, Outcome> outcomes, long elapsed ) {
+            this.operation = operation;
+            this.outcomes = outcomes;
+            this.elapsed = elapsed;
+        }
+
+        public @Nonnull String getOperation() {
+            return operation;
+        }
+
+        public @Nonnull Map<String, Outcome> getOutcomes() {
+            return outcomes;
+        }
+
+        public @Nullable Outcome getOutcome( @Nonnull String resourceId ) {
+            return outcomes.get(resourceId);
+        }
+
+        public @Nonnull List<String> getSucceeded() {
+            List<String> ids = new ArrayList<String>();
+
+            for( Outcome outcome : outcomes.values() ) {
+                if( outcome.isSuccess() ) {
+                    ids.add(outcome.getResourceId());
+                }
+            }
+            return ids;
+        }
+
+        public @Nonnull List<Outcome> getFailures() {
+            List<Outcome> failures = new ArrayList<Outcome>();
+
+            for( Outcome outcome : outcomes.values() ) {
+                if( !outcome.isSuccess() ) {
+                    failures.add(outcome);
+                }
+            }
+            return failures;
+        }
+
+        /**
+         * @return true if the operation succeeded for every resource
+         */
+        public boolean isSuccess() {
+            for( Outcome outcome : outcomes.values() ) {
+                if( !outcome.isSuccess() ) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return milliseconds taken by the whole operation
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return operation + "[" + getSucceeded().size() + "/" + outcomes.size() + " succeeded in " + elapsed + "ms]";
+        }
+    }
+
+    static public @Nonnull AWSBulkOperation getInstance( @Nonnull AWSCloud provider ) {
+        ProviderContext ctx = provider.getContext();
+        Properties props = ( ctx == null ? null : ctx.getCustomProperties() );
+        int parallelism = DEFAULT_PARALLELISM;
+
+        if( props != null && props.getProperty(P_PARALLELISM) != null ) {
+            try {
+                parallelism = Integer.parseInt(props.getProperty(P_PARALLELISM).trim());
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Invalid value for " + P_PARALLELISM + ": " + props.getProperty(P_PARALLELISM));
+            }
+        }
+        return new AWSBulkOperation(provider, parallelism);
+    }
+
+    /**
+     * @param error an error returned for a multi-ID call
+     * @return true if the error is caused by one or more of the resources rather than by the request as a whole
+     */
+    static public boolean isResourceError( @Nonnull CloudException error ) {
+        String code = error.getProviderCode();
+
+        if( code == null ) {
+            return false;
+        }
+        return ( code.endsWith(".NotFound") || code.endsWith(".Malformed") || code.equals("InvalidID")
+                || code.equals("IncorrectInstanceState") || code.equals("IncorrectState")
+                || code.equals("UnsupportedOperation") || code.equals("OperationNotPermitted") );
+    }
+
+    private final AWSCloud provider;
+    private final int      parallelism;
+
+    public AWSBulkOperation( @Nonnull AWSCloud provider, int parallelism ) {
+        this.provider = provider;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Runs a multi-ID action over all of the resources in batches of up to <code>batchSize</code> IDs.
+     *
+     * @param operation the name of the operation, for logging
+     * @param resourceIds the resources to act on; duplicates are ignored
+     * @param batchSize the largest number of IDs the action accepts at once
+     * @param action the call to make for each batch
+     * @return the outcome for each resource
+     */
+    public @Nonnull Report invokeBatched( @Nonnull String operation, @Nonnull Collection<String> resourceIds, int batchSize, @Nonnull BatchAction action ) {
+        List<String> ids = new ArrayList<String>(new LinkedHashSet<String>(resourceIds));
+        Map<String, Outcome> outcomes = newOutcomes(ids);
+        Run run = new Run();
+        long started = System.currentTimeMillis();
+        int size = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+
+        for( int i = 0; i < ids.size(); i += size ) {
+            addBatch(run, action, ids.subList(i, Math.min(ids.size(), i + size)), outcomes);
+        }
+        run.await();
+        return report(operation, outcomes, started);
+    }
+
+    /**
+     * Runs a single-ID action for every resource, with up to {@link #getParallelism()} calls in flight.
+     *
+     * @param operation the name of the operation, for logging
+     * @param resourceIds the resources to act on; duplicates are ignored
+     * @param action the call to make for each resource
+     * @return the outcome for each resource
+     */
+    public @Nonnull Report invokeEach( @Nonnull String operation, @Nonnull Collection<String> resourceIds, @Nonnull final SingleAction action ) {
+        return invokeLookup(operation, resourceIds, new LookupAction() {
+            @Override
+            public @Nullable String lookup( @Nonnull String resourceId ) throws CloudException, InternalException {
+                action.invoke(resourceId);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Looks up a value of every resource, with up to {@link #getParallelism()} calls in flight.
+     *
+     * @param operation the name of the operation, for logging
+     * @param resourceIds the resources to look up; duplicates are ignored
+     * @param action the call to make for each resource
+     * @return the outcome for each resource, carrying the value looked up
+     */
+    public @Nonnull Report invokeLookup( @Nonnull String operation, @Nonnull Collection<String> resourceIds, @Nonnull LookupAction action ) {
+        return invokeLookup(operation, resourceIds, action, null);
+    }
+
+    /**
+     * Looks up a value of every resource, with up to {@link #getParallelism()} calls in flight, handing each outcome
+     * to the listener as soon as its call completes. The report is still returned once every call has completed.
+     *
+     * @param operation the name of the operation, for logging
+     * @param resourceIds the resources to look up; duplicates are ignored
+     * @param action the call to make for each resource
+     * @param listener receives each outcome as it completes, null for none
+     * @return the outcome for each resource, carrying the value looked up
+     */
+    public @Nonnull Report invokeLookup( @Nonnull final String operation, @Nonnull Collection<String> resourceIds, @Nonnull LookupAction action, @Nullable final OutcomeListener listener ) {
+        List<String> ids = new ArrayList<String>(new LinkedHashSet<String>(resourceIds));
+        final Map<String, Outcome> outcomes = newOutcomes(ids);
+        Run run = new Run();
+        long started = System.currentTimeMillis();
+
+        for( String id : ids ) {
+            run.add(new Call(run, action, id, new Completion() {
+                @Override
+                public void complete( @Nonnull Outcome outcome ) {
+                    synchronized( outcomes ) {
+                        outcomes.put(outcome.getResourceId(), outcome);
+                    }
+                    if( listener != null ) {
+                        try {
+                            listener.outcomeReady(outcome);
+                        }
+                        catch( RuntimeException e ) {
+                            logger.error("Listener for " + operation + " failed on " + outcome.getResourceId() + ": " + e.getMessage(), e);
+                        }
+                    }
+                }
+            }));
+        }
+        run.await();
+        return report(operation, outcomes, started);
+    }
+
+    static private @Nonnull Map<String, Outcome> newOutcomes( @Nonnull List<String> ids ) {
+        Map<String, Outcome> outcomes = new LinkedHashMap<String, Outcome>();
+
+        // reserve the slots up front so the report keeps the caller's order whatever order the calls finish in
+        for( String id : ids ) {
+            outcomes.put(id, null);
+        }
+        return outcomes;
+    }
+
+    static private @Nonnull Report report( @Nonnull String operation, @Nonnull Map<String, Outcome> outcomes, long started ) {
+        Map<String, Outcome> copy = new LinkedHashMap<String, Outcome>();
+        Report report;
+
+        // a copy, since calls still running after an interrupted wait may record their outcomes late
+        synchronized( outcomes ) {
+            for( Map.Entry<String, Outcome> entry : outcomes.entrySet() ) {
+                Outcome outcome = entry.getValue();
+
+                copy.put(entry.getKey(), outcome == null ? new Outcome(entry.getKey(), new CloudException("The operation was not attempted")) : outcome);
+            }
+        }
+        report = new Report(operation, copy, System.currentTimeMillis() - started);
+        if( logger.isDebugEnabled() ) {
+            logger.debug(report.toString());
+        }
+        return report;
+    }
+
+    /**
+     * Queues a call for a batch of resources which, when the batch is rejected because of some of its resources,
+     * queues a call for each half of the batch in its place.
+     */
+    private void addBatch( @Nonnull final Run run, @Nonnull final BatchAction action, @Nonnull final List<String> ids, @Nonnull final Map<String, Outcome> outcomes ) {
+        LookupAction call = new LookupAction() {
+            @Override
+            public @Nullable String lookup( @Nonnull String resourceId ) throws CloudException, InternalException {
+                action.invoke(ids);
+                return null;
+            }
+        };
+
+        run.add(new Call(run, call, ids.get(0), new Completion() {
+            @Override
+            public void complete( @Nonnull Outcome outcome ) {
+                CloudException error = outcome.getError();
+
+                if( error != null && ids.size() > 1 && isResourceError(error) ) {
+                    int half = ids.size() / 2;
+
+                    addBatch(run, action, ids.subList(0, half), outcomes);
+                    addBatch(run, action, ids.subList(half, ids.size()), outcomes);
+                    return;
+                }
+                if( error != null ) {
+                    logger.error("Failed for " + ids + ": " + error.getMessage());
+                }
+                synchronized( outcomes ) {
+                    for( String id : ids ) {
+                        outcomes.put(id, new Outcome(id, error));
+                    }
+                }
+            }
+        }));
+    }
+
+    /**
+     * Receives the outcome of a call once it has stopped retrying.
+     */
+    private interface Completion {
+        void complete( @Nonnull Outcome outcome );
+    }
+
+    /**
+     * One call of a bulk operation. A throttled call is not retried on the worker which made it; it is handed back
+     * to the run from a scheduler tick once its backoff has passed, so the worker can move on to other calls.
+     */
+    private final class Call implements Runnable {
+        private final Run          run;
+        private final LookupAction action;
+        private final String       resourceId;
+        private final Completion   completion;
+        private int                attempt;
+
+        Call( @Nonnull Run run, @Nonnull LookupAction action, @Nonnull String resourceId, @Nonnull Completion completion ) {
+            this.run = run;
+            this.action = action;
+            this.resourceId = resourceId;
+            this.completion = completion;
+        }
+
+        @Override
+        public void run() {
+            Outcome outcome;
+
+            try {
+                outcome = new Outcome(resourceId, action.lookup(resourceId), null);
+            }
+            catch( CloudException e ) {
+                if( CloudErrorType.THROTTLING.equals(e.getErrorType()) && attempt < MAX_THROTTLE_RETRIES && run.retry(this, 500L << attempt) ) {
+                    attempt++;
+                    return;
+                }
+                outcome = new Outcome(resourceId, e);
+            }
+            catch( InternalException e ) {
+                outcome = new Outcome(resourceId, new CloudException(e));
+            }
+            catch( RuntimeException e ) {
+                outcome = new Outcome(resourceId, new CloudException(e));
+            }
+            try {
+                completion.complete(outcome);
+            }
+            finally {
+                run.finish();
+            }
+        }
+    }
+
+    /**
+     * The calls of a single bulk operation, worked off by at most {@link #parallelism} workers on the provider's
+     * executor. A worker which has not started by the time the caller waits on it runs on the caller's thread, so a
+     * bulk operation started from a busy pool still makes progress.
+     */
+    private final class Run {
+        private final Queue<Call>        queue   = new ConcurrentLinkedQueue<Call>();
+        private final List<Future<Void>> workers = new ArrayList<Future<Void>>();
+        private int                      active;
+        private int                      pending;
+        private boolean                  cancelled;
+
+        private final Callable<Void> worker = new Callable<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    Call call;
+
+                    while( !isCancelled() && ( call = queue.poll() ) != null ) {
+                        call.run();
+                    }
+                }
+                finally {
+                    synchronized( Run.this ) {
+                        active--;
+                    }
+                }
+                // a call may have come back from its backoff after the last poll
+                if( !queue.isEmpty() ) {
+                    dispatch();
+                }
+                return null;
+            }
+        };
+
+        void add( @Nonnull Call call ) {
+            synchronized( this ) {
+                pending++;
+            }
+            queue.add(call);
+        }
+
+        synchronized void finish() {
+            pending--;
+            notifyAll();
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Hands a throttled call back to the run once its backoff has passed.
+         *
+         * @return false if the call can't be retried and should fail with its last error
+         */
+        boolean retry( @Nonnull final Call call, long delay ) {
+            if( isCancelled() ) {
+                return false;
+            }
+            try {
+                provider.getExecutor().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        if( isCancelled() ) {
+                            finish();
+                            return;
+                        }
+                        queue.add(call);
+                        dispatch();
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+                return true;
+            }
+            catch( RuntimeException e ) {
+                // the provider was closed
+                return false;
+            }
+        }
+
+        /**
+         * Starts enough workers for the queued calls, up to {@link #parallelism} at a time.
+         */
+        private void dispatch() {
+            int count;
+
+            synchronized( this ) {
+                count = ( cancelled ? 0 : Math.min(parallelism - active, queue.size()) );
+                active += Math.max(0, count);
+            }
+            for( int i = 0; i < count; i++ ) {
+                Future<Void> future;
+
+                try {
+                    future = provider.getExecutor().submit(worker);
+                }
+                catch( RuntimeException e ) {
+                    logger.error("Unable to start a bulk operation worker: " + e.getMessage());
+                    synchronized( this ) {
+                        active -= ( count - i );
+                        cancelled = true;
+                        notifyAll();
+                    }
+                    return;
+                }
+                synchronized( this ) {
+                    workers.add(future);
+                    notifyAll();
+                }
+            }
+        }
+
+        /**
+         * Waits for every call to finish, including calls waiting out a throttling backoff.
+         */
+        void await() {
+            dispatch();
+            try {
+                while( true ) {
+                    Future<Void> next;
+
+                    synchronized( this ) {
+                        while( pending > 0 && !cancelled && workers.isEmpty() ) {
+                            wait();
+                        }
+                        if( pending < 1 || ( cancelled && workers.isEmpty() ) ) {
+                            return;
+                        }
+                        next = workers.remove(0);
+                    }
+                    try {
+                        provider.getExecutor().await(next);
+                    }
+                    catch( ExecutionException e ) {
+                        logger.error("Bulk operation worker failed: " + e.getCause().getMessage(), e.getCause());
+                    }
+                }
+            }
+            catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                // stop handing out work; whatever was not attempted is reported as such
+                synchronized( this ) {
+                    cancelled = true;
+                }
+                queue.clear();
+            }
+        }
+    }
+}
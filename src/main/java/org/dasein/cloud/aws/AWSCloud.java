@@ -38,6 +38,9 @@ import org.dasein.cloud.aws.admin.AWSAdminServices;
 import org.dasein.cloud.aws.compute.EC2ComputeServices;
 import org.dasein.cloud.aws.compute.EC2Exception;
 import org.dasein.cloud.aws.compute.EC2Method;
+import org.dasein.cloud.aws.compute.EC2InstanceWatcher;
+import org.dasein.cloud.aws.compute.EC2SpotPriceStore;
+import org.dasein.cloud.aws.compute.EC2TagIndex;
 import org.dasein.cloud.aws.identity.AWSIdentityServices;
 import org.dasein.cloud.aws.identity.IAMMethod;
 import org.dasein.cloud.aws.network.EC2NetworkServices;
@@ -70,13 +73,10 @@ import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class AWSCloud extends AbstractCloud {
 
-    private static final int MAX_RETRIES = 0;
-
     static private String getLastItem( String name ) {
         int idx = name.lastIndexOf('.');
 
@@ -277,78 +277,67 @@ public class AWSCloud extends AbstractCloud {
         return createTags(service, new String[]{resourceId}, keyValuePairs);
     }
 
-    public boolean createTags( final String service, final String[] resourceIds, final Tag... keyValuePairs ) {
-        // TODO(stas): de-async experiment
-        boolean async = false;
-        if( async ) {
-            hold();
+    public boolean createTags( String service, String[] resourceIds, Tag... keyValuePairs ) {
+        APITrace.begin(this, "Cloud.createTags");
+        try {
+            return isSuccess(getTagWriter().createTags(service, Arrays.asList(resourceIds), keyValuePairs));
+        } finally {
+            APITrace.end();
+        }
+    }
 
-            Thread t = new Thread() {
-                public void run() {
-                    try {
-                        createTags(1, service, resourceIds, keyValuePairs);
-                    }
-                    finally {
-                        release();
-                    }
+    /**
+     * Sends a single tagging request for the given resources. Callers are expected to respect
+     * {@link AWSTagWriter#getMaximumResourceIds(String)}.
+     *
+     * @param remove        true to remove the tags, false to create them
+     * @param service       the service the resources belong to
+     * @param resourceIds   the resources to tag
+     * @param keyValuePairs the tags
+     * @throws CloudException an error occurred in the cloud while writing the tags
+     * @throws InternalException an error occurred within this implementation while writing the tags
+     */
+    void invokeTagRequest( boolean remove, @Nonnull String service, @Nonnull String[] resourceIds, @Nonnull Tag... keyValuePairs ) throws CloudException, InternalException {
+        Map<String, String> parameters, tagParameters = null;
+
+        if( service.equalsIgnoreCase(ELBMethod.SERVICE_ID) ) {
+            parameters = getElbParameters(getContext(), remove ? "RemoveTags" : "AddTags");
+            addIndexedParameters(parameters, "LoadBalancerNames.member.", resourceIds);
+            tagParameters = getTagsFromKeyValuePairs("Tags.member.", keyValuePairs);
+        }
+        else if( service.equalsIgnoreCase("rds") ) {
+            // We can't tag multiple RDS resource at a time.
+            if( remove ) {
+                parameters = getStandardRdsParameters(getContext(), "RemoveTagsFromResource");
+                for( int i = 0; i < keyValuePairs.length; i++ ) {
+                    parameters.put("TagKeys.member." + ( i + 1 ), keyValuePairs[i].getKey());
                 }
-            };
-
-            t.setName("Tag Setter");
-            t.setDaemon(true);
-            t.start();
-        } else {
-            createTags(1, service, resourceIds, keyValuePairs);
+            }
+            else {
+                parameters = getStandardRdsParameters(getContext(), "AddTagsToResource");
+                tagParameters = getTagsFromKeyValuePairs("Tags.member.", keyValuePairs);
+            }
+            parameters.put("ResourceName", resourceIds[0]);
         }
-        return true;
+        else {
+            parameters = getStandardParameters(getContext(), remove ? "DeleteTags" : "CreateTags");
+            addIndexedParameters(parameters, "ResourceId.", resourceIds);
+            tagParameters = getTagsFromKeyValuePairs("Tag.", keyValuePairs);
+        }
+        if( !remove && tagParameters.size() == 0 ) {
+            return;
+        }
+        addExtraParameters(parameters, tagParameters);
+        new EC2Method(service, this, parameters).invoke();
     }
 
-    private void createTags( int attempt, String service, String[] resourceIds, Tag... keyValuePairs ) {
-    	APITrace.begin(this, "Cloud.createTags");
-    	try {
-    		try {
-    			Map<String, String> parameters = null , tagParameters = null;
-    			if (service.equalsIgnoreCase(ELBMethod.SERVICE_ID)) {
-    				parameters = getElbParameters(getContext(), "AddTags");
-    				addIndexedParameters(parameters, "LoadBalancerNames.member.", resourceIds);
-    				tagParameters = getTagsFromKeyValuePairs("Tags.member.", keyValuePairs);
-    			}
-    			else if(service.equalsIgnoreCase("rds")) {
-    				parameters = getStandardRdsParameters(getContext(), "AddTagsToResource");
-    				// We can't tag multiple RDS resource at a time.
-    				parameters.put("ResourceName", resourceIds[0]);
-    				tagParameters = getTagsFromKeyValuePairs("Tags.member.", keyValuePairs);
-    			}
-    			else {
-    				parameters = getStandardParameters(getContext(), "CreateTags");
-    				addIndexedParameters(parameters, "ResourceId.", resourceIds);
-    				tagParameters = getTagsFromKeyValuePairs("Tag.", keyValuePairs);
-    			}
-    			if( tagParameters.size() == 0 ) {
-    				return;
-    			}
-    			addExtraParameters(parameters, tagParameters);
-    			EC2Method method = new EC2Method(service, this, parameters);
-    			try {
-    				method.invoke();
-    			} catch( EC2Exception e ) {
-    				if( attempt > MAX_RETRIES ) {
-    					logger.error("EC2 error setting tags for " + Arrays.toString(resourceIds) + ": " + e.getSummary());
-    					return;
-    				}
-    				try {
-    					Thread.sleep(5000L);
-    				} catch( InterruptedException ignore ) {
-    				}
-    				logger.warn("Retry attempt "+ (attempt + 1) + " to create tags for ["+resourceIds+"]");
-    				createTags(attempt + 1, service, resourceIds, keyValuePairs);
-    			}
-    		} catch( Throwable ignore ) {
-    			logger.error("Error while creating tags for " + Arrays.toString(resourceIds) + ".", ignore);
-    		}
-    	} finally {
-    		APITrace.end();
-    	}
+    static private boolean isSuccess( @Nonnull Map<String, AWSTagWriter.Result> results ) {
+        for( AWSTagWriter.Result result : results.values() ) {
+            if( !result.isSuccess() ) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private Map<String, String> getTagsFromKeyValuePairs(String tagPrefix, Tag... keyValuePairs) {
@@ -390,35 +379,12 @@ public class AWSCloud extends AbstractCloud {
     }
 
     public boolean removeTags( String service, String[] resourceIds, Tag... keyValuePairs ) {
-    	APITrace.begin(this, "Cloud.removeTags");
-    	try {
-    		try {
-    			Map<String, String> parameters, tagParameters = null ;
-    			if (service.equalsIgnoreCase(ELBMethod.SERVICE_ID)){
-    				parameters = getElbParameters(getContext(), "RemoveTags");
-    				addIndexedParameters(parameters, "LoadBalancerNames.member.", resourceIds);
-    				tagParameters = getTagsFromKeyValuePairs("Tags.member.", keyValuePairs);
-    			} else if(service.equalsIgnoreCase("rds")){
-    				parameters = getStandardRdsParameters(getContext(), "RemoveTagsFromResource");
-    				parameters.put("ResourceName", resourceIds[0]);
-    				for (int i = 0; i < keyValuePairs.length; i++)
-    					parameters.put("TagKeys.member." + (i + 1) , keyValuePairs[i].getKey());
-    			} else {
-    				parameters = getStandardParameters(getContext(), "DeleteTags");
-    				addIndexedParameters(parameters, "ResourceId.", resourceIds);
-    				tagParameters = getTagsFromKeyValuePairs("Tag.", keyValuePairs);
-    			}
-    			addExtraParameters(parameters, tagParameters);
-    			EC2Method method = new EC2Method(service, this, parameters);
-    			method.invoke();
-    			return true;
-    		} catch( Throwable ignore ) {
-    			logger.error("Error while removing tags for " + Arrays.toString(resourceIds) + ".", ignore);
-    			return false;
-    		}
-    	} finally {
-    		APITrace.end();
-    	}
+        APITrace.begin(this, "Cloud.removeTags");
+        try {
+            return isSuccess(getTagWriter().removeTags(service, Arrays.asList(resourceIds), keyValuePairs));
+        } finally {
+            APITrace.end();
+        }
     }
 
     public Map<String, String> getTagsFromTagSet( Node attr ) {
@@ -541,6 +507,280 @@ public class AWSCloud extends AbstractCloud {
 
     private transient volatile EC2Provider provider;
 
+    private transient volatile AWSTaskExecutor executor;
+
+    private transient volatile AWSTagWriter tagWriter;
+
+    private transient volatile EC2TagIndex tagIndex;
+
+    private transient volatile AWSStateWaiter stateWaiter;
+
+    private transient volatile AWSInventoryMirror inventoryMirror;
+
+    private transient volatile AWSLookupBatcher lookupBatcher;
+
+    private transient volatile AWSMetricCache metricCache;
+
+    private transient volatile EC2SpotPriceStore spotPriceStore;
+
+    private transient volatile EC2InstanceWatcher instanceWatcher;
+
+    private transient volatile boolean closed;
+
+    private transient volatile boolean executorShared;
+
+    /**
+     * Provides the executor shared by all background work done on behalf of this provider. The executor is
+     * created on first use and shut down when this provider is closed.
+     *
+     * @return the executor for this provider
+     * @throws IllegalStateException this provider has been closed
+     */
+    public @Nonnull AWSTaskExecutor getExecutor() {
+        AWSTaskExecutor e = executor;
+
+        if( closed ) {
+            throw new IllegalStateException("This provider has been closed");
+        }
+        if( e == null ) {
+            synchronized( this ) {
+                if( closed ) {
+                    throw new IllegalStateException("This provider has been closed");
+                }
+                e = executor;
+                if( e == null ) {
+                    ProviderContext ctx = getContext();
+
+                    e = AWSTaskExecutor.getInstance(ctx == null ? null : ctx.getCustomProperties());
+                    executor = e;
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Runs the background work of this provider on the executor of another provider for the same account, such
+     * as the provider of the region a sweep was started from. The borrowed executor is left running when this
+     * provider is closed.
+     *
+     * @param parent the provider whose executor this provider should use
+     * @throws IllegalStateException this provider has been closed or already has an executor of its own
+     */
+    void shareExecutor( @Nonnull AWSCloud parent ) {
+        AWSTaskExecutor e = parent.getExecutor();
+
+        synchronized( this ) {
+            if( closed ) {
+                throw new IllegalStateException("This provider has been closed");
+            }
+            if( executor != null && executor != e ) {
+                throw new IllegalStateException("This provider already has an executor");
+            }
+            executor = e;
+            executorShared = true;
+        }
+    }
+
+    /**
+     * Provides the tag writer which batches and coalesces tagging requests made through this provider.
+     *
+     * @return the tag writer for this provider
+     */
+    public @Nonnull AWSTagWriter getTagWriter() {
+        AWSTagWriter w = tagWriter;
+
+        if( w == null ) {
+            synchronized( this ) {
+                w = tagWriter;
+                if( w == null ) {
+                    w = AWSTagWriter.getInstance(this);
+                    tagWriter = w;
+                }
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Provides the engine for applying the same mutation to many resources, configured from the custom
+     * properties of this provider's context.
+     *
+     * @return a bulk operation engine running on this provider's executor
+     */
+    public @Nonnull AWSBulkOperation getBulkOperation() {
+        return AWSBulkOperation.getInstance(this);
+    }
+
+    /**
+     * Provides the mirror of this provider's resources in the account and region of its context.
+     *
+     * @return the inventory mirror for this provider
+     */
+    public @Nonnull AWSInventoryMirror getInventoryMirror() {
+        AWSInventoryMirror m = inventoryMirror;
+
+        if( m == null ) {
+            synchronized( this ) {
+                m = inventoryMirror;
+                if( m == null ) {
+                    m = AWSInventoryMirror.getInstance(this);
+                    inventoryMirror = m;
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Provides the batcher which merges concurrent single-resource lookups made through this provider.
+     *
+     * @return the lookup batcher for this provider
+     */
+    public @Nonnull AWSLookupBatcher getLookupBatcher() {
+        AWSLookupBatcher b = lookupBatcher;
+
+        if( b == null ) {
+            synchronized( this ) {
+                b = lookupBatcher;
+                if( b == null ) {
+                    b = AWSLookupBatcher.getInstance(this);
+                    lookupBatcher = b;
+                }
+            }
+        }
+        return b;
+    }
+
+    /**
+     * Provides the cache of final CloudWatch datapoints fetched through this provider.
+     *
+     * @return the metric cache for this provider
+     */
+    public @Nonnull AWSMetricCache getMetricCache() {
+        AWSMetricCache c = metricCache;
+
+        if( c == null ) {
+            synchronized( this ) {
+                c = metricCache;
+                if( c == null ) {
+                    c = AWSMetricCache.getInstance(this);
+                    metricCache = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Provides the store of spot price history already fetched through this provider.
+     *
+     * @return the spot price store for this provider
+     */
+    public @Nonnull EC2SpotPriceStore getSpotPriceStore() {
+        EC2SpotPriceStore s = spotPriceStore;
+
+        if( s == null ) {
+            synchronized( this ) {
+                s = spotPriceStore;
+                if( s == null ) {
+                    s = EC2SpotPriceStore.getInstance(this);
+                    spotPriceStore = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Provides the watcher which polls instance status on behalf of every lifecycle listener of this provider.
+     *
+     * @return the instance watcher for this provider
+     */
+    public @Nonnull EC2InstanceWatcher getInstanceWatcher() {
+        EC2InstanceWatcher w = instanceWatcher;
+
+        if( w == null ) {
+            synchronized( this ) {
+                w = instanceWatcher;
+                if( w == null ) {
+                    w = new EC2InstanceWatcher(this);
+                    instanceWatcher = w;
+                }
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Provides the waiter which polls resource states on behalf of everyone waiting for resources of this provider.
+     *
+     * @return the state waiter for this provider
+     */
+    public @Nonnull AWSStateWaiter getStateWaiter() {
+        AWSStateWaiter w = stateWaiter;
+
+        if( w == null ) {
+            synchronized( this ) {
+                w = stateWaiter;
+                if( w == null ) {
+                    w = new AWSStateWaiter(this);
+                    stateWaiter = w;
+                }
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Provides the index of EC2 resource tags for this provider. The index is loaded lazily on its first lookup.
+     *
+     * @return the tag index for this provider
+     */
+    public @Nonnull EC2TagIndex getTagIndex() {
+        EC2TagIndex i = tagIndex;
+
+        if( i == null ) {
+            synchronized( this ) {
+                i = tagIndex;
+                if( i == null ) {
+                    i = EC2TagIndex.getInstance(this);
+                    tagIndex = i;
+                }
+            }
+        }
+        return i;
+    }
+
+    /**
+     * @return the tag index if one has been created, so tag writes can be applied to it without creating one
+     */
+    @Nullable EC2TagIndex getLoadedTagIndex() {
+        return tagIndex;
+    }
+
+    @Override
+    public void close() {
+        try {
+            super.close();
+        }
+        finally {
+            EC2InstanceWatcher w = instanceWatcher;
+            AWSTaskExecutor e;
+
+            synchronized( this ) {
+                closed = true;
+                e = ( executorShared ? null : executor );
+            }
+            if( w != null ) {
+                w.stop();
+            }
+            if( e != null ) {
+                e.shutdown();
+            }
+        }
+    }
+
     public @Nonnull EC2Provider getEC2Provider() {
         if( provider == null ) {
             provider = EC2Provider.valueOf(getProviderName());
@@ -851,34 +1091,18 @@ public class AWSCloud extends AbstractCloud {
     }
 
     public @Nonnull String getTimestamp(long timestamp, boolean withMillis) {
-        SimpleDateFormat fmt;
-
-        if( withMillis ) {
-            fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-        }
-        else {
-            fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        }
-        fmt.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return fmt.format(new Date(timestamp));
+        return AWSTimestamps.formatIso8601(timestamp, withMillis);
     }
 
     public long parseTime( @Nullable String time ) throws CloudException {
         if( time == null ) {
             return 0L;
         }
-        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-
         if( time.length() > 0 ) {
             try {
-                return fmt.parse(time).getTime();
+                return AWSTimestamps.parseIso8601(time);
             } catch( ParseException e ) {
-                fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-                try {
-                    return fmt.parse(time).getTime();
-                } catch( ParseException encore ) {
-                    throw new CloudException("Could not parse date: " + time);
-                }
+                throw new CloudException("Could not parse date: " + time);
             }
         }
         return 0L;
@@ -1066,9 +1290,8 @@ public class AWSCloud extends AbstractCloud {
         if( date == null ) {
             throw new InternalException("request is missing date header");
         }
-        SimpleDateFormat parser = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz");
         try {
-            return getV4HeaderDate(parser.parse(date));
+            return AWSTimestamps.formatIso8601Basic(AWSTimestamps.parseRfc1123(date));
 
         } catch( ParseException e ) {
             throw new InternalException("request has invalid date header format");
@@ -1176,14 +1399,11 @@ public class AWSCloud extends AbstractCloud {
     }
 
     public String getV4HeaderDate( Date date ) {
-        SimpleDateFormat fmt = new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
-        Calendar cal = Calendar.getInstance(new SimpleTimeZone(0, "GMT"));
-        fmt.setCalendar(cal);
         if( date == null ) {
-            return fmt.format(new Date());
+            return AWSTimestamps.formatIso8601Basic(System.currentTimeMillis());
         }
         else {
-            return fmt.format(date);
+            return AWSTimestamps.formatIso8601Basic(date.getTime());
         }
     }
 
@@ -1309,12 +1529,10 @@ public class AWSCloud extends AbstractCloud {
      * @throws CloudException
      */
     public static long getTimestampValue( Node node ) throws CloudException {
-        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-        fmt.setTimeZone(TimeZone.getTimeZone("UTC"));
         String value = getTextValue(node);
 
         try {
-            return fmt.parse(value).getTime();
+            return AWSTimestamps.parseIso8601(value);
         } catch( ParseException e ) {
             logger.error(e);
             e.printStackTrace();
@@ -0,0 +1,257 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudErrorType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Error details extracted from the body of a failed AWS API call. The body is read with a streaming parser
+ * which stops as soon as the error code, message and request ID (and, for S3 redirects, the endpoint) have been
+ * seen, so no DOM is built for errors.
+ * The error is classified up front, in particular throttling and insufficient capacity, so callers can react
+ * without matching on error codes themselves.
+ * <p>
+ * Understands the EC2 (<code>Response/Errors/Error</code>, <code>RequestID</code>), query API
+ * (<code>ErrorResponse/Error</code>, <code>RequestId</code>) and S3 (<code>Error</code>) formats.
+ * </p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public final class AWSErrorResponse {
+    static private final Logger logger = AWSCloud.getLogger(AWSErrorResponse.class);
+
+    static private final Set<String> THROTTLING_CODES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "Throttling", "ThrottlingException", "Throttled", "RequestLimitExceeded", "RequestThrottled",
+            "SlowDown", "PriorRequestNotComplete", "TooManyRequestsException", "BandwidthLimitExceeded"
+    )));
+
+    static private final Set<String> AUTHENTICATION_CODES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "SignatureDoesNotMatch"
+    )));
+
+    static private final Set<String> REDIRECT_CODES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "PermanentRedirect", "TemporaryRedirect", "Redirect"
+    )));
+
+    static private final Set<String> QUOTA_CODES = Collections.unmodifiableSet(new HashSet<String>(Arrays.asList(
+            "TooManyBuckets"
+    )));
+
+    /**
+     * Classifies an AWS error code.
+     *
+     * @param code the AWS error code, may be null
+     * @return the matching dasein cloud error type, {@link CloudErrorType#GENERAL} when nothing more specific applies
+     */
+    static public @Nonnull CloudErrorType toCloudErrorType( @Nullable String code ) {
+        if( code == null ) {
+            return CloudErrorType.GENERAL;
+        }
+        if( THROTTLING_CODES.contains(code) ) {
+            return CloudErrorType.THROTTLING;
+        }
+        if( AUTHENTICATION_CODES.contains(code) ) {
+            return CloudErrorType.AUTHENTICATION;
+        }
+        if( QUOTA_CODES.contains(code) ) {
+            return CloudErrorType.QUOTA;
+        }
+        if( code.toLowerCase().contains("capacity") ) {
+            return CloudErrorType.CAPACITY;
+        }
+        return CloudErrorType.GENERAL;
+    }
+
+    /**
+     * Reads the error details from a response body. The stream is not closed.
+     *
+     * @param status the HTTP status of the response
+     * @param input  the response body, may be null
+     * @return the error details; fields that could not be found, e.g. because the body was not XML, are null
+     */
+    static public @Nonnull AWSErrorResponse parse( int status, @Nullable InputStream input ) {
+        AWSErrorResponse error = new AWSErrorResponse(status);
+
+        if( input == null ) {
+            return error;
+        }
+        XMLStreamReader reader = null;
+
+        try {
+            reader = AWSXmlStreams.createReader(input);
+            while( reader.hasNext() && !error.isComplete() ) {
+                if( reader.next() != XMLStreamConstants.START_ELEMENT ) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+
+                if( "Code".equals(name) ) {
+                    if( error.code == null ) {
+                        error.code = text(reader);
+                    }
+                }
+                else if( "Message".equals(name) ) {
+                    if( error.message == null ) {
+                        error.message = text(reader);
+                    }
+                }
+                else if( "RequestId".equals(name) || "RequestID".equals(name) ) {
+                    if( error.requestId == null ) {
+                        error.requestId = text(reader);
+                    }
+                }
+                else if( "Type".equals(name) ) {
+                    if( error.type == null ) {
+                        error.type = text(reader);
+                    }
+                }
+                else if( "Endpoint".equals(name) ) {
+                    if( error.endpoint == null ) {
+                        error.endpoint = text(reader);
+                    }
+                }
+            }
+        }
+        catch( XMLStreamException e ) {
+            // keep whatever was found before the body stopped making sense
+            if( logger.isDebugEnabled() ) {
+                logger.debug("Unable to parse error response (" + status + "): " + e.getMessage());
+            }
+        }
+        finally {
+            AWSXmlStreams.close(reader);
+        }
+        error.errorType = toCloudErrorType(error.code);
+        return error;
+    }
+
+    /**
+     * Reads the error details from a response body which has already been read.
+     *
+     * @param status the HTTP status of the response
+     * @param body   the response body, may be null
+     * @return the error details
+     */
+    static public @Nonnull AWSErrorResponse parse( int status, @Nullable String body ) {
+        if( body == null ) {
+            return parse(status, ( InputStream ) null);
+        }
+        return parse(status, new ByteArrayInputStream(body.getBytes(Charset.forName("UTF-8"))));
+    }
+
+    static private @Nullable String text( @Nonnull XMLStreamReader reader ) throws XMLStreamException {
+        String value = reader.getElementText();
+
+        if( value == null ) {
+            return null;
+        }
+        value = value.trim();
+        return ( value.length() > 0 ? value : null );
+    }
+
+    private final int      status;
+    private String         code;
+    private String         message;
+    private String         requestId;
+    private String         type;
+    private String         endpoint;
+    private CloudErrorType errorType = CloudErrorType.GENERAL;
+
+    private AWSErrorResponse( int status ) {
+        this.status = status;
+    }
+
+    private boolean isComplete() {
+        if( code == null || message == null || requestId == null ) {
+            return false;
+        }
+        // S3 may put the endpoint of a redirect after the request ID
+        return ( endpoint != null || !REDIRECT_CODES.contains(code) );
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public @Nullable String getCode() {
+        return code;
+    }
+
+    public @Nullable String getMessage() {
+        return message;
+    }
+
+    public @Nullable String getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * @return the fault type (<code>Sender</code> or <code>Receiver</code>) reported by the query APIs
+     */
+    public @Nullable String getType() {
+        return type;
+    }
+
+    /**
+     * @return the endpoint to use instead, as reported by S3 with redirect errors
+     */
+    public @Nullable String getEndpoint() {
+        return endpoint;
+    }
+
+    public @Nonnull CloudErrorType getErrorType() {
+        return errorType;
+    }
+
+    public boolean isThrottling() {
+        return CloudErrorType.THROTTLING.equals(errorType);
+    }
+
+    public boolean isCapacity() {
+        return CloudErrorType.CAPACITY.equals(errorType);
+    }
+
+    /**
+     * @return true if neither an error code nor a message could be found in the body
+     */
+    public boolean isEmpty() {
+        return ( code == null && message == null );
+    }
+
+    @Override
+    public String toString() {
+        return status + "/" + requestId + "/" + code + ": " + message;
+    }
+}
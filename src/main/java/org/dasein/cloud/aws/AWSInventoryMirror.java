@@ -0,0 +1,847 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.cloud.compute.Snapshot;
+import org.dasein.cloud.compute.VirtualMachine;
+import org.dasein.cloud.compute.Volume;
+import org.dasein.cloud.network.Firewall;
+import org.dasein.cloud.network.FirewallRule;
+import org.dasein.cloud.network.IPVersion;
+import org.dasein.cloud.network.IpAddress;
+import org.dasein.cloud.network.IpAddressSupport;
+import org.dasein.cloud.network.NetworkServices;
+import org.dasein.cloud.network.RawAddress;
+import org.dasein.cloud.util.APITrace;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory mirror of the resources of one account in one region (those of the provider's context), so that
+ * callers who need to notice changes can read the mirror instead of listing the whole account every few seconds.
+ * <p>Each resource type is loaded through a {@link Feed} and reloaded on read once it is older than the staleness
+ * bound (custom property <code>inventoryMaxStaleness</code>, in milliseconds), on an explicit refresh, or by a
+ * background loop started with {@link #startPolling(long)}. Resources known to have changed can be refreshed on
+ * their own through an ID filter where the feed supports it. Each refresh is compared with the previous one and
+ * the differences are published to the registered listeners.</p>
+ * <p>Feeds are provided for virtual machines, volumes, snapshots, firewalls and IP addresses; others can be
+ * added with {@link #register(Feed)}.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSCloud#getInventoryMirror()
+ */
+public class AWSInventoryMirror {
+    static private final Logger logger = AWSCloud.getLogger(AWSInventoryMirror.class);
+
+    static public final String P_MAX_STALENESS       = "inventoryMaxStaleness";
+    static public final long   DEFAULT_MAX_STALENESS = 30000L;
+
+    static public final String VIRTUAL_MACHINE = "virtualMachine";
+    static public final String VOLUME          = "volume";
+    static public final String SNAPSHOT        = "snapshot";
+    static public final String FIREWALL        = "firewall";
+    static public final String IP_ADDRESS      = "ipAddress";
+
+    public enum ChangeType {
+        ADDED, CHANGED, REMOVED
+    }
+
+    /**
+     * A single resource which was added, changed or removed between two refreshes.
+     */
+    static public final class ChangeEvent {
+        private final String     resourceType;
+        private final String     resourceId;
+        private final ChangeType changeType;
+        private final Object     previous;
+        private final Object     current;
+
+        ChangeEvent( @Nonnull String resourceType, @Nonnull String resourceId, @Nonnull ChangeType changeType, @Nullable Object previous, @Nullable Object current ) {
+            this.resourceType = resourceType;
+            this.resourceId = resourceId;
+            this.changeType = changeType;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        public @Nonnull String getResourceType() {
+            return resourceType;
+        }
+
+        public @Nonnull String getResourceId() {
+            return resourceId;
+        }
+
+        public @Nonnull ChangeType getChangeType() {
+            return changeType;
+        }
+
+        /**
+         * @return the resource as of the previous refresh, null if it was added
+         */
+        public @Nullable Object getPrevious() {
+            return previous;
+        }
+
+        /**
+         * @return the resource as of this refresh, null if it was removed
+         */
+        public @Nullable Object getCurrent() {
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            return changeType + " " + resourceType + " " + resourceId;
+        }
+    }
+
+    /**
+     * Receives the changes found by each refresh.
+     */
+    public interface InventoryListener {
+        /**
+         * Called once per refresh which found any changes, on the thread which ran the refresh.
+         *
+         * @param events the changes, all of the same resource type
+         */
+        void inventoryChanged( @Nonnull List<ChangeEvent> events );
+    }
+
+    /**
+     * Loads the resources of one type from the cloud and tells them apart.
+     *
+     * @param <T> the type of resource
+     */
+    static public abstract class Feed<T> {
+        public abstract @Nonnull String getResourceType();
+
+        public abstract @Nonnull Class<T> getResourceClass();
+
+        /**
+         * @param provider the provider to load the resources with
+         * @return all resources of this type
+         * @throws CloudException an error occurred with the cloud provider
+         * @throws InternalException an error occurred within the Dasein Cloud implementation
+         */
+        public abstract @Nonnull Iterable<T> list( @Nonnull AWSCloud provider ) throws CloudException, InternalException;
+
+        /**
+         * Loads only the specified resources, using a server-side filter.
+         *
+         * @param provider the provider to load the resources with
+         * @param resourceIds the resources to load
+         * @return those of the resources which still exist, or null if this feed cannot filter by ID
+         * @throws CloudException an error occurred with the cloud provider
+         * @throws InternalException an error occurred within the Dasein Cloud implementation
+         */
+        public @Nullable Iterable<T> list( @Nonnull AWSCloud provider, @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+            return null;
+        }
+
+        public abstract @Nonnull String getId( @Nonnull T resource );
+
+        /**
+         * @param resource the resource
+         * @return a string which changes whenever anything of interest about the resource changes
+         */
+        public abstract @Nonnull String getFingerprint( @Nonnull T resource );
+    }
+
+    static public @Nonnull AWSInventoryMirror getInstance( @Nonnull AWSCloud provider ) {
+        ProviderContext ctx = provider.getContext();
+        long maxStaleness = DEFAULT_MAX_STALENESS;
+
+        if( ctx != null && ctx.getCustomProperties() != null ) {
+            String value = ctx.getCustomProperties().getProperty(P_MAX_STALENESS);
+
+            if( value != null ) {
+                try {
+                    maxStaleness = Long.parseLong(value.trim());
+                }
+                catch( NumberFormatException e ) {
+                    logger.warn("Invalid value for " + P_MAX_STALENESS + ": " + value);
+                }
+            }
+        }
+        AWSInventoryMirror mirror = new AWSInventoryMirror(provider, maxStaleness);
+
+        mirror.register(new VirtualMachineFeed());
+        mirror.register(new VolumeFeed());
+        mirror.register(new SnapshotFeed());
+        mirror.register(new FirewallFeed());
+        mirror.register(new IpAddressFeed());
+        return mirror;
+    }
+
+    /**
+     * Compares two refreshes of the same resource type.
+     *
+     * @return the resources added, changed and removed, in that order
+     */
+    static <T> List<ChangeEvent> diff( @Nonnull String resourceType, @Nonnull Map<String, T> oldItems, @Nonnull Map<String, String> oldPrints, @Nonnull Map<String, T> newItems, @Nonnull Map<String, String> newPrints ) {
+        List<ChangeEvent> added = new ArrayList<ChangeEvent>();
+        List<ChangeEvent> changed = new ArrayList<ChangeEvent>();
+        List<ChangeEvent> removed = new ArrayList<ChangeEvent>();
+
+        for( Map.Entry<String, T> entry : newItems.entrySet() ) {
+            String id = entry.getKey();
+            T previous = oldItems.get(id);
+
+            if( previous == null ) {
+                added.add(new ChangeEvent(resourceType, id, ChangeType.ADDED, null, entry.getValue()));
+            }
+            else if( !newPrints.get(id).equals(oldPrints.get(id)) ) {
+                changed.add(new ChangeEvent(resourceType, id, ChangeType.CHANGED, previous, entry.getValue()));
+            }
+        }
+        for( Map.Entry<String, T> entry : oldItems.entrySet() ) {
+            if( !newItems.containsKey(entry.getKey()) ) {
+                removed.add(new ChangeEvent(resourceType, entry.getKey(), ChangeType.REMOVED, entry.getValue(), null));
+            }
+        }
+        added.addAll(changed);
+        added.addAll(removed);
+        return added;
+    }
+
+    private final AWSCloud                   provider;
+    private final long                       maxStaleness;
+    private final Map<String, TypeMirror<?>> mirrors   = new ConcurrentHashMap<String, TypeMirror<?>>();
+    private final List<InventoryListener>    listeners = new CopyOnWriteArrayList<InventoryListener>();
+    private final Object                     pollLock  = new Object();
+    private long                             pollInterval;
+    private boolean                          polling;
+    private boolean                          pollRunning;
+    private ScheduledFuture<?>               nextPoll;
+
+    public AWSInventoryMirror( @Nonnull AWSCloud provider, long maxStaleness ) {
+        this.provider = provider;
+        this.maxStaleness = maxStaleness;
+    }
+
+    /**
+     * @return the number of milliseconds after which a resource type is reloaded on read
+     */
+    public long getMaximumStaleness() {
+        return maxStaleness;
+    }
+
+    /**
+     * Adds a resource type to the mirror, replacing any feed for the same type.
+     *
+     * @param feed the feed for the resource type
+     */
+    public void register( @Nonnull Feed<?> feed ) {
+        mirrors.put(feed.getResourceType(), newMirror(feed));
+    }
+
+    private <T> TypeMirror<T> newMirror( @Nonnull Feed<T> feed ) {
+        return new TypeMirror<T>(feed);
+    }
+
+    public void addListener( @Nonnull InventoryListener listener ) {
+        listeners.add(listener);
+    }
+
+    public void removeListener( @Nonnull InventoryListener listener ) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @param resourceType the resource type
+     * @return the time of the last full refresh of the type, or -1 if it has not been loaded yet
+     * @throws InternalException the resource type is not mirrored
+     */
+    public long getLastRefresh( @Nonnull String resourceType ) throws InternalException {
+        return getMirror(resourceType).lastRefresh;
+    }
+
+    public @Nonnull Collection<VirtualMachine> listVirtualMachines() throws CloudException, InternalException {
+        return list(VIRTUAL_MACHINE, VirtualMachine.class);
+    }
+
+    public @Nonnull Collection<Volume> listVolumes() throws CloudException, InternalException {
+        return list(VOLUME, Volume.class);
+    }
+
+    public @Nonnull Collection<Snapshot> listSnapshots() throws CloudException, InternalException {
+        return list(SNAPSHOT, Snapshot.class);
+    }
+
+    public @Nonnull Collection<Firewall> listFirewalls() throws CloudException, InternalException {
+        return list(FIREWALL, Firewall.class);
+    }
+
+    public @Nonnull Collection<IpAddress> listIpAddresses() throws CloudException, InternalException {
+        return list(IP_ADDRESS, IpAddress.class);
+    }
+
+    /**
+     * Lists the mirrored resources of a type, refreshing them first if they are older than the staleness bound.
+     *
+     * @param resourceType the resource type
+     * @param resourceClass the class of the resources
+     * @return the resources as of the last refresh
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException the resource type is not mirrored or an error occurred within the Dasein Cloud
+     * implementation
+     */
+    public @Nonnull <T> Collection<T> list( @Nonnull String resourceType, @Nonnull Class<T> resourceClass ) throws CloudException, InternalException {
+        TypeMirror<?> mirror = getMirror(resourceType);
+
+        if( !resourceClass.isAssignableFrom(mirror.feed.getResourceClass()) ) {
+            throw new InternalException("Resource type " + resourceType + " is mirrored as " + mirror.feed.getResourceClass().getName());
+        }
+        if( mirror.isStale() ) {
+            refresh(mirror, true);
+        }
+        List<T> list = new ArrayList<T>();
+
+        for( Object item : mirror.items.values() ) {
+            list.add(resourceClass.cast(item));
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Looks up a single mirrored resource, refreshing its type first if it is older than the staleness bound.
+     *
+     * @param resourceType the resource type
+     * @param resourceClass the class of the resource
+     * @param resourceId the resource ID
+     * @return the resource as of the last refresh, or null if it did not exist then
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException the resource type is not mirrored or an error occurred within the Dasein Cloud
+     * implementation
+     */
+    public @Nullable <T> T get( @Nonnull String resourceType, @Nonnull Class<T> resourceClass, @Nonnull String resourceId ) throws CloudException, InternalException {
+        TypeMirror<?> mirror = getMirror(resourceType);
+
+        if( mirror.isStale() ) {
+            refresh(mirror, true);
+        }
+        return resourceClass.cast(mirror.items.get(resourceId));
+    }
+
+    /**
+     * Reloads every mirrored resource type.
+     *
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public void refresh() throws CloudException, InternalException {
+        for( TypeMirror<?> mirror : mirrors.values() ) {
+            refresh(mirror, false);
+        }
+    }
+
+    /**
+     * Reloads one resource type.
+     *
+     * @param resourceType the resource type
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException the resource type is not mirrored or an error occurred within the Dasein Cloud
+     * implementation
+     */
+    public void refresh( @Nonnull String resourceType ) throws CloudException, InternalException {
+        refresh(getMirror(resourceType), false);
+    }
+
+    /**
+     * Reloads only the specified resources of a type, such as those just created or modified. Resources which no
+     * longer exist are removed from the mirror. If the type's feed cannot filter by ID, the whole type is reloaded.
+     *
+     * @param resourceType the resource type
+     * @param resourceIds the resources to reload
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException the resource type is not mirrored or an error occurred within the Dasein Cloud
+     * implementation
+     */
+    public void refresh( @Nonnull String resourceType, @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+        if( !resourceIds.isEmpty() ) {
+            refreshResources(getMirror(resourceType), resourceIds);
+        }
+    }
+
+    /**
+     * Starts reloading every resource type in the background, publishing changes to the listeners as they are
+     * found. Reads still refresh on their own if the loop falls behind the staleness bound. Each round of refreshes
+     * is started by a tick on the provider's scheduler and schedules the next one when it ends, so no thread is
+     * held between rounds.
+     *
+     * @param interval the time between the end of one round of refreshes and the start of the next, in milliseconds
+     * @throws IllegalStateException the provider has been closed
+     */
+    public void startPolling( long interval ) {
+        synchronized( pollLock ) {
+            pollInterval = interval;
+            polling = true;
+            if( pollRunning ) {
+                // the new interval applies from the end of the current round
+                return;
+            }
+            pollRunning = true;
+            provider.hold();
+            if( !schedulePoll(0L) ) {
+                throw new IllegalStateException("The provider has been closed");
+            }
+        }
+    }
+
+    public void stopPolling() {
+        synchronized( pollLock ) {
+            polling = false;
+            // a round in progress ends the loop itself
+            if( nextPoll != null && nextPoll.cancel(false) ) {
+                endPolling();
+            }
+        }
+    }
+
+    public boolean isPolling() {
+        synchronized( pollLock ) {
+            return polling;
+        }
+    }
+
+    /**
+     * Schedules the tick starting the next round, ending the loop if the provider has been closed. Must hold the
+     * poll lock.
+     *
+     * @return true if the tick was scheduled
+     */
+    private boolean schedulePoll( long delay ) {
+        try {
+            nextPoll = provider.getExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    startRound();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            return true;
+        }
+        catch( RuntimeException e ) {
+            logger.warn("Stopped polling the inventory: " + e.getMessage());
+            endPolling();
+            return false;
+        }
+    }
+
+    /**
+     * Must hold the poll lock.
+     */
+    private void endPolling() {
+        nextPoll = null;
+        polling = false;
+        pollRunning = false;
+        provider.release();
+    }
+
+    /**
+     * Hands a round of refreshes to the pool, since the feeds may wait on work of their own there and a scheduler
+     * tick must not.
+     */
+    private void startRound() {
+        synchronized( pollLock ) {
+            nextPoll = null;
+            if( !polling ) {
+                endPolling();
+                return;
+            }
+        }
+        try {
+            provider.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    poll();
+                }
+            });
+        }
+        catch( RuntimeException e ) {
+            synchronized( pollLock ) {
+                logger.warn("Stopped polling the inventory: " + e.getMessage());
+                endPolling();
+            }
+        }
+    }
+
+    /**
+     * Refreshes every resource type once and schedules the next round, or ends the loop if polling was stopped.
+     */
+    private void poll() {
+        for( TypeMirror<?> mirror : mirrors.values() ) {
+            if( !isPolling() ) {
+                break;
+            }
+            try {
+                refresh(mirror, false);
+            }
+            catch( Throwable t ) {
+                logger.warn("Unable to refresh the " + mirror.feed.getResourceType() + " mirror: " + t.getMessage());
+            }
+        }
+        synchronized( pollLock ) {
+            if( !polling ) {
+                endPolling();
+                return;
+            }
+            schedulePoll(pollInterval);
+        }
+    }
+
+    private @Nonnull TypeMirror<?> getMirror( @Nonnull String resourceType ) throws InternalException {
+        TypeMirror<?> mirror = mirrors.get(resourceType);
+
+        if( mirror == null ) {
+            throw new InternalException("Resource type " + resourceType + " is not mirrored");
+        }
+        return mirror;
+    }
+
+    private <T> void refresh( @Nonnull TypeMirror<T> mirror, boolean onlyIfStale ) throws CloudException, InternalException {
+        List<ChangeEvent> events;
+
+        synchronized( mirror.refreshLock ) {
+            // concurrent readers of a stale type wait for the first one's refresh instead of repeating it
+            if( onlyIfStale && !mirror.isStale() ) {
+                return;
+            }
+            APITrace.begin(provider, "InventoryMirror.refresh");
+            try {
+                Feed<T> feed = mirror.feed;
+                long started = System.currentTimeMillis();
+                Map<String, T> items = new LinkedHashMap<String, T>();
+                Map<String, String> prints = new LinkedHashMap<String, String>();
+
+                for( T item : feed.list(provider) ) {
+                    String id = feed.getId(item);
+
+                    items.put(id, item);
+                    prints.put(id, feed.getFingerprint(item));
+                }
+                events = diff(feed.getResourceType(), mirror.items, mirror.prints, items, prints);
+                mirror.items = items;
+                mirror.prints = prints;
+                mirror.lastRefresh = started;
+            }
+            finally {
+                APITrace.end();
+            }
+        }
+        publish(events);
+    }
+
+    private <T> void refreshResources( @Nonnull TypeMirror<T> mirror, @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+        List<ChangeEvent> events;
+
+        synchronized( mirror.refreshLock ) {
+            APITrace.begin(provider, "InventoryMirror.refreshResources");
+            try {
+                Feed<T> feed = mirror.feed;
+                Iterable<T> found = feed.list(provider, resourceIds);
+
+                if( found == null ) {
+                    events = null;
+                }
+                else {
+                    Map<String, T> oldItems = new LinkedHashMap<String, T>();
+                    Map<String, T> newItems = new LinkedHashMap<String, T>();
+                    Map<String, String> newPrints = new LinkedHashMap<String, String>();
+
+                    for( String id : resourceIds ) {
+                        T item = mirror.items.get(id);
+
+                        if( item != null ) {
+                            oldItems.put(id, item);
+                        }
+                    }
+                    for( T item : found ) {
+                        String id = feed.getId(item);
+
+                        newItems.put(id, item);
+                        newPrints.put(id, feed.getFingerprint(item));
+                    }
+                    events = diff(feed.getResourceType(), oldItems, mirror.prints, newItems, newPrints);
+
+                    Map<String, T> items = new LinkedHashMap<String, T>(mirror.items);
+                    Map<String, String> prints = new LinkedHashMap<String, String>(mirror.prints);
+
+                    for( String id : resourceIds ) {
+                        items.remove(id);
+                        prints.remove(id);
+                    }
+                    items.putAll(newItems);
+                    prints.putAll(newPrints);
+                    mirror.items = items;
+                    mirror.prints = prints;
+                }
+            }
+            finally {
+                APITrace.end();
+            }
+        }
+        if( events == null ) {
+            refresh(mirror, false);
+        }
+        else {
+            publish(events);
+        }
+    }
+
+    private void publish( @Nonnull List<ChangeEvent> events ) {
+        if( events.isEmpty() ) {
+            return;
+        }
+        List<ChangeEvent> list = Collections.unmodifiableList(events);
+
+        for( InventoryListener listener : listeners ) {
+            try {
+                listener.inventoryChanged(list);
+            }
+            catch( Throwable t ) {
+                logger.warn("Inventory listener " + listener + " failed: " + t.getMessage(), t);
+            }
+        }
+    }
+
+    /**
+     * The current contents of the mirror for one resource type. The maps are replaced, never modified, so readers
+     * need no locking.
+     */
+    private final class TypeMirror<T> {
+        private final Feed<T>                feed;
+        private final Object                 refreshLock = new Object();
+        private volatile Map<String, T>      items       = Collections.emptyMap();
+        private volatile Map<String, String> prints      = Collections.emptyMap();
+        private volatile long                lastRefresh = -1L;
+
+        TypeMirror( @Nonnull Feed<T> feed ) {
+            this.feed = feed;
+        }
+
+        boolean isStale() {
+            long last = lastRefresh;
+
+            return ( last < 0L || System.currentTimeMillis() - last > maxStaleness );
+        }
+    }
+
+    static private @Nonnull String toAddressList( @Nullable RawAddress[] addresses ) {
+        TreeSet<String> ips = new TreeSet<String>();
+
+        if( addresses != null ) {
+            for( RawAddress address : addresses ) {
+                ips.add(address.getIpAddress());
+            }
+        }
+        return ips.toString();
+    }
+
+    static private @Nonnull String toTagList( @Nullable Map<String, String> tags ) {
+        return ( tags == null ? "{}" : new TreeMap<String, String>(tags).toString() );
+    }
+
+    static private final class VirtualMachineFeed extends Feed<VirtualMachine> {
+        @Override
+        public @Nonnull String getResourceType() {
+            return VIRTUAL_MACHINE;
+        }
+
+        @Override
+        public @Nonnull Class<VirtualMachine> getResourceClass() {
+            return VirtualMachine.class;
+        }
+
+        @Override
+        public @Nonnull Iterable<VirtualMachine> list( @Nonnull AWSCloud provider ) throws CloudException, InternalException {
+            return provider.getComputeServices().getVirtualMachineSupport().listVirtualMachines();
+        }
+
+        @Override
+        public @Nullable Iterable<VirtualMachine> list( @Nonnull AWSCloud provider, @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+            return provider.getComputeServices().getVirtualMachineSupport().describeInstancesByFilter(resourceIds);
+        }
+
+        @Override
+        public @Nonnull String getId( @Nonnull VirtualMachine resource ) {
+            return resource.getProviderVirtualMachineId();
+        }
+
+        @Override
+        public @Nonnull String getFingerprint( @Nonnull VirtualMachine resource ) {
+            return resource.getCurrentState() + "|" + resource.getName() + "|" + resource.getProductId() + "|" + toAddressList(resource.getPublicAddresses()) + "|" + toAddressList(resource.getPrivateAddresses()) + "|" + toTagList(resource.getTags());
+        }
+    }
+
+    static private final class VolumeFeed extends Feed<Volume> {
+        @Override
+        public @Nonnull String getResourceType() {
+            return VOLUME;
+        }
+
+        @Override
+        public @Nonnull Class<Volume> getResourceClass() {
+            return Volume.class;
+        }
+
+        @Override
+        public @Nonnull Iterable<Volume> list( @Nonnull AWSCloud provider ) throws CloudException, InternalException {
+            return provider.getComputeServices().getVolumeSupport().listVolumes();
+        }
+
+        @Override
+        public @Nullable Iterable<Volume> list( @Nonnull AWSCloud provider, @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+            return provider.getComputeServices().getVolumeSupport().describeVolumesByFilter(resourceIds);
+        }
+
+        @Override
+        public @Nonnull String getId( @Nonnull Volume resource ) {
+            return resource.getProviderVolumeId();
+        }
+
+        @Override
+        public @Nonnull String getFingerprint( @Nonnull Volume resource ) {
+            return resource.getCurrentState() + "|" + resource.getName() + "|" + resource.getSize() + "|" + resource.getProviderVirtualMachineId() + "|" + resource.getDeviceId() + "|" + toTagList(resource.getTags());
+        }
+    }
+
+    static private final class SnapshotFeed extends Feed<Snapshot> {
+        @Override
+        public @Nonnull String getResourceType() {
+            return SNAPSHOT;
+        }
+
+        @Override
+        public @Nonnull Class<Snapshot> getResourceClass() {
+            return Snapshot.class;
+        }
+
+        @Override
+        public @Nonnull Iterable<Snapshot> list( @Nonnull AWSCloud provider ) throws CloudException, InternalException {
+            return provider.getComputeServices().getSnapshotSupport().listSnapshots();
+        }
+
+        @Override
+        public @Nullable Iterable<Snapshot> list( @Nonnull AWSCloud provider, @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+            return provider.getComputeServices().getSnapshotSupport().describeSnapshotsByFilter(resourceIds);
+        }
+
+        @Override
+        public @Nonnull String getId( @Nonnull Snapshot resource ) {
+            return resource.getProviderSnapshotId();
+        }
+
+        @Override
+        public @Nonnull String getFingerprint( @Nonnull Snapshot resource ) {
+            return resource.getCurrentState() + "|" + resource.getName() + "|" + resource.getProgress() + "|" + toTagList(resource.getTags());
+        }
+    }
+
+    static private final class FirewallFeed extends Feed<Firewall> {
+        @Override
+        public @Nonnull String getResourceType() {
+            return FIREWALL;
+        }
+
+        @Override
+        public @Nonnull Class<Firewall> getResourceClass() {
+            return Firewall.class;
+        }
+
+        @Override
+        public @Nonnull Iterable<Firewall> list( @Nonnull AWSCloud provider ) throws CloudException, InternalException {
+            NetworkServices services = provider.getNetworkServices();
+
+            if( services == null ) {
+                return Collections.emptyList();
+            }
+            return services.getFirewallSupport().list();
+        }
+
+        @Override
+        public @Nonnull String getId( @Nonnull Firewall resource ) {
+            return resource.getProviderFirewallId();
+        }
+
+        @Override
+        public @Nonnull String getFingerprint( @Nonnull Firewall resource ) {
+            TreeSet<String> rules = new TreeSet<String>();
+
+            if( resource.getRules() != null ) {
+                for( FirewallRule rule : resource.getRules() ) {
+                    rules.add(rule.getProviderRuleId());
+                }
+            }
+            return resource.getName() + "|" + resource.getDescription() + "|" + resource.getProviderVlanId() + "|" + rules + "|" + toTagList(resource.getTags());
+        }
+    }
+
+    static private final class IpAddressFeed extends Feed<IpAddress> {
+        @Override
+        public @Nonnull String getResourceType() {
+            return IP_ADDRESS;
+        }
+
+        @Override
+        public @Nonnull Class<IpAddress> getResourceClass() {
+            return IpAddress.class;
+        }
+
+        @Override
+        public @Nonnull Iterable<IpAddress> list( @Nonnull AWSCloud provider ) throws CloudException, InternalException {
+            NetworkServices services = provider.getNetworkServices();
+            IpAddressSupport support = ( services == null ? null : services.getIpAddressSupport() );
+
+            if( support == null ) {
+                return Collections.emptyList();
+            }
+            return support.listIpPool(IPVersion.IPV4, false);
+        }
+
+        @Override
+        public @Nonnull String getId( @Nonnull IpAddress resource ) {
+            return resource.getProviderIpAddressId();
+        }
+
+        @Override
+        public @Nonnull String getFingerprint( @Nonnull IpAddress resource ) {
+            return resource.getAddress() + "|" + resource.getServerId() + "|" + resource.getProviderLoadBalancerId() + "|" + resource.getProviderNetworkInterfaceId();
+        }
+    }
+}
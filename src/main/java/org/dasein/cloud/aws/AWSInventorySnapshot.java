@@ -0,0 +1,678 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.Taggable;
+import org.dasein.cloud.compute.Architecture;
+import org.dasein.cloud.compute.Platform;
+import org.dasein.cloud.compute.Snapshot;
+import org.dasein.cloud.compute.SnapshotState;
+import org.dasein.cloud.compute.VirtualMachine;
+import org.dasein.cloud.compute.VmState;
+import org.dasein.cloud.compute.Volume;
+import org.dasein.cloud.compute.VolumeFormat;
+import org.dasein.cloud.compute.VolumeState;
+import org.dasein.cloud.compute.VolumeType;
+import org.dasein.cloud.network.AddressType;
+import org.dasein.cloud.network.Firewall;
+import org.dasein.cloud.network.IPVersion;
+import org.dasein.cloud.network.IpAddress;
+import org.dasein.cloud.network.RawAddress;
+import org.dasein.util.uom.storage.Gigabyte;
+import org.dasein.util.uom.storage.Storage;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of the resources of an account in one region, in a compact binary form for reporting and
+ * analytics jobs which would otherwise serialize the full objects.
+ * <p>Every string (IDs, names, states, zones, products, tag keys and values) is stored once in a dictionary and
+ * referred to by index; numbers are stored as variable length integers. A snapshot file can be memory-mapped and
+ * decoded without copying it onto the heap first. The format starts with a magic number and a version, and readers
+ * reject versions newer than their own.</p>
+ * <p>Only the descriptive state of each resource is kept: firewall rules, attached volume details, passwords and
+ * similar values which need further API calls are not part of a snapshot.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public class AWSInventorySnapshot {
+    static public final int   MAGIC   = 0x44434953; // "DCIS"
+    static public final short VERSION = 1;
+
+    static private final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Captures the resources of the provider's account and region, as served by its inventory mirror.
+     *
+     * @param provider the provider to capture the resources of
+     * @return the snapshot
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    static public @Nonnull AWSInventorySnapshot capture( @Nonnull AWSCloud provider ) throws CloudException, InternalException {
+        AWSInventoryMirror mirror = provider.getInventoryMirror();
+
+        return new AWSInventorySnapshot(System.currentTimeMillis(), mirror.listVirtualMachines(), mirror.listVolumes(), mirror.listSnapshots(), mirror.listFirewalls(), mirror.listIpAddresses());
+    }
+
+    /**
+     * Reads a snapshot by memory-mapping the file.
+     *
+     * @param file the snapshot file
+     * @return the snapshot
+     * @throws InternalException the file could not be read or is not a snapshot of a supported version
+     */
+    static public @Nonnull AWSInventorySnapshot read( @Nonnull File file ) throws InternalException {
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+            try {
+                FileChannel channel = raf.getChannel();
+
+                return read(channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size()));
+            }
+            finally {
+                raf.close();
+            }
+        }
+        catch( IOException e ) {
+            throw new InternalException(e);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a stream, which is read to its end but not closed.
+     *
+     * @param input the stream to read from
+     * @return the snapshot
+     * @throws InternalException the stream could not be read or does not hold a snapshot of a supported version
+     */
+    static public @Nonnull AWSInventorySnapshot read( @Nonnull InputStream input ) throws InternalException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+
+        try {
+            while( (count = input.read(buffer)) > -1 ) {
+                bytes.write(buffer, 0, count);
+            }
+        }
+        catch( IOException e ) {
+            throw new InternalException(e);
+        }
+        return read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    /**
+     * @param buffer the encoded snapshot, from its current position
+     * @return the snapshot
+     * @throws InternalException the buffer does not hold a snapshot of a supported version
+     */
+    static public @Nonnull AWSInventorySnapshot read( @Nonnull ByteBuffer buffer ) throws InternalException {
+        try {
+            return new Reader(buffer).read();
+        }
+        catch( BufferUnderflowException e ) {
+            throw new InternalException("Inventory snapshot is truncated");
+        }
+        catch( IllegalArgumentException e ) {
+            throw new InternalException("Inventory snapshot is corrupt: " + e.getMessage());
+        }
+    }
+
+    private final long                 timestamp;
+    private final List<VirtualMachine> virtualMachines;
+    private final List<Volume>         volumes;
+    private final List<Snapshot>       snapshots;
+    private final List<Firewall>       firewalls;
+    private final List<IpAddress>      ipAddresses;
+
+    public AWSInventorySnapshot( long timestamp, @Nonnull Collection<VirtualMachine> virtualMachines, @Nonnull Collection<Volume> volumes, @Nonnull Collection<Snapshot> snapshots, @Nonnull Collection<Firewall> firewalls, @Nonnull Collection<IpAddress> ipAddresses ) {
+        this.timestamp = timestamp;
+        this.virtualMachines = Collections.unmodifiableList(new ArrayList<VirtualMachine>(virtualMachines));
+        this.volumes = Collections.unmodifiableList(new ArrayList<Volume>(volumes));
+        this.snapshots = Collections.unmodifiableList(new ArrayList<Snapshot>(snapshots));
+        this.firewalls = Collections.unmodifiableList(new ArrayList<Firewall>(firewalls));
+        this.ipAddresses = Collections.unmodifiableList(new ArrayList<IpAddress>(ipAddresses));
+    }
+
+    /**
+     * @return the time the resources were captured
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public @Nonnull List<VirtualMachine> getVirtualMachines() {
+        return virtualMachines;
+    }
+
+    public @Nonnull List<Volume> getVolumes() {
+        return volumes;
+    }
+
+    public @Nonnull List<Snapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    public @Nonnull List<Firewall> getFirewalls() {
+        return firewalls;
+    }
+
+    public @Nonnull List<IpAddress> getIpAddresses() {
+        return ipAddresses;
+    }
+
+    public void write( @Nonnull File file ) throws InternalException {
+        try {
+            OutputStream output = new BufferedOutputStream(new FileOutputStream(file));
+
+            try {
+                write(output);
+            }
+            finally {
+                output.close();
+            }
+        }
+        catch( IOException e ) {
+            throw new InternalException(e);
+        }
+    }
+
+    /**
+     * Encodes this snapshot. The stream is flushed but not closed.
+     *
+     * @param output the stream to write to
+     * @throws InternalException the snapshot could not be written
+     */
+    public void write( @Nonnull OutputStream output ) throws InternalException {
+        try {
+            new Writer().write(output);
+        }
+        catch( IOException e ) {
+            throw new InternalException(e);
+        }
+    }
+
+    /**
+     * Encodes the records first, collecting the dictionary along the way, then writes the header, the dictionary
+     * and the records.
+     */
+    private final class Writer {
+        private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+        private final List<String>         strings    = new ArrayList<String>();
+        private final ByteArrayOutputStream body      = new ByteArrayOutputStream();
+
+        void write( @Nonnull OutputStream output ) throws IOException {
+            varint(virtualMachines.size());
+            for( VirtualMachine vm : virtualMachines ) {
+                string(vm.getProviderVirtualMachineId());
+                string(vm.getName());
+                string(vm.getDescription());
+                string(vm.getCurrentState() == null ? null : vm.getCurrentState().name());
+                string(vm.getProductId());
+                string(vm.getProviderOwnerId());
+                string(vm.getProviderRegionId());
+                string(vm.getProviderDataCenterId());
+                string(vm.getProviderMachineImageId());
+                string(vm.getArchitecture() == null ? null : vm.getArchitecture().name());
+                string(vm.getPlatform() == null ? null : vm.getPlatform().name());
+                string(vm.getProviderVlanId());
+                string(vm.getProviderSubnetId());
+                string(vm.getProviderKeypairId());
+                string(vm.getPublicDnsAddress());
+                string(vm.getPrivateDnsAddress());
+                addresses(vm.getPublicAddresses());
+                addresses(vm.getPrivateAddresses());
+                strings(vm.getProviderFirewallIds());
+                varlong(vm.getCreationTimestamp());
+                varlong(vm.getLastBootTimestamp());
+                body.write(vm.isPersistent() ? 1 : 0);
+                tags(vm);
+            }
+            varint(volumes.size());
+            for( Volume volume : volumes ) {
+                string(volume.getProviderVolumeId());
+                string(volume.getName());
+                string(volume.getDescription());
+                string(volume.getCurrentState() == null ? null : volume.getCurrentState().name());
+                string(volume.getProviderProductId());
+                string(volume.getProviderRegionId());
+                string(volume.getProviderDataCenterId());
+                string(volume.getProviderVirtualMachineId());
+                string(volume.getDeviceId());
+                string(volume.getProviderSnapshotId());
+                string(volume.getType() == null ? null : volume.getType().name());
+                string(volume.getFormat() == null ? null : volume.getFormat().name());
+                varlong(volume.getSize() == null ? -1L : volume.getSize().getQuantity().longValue());
+                varlong(volume.getIops());
+                varlong(volume.getCreationTimestamp());
+                body.write((volume.isRootVolume() ? 1 : 0) | (volume.isDeleteOnVirtualMachineTermination() ? 2 : 0));
+                tags(volume);
+            }
+            varint(snapshots.size());
+            for( Snapshot snapshot : snapshots ) {
+                string(snapshot.getProviderSnapshotId());
+                string(snapshot.getName());
+                string(snapshot.getDescription());
+                string(snapshot.getCurrentState() == null ? null : snapshot.getCurrentState().name());
+                string(snapshot.getOwner());
+                string(snapshot.getRegionId());
+                string(snapshot.getVolumeId());
+                string(snapshot.getProgress());
+                varlong(snapshot.getSizeInGb());
+                varlong(snapshot.getSnapshotTimestamp());
+                tags(snapshot);
+            }
+            varint(firewalls.size());
+            for( Firewall firewall : firewalls ) {
+                string(firewall.getProviderFirewallId());
+                string(firewall.getName());
+                string(firewall.getDescription());
+                string(firewall.getRegionId());
+                string(firewall.getProviderVlanId());
+                body.write((firewall.isActive() ? 1 : 0) | (firewall.isAvailable() ? 2 : 0));
+                tags(firewall);
+            }
+            varint(ipAddresses.size());
+            for( IpAddress address : ipAddresses ) {
+                string(address.getProviderIpAddressId());
+                string(address.getAddress());
+                string(address.getRegionId());
+                string(address.getServerId());
+                string(address.getProviderLoadBalancerId());
+                string(address.getProviderNetworkInterfaceId());
+                string(address.getAddressType() == null ? null : address.getAddressType().name());
+                string(address.getVersion() == null ? null : address.getVersion().name());
+                body.write(address.isForVlan() ? 1 : 0);
+            }
+
+            DataOutputStream out = new DataOutputStream(output);
+
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(timestamp);
+            writeUnsigned(out, strings.size());
+            for( String s : strings ) {
+                byte[] bytes = s.getBytes(UTF8);
+
+                writeUnsigned(out, bytes.length);
+                out.write(bytes);
+            }
+            body.writeTo(out);
+            out.flush();
+        }
+
+        /**
+         * Writes a dictionary reference: 0 for null, otherwise the string's position in the dictionary plus one.
+         */
+        private void string( @Nullable String s ) {
+            if( s == null ) {
+                varint(0);
+                return;
+            }
+            Integer index = dictionary.get(s);
+
+            if( index == null ) {
+                strings.add(s);
+                index = strings.size();
+                dictionary.put(s, index);
+            }
+            varint(index);
+        }
+
+        private void strings( @Nullable String[] values ) {
+            if( values == null ) {
+                varint(0);
+                return;
+            }
+            varint(values.length);
+            for( String value : values ) {
+                string(value);
+            }
+        }
+
+        private void addresses( @Nullable RawAddress[] addresses ) {
+            if( addresses == null ) {
+                varint(0);
+                return;
+            }
+            varint(addresses.length);
+            for( RawAddress address : addresses ) {
+                string(address.getIpAddress());
+            }
+        }
+
+        private void tags( @Nonnull Taggable item ) {
+            Map<String, String> tags = item.getTags();
+
+            if( tags == null ) {
+                varint(0);
+                return;
+            }
+            varint(tags.size());
+            for( Map.Entry<String, String> tag : tags.entrySet() ) {
+                string(tag.getKey());
+                string(tag.getValue());
+            }
+        }
+
+        private void varint( int value ) {
+            try {
+                writeUnsigned(body, value);
+            }
+            catch( IOException e ) {
+                // can't happen writing to memory
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void varlong( long value ) {
+            try {
+                writeVarlong(body, value);
+            }
+            catch( IOException e ) {
+                // can't happen writing to memory
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes a zig-zag encoded variable length integer, so that small positive and negative values (such as -1
+     * for "unknown") take a single byte.
+     */
+    static private void writeVarlong( @Nonnull OutputStream out, long value ) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Writes a variable length integer of seven bits per byte, used for counts and dictionary references.
+     */
+    static private void writeUnsigned( @Nonnull OutputStream out, long value ) throws IOException {
+        long v = value;
+
+        while( (v & ~0x7FL) != 0L ) {
+            out.write((int)((v & 0x7FL) | 0x80L));
+            v >>>= 7;
+        }
+        out.write((int)v);
+    }
+
+    static private final class Reader {
+        private final ByteBuffer buffer;
+        private String[]         strings;
+
+        Reader( @Nonnull ByteBuffer buffer ) {
+            this.buffer = buffer;
+        }
+
+        @Nonnull AWSInventorySnapshot read() throws InternalException {
+            if( buffer.getInt() != MAGIC ) {
+                throw new InternalException("Not an inventory snapshot");
+            }
+            short version = buffer.getShort();
+
+            if( version < 1 || version > VERSION ) {
+                throw new InternalException("Unsupported inventory snapshot version " + version + "; this reader supports up to " + VERSION);
+            }
+            long timestamp = buffer.getLong();
+            int count = varint();
+
+            strings = new String[count + 1];
+            for( int i = 1; i <= count; i++ ) {
+                byte[] bytes = new byte[varint()];
+
+                buffer.get(bytes);
+                strings[i] = new String(bytes, UTF8);
+            }
+
+            count = varint();
+            List<VirtualMachine> vms = new ArrayList<VirtualMachine>(count);
+
+            for( int i = 0; i < count; i++ ) {
+                VirtualMachine vm = new VirtualMachine();
+                String s;
+
+                vm.setProviderVirtualMachineId(string());
+                vm.setName(string());
+                vm.setDescription(string());
+                s = string();
+                vm.setCurrentState(s == null ? null : VmState.valueOf(s));
+                vm.setProductId(string());
+                vm.setProviderOwnerId(string());
+                vm.setProviderRegionId(string());
+                vm.setProviderDataCenterId(string());
+                vm.setProviderMachineImageId(string());
+                s = string();
+                vm.setArchitecture(s == null ? null : Architecture.valueOf(s));
+                s = string();
+                vm.setPlatform(s == null ? null : Platform.valueOf(s));
+                vm.setProviderVlanId(string());
+                vm.setProviderSubnetId(string());
+                vm.setProviderKeypairId(string());
+                vm.setPublicDnsAddress(string());
+                vm.setPrivateDnsAddress(string());
+                vm.setPublicAddresses(addresses());
+                vm.setPrivateAddresses(addresses());
+                vm.setProviderFirewallIds(strings());
+                vm.setCreationTimestamp(varlong());
+                vm.setLastBootTimestamp(varlong());
+                vm.setPersistent(buffer.get() != 0);
+                tags(vm);
+                vms.add(vm);
+            }
+
+            count = varint();
+            List<Volume> volumes = new ArrayList<Volume>(count);
+
+            for( int i = 0; i < count; i++ ) {
+                Volume volume = new Volume();
+                String s;
+                long size;
+                int flags;
+
+                volume.setProviderVolumeId(string());
+                volume.setName(string());
+                volume.setDescription(string());
+                s = string();
+                volume.setCurrentState(s == null ? null : VolumeState.valueOf(s));
+                volume.setProviderProductId(string());
+                volume.setProviderRegionId(string());
+                volume.setProviderDataCenterId(string());
+                volume.setProviderVirtualMachineId(string());
+                volume.setDeviceId(string());
+                volume.setProviderSnapshotId(string());
+                s = string();
+                volume.setType(s == null ? null : VolumeType.valueOf(s));
+                s = string();
+                volume.setFormat(s == null ? null : VolumeFormat.valueOf(s));
+                size = varlong();
+                if( size > -1L ) {
+                    volume.setSize(new Storage<Gigabyte>(size, Storage.GIGABYTE));
+                }
+                volume.setIops((int)varlong());
+                volume.setCreationTimestamp(varlong());
+                flags = buffer.get();
+                volume.setRootVolume((flags & 1) != 0);
+                volume.setDeleteOnVirtualMachineTermination((flags & 2) != 0);
+                tags(volume);
+                volumes.add(volume);
+            }
+
+            count = varint();
+            List<Snapshot> snapshots = new ArrayList<Snapshot>(count);
+
+            for( int i = 0; i < count; i++ ) {
+                Snapshot snapshot = new Snapshot();
+                String s;
+
+                snapshot.setProviderSnapshotId(string());
+                snapshot.setName(string());
+                snapshot.setDescription(string());
+                s = string();
+                snapshot.setCurrentState(s == null ? null : SnapshotState.valueOf(s));
+                snapshot.setOwner(string());
+                snapshot.setRegionId(string());
+                snapshot.setVolumeId(string());
+                snapshot.setProgress(string());
+                snapshot.setSizeInGb((int)varlong());
+                snapshot.setSnapshotTimestamp(varlong());
+                tags(snapshot);
+                snapshots.add(snapshot);
+            }
+
+            count = varint();
+            List<Firewall> firewalls = new ArrayList<Firewall>(count);
+
+            for( int i = 0; i < count; i++ ) {
+                Firewall firewall = new Firewall();
+                int flags;
+
+                firewall.setProviderFirewallId(string());
+                firewall.setName(string());
+                firewall.setDescription(string());
+                firewall.setRegionId(string());
+                firewall.setProviderVlanId(string());
+                flags = buffer.get();
+                firewall.setActive((flags & 1) != 0);
+                firewall.setAvailable((flags & 2) != 0);
+                tags(firewall);
+                firewalls.add(firewall);
+            }
+
+            count = varint();
+            List<IpAddress> addresses = new ArrayList<IpAddress>(count);
+
+            for( int i = 0; i < count; i++ ) {
+                IpAddress address = new IpAddress();
+                String s;
+
+                address.setIpAddressId(string());
+                address.setAddress(string());
+                address.setRegionId(string());
+                address.setServerId(string());
+                address.setProviderLoadBalancerId(string());
+                address.setProviderNetworkInterfaceId(string());
+                s = string();
+                address.setAddressType(s == null ? null : AddressType.valueOf(s));
+                s = string();
+                address.setVersion(s == null ? null : IPVersion.valueOf(s));
+                address.setForVlan(buffer.get() != 0);
+                addresses.add(address);
+            }
+            return new AWSInventorySnapshot(timestamp, vms, volumes, snapshots, firewalls, addresses);
+        }
+
+        private @Nullable String string() {
+            int index = varint();
+
+            if( index >= strings.length ) {
+                throw new IllegalArgumentException("dictionary reference " + index + " out of range");
+            }
+            return strings[index];
+        }
+
+        private @Nonnull String[] strings() {
+            String[] values = new String[varint()];
+
+            for( int i = 0; i < values.length; i++ ) {
+                values[i] = string();
+            }
+            return values;
+        }
+
+        private @Nonnull RawAddress[] addresses() {
+            RawAddress[] addresses = new RawAddress[varint()];
+
+            for( int i = 0; i < addresses.length; i++ ) {
+                addresses[i] = new RawAddress(string());
+            }
+            return addresses;
+        }
+
+        private void tags( @Nonnull Taggable item ) {
+            int count = varint();
+
+            for( int i = 0; i < count; i++ ) {
+                String key = string();
+                String value = string();
+
+                if( key != null && value != null ) {
+                    item.setTag(key, value);
+                }
+            }
+        }
+
+        private int varint() {
+            long value = unsigned();
+
+            if( value < 0L || value > Integer.MAX_VALUE ) {
+                throw new IllegalArgumentException("count " + value + " out of range");
+            }
+            return (int)value;
+        }
+
+        private long varlong() {
+            long v = unsigned();
+
+            return (v >>> 1) ^ -(v & 1L);
+        }
+
+        private long unsigned() {
+            long v = 0L;
+            int shift = 0;
+            byte b;
+
+            do {
+                if( shift > 63 ) {
+                    throw new IllegalArgumentException("malformed variable length integer");
+                }
+                b = buffer.get();
+                v |= (long)(b & 0x7F) << shift;
+                shift += 7;
+            } while( (b & 0x80) != 0 );
+            return v;
+        }
+    }
+}
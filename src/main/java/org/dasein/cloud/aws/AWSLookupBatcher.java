@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Merges concurrent single-resource lookups into batched describe calls. The first lookup of a resource type opens a
+ * batch and holds it open for a few milliseconds (the {@value #P_WINDOW} custom property); every lookup of the same
+ * type arriving in the meantime joins the batch, and the first caller then makes one describe call for all of them
+ * and hands each waiting caller its own result. A batch which fills up is looked up straight away.
+ * <p>Batching is opt-in: with no window configured {@link #isEnabled()} is false and callers are expected to make
+ * their usual single-resource call instead.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSCloud#getLookupBatcher()
+ */
+public class AWSLookupBatcher {
+    static private final Logger logger = AWSCloud.getLogger(AWSLookupBatcher.class);
+
+    static public final String P_WINDOW = "lookupBatchWindow";
+
+    /**
+     * Looks up many resources of one type at once.
+     */
+    public interface BatchLoader<T> {
+        /**
+         * @return the resource type; lookups of the same type share batches
+         */
+        @Nonnull String getResourceType();
+
+        /**
+         * @return the largest number of resources to look up in a single call
+         */
+        int getMaximumBatchSize();
+
+        /**
+         * @param resourceIds the resources to look up
+         * @return the resources found, keyed by their IDs; resources missing from the map do not exist
+         * @throws CloudException an error occurred with the cloud provider
+         * @throws InternalException an error occurred within the Dasein Cloud implementation
+         */
+        @Nonnull Map<String, T> load( @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException;
+    }
+
+    private final Map<String, Batch<?>> batches = new HashMap<String, Batch<?>>();
+    private final AtomicLong            calls   = new AtomicLong(0L);
+    private final long                  window;
+
+    public AWSLookupBatcher( long window ) {
+        this.window = window;
+    }
+
+    static public @Nonnull AWSLookupBatcher getInstance( @Nonnull AWSCloud provider ) {
+        ProviderContext ctx = provider.getContext();
+        Properties props = ( ctx == null ? null : ctx.getCustomProperties() );
+        long window = 0L;
+
+        if( props != null && props.getProperty(P_WINDOW) != null ) {
+            try {
+                window = Long.parseLong(props.getProperty(P_WINDOW).trim());
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Invalid value for " + P_WINDOW + ": " + props.getProperty(P_WINDOW));
+            }
+        }
+        return new AWSLookupBatcher(window);
+    }
+
+    /**
+     * @return true if single-resource lookups should go through this batcher
+     */
+    public boolean isEnabled() {
+        return ( window > 0L );
+    }
+
+    /**
+     * @return the number of batched describe calls made so far
+     */
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    /**
+     * Looks up a single resource as part of a batch.
+     *
+     * @param loader the loader for the type of resource
+     * @param resourceId the resource to look up
+     * @return the resource, or null if it does not exist
+     * @throws CloudException the batched call failed with the cloud provider
+     * @throws InternalException the batched call failed within the Dasein Cloud implementation
+     */
+    public @Nullable <T> T get( @Nonnull BatchLoader<T> loader, @Nonnull String resourceId ) throws CloudException, InternalException {
+        String type = loader.getResourceType();
+        boolean leader = false;
+        Batch<T> batch;
+
+        synchronized( batches ) {
+            //noinspection unchecked
+            batch = ( Batch<T> ) batches.get(type);
+            if( batch == null ) {
+                batch = new Batch<T>();
+                batches.put(type, batch);
+                leader = true;
+            }
+            batch.resourceIds.add(resourceId);
+            if( batch.resourceIds.size() >= loader.getMaximumBatchSize() ) {
+                close(type, batch);
+            }
+        }
+        if( leader ) {
+            collect(type, batch);
+            load(loader, batch);
+        }
+        else {
+            try {
+                batch.done.await();
+            }
+            catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new CloudException("Interrupted while looking up " + resourceId);
+            }
+        }
+        if( batch.cloudFailure != null ) {
+            throw batch.cloudFailure;
+        }
+        if( batch.internalFailure != null ) {
+            throw batch.internalFailure;
+        }
+        return batch.results.get(resourceId);
+    }
+
+    /**
+     * Holds the batch open for the window, or until it fills up.
+     */
+    private void collect( @Nonnull String type, @Nonnull Batch<?> batch ) {
+        long deadline = System.currentTimeMillis() + window;
+        boolean interrupted = false;
+
+        synchronized( batches ) {
+            long remaining;
+
+            while( !batch.closed && (remaining = deadline - System.currentTimeMillis()) > 0L ) {
+                try {
+                    batches.wait(remaining);
+                }
+                catch( InterruptedException e ) {
+                    // look up what we have so far rather than leave the other callers waiting
+                    interrupted = true;
+                    break;
+                }
+            }
+            if( !batch.closed ) {
+                close(type, batch);
+            }
+        }
+        if( interrupted ) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private <T> void load( @Nonnull BatchLoader<T> loader, @Nonnull Batch<T> batch ) {
+        try {
+            calls.incrementAndGet();
+            batch.results = loader.load(batch.resourceIds);
+        }
+        catch( CloudException e ) {
+            batch.cloudFailure = e;
+        }
+        catch( InternalException e ) {
+            batch.internalFailure = e;
+        }
+        catch( RuntimeException e ) {
+            batch.internalFailure = new InternalException(e);
+        }
+        finally {
+            batch.done.countDown();
+        }
+    }
+
+    /**
+     * Stops a batch from taking any more lookups. Must be called while holding the lock on the batches.
+     */
+    private void close( @Nonnull String type, @Nonnull Batch<?> batch ) {
+        batch.closed = true;
+        if( batches.get(type) == batch ) {
+            batches.remove(type);
+        }
+        batches.notifyAll();
+    }
+
+    /**
+     * The lookups of one resource type collected for a single describe call.
+     */
+    static private final class Batch<T> {
+        final Set<String>    resourceIds = new LinkedHashSet<String>();
+        final CountDownLatch done        = new CountDownLatch(1);
+        boolean              closed      = false;
+        Map<String, T>       results     = Collections.emptyMap();
+        CloudException       cloudFailure;
+        InternalException    internalFailure;
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Caches CloudWatch datapoints which can no longer change. A datapoint is final once its period has closed and
+ * CloudWatch has had {@link #FINALIZATION_DELAY} to settle it; the cache keeps the final datapoints of each series
+ * and, on a later query of the same series, only asks CloudWatch for what comes after them. Refreshing a chart of
+ * the last day costs one request for the last few minutes instead of downloading the whole day again.
+ * <p>Each series is kept in primitive arrays. Datapoints older than {@link #RETENTION} are dropped and at most
+ * {@value #P_MAXIMUM_SERIES} series (by default {@value #DEFAULT_MAXIMUM_SERIES}, 0 to disable caching) are kept,
+ * evicting the least recently used.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSCloud#getMetricCache()
+ */
+public class AWSMetricCache extends AWSTimeSeriesStore<AWSMetricCache.Datapoints> {
+    static public final String P_MAXIMUM_SERIES       = "metricCacheSize";
+    static public final int    DEFAULT_MAXIMUM_SERIES = 500;
+
+    static public final long FINALIZATION_DELAY = 5L * 60000L;
+    static public final long RETENTION          = 2L * 24L * 60L * 60000L;
+
+    /**
+     * The average, minimum, maximum and sample count of a metric per period, held in parallel primitive arrays.
+     */
+    static public final class Datapoints implements AWSTimeSeriesStore.Points<Datapoints> {
+        private long[]   timestamps = new long[16];
+        private double[] averages   = new double[16];
+        private double[] minimums   = new double[16];
+        private double[] maximums   = new double[16];
+        private int[]    samples    = new int[16];
+        private int      size       = 0;
+
+        public void add( long timestamp, double average, double minimum, double maximum, int sampleCount ) {
+            if( size == timestamps.length ) {
+                int capacity = size * 2;
+
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                averages = Arrays.copyOf(averages, capacity);
+                minimums = Arrays.copyOf(minimums, capacity);
+                maximums = Arrays.copyOf(maximums, capacity);
+                samples = Arrays.copyOf(samples, capacity);
+            }
+            timestamps[size] = timestamp;
+            averages[size] = average;
+            minimums[size] = minimum;
+            maximums[size] = maximum;
+            samples[size] = sampleCount;
+            size++;
+        }
+
+        /**
+         * Adds the datapoints of another series falling into a window.
+         *
+         * @param other the datapoints to copy from, sorted by timestamp
+         * @param startTimestamp the start of the window, inclusive
+         * @param endTimestamp the end of the window, exclusive
+         */
+        @Override
+        public void addAll( @Nonnull Datapoints other, long startTimestamp, long endTimestamp ) {
+            for( int i = other.indexOf(startTimestamp); i < other.size && other.timestamps[i] < endTimestamp; i++ ) {
+                add(other.timestamps[i], other.averages[i], other.minimums[i], other.maximums[i], other.samples[i]);
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        public long getTimestamp( @Nonnegative int i ) {
+            return timestamps[i];
+        }
+
+        public double getAverage( @Nonnegative int i ) {
+            return averages[i];
+        }
+
+        public double getMinimum( @Nonnegative int i ) {
+            return minimums[i];
+        }
+
+        public double getMaximum( @Nonnegative int i ) {
+            return maximums[i];
+        }
+
+        public int getSamples( @Nonnegative int i ) {
+            return samples[i];
+        }
+
+        /**
+         * @return the index of the first datapoint at or after the timestamp, assuming the datapoints are sorted
+         */
+        int indexOf( long timestamp ) {
+            int i = Arrays.binarySearch(timestamps, 0, size, timestamp);
+
+            return ( i < 0 ? -( i + 1 ) : i );
+        }
+
+        /**
+         * @return these datapoints sorted by timestamp, without duplicate timestamps
+         */
+        @Override
+        public @Nonnull Datapoints sorted() {
+            boolean sorted = true;
+
+            for( int i = 1; i < size && sorted; i++ ) {
+                sorted = ( timestamps[i - 1] < timestamps[i] );
+            }
+            if( sorted ) {
+                return this;
+            }
+            Integer[] order = new Integer[size];
+
+            for( int i = 0; i < size; i++ ) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare( Integer a, Integer b ) {
+                    return ( timestamps[a] < timestamps[b] ? -1 : ( timestamps[a] == timestamps[b] ? 0 : 1 ) );
+                }
+            });
+            Datapoints copy = new Datapoints();
+
+            for( Integer i : order ) {
+                if( copy.size == 0 || copy.timestamps[copy.size - 1] != timestamps[i] ) {
+                    copy.add(timestamps[i], averages[i], minimums[i], maximums[i], samples[i]);
+                }
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Builds the key of a series.
+     *
+     * @param namespace the CloudWatch namespace, e.g. <code>AWS/EC2</code>
+     * @param metric the metric name
+     * @param dimensionName the name of the dimension, e.g. <code>InstanceId</code>
+     * @param dimensionValue the value of the dimension
+     * @param unit the unit of the datapoints
+     * @param period the period of the datapoints in seconds
+     * @return the key of the series
+     */
+    static public @Nonnull String getKey( @Nonnull String namespace, @Nonnull String metric, @Nonnull String dimensionName, @Nonnull String dimensionValue, @Nonnull String unit, int period ) {
+        return namespace + "|" + metric + "|" + dimensionName + "=" + dimensionValue + "|" + unit + "|" + period;
+    }
+
+    static public @Nonnull AWSMetricCache getInstance( @Nonnull AWSCloud provider ) {
+        return new AWSMetricCache(getSize(provider, P_MAXIMUM_SERIES, DEFAULT_MAXIMUM_SERIES));
+    }
+
+    public AWSMetricCache( int maximumSeries ) {
+        super(maximumSeries);
+    }
+
+    @Override
+    protected @Nonnull Datapoints newPoints() {
+        return new Datapoints();
+    }
+
+    /**
+     * Provides the datapoints of a series for a window, fetching from CloudWatch only what is not cached.
+     *
+     * @param key the key of the series, see {@link #getKey(String, String, String, String, String, int)}
+     * @param startTimestamp the start of the window
+     * @param endTimestamp the end of the window
+     * @param period the period of the datapoints in milliseconds
+     * @param fetcher fetches datapoints from CloudWatch
+     * @return the datapoints in the window, sorted by timestamp
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull Datapoints get( @Nonnull String key, long startTimestamp, long endTimestamp, long period, @Nonnull Fetcher<Datapoints> fetcher ) throws CloudException, InternalException {
+        long now = System.currentTimeMillis();
+        // a datapoint is stamped with the start of its period, so this is the end of the last period known to be final
+        long finalized = Math.min(endTimestamp, ( ( now - FINALIZATION_DELAY ) / period ) * period - period);
+
+        return getPoints(key, startTimestamp, endTimestamp, finalized, now - RETENTION, fetcher);
+    }
+}
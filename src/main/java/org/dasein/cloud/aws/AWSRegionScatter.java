@@ -0,0 +1,613 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.cloud.compute.VirtualMachine;
+import org.dasein.cloud.compute.Volume;
+import org.dasein.cloud.dc.Region;
+import org.dasein.cloud.network.IPVersion;
+import org.dasein.cloud.network.IpAddress;
+import org.dasein.cloud.network.IpAddressSupport;
+import org.dasein.cloud.network.NetworkServices;
+import org.dasein.util.Jiterator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a per-region operation against many regions at once and merges the results into a single stream. At most
+ * {@value #P_PARALLELISM} regions are worked on concurrently, each region gets its own deadline, and a region which
+ * fails or runs out of time is reported in the outcomes rather than failing the whole sweep. A sweep over all
+ * regions therefore takes about as long as the slowest region instead of the sum of all of them.
+ * <p>The sweep is configured through the custom properties of the provider context:</p>
+ * <ul>
+ *     <li>{@value #P_PARALLELISM} - maximum number of regions worked on at once (default {@value #DEFAULT_PARALLELISM})</li>
+ *     <li>{@value #P_REGION_TIMEOUT} - milliseconds allowed for each region (default {@value #DEFAULT_REGION_TIMEOUT})</li>
+ * </ul>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public class AWSRegionScatter {
+    static private final Logger logger = AWSCloud.getLogger(AWSRegionScatter.class);
+
+    static public final String P_PARALLELISM    = "scatterParallelism";
+    static public final String P_REGION_TIMEOUT = "scatterRegionTimeout";
+
+    static public final int  DEFAULT_PARALLELISM    = 8;
+    static public final long DEFAULT_REGION_TIMEOUT = 5L * 60L * 1000L;
+
+    /**
+     * How long a region may sit in the executor queue before the coordinator runs it itself.
+     */
+    static private final long STEAL_DELAY = 250L;
+
+    /**
+     * An operation executed once for every region of a sweep.
+     *
+     * @param <T> the type of the items produced by the operation
+     */
+    static public abstract class RegionOperation<T> {
+        /**
+         * Operations which only need the region ID, for example because they build their own {@link org.dasein.cloud.aws.compute.EC2Method}
+         * for the region, can override this to skip connecting a provider to every region.
+         *
+         * @return true if {@link #execute(AWSCloud, String)} needs a provider connected to the region
+         */
+        public boolean isRegionContextRequired() {
+            return true;
+        }
+
+        /**
+         * Executes the operation for a single region. The results are fully read before the region counts as done,
+         * so returning a lazily populated jiterator is fine.
+         *
+         * @param provider a provider connected to the region, or the originating provider if no region context is required
+         * @param regionId the region to operate on
+         * @return the items found in the region
+         * @throws CloudException an error occurred with the cloud provider
+         * @throws InternalException an error occurred within the Dasein Cloud implementation
+         */
+        public abstract @Nonnull Iterable<T> execute( @Nonnull AWSCloud provider, @Nonnull String regionId ) throws CloudException, InternalException;
+    }
+
+    /**
+     * What happened to a single region of a sweep.
+     */
+    static public final class RegionOutcome {
+        private final String    regionId;
+        private final int       count;
+        private final long      elapsed;
+        private final Exception error;
+        private final boolean   timedOut;
+
+        RegionOutcome( @Nonnull String regionId, int count, long elapsed, @Nullable Exception error, boolean timedOut ) {
+            this.regionId = regionId;
+            this.count = count;
+            this.elapsed = elapsed;
+            this.error = error;
+            this.timedOut = timedOut;
+        }
+
+        public @Nonnull String getRegionId() {
+            return regionId;
+        }
+
+        /**
+         * @return the number of items the region contributed to the results
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return milliseconds spent on the region
+         */
+        public long getElapsed() {
+            return elapsed;
+        }
+
+        /**
+         * @return the error which failed the region, or null if it succeeded
+         */
+        public @Nullable Exception getError() {
+            return error;
+        }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        public boolean isSuccess() {
+            return ( error == null && !timedOut );
+        }
+
+        @Override
+        public String toString() {
+            return regionId + ( isSuccess() ? " [" + count + " in " + elapsed + "ms]" : ( timedOut ? " [timed out]" : " [" + error + "]" ) );
+        }
+    }
+
+    /**
+     * A running sweep: the merged results as they arrive and the outcome of every region once it is done.
+     *
+     * @param <T> the type of the items produced by the sweep
+     */
+    static public final class Sweep<T> {
+        private final Jiterator<T>               results;
+        private final Map<String, RegionOutcome> outcomes = new LinkedHashMap<String, RegionOutcome>();
+        private final CountDownLatch             done     = new CountDownLatch(1);
+        private volatile AWSTaskExecutor         executor;
+        private volatile Future<Void>            coordinator;
+
+        Sweep( @Nonnull Jiterator<T> results ) {
+            this.results = results;
+        }
+
+        /**
+         * Pool workers should wait for the sweep through {@link #getOutcomes()} before reading the results, as
+         * reading them only waits for the coordinator while {@link #getOutcomes()} runs it if no worker has yet.
+         *
+         * @return the items of all successful regions, streamed region by region as each region completes
+         */
+        public @Nonnull Iterable<T> getResults() {
+            return results;
+        }
+
+        public boolean isDone() {
+            return ( done.getCount() == 0L );
+        }
+
+        /**
+         * Waits for the sweep to finish and returns the outcome of every region. If no worker has started the
+         * sweep yet, it runs on the calling thread.
+         *
+         * @return the outcome of each region keyed by region ID
+         * @throws InterruptedException the calling thread was interrupted while waiting
+         */
+        public @Nonnull Map<String, RegionOutcome> getOutcomes() throws InterruptedException {
+            AWSTaskExecutor e = executor;
+            Future<Void> c = coordinator;
+
+            if( e != null && c != null ) {
+                try {
+                    e.await(c);
+                }
+                catch( ExecutionException ignore ) {
+                    // the coordinator records its own failures
+                }
+            }
+            done.await();
+            synchronized( outcomes ) {
+                return new LinkedHashMap<String, RegionOutcome>(outcomes);
+            }
+        }
+
+        /**
+         * Waits for the sweep to finish and returns the regions which failed or timed out.
+         *
+         * @return the unsuccessful regions
+         * @throws InterruptedException the calling thread was interrupted while waiting
+         */
+        public @Nonnull List<RegionOutcome> getFailures() throws InterruptedException {
+            List<RegionOutcome> failures = new ArrayList<RegionOutcome>();
+
+            for( RegionOutcome outcome : getOutcomes().values() ) {
+                if( !outcome.isSuccess() ) {
+                    failures.add(outcome);
+                }
+            }
+            return failures;
+        }
+
+        void start( @Nonnull AWSTaskExecutor executor, @Nonnull Future<Void> coordinator ) {
+            this.executor = executor;
+            this.coordinator = coordinator;
+        }
+
+        void record( @Nonnull RegionOutcome outcome ) {
+            synchronized( outcomes ) {
+                outcomes.put(outcome.getRegionId(), outcome);
+            }
+        }
+
+        void finish() {
+            done.countDown();
+        }
+    }
+
+    static public @Nonnull AWSRegionScatter getInstance( @Nonnull AWSCloud provider ) {
+        ProviderContext ctx = provider.getContext();
+        Properties props = ( ctx == null ? null : ctx.getCustomProperties() );
+        int parallelism = DEFAULT_PARALLELISM;
+        long timeout = DEFAULT_REGION_TIMEOUT;
+
+        if( props != null ) {
+            try {
+                parallelism = Integer.parseInt(props.getProperty(P_PARALLELISM, String.valueOf(DEFAULT_PARALLELISM)).trim());
+                timeout = Long.parseLong(props.getProperty(P_REGION_TIMEOUT, String.valueOf(DEFAULT_REGION_TIMEOUT)).trim());
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Invalid value for " + P_PARALLELISM + " or " + P_REGION_TIMEOUT + ": " + e.getMessage());
+            }
+        }
+        return new AWSRegionScatter(provider, parallelism, timeout);
+    }
+
+    /**
+     * @return an operation listing the virtual machines of each region
+     */
+    static public @Nonnull RegionOperation<VirtualMachine> listVirtualMachines() {
+        return new RegionOperation<VirtualMachine>() {
+            @Override
+            public @Nonnull Iterable<VirtualMachine> execute( @Nonnull AWSCloud provider, @Nonnull String regionId ) throws CloudException, InternalException {
+                return provider.getComputeServices().getVirtualMachineSupport().listVirtualMachines();
+            }
+        };
+    }
+
+    /**
+     * @return an operation listing the volumes of each region
+     */
+    static public @Nonnull RegionOperation<Volume> listVolumes() {
+        return new RegionOperation<Volume>() {
+            @Override
+            public @Nonnull Iterable<Volume> execute( @Nonnull AWSCloud provider, @Nonnull String regionId ) throws CloudException, InternalException {
+                return provider.getComputeServices().getVolumeSupport().listVolumes();
+            }
+        };
+    }
+
+    /**
+     * @param version the IP version of the addresses to list
+     * @return an operation listing the IP pool of each region
+     */
+    static public @Nonnull RegionOperation<IpAddress> listIpPool( @Nonnull final IPVersion version ) {
+        return new RegionOperation<IpAddress>() {
+            @Override
+            public @Nonnull Iterable<IpAddress> execute( @Nonnull AWSCloud provider, @Nonnull String regionId ) throws CloudException, InternalException {
+                NetworkServices services = provider.getNetworkServices();
+                IpAddressSupport support = ( services == null ? null : services.getIpAddressSupport() );
+
+                if( support == null ) {
+                    return Collections.emptyList();
+                }
+                return support.listIpPool(version, false);
+            }
+        };
+    }
+
+    private final AWSCloud provider;
+    private final int      parallelism;
+    private final long     regionTimeout;
+
+    public AWSRegionScatter( @Nonnull AWSCloud provider, int parallelism, long regionTimeout ) {
+        this.provider = provider;
+        this.parallelism = Math.max(1, parallelism);
+        this.regionTimeout = regionTimeout;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public long getRegionTimeout() {
+        return regionTimeout;
+    }
+
+    /**
+     * Runs an operation against every region of the cloud.
+     *
+     * @param operation the operation to run
+     * @param <T> the type of the items produced by the operation
+     * @return the running sweep
+     * @throws CloudException the regions could not be listed
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull <T> Sweep<T> scatter( @Nonnull RegionOperation<T> operation ) throws CloudException, InternalException {
+        List<String> regionIds = new ArrayList<String>();
+
+        for( Region region : provider.getDataCenterServices().listRegions() ) {
+            regionIds.add(region.getProviderRegionId());
+        }
+        return scatter(regionIds, operation);
+    }
+
+    /**
+     * Runs an operation against the specified regions. The call returns immediately; the results stream in as
+     * regions complete.
+     *
+     * @param regionIds the regions to run the operation against
+     * @param operation the operation to run
+     * @param <T> the type of the items produced by the operation
+     * @return the running sweep
+     */
+    public @Nonnull <T> Sweep<T> scatter( @Nonnull Collection<String> regionIds, @Nonnull final RegionOperation<T> operation ) {
+        final List<String> regions = new ArrayList<String>(regionIds);
+        final Jiterator<T> results = new Jiterator<T>();
+        final Sweep<T> sweep = new Sweep<T>(results);
+        AWSTaskExecutor executor = provider.getExecutor();
+
+        provider.hold();
+        sweep.start(executor, executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                try {
+                    gather(regions, operation, results, sweep);
+                }
+                finally {
+                    results.complete();
+                    provider.release();
+                }
+                return null;
+            }
+        }));
+        return sweep;
+    }
+
+    private <T> void gather( @Nonnull List<String> regions, @Nonnull RegionOperation<T> operation, @Nonnull Jiterator<T> iterator, @Nonnull Sweep<T> sweep ) {
+        CompletionService<RegionOutcome> completion = new ExecutorCompletionService<RegionOutcome>(provider.getExecutor());
+        Map<Future<RegionOutcome>, RegionTask<T>> running = new HashMap<Future<RegionOutcome>, RegionTask<T>>();
+        LinkedList<String> waiting = new LinkedList<String>(regions);
+        long started = System.currentTimeMillis();
+
+        try {
+            while( !waiting.isEmpty() || !running.isEmpty() ) {
+                while( !waiting.isEmpty() && running.size() < parallelism ) {
+                    RegionTask<T> task = new RegionTask<T>(waiting.removeFirst(), operation, iterator);
+
+                    running.put(completion.submit(task), task);
+                }
+                long now = System.currentTimeMillis();
+                long next = Long.MAX_VALUE;
+
+                for( RegionTask<T> task : running.values() ) {
+                    next = Math.min(next, task.getDeadline());
+                    if( task.started < 0L ) {
+                        next = Math.min(next, task.submitted + STEAL_DELAY);
+                    }
+                }
+                Future<RegionOutcome> future = completion.poll(Math.max(1L, next - now), TimeUnit.MILLISECONDS);
+
+                if( future != null ) {
+                    RegionTask<T> task = running.remove(future);
+
+                    if( task != null ) {
+                        // otherwise it finished after its deadline had already been reported, or was run here
+                        record(sweep, task, future);
+                    }
+                    continue;
+                }
+                now = System.currentTimeMillis();
+                for( Map.Entry<Future<RegionOutcome>, RegionTask<T>> entry : running.entrySet() ) {
+                    RegionTask<T> task = entry.getValue();
+
+                    if( task.started < 0L && now - task.submitted >= STEAL_DELAY ) {
+                        // every worker may be busy waiting on work like this sweep, so don't wait for one to free up
+                        Future<RegionOutcome> stolen = entry.getKey();
+
+                        if( runStolen(task, ( RunnableFuture<RegionOutcome> ) stolen) ) {
+                            running.remove(stolen);
+                            logger.warn("Region " + task.regionId + " did not complete within " + regionTimeout + "ms");
+                            sweep.record(new RegionOutcome(task.regionId, 0, task.getElapsed(), null, true));
+                        }
+                        else if( stolen.isDone() && running.remove(stolen) != null ) {
+                            record(sweep, task, stolen);
+                        }
+                        break;
+                    }
+                }
+                now = System.currentTimeMillis();
+                Iterator<Map.Entry<Future<RegionOutcome>, RegionTask<T>>> it = running.entrySet().iterator();
+
+                while( it.hasNext() ) {
+                    Map.Entry<Future<RegionOutcome>, RegionTask<T>> entry = it.next();
+                    RegionTask<T> task = entry.getValue();
+
+                    if( task.getDeadline() <= now && task.abandon() ) {
+                        entry.getKey().cancel(true);
+                        it.remove();
+                        logger.warn("Region " + task.regionId + " did not complete within " + regionTimeout + "ms");
+                        sweep.record(new RegionOutcome(task.regionId, 0, task.getElapsed(), null, true));
+                    }
+                }
+            }
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            for( Map.Entry<Future<RegionOutcome>, RegionTask<T>> entry : running.entrySet() ) {
+                if( entry.getValue().abandon() ) {
+                    entry.getKey().cancel(true);
+                    sweep.record(new RegionOutcome(entry.getValue().regionId, 0, entry.getValue().getElapsed(), e, false));
+                }
+            }
+        }
+        finally {
+            if( logger.isDebugEnabled() ) {
+                logger.debug("Swept " + regions.size() + " regions in " + ( System.currentTimeMillis() - started ) + "ms");
+            }
+            sweep.finish();
+        }
+    }
+
+    /**
+     * Runs a queued region on the coordinator's own thread. The coordinator can't watch the region's deadline while
+     * it is busy running it, so a scheduler tick abandons and interrupts the region when the deadline passes.
+     *
+     * @param task the region to run
+     * @param future the queued future of the region
+     * @return true if the region ran out of time
+     */
+    private <T> boolean runStolen( @Nonnull final RegionTask<T> task, @Nonnull final RunnableFuture<RegionOutcome> future ) {
+        final AtomicBoolean expired = new AtomicBoolean(false);
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+        ScheduledFuture<?> deadline = null;
+
+        try {
+            deadline = provider.getExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if( task.abandon() ) {
+                        expired.set(true);
+                        // interrupts this thread if the region is still running on it
+                        interrupted.set(future.cancel(true));
+                    }
+                }
+            }, regionTimeout, TimeUnit.MILLISECONDS);
+        }
+        catch( RuntimeException e ) {
+            logger.warn("Unable to watch the deadline of region " + task.regionId + ": " + e.getMessage());
+        }
+        try {
+            future.run();
+        }
+        finally {
+            if( deadline != null ) {
+                deadline.cancel(false);
+            }
+        }
+        if( interrupted.get() ) {
+            // the interrupt was meant for the region, not for the sweep
+            Thread.interrupted();
+        }
+        return expired.get();
+    }
+
+    private <T> void record( @Nonnull Sweep<T> sweep, @Nonnull RegionTask<T> task, @Nonnull Future<RegionOutcome> future ) throws InterruptedException {
+        try {
+            sweep.record(future.get());
+        }
+        catch( ExecutionException e ) {
+            // RegionTask reports its own failures, so this is unexpected
+            sweep.record(new RegionOutcome(task.regionId, 0, task.getElapsed(), new CloudException(e.getCause()), false));
+        }
+    }
+
+    /**
+     * Runs the operation for one region, buffering its items so that a region which times out or fails half way
+     * contributes nothing rather than a partial list.
+     */
+    private final class RegionTask<T> implements Callable<RegionOutcome> {
+        private final String             regionId;
+        private final RegionOperation<T> operation;
+        private final Jiterator<T>       iterator;
+        private final AtomicBoolean      finished  = new AtomicBoolean(false);
+        private final long               submitted = System.currentTimeMillis();
+        private volatile long            started   = -1L;
+
+        RegionTask( @Nonnull String regionId, @Nonnull RegionOperation<T> operation, @Nonnull Jiterator<T> iterator ) {
+            this.regionId = regionId;
+            this.operation = operation;
+            this.iterator = iterator;
+        }
+
+        /**
+         * The deadline only starts once the task runs, so time spent queued behind other work does not count.
+         */
+        long getDeadline() {
+            long s = started;
+
+            return ( s < 0L ? System.currentTimeMillis() + regionTimeout : s + regionTimeout );
+        }
+
+        long getElapsed() {
+            long s = started;
+
+            return ( s < 0L ? 0L : System.currentTimeMillis() - s );
+        }
+
+        /**
+         * @return true if the task was abandoned, false if it had already delivered its results
+         */
+        boolean abandon() {
+            return finished.compareAndSet(false, true);
+        }
+
+        @Override
+        public RegionOutcome call() {
+            AWSCloud regionProvider = null;
+            List<T> items = new ArrayList<T>();
+
+            started = System.currentTimeMillis();
+            try {
+                ProviderContext ctx = provider.getContext();
+
+                if( !operation.isRegionContextRequired() || ctx == null || regionId.equals(ctx.getRegionId()) ) {
+                    regionProvider = provider;
+                }
+                else {
+                    regionProvider = ( AWSCloud ) ctx.copy(regionId).connect();
+                    // a sweep over every region shouldn't start a thread pool per region
+                    regionProvider.shareExecutor(provider);
+                }
+                for( T item : operation.execute(regionProvider, regionId) ) {
+                    if( Thread.currentThread().isInterrupted() ) {
+                        throw new InterruptedException("Interrupted while reading results for " + regionId);
+                    }
+                    items.add(item);
+                }
+            }
+            catch( Exception e ) {
+                if( !abandon() ) {
+                    return new RegionOutcome(regionId, 0, getElapsed(), e, true);
+                }
+                logger.error("Sweep of region " + regionId + " failed: " + e.getMessage());
+                return new RegionOutcome(regionId, 0, getElapsed(), e, false);
+            }
+            finally {
+                if( regionProvider != null && regionProvider != provider ) {
+                    regionProvider.close();
+                }
+            }
+            // only publish if the coordinator has not given up on this region already
+            if( !abandon() ) {
+                return new RegionOutcome(regionId, 0, getElapsed(), null, true);
+            }
+            for( T item : items ) {
+                iterator.push(item);
+            }
+            return new RegionOutcome(regionId, items.size(), getElapsed(), null, false);
+        }
+    }
+}
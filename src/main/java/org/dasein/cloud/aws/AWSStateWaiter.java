@@ -0,0 +1,505 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Waits for resources to reach a state on behalf of any number of callers, polling all resources of the same type
+ * with one batched describe call per interval instead of one polling loop per resource. A thousand callers waiting
+ * for a thousand volumes cost one <code>DescribeVolumes</code> per tick.
+ * <p>Each resource type has its own polling loop, which only runs while something of that type is being waited
+ * for. The loops run as ticks on the executor's scheduler, never on the bounded pool, so callers blocking in pool
+ * workers can't keep them from running; every wait also ends by its own deadline, whatever the loop is doing. The interval starts short, backs off while nothing changes and drops back whenever a new waiter arrives or
+ * a resource changes state. Resources which cannot be found are given a short grace period first, since newly
+ * created resources are not always visible right away.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSCloud#getStateWaiter()
+ */
+public class AWSStateWaiter {
+    static private final Logger logger = AWSCloud.getLogger(AWSStateWaiter.class);
+
+    /**
+     * Target state which is reached once the resource can no longer be found.
+     */
+    static public final String GONE = "<gone>";
+
+    static public final long MINIMUM_INTERVAL = 2000L;
+    static public final long MAXIMUM_INTERVAL = 30000L;
+    static public final long NOT_FOUND_GRACE  = 30000L;
+
+    /**
+     * Looks up the current state of many resources of one type at once.
+     */
+    public interface StatePoller {
+        /**
+         * @return the resource type; waiters for the same type share one polling loop
+         */
+        @Nonnull String getResourceType();
+
+        /**
+         * @return the largest number of resources to look up in a single call
+         */
+        int getMaximumBatchSize();
+
+        /**
+         * @param resourceIds the resources to look up
+         * @return the current state of each resource found; resources missing from the map do not exist (any more)
+         * @throws CloudException an error occurred with the cloud provider
+         * @throws InternalException an error occurred within the Dasein Cloud implementation
+         */
+        @Nonnull Map<String, String> poll( @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException;
+    }
+
+    /**
+     * Notified once when a wait ends, so that work depending on a resource's state can be chained off the wait
+     * rather than block a thread on it. Listeners run as ticks on the executor's scheduler (or on the thread ending
+     * the wait once the provider is closed), so they must return quickly and hand anything slow to the pool.
+     */
+    public interface WaitListener {
+        /**
+         * @param resourceId the resource waited for
+         * @param state the state which ended the wait, null if the wait failed
+         * @param error the reason the wait failed, null if the resource reached one of the target states
+         */
+        void waitEnded( @Nonnull String resourceId, @Nullable String state, @Nullable CloudException error );
+    }
+
+    private final AWSCloud              provider;
+    private final Map<String, TypeLoop> loops = new HashMap<String, TypeLoop>();
+    private final AtomicLong            calls = new AtomicLong(0L);
+
+    public AWSStateWaiter( @Nonnull AWSCloud provider ) {
+        this.provider = provider;
+    }
+
+    /**
+     * @return the number of describe calls made so far
+     */
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    /**
+     * Registers a waiter for a resource.
+     *
+     * @param poller the poller for the type of resource
+     * @param resourceId the resource to wait for
+     * @param targetStates the states which end the wait (may include {@link #GONE}); null or empty for any state,
+     *                     i.e. just until the resource exists
+     * @param timeout the maximum time to wait in milliseconds
+     * @return a future providing the state which ended the wait; it fails with a {@link CloudException} if the
+     * resource is not found or the wait times out
+     */
+    public @Nonnull Future<String> waitFor( @Nonnull StatePoller poller, @Nonnull String resourceId, @Nullable Set<String> targetStates, long timeout ) {
+        return waitFor(poller, resourceId, targetStates, timeout, null);
+    }
+
+    /**
+     * Registers a waiter for a resource which notifies a listener when the wait ends. The wait still ends by its
+     * deadline when nobody calls the future, since the polling loop expires waiters on its own ticks.
+     *
+     * @param poller the poller for the type of resource
+     * @param resourceId the resource to wait for
+     * @param targetStates the states which end the wait (may include {@link #GONE}); null or empty for any state,
+     *                     i.e. just until the resource exists
+     * @param timeout the maximum time to wait in milliseconds
+     * @param listener notified once when the wait ends, however it ends
+     * @return a future providing the state which ended the wait; it fails with a {@link CloudException} if the
+     * resource is not found or the wait times out
+     */
+    public @Nonnull Future<String> waitFor( @Nonnull StatePoller poller, @Nonnull String resourceId, @Nullable Set<String> targetStates, long timeout, @Nullable WaitListener listener ) {
+        Waiter waiter = new Waiter(resourceId, targetStates, System.currentTimeMillis() + timeout, listener);
+        TypeLoop loop;
+        boolean start = false;
+
+        synchronized( loops ) {
+            loop = loops.get(poller.getResourceType());
+            if( loop == null ) {
+                loop = new TypeLoop(poller);
+                loops.put(poller.getResourceType(), loop);
+                start = true;
+            }
+            loop.add(waiter);
+        }
+        if( start ) {
+            provider.hold();
+            loop.start();
+        }
+        return waiter;
+    }
+
+    /**
+     * Waits for a resource to reach one of the target states.
+     *
+     * @param poller the poller for the type of resource
+     * @param resourceId the resource to wait for
+     * @param targetStates the states which end the wait (may include {@link #GONE}); null or empty for any state
+     * @param timeout the maximum time to wait in milliseconds
+     * @return the state which ended the wait
+     * @throws CloudException the resource was not found, could not be polled or did not reach the state in time
+     */
+    public @Nonnull String await( @Nonnull StatePoller poller, @Nonnull String resourceId, @Nullable Set<String> targetStates, long timeout ) throws CloudException {
+        try {
+            return waitFor(poller, resourceId, targetStates, timeout).get();
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new CloudException("Interrupted while waiting for " + resourceId);
+        }
+        catch( ExecutionException e ) {
+            if( e.getCause() instanceof CloudException ) {
+                throw ( CloudException ) e.getCause();
+            }
+            throw new CloudException(e.getCause());
+        }
+    }
+
+    /**
+     * The polling loop for one resource type, running for as long as anyone waits for a resource of the type. Each
+     * tick polls once and schedules the next one.
+     */
+    private final class TypeLoop implements Runnable {
+        private final StatePoller  poller;
+        private final List<Waiter> waiters  = new ArrayList<Waiter>();
+        private long               interval = MINIMUM_INTERVAL;
+        private long               lastPoll = 0L;
+        private long               nextPoll = 0L;
+        private ScheduledFuture<?> next;
+
+        TypeLoop( @Nonnull StatePoller poller ) {
+            this.poller = poller;
+        }
+
+        void start() {
+            synchronized( loops ) {
+                synchronized( waiters ) {
+                    schedule(0L);
+                }
+            }
+        }
+
+        void add( @Nonnull Waiter waiter ) {
+            synchronized( waiters ) {
+                waiters.add(waiter);
+                interval = MINIMUM_INTERVAL;
+                // don't leave a new waiter behind a long back-off, but don't poll more often than the minimum either
+                if( next != null && nextPoll > lastPoll + MINIMUM_INTERVAL && next.cancel(false) ) {
+                    nextPoll = lastPoll + MINIMUM_INTERVAL;
+                    schedule(nextPoll - System.currentTimeMillis());
+                }
+            }
+        }
+
+        /**
+         * Schedules the next tick. Must hold the loops and the waiters lock, in that order.
+         */
+        private void schedule( long delay ) {
+            try {
+                next = provider.getExecutor().schedule(this, delay, TimeUnit.MILLISECONDS);
+            }
+            catch( RuntimeException e ) {
+                // the provider has been closed
+                next = null;
+                end(new CloudException("Stopped waiting for " + poller.getResourceType() + " state: " + e.getMessage()));
+            }
+        }
+
+        @Override
+        public void run() {
+            List<Waiter> current;
+
+            synchronized( loops ) {
+                synchronized( waiters ) {
+                    next = null;
+                    for( int i = waiters.size() - 1; i >= 0; i-- ) {
+                        if( waiters.get(i).isDone() ) {
+                            waiters.remove(i);
+                        }
+                    }
+                    if( waiters.isEmpty() ) {
+                        // anyone registering from now on starts a new loop
+                        loops.remove(poller.getResourceType());
+                        provider.release();
+                        return;
+                    }
+                    current = new ArrayList<Waiter>(waiters);
+                    lastPoll = System.currentTimeMillis();
+                }
+            }
+            boolean changed = poll(current);
+            long now = System.currentTimeMillis();
+
+            synchronized( loops ) {
+                synchronized( waiters ) {
+                    if( changed ) {
+                        interval = MINIMUM_INTERVAL;
+                    }
+                    nextPoll = now + interval;
+                    interval = Math.min(MAXIMUM_INTERVAL, interval + interval / 2);
+                    for( Waiter waiter : waiters ) {
+                        if( !waiter.isDone() ) {
+                            nextPoll = Math.min(nextPoll, waiter.deadline);
+                        }
+                    }
+                    schedule(nextPoll - now);
+                }
+            }
+        }
+
+        /**
+         * Fails every waiter and drops the loop. Must hold the loops and the waiters lock, in that order.
+         */
+        private void end( @Nonnull CloudException error ) {
+            for( Waiter waiter : waiters ) {
+                waiter.fail(error);
+            }
+            waiters.clear();
+            if( loops.get(poller.getResourceType()) == this ) {
+                loops.remove(poller.getResourceType());
+            }
+            provider.release();
+        }
+
+        /**
+         * @return true if anything reached its target
+         */
+        private boolean poll( @Nonnull List<Waiter> current ) {
+            Map<String, List<Waiter>> byId = new LinkedHashMap<String, List<Waiter>>();
+            long now = System.currentTimeMillis();
+            boolean changed = false;
+
+            for( Waiter waiter : current ) {
+                if( waiter.deadline <= now ) {
+                    waiter.fail(new CloudException("Timed out waiting for " + poller.getResourceType() + " " + waiter.resourceId + " to reach " + waiter.describeTarget()));
+                    continue;
+                }
+                List<Waiter> list = byId.get(waiter.resourceId);
+
+                if( list == null ) {
+                    list = new ArrayList<Waiter>();
+                    byId.put(waiter.resourceId, list);
+                }
+                list.add(waiter);
+            }
+            List<String> ids = new ArrayList<String>(byId.keySet());
+            int size = Math.max(1, poller.getMaximumBatchSize());
+
+            for( int i = 0; i < ids.size(); i += size ) {
+                List<String> batch = ids.subList(i, Math.min(ids.size(), i + size));
+                Map<String, String> states;
+
+                try {
+                    calls.incrementAndGet();
+                    states = poller.poll(batch);
+                }
+                catch( Exception e ) {
+                    // keep waiting, the waiters' deadlines still apply
+                    logger.warn("Unable to poll " + poller.getResourceType() + " state for " + batch.size() + " resources: " + e.getMessage());
+                    continue;
+                }
+                for( String id : batch ) {
+                    String state = states.get(id);
+
+                    for( Waiter waiter : byId.get(id) ) {
+                        changed |= waiter.update(state, now);
+                    }
+                }
+            }
+            return changed;
+        }
+    }
+
+    /**
+     * A single caller's wait for a single resource.
+     */
+    private final class Waiter implements Future<String> {
+        private final String         resourceId;
+        private final Set<String>    targets;
+        private final long           deadline;
+        private final long           registered = System.currentTimeMillis();
+        private final CountDownLatch done       = new CountDownLatch(1);
+        private final WaitListener   listener;
+        private volatile String         state;
+        private volatile CloudException error;
+        private volatile boolean        cancelled;
+
+        Waiter( @Nonnull String resourceId, @Nullable Set<String> targets, long deadline, @Nullable WaitListener listener ) {
+            this.resourceId = resourceId;
+            this.targets = ( targets == null ? Collections.<String>emptySet() : targets );
+            this.deadline = deadline;
+            this.listener = listener;
+        }
+
+        @Nonnull String describeTarget() {
+            return ( targets.isEmpty() ? "any state" : targets.toString() );
+        }
+
+        /**
+         * @return true if the wait ended with this state
+         */
+        boolean update( @Nullable String current, long now ) {
+            if( isDone() ) {
+                return false;
+            }
+            if( current == null ) {
+                if( targets.contains(GONE) ) {
+                    complete(GONE, null);
+                    return true;
+                }
+                if( now - registered > NOT_FOUND_GRACE ) {
+                    complete(null, new AWSResourceNotFoundException("No such resource: " + resourceId));
+                }
+                return false;
+            }
+            if( targets.isEmpty() || targets.contains(current) ) {
+                complete(current, null);
+                return true;
+            }
+            return false;
+        }
+
+        void fail( @Nonnull CloudException e ) {
+            complete(null, e);
+        }
+
+        private void complete( @Nullable String s, @Nullable CloudException e ) {
+            synchronized( this ) {
+                if( done.getCount() == 0L ) {
+                    return;
+                }
+                state = s;
+                error = e;
+                done.countDown();
+            }
+            if( listener == null ) {
+                return;
+            }
+            final String endState = s;
+            final CloudException endError = e;
+            Runnable notification = new Runnable() {
+                @Override
+                public void run() {
+                    listener.waitEnded(resourceId, endState, endError);
+                }
+            };
+
+            // a wait may end while the loop holds its locks, so the listener gets a tick of its own
+            try {
+                provider.getExecutor().schedule(notification, 0L, TimeUnit.MILLISECONDS);
+            }
+            catch( RuntimeException closed ) {
+                try {
+                    notification.run();
+                }
+                catch( RuntimeException t ) {
+                    logger.warn("Listener for " + resourceId + " failed: " + t.getMessage(), t);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel( boolean mayInterruptIfRunning ) {
+            synchronized( this ) {
+                if( done.getCount() == 0L ) {
+                    return false;
+                }
+                cancelled = true;
+            }
+            complete(null, new CloudException("Wait for " + resourceId + " was cancelled"));
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            if( done.getCount() > 0L && System.currentTimeMillis() >= deadline ) {
+                expire();
+            }
+            return ( done.getCount() == 0L );
+        }
+
+        /**
+         * Waits at most until the deadline of this wait, failing it if the polling loop has not ended it by then.
+         */
+        @Override
+        public String get() throws InterruptedException, ExecutionException {
+            if( !awaitUntil(deadline) ) {
+                expire();
+            }
+            return result();
+        }
+
+        @Override
+        public String get( long timeout, @Nonnull TimeUnit unit ) throws InterruptedException, ExecutionException, TimeoutException {
+            long until = System.currentTimeMillis() + unit.toMillis(timeout);
+
+            if( !awaitUntil(Math.min(until, deadline)) ) {
+                if( until < deadline ) {
+                    throw new TimeoutException();
+                }
+                expire();
+            }
+            return result();
+        }
+
+        private boolean awaitUntil( long until ) throws InterruptedException {
+            return done.await(Math.max(0L, until - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        }
+
+        private void expire() {
+            fail(new CloudException("Timed out waiting for " + resourceId + " to reach " + describeTarget()));
+        }
+
+        private String result() throws ExecutionException {
+            if( error != null ) {
+                throw new ExecutionException(error);
+            }
+            return state;
+        }
+    }
+}
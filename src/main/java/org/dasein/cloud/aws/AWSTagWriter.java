@@ -0,0 +1,574 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudErrorType;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.cloud.Tag;
+import org.dasein.cloud.aws.compute.EC2Method;
+import org.dasein.cloud.aws.compute.EC2TagIndex;
+import org.dasein.cloud.aws.network.ELBMethod;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes tags with as few API calls as possible. Tags for many resources are sent in chunks of up to
+ * {@link #getMaximumResourceIds(String)} resource IDs. Single-resource requests with the same service and the
+ * same tag set are collected for a short window (custom property {@value #P_COALESCE_WINDOW}, in milliseconds,
+ * default {@value #DEFAULT_COALESCE_WINDOW}, 0 to disable) and merged into one call.
+ * <p>
+ * A failed call says nothing about which resource caused it, so a chunk failing because of an unknown or
+ * malformed resource ID is split until the culprits are isolated. Every resource gets its own {@link Result}.
+ * </p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSCloud#getTagWriter()
+ */
+public class AWSTagWriter {
+    static private final Logger logger = AWSCloud.getLogger(AWSTagWriter.class);
+
+    static public final String P_COALESCE_WINDOW       = "tagCoalesceWindow";
+    static public final long   DEFAULT_COALESCE_WINDOW = 50L;
+
+    /**
+     * Maximum number of resource IDs accepted by a single EC2 <code>CreateTags</code> or <code>DeleteTags</code> call
+     */
+    static public final int MAX_RESOURCE_IDS = 1000;
+
+    /**
+     * Maximum number of load balancer names accepted by a single ELB <code>AddTags</code> or <code>RemoveTags</code> call
+     */
+    static public final int MAX_LOAD_BALANCER_NAMES = 20;
+
+    static private final int  MAX_THROTTLE_RETRIES  = 3;
+    static private final long AWAIT_TIMEOUT_MINUTES = 5L;
+
+    /**
+     * The outcome of a tag write for a single resource.
+     */
+    static public final class Result {
+        private final String         resourceId;
+        private final CloudException error;
+
+        Result( @Nonnull String resourceId, @Nullable CloudException error ) {
+            this.resourceId = resourceId;
+            this.error = error;
+        }
+
+        public @Nonnull String getResourceId() {
+            return resourceId;
+        }
+
+        /**
+         * @return the reason the tags could not be written, null on success
+         */
+        public @Nullable CloudException getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return ( error == null );
+        }
+
+        @Override
+        public String toString() {
+            return resourceId + ( error == null ? ": OK" : ": " + error.getMessage() );
+        }
+    }
+
+    /**
+     * Creates a tag writer configured from the custom properties of the provider context.
+     *
+     * @param provider the provider to write tags through
+     * @return a new tag writer
+     */
+    static public @Nonnull AWSTagWriter getInstance( @Nonnull AWSCloud provider ) {
+        ProviderContext ctx = provider.getContext();
+        long window = DEFAULT_COALESCE_WINDOW;
+
+        if( ctx != null && ctx.getCustomProperties() != null ) {
+            String value = ctx.getCustomProperties().getProperty(P_COALESCE_WINDOW);
+
+            if( value != null ) {
+                try {
+                    window = Math.max(0L, Long.parseLong(value.trim()));
+                }
+                catch( NumberFormatException e ) {
+                    logger.warn("Ignoring invalid value for " + P_COALESCE_WINDOW + ": " + value);
+                }
+            }
+        }
+        return new AWSTagWriter(provider, window);
+    }
+
+    /**
+     * @param service the service the resources belong to
+     * @return the maximum number of resources which can be tagged by one call to the service
+     */
+    static public int getMaximumResourceIds( @Nonnull String service ) {
+        if( service.equalsIgnoreCase(ELBMethod.SERVICE_ID) ) {
+            return MAX_LOAD_BALANCER_NAMES;
+        }
+        if( service.equalsIgnoreCase("rds") ) {
+            return 1;
+        }
+        return MAX_RESOURCE_IDS;
+    }
+
+    private final AWSCloud           provider;
+    private final long               window;
+    private final Map<String, Batch> pending = new HashMap<String, Batch>();
+    private final AtomicLong         calls   = new AtomicLong(0L);
+
+    public AWSTagWriter( @Nonnull AWSCloud provider, long window ) {
+        this.provider = provider;
+        this.window = window;
+    }
+
+    /**
+     * Creates or overwrites the given tags on all the resources, in as few calls as possible.
+     *
+     * @param service     the service the resources belong to
+     * @param resourceIds the resources to tag
+     * @param tags        the tags to write
+     * @return the outcome for each resource, in the order given
+     */
+    public @Nonnull Map<String, Result> createTags( @Nonnull String service, @Nonnull Collection<String> resourceIds, @Nonnull Tag... tags ) {
+        return write(false, service, resourceIds, tags);
+    }
+
+    /**
+     * Removes the given tags from all the resources, in as few calls as possible.
+     *
+     * @param service     the service the resources belong to
+     * @param resourceIds the resources to remove the tags from
+     * @param tags        the tags to remove
+     * @return the outcome for each resource, in the order given
+     */
+    public @Nonnull Map<String, Result> removeTags( @Nonnull String service, @Nonnull Collection<String> resourceIds, @Nonnull Tag... tags ) {
+        return write(true, service, resourceIds, tags);
+    }
+
+    /**
+     * Queues the given tags for creation on a single resource. The request is merged with other requests for
+     * the same service and tag set arriving within the coalescing window.
+     *
+     * @param service    the service the resource belongs to
+     * @param resourceId the resource to tag
+     * @param tags       the tags to write
+     * @return the pending outcome for the resource
+     */
+    public @Nonnull Future<Result> submitCreateTags( @Nonnull String service, @Nonnull String resourceId, @Nonnull Tag... tags ) {
+        return submit(false, service, resourceId, tags);
+    }
+
+    /**
+     * Queues the given tags for removal from a single resource. The request is merged with other requests for
+     * the same service and tag set arriving within the coalescing window.
+     *
+     * @param service    the service the resource belongs to
+     * @param resourceId the resource to remove the tags from
+     * @param tags       the tags to remove
+     * @return the pending outcome for the resource
+     */
+    public @Nonnull Future<Result> submitRemoveTags( @Nonnull String service, @Nonnull String resourceId, @Nonnull Tag... tags ) {
+        return submit(true, service, resourceId, tags);
+    }
+
+    /**
+     * Creates the given tags on a single resource, merged with concurrent requests for the same service and
+     * tag set, and waits for the outcome.
+     *
+     * @param service    the service the resource belongs to
+     * @param resourceId the resource to tag
+     * @param tags       the tags to write
+     * @return the outcome for the resource
+     */
+    public @Nonnull Result awaitCreateTags( @Nonnull String service, @Nonnull String resourceId, @Nonnull Tag... tags ) {
+        return await(resourceId, submitCreateTags(service, resourceId, tags));
+    }
+
+    /**
+     * Removes the given tags from a single resource, merged with concurrent requests for the same service and
+     * tag set, and waits for the outcome.
+     *
+     * @param service    the service the resource belongs to
+     * @param resourceId the resource to remove the tags from
+     * @param tags       the tags to remove
+     * @return the outcome for the resource
+     */
+    public @Nonnull Result awaitRemoveTags( @Nonnull String service, @Nonnull String resourceId, @Nonnull Tag... tags ) {
+        return await(resourceId, submitRemoveTags(service, resourceId, tags));
+    }
+
+    /**
+     * @return the coalescing window in milliseconds, 0 when requests are not coalesced
+     */
+    public long getCoalesceWindow() {
+        return window;
+    }
+
+    /**
+     * @return the number of tagging API calls made so far
+     */
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    private @Nonnull Future<Result> submit( final boolean remove, @Nonnull final String service, @Nonnull String resourceId, @Nonnull Tag[] tags ) {
+        if( window <= 0L ) {
+            PendingResult result = new PendingResult();
+
+            result.set(write(remove, service, Collections.singletonList(resourceId), tags).get(resourceId));
+            return result;
+        }
+        final String key = toKey(remove, service, tags);
+        final Batch batch;
+        PendingResult result;
+        boolean created = false, full = false;
+
+        synchronized( pending ) {
+            Batch b = pending.get(key);
+
+            if( b == null ) {
+                b = new Batch(remove, service, tags);
+                pending.put(key, b);
+                created = true;
+            }
+            result = b.add(resourceId);
+            if( b.size() >= getMaximumResourceIds(service) ) {
+                pending.remove(key);
+                full = true;
+            }
+            batch = b;
+        }
+        if( full ) {
+            provider.hold();
+            flush(batch);
+        }
+        else if( created ) {
+            provider.hold();
+            try {
+                // the window is a tick on the scheduler, no pool worker waits for it to pass
+                provider.getExecutor().schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized( pending ) {
+                            if( pending.get(key) == batch ) {
+                                pending.remove(key);
+                            }
+                        }
+                        flush(batch);
+                    }
+                }, window, TimeUnit.MILLISECONDS);
+            }
+            catch( RuntimeException e ) {
+                synchronized( pending ) {
+                    if( pending.get(key) == batch ) {
+                        pending.remove(key);
+                    }
+                }
+                fail(batch, e);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Writes a batch on the provider's executor. The provider must be held and is released once the batch is done.
+     */
+    private void flush( @Nonnull final Batch batch ) {
+        try {
+            provider.getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        batch.run();
+                    }
+                    finally {
+                        provider.release();
+                    }
+                }
+            });
+        }
+        catch( RuntimeException e ) {
+            fail(batch, e);
+        }
+    }
+
+    /**
+     * Fails a batch which could not be handed to the executor, e.g. because the provider has been closed, and
+     * releases the provider.
+     */
+    private void fail( @Nonnull Batch batch, @Nonnull RuntimeException cause ) {
+        try {
+            batch.fail(new CloudException("Tags were not written: " + cause.getMessage()));
+        }
+        finally {
+            provider.release();
+        }
+    }
+
+    private @Nonnull Result await( @Nonnull String resourceId, @Nonnull Future<Result> future ) {
+        try {
+            return future.get(AWAIT_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            return new Result(resourceId, new CloudException("Interrupted while writing tags for " + resourceId));
+        }
+        catch( ExecutionException e ) {
+            return new Result(resourceId, new CloudException(e.getCause()));
+        }
+        catch( TimeoutException e ) {
+            return new Result(resourceId, new CloudException("Timed out while writing tags for " + resourceId));
+        }
+    }
+
+    private @Nonnull Map<String, Result> write( boolean remove, @Nonnull String service, @Nonnull Collection<String> resourceIds, @Nonnull Tag[] tags ) {
+        Map<String, Result> results = new LinkedHashMap<String, Result>();
+        List<String> ids = new ArrayList<String>(new LinkedHashSet<String>(resourceIds));
+
+        if( tags.length == 0 ) {
+            for( String id : ids ) {
+                results.put(id, new Result(id, null));
+            }
+            return results;
+        }
+        int chunk = getMaximumResourceIds(service);
+
+        for( int i = 0; i < ids.size(); i += chunk ) {
+            write(remove, service, ids.subList(i, Math.min(ids.size(), i + chunk)), tags, results);
+        }
+        EC2TagIndex index = provider.getLoadedTagIndex();
+
+        if( index != null && service.equalsIgnoreCase(EC2Method.SERVICE_ID) ) {
+            List<String> written = new ArrayList<String>();
+
+            for( Result result : results.values() ) {
+                if( result.isSuccess() ) {
+                    written.add(result.getResourceId());
+                }
+            }
+            index.applyTagWrite(remove, written, tags);
+        }
+        return results;
+    }
+
+    private void write( boolean remove, @Nonnull String service, @Nonnull List<String> ids, @Nonnull Tag[] tags, @Nonnull Map<String, Result> results ) {
+        CloudException error;
+
+        for( int attempt = 0; ; attempt++ ) {
+            try {
+                calls.incrementAndGet();
+                provider.invokeTagRequest(remove, service, ids.toArray(new String[ids.size()]), tags);
+                for( String id : ids ) {
+                    results.put(id, new Result(id, null));
+                }
+                return;
+            }
+            catch( CloudException e ) {
+                error = e;
+            }
+            catch( InternalException e ) {
+                error = new CloudException(e);
+            }
+            if( !CloudErrorType.THROTTLING.equals(error.getErrorType()) || attempt >= MAX_THROTTLE_RETRIES ) {
+                break;
+            }
+            try {
+                Thread.sleep(1000L << attempt);
+            }
+            catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if( ids.size() > 1 && isResourceError(error) ) {
+            int half = ids.size() / 2;
+
+            write(remove, service, ids.subList(0, half), tags, results);
+            write(remove, service, ids.subList(half, ids.size()), tags, results);
+            return;
+        }
+        logger.error("Error while " + ( remove ? "removing" : "creating" ) + " tags for " + ids + ": " + error.getMessage());
+        for( String id : ids ) {
+            results.put(id, new Result(id, error));
+        }
+    }
+
+    /**
+     * @return true if the error is caused by one of the resources rather than by the request as a whole
+     */
+    static private boolean isResourceError( @Nonnull CloudException error ) {
+        String code = error.getProviderCode();
+
+        if( code == null ) {
+            return false;
+        }
+        return ( code.endsWith(".NotFound") || code.endsWith(".Malformed") || code.equals("InvalidID") || code.equals("LoadBalancerNotFound") );
+    }
+
+    static private @Nonnull String toKey( boolean remove, @Nonnull String service, @Nonnull Tag[] tags ) {
+        String[] parts = new String[tags.length];
+
+        for( int i = 0; i < tags.length; i++ ) {
+            parts[i] = tags[i].getKey() + '\u0000' + ( tags[i].getValue() == null ? "" : tags[i].getValue() );
+        }
+        Arrays.sort(parts);
+        StringBuilder sb = new StringBuilder(remove ? "-" : "+").append(service.toLowerCase());
+
+        for( String part : parts ) {
+            sb.append('\u0001').append(part);
+        }
+        return sb.toString();
+    }
+
+    private final class Batch implements Runnable {
+        private final boolean                    remove;
+        private final String                     service;
+        private final Tag[]                      tags;
+        private final Map<String, PendingResult> results = new LinkedHashMap<String, PendingResult>();
+        private final AtomicBoolean              started = new AtomicBoolean(false);
+
+        Batch( boolean remove, @Nonnull String service, @Nonnull Tag[] tags ) {
+            this.remove = remove;
+            this.service = service;
+            this.tags = tags;
+        }
+
+        // guarded by pending
+        @Nonnull PendingResult add( @Nonnull String resourceId ) {
+            PendingResult result = results.get(resourceId);
+
+            if( result == null ) {
+                result = new PendingResult();
+                results.put(resourceId, result);
+            }
+            return result;
+        }
+
+        // guarded by pending
+        int size() {
+            return results.size();
+        }
+
+        void fail( @Nonnull CloudException error ) {
+            if( !started.compareAndSet(false, true) ) {
+                return;
+            }
+            Map<String, PendingResult> waiting;
+
+            synchronized( pending ) {
+                waiting = new LinkedHashMap<String, PendingResult>(results);
+            }
+            for( Map.Entry<String, PendingResult> entry : waiting.entrySet() ) {
+                entry.getValue().set(new Result(entry.getKey(), error));
+            }
+        }
+
+        @Override
+        public void run() {
+            if( !started.compareAndSet(false, true) ) {
+                return;
+            }
+            Map<String, PendingResult> waiting;
+
+            synchronized( pending ) {
+                waiting = new LinkedHashMap<String, PendingResult>(results);
+            }
+            Map<String, Result> outcome = null;
+
+            try {
+                outcome = write(remove, service, waiting.keySet(), tags);
+            }
+            finally {
+                for( Map.Entry<String, PendingResult> entry : waiting.entrySet() ) {
+                    Result result = ( outcome == null ? null : outcome.get(entry.getKey()) );
+
+                    if( result == null ) {
+                        result = new Result(entry.getKey(), new CloudException("Tags were not written for " + entry.getKey()));
+                    }
+                    entry.getValue().set(result);
+                }
+            }
+        }
+    }
+
+    static private final class PendingResult implements Future<Result> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Result result;
+
+        void set( @Nonnull Result result ) {
+            this.result = result;
+            done.countDown();
+        }
+
+        @Override
+        public boolean cancel( boolean mayInterruptIfRunning ) {
+            return false;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public boolean isDone() {
+            return ( done.getCount() == 0 );
+        }
+
+        @Override
+        public Result get() throws InterruptedException {
+            done.await();
+            return result;
+        }
+
+        @Override
+        public Result get( long timeout, @Nonnull TimeUnit unit ) throws InterruptedException, TimeoutException {
+            if( !done.await(timeout, unit) ) {
+                throw new TimeoutException();
+            }
+            return result;
+        }
+    }
+}
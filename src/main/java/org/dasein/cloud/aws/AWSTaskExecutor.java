@@ -0,0 +1,430 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.util.Jiterator;
+import org.dasein.util.JiteratorPopulator;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provider-scoped executor for all background work done by the AWS implementation: jiterator population,
+ * concurrent lookups and post-launch tasks. Concurrency is bounded by a fixed number of named worker threads
+ * feeding off a bounded queue; once both are saturated a task is run on the submitting thread rather than
+ * spawning yet another thread. Workers time out when idle, so an unused provider holds no threads.
+ * <p>Polling loops which run for as long as someone waits on them do not belong on the bounded pool, where they
+ * would tie up a worker each and queue up behind the very work they are waiting for. They run as ticks on a
+ * small separate scheduler instead (see {@link #schedule(Runnable, long, TimeUnit)}).</p>
+ * <p>
+ * The pool is configured through the custom properties of the provider context:
+ * </p>
+ * <ul>
+ *     <li>{@value #P_POOL_SIZE} - maximum number of concurrent workers (default {@value #DEFAULT_POOL_SIZE})</li>
+ *     <li>{@value #P_QUEUE_SIZE} - maximum number of queued tasks (default {@value #DEFAULT_QUEUE_SIZE})</li>
+ *     <li>{@value #P_SCHEDULER_SIZE} - number of threads running scheduled ticks (default {@value #DEFAULT_SCHEDULER_SIZE})</li>
+ *     <li>{@value #P_VIRTUAL_THREADS} - <code>true</code> to back the workers by virtual threads where the JVM
+ *     supports them</li>
+ * </ul>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSCloud#getExecutor()
+ */
+public class AWSTaskExecutor implements Executor {
+    static private final Logger logger = AWSCloud.getLogger(AWSTaskExecutor.class);
+
+    static public final String P_POOL_SIZE       = "executorPoolSize";
+    static public final String P_QUEUE_SIZE      = "executorQueueSize";
+    static public final String P_SCHEDULER_SIZE  = "executorSchedulerSize";
+    static public final String P_VIRTUAL_THREADS = "executorVirtualThreads";
+
+    static public final int DEFAULT_POOL_SIZE      = 32;
+    static public final int DEFAULT_QUEUE_SIZE     = 1024;
+    static public final int DEFAULT_SCHEDULER_SIZE = 2;
+
+    static private final long          KEEP_ALIVE_SECONDS = 60L;
+    static private final AtomicInteger poolCounter        = new AtomicInteger(0);
+
+    /**
+     * Creates an executor configured from the custom properties of a provider context.
+     *
+     * @param props the custom properties of the provider context, may be null
+     * @return a new executor
+     */
+    static public @Nonnull AWSTaskExecutor getInstance( @Nullable Properties props ) {
+        int poolSize = DEFAULT_POOL_SIZE;
+        int queueSize = DEFAULT_QUEUE_SIZE;
+        int schedulerSize = DEFAULT_SCHEDULER_SIZE;
+        boolean virtualThreads = false;
+
+        if( props != null ) {
+            poolSize = getIntProperty(props, P_POOL_SIZE, DEFAULT_POOL_SIZE);
+            queueSize = getIntProperty(props, P_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+            schedulerSize = getIntProperty(props, P_SCHEDULER_SIZE, DEFAULT_SCHEDULER_SIZE);
+            virtualThreads = Boolean.valueOf(props.getProperty(P_VIRTUAL_THREADS, "false"));
+        }
+        return new AWSTaskExecutor("dasein-aws-" + poolCounter.incrementAndGet(), poolSize, queueSize, schedulerSize, virtualThreads);
+    }
+
+    static private int getIntProperty( @Nonnull Properties props, @Nonnull String name, int defaultValue ) {
+        String value = props.getProperty(name);
+
+        if( value != null ) {
+            try {
+                int i = Integer.parseInt(value.trim());
+
+                if( i > 0 ) {
+                    return i;
+                }
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Ignoring invalid value for " + name + ": " + value);
+            }
+        }
+        return defaultValue;
+    }
+
+    private final String                      name;
+    private final ThreadPoolExecutor          pool;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final boolean                     virtualThreads;
+    private final AtomicLong                  submitted  = new AtomicLong(0L);
+    private final AtomicLong                  callerRuns = new AtomicLong(0L);
+    private final AtomicLong                  failed     = new AtomicLong(0L);
+
+    public AWSTaskExecutor( @Nonnull String name, int poolSize, int queueSize, boolean virtualThreads ) {
+        this(name, poolSize, queueSize, DEFAULT_SCHEDULER_SIZE, virtualThreads);
+    }
+
+    public AWSTaskExecutor( @Nonnull String name, int poolSize, int queueSize, int schedulerSize, boolean virtualThreads ) {
+        ThreadFactory factory = null;
+
+        this.name = name;
+        if( virtualThreads ) {
+            factory = getVirtualThreadFactory(name);
+            if( factory == null ) {
+                logger.warn("Virtual threads are not supported by this JVM, using platform threads for " + name);
+            }
+        }
+        this.virtualThreads = ( factory != null );
+        if( factory == null ) {
+            factory = new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger(0);
+
+                @Override
+                public Thread newThread( @Nonnull Runnable r ) {
+                    Thread t = new Thread(r, AWSTaskExecutor.this.name + "-" + counter.incrementAndGet());
+
+                    t.setDaemon(true);
+                    return t;
+                }
+            };
+        }
+        pool = new ThreadPoolExecutor(poolSize, poolSize, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), factory, new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution( Runnable r, ThreadPoolExecutor executor ) {
+                // never drop work and never grow past the bound: the submitter pays for it instead
+                callerRuns.incrementAndGet();
+                r.run();
+            }
+        });
+        pool.allowCoreThreadTimeOut(true);
+        scheduler = new ScheduledThreadPoolExecutor(Math.max(1, schedulerSize), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread( @Nonnull Runnable r ) {
+                Thread t = new Thread(r, AWSTaskExecutor.this.name + "-scheduler-" + counter.incrementAndGet());
+
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        scheduler.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+        // closing the provider ends the polling loops rather than running their next tick
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Looks up <code>Thread.ofVirtual().name(prefix, 1).factory()</code> reflectively so the code still
+     * compiles and runs on JVMs without virtual threads.
+     */
+    static private @Nullable ThreadFactory getVirtualThreadFactory( @Nonnull String prefix ) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 1L);
+            return ( ThreadFactory ) builderClass.getMethod("factory").invoke(builder);
+        }
+        catch( Exception e ) {
+            if( logger.isDebugEnabled() ) {
+                logger.debug("No virtual thread support: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public void execute( @Nonnull final Runnable task ) {
+        submitted.incrementAndGet();
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                }
+                catch( RuntimeException e ) {
+                    failed.incrementAndGet();
+                    logger.error("Background task failed in " + name + ": " + e.getMessage(), e);
+                }
+                catch( Error e ) {
+                    failed.incrementAndGet();
+                    logger.error("Background task failed in " + name + ": " + e.getMessage(), e);
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a tick of a polling loop on the scheduler rather than the bounded pool. A tick may call out to the cloud
+     * but must never wait on work done by the pool, and it reschedules itself instead of sleeping.
+     *
+     * @param task  the tick to run
+     * @param delay the time to wait before running it
+     * @param unit  the unit of the delay
+     * @return a future which can be used to cancel the tick
+     * @throws java.util.concurrent.RejectedExecutionException this executor has been shut down
+     */
+    public @Nonnull ScheduledFuture<?> schedule( @Nonnull final Runnable task, long delay, @Nonnull TimeUnit unit ) {
+        submitted.incrementAndGet();
+        return scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                }
+                catch( RuntimeException e ) {
+                    failed.incrementAndGet();
+                    logger.error("Scheduled task failed in " + name + ": " + e.getMessage(), e);
+                }
+            }
+        }, Math.max(0L, delay), unit);
+    }
+
+    /**
+     * Submits a task for asynchronous execution.
+     *
+     * @param task the task to execute
+     * @param <T>  the type of the task result
+     * @return a future representing the pending result of the task
+     */
+    public @Nonnull <T> Future<T> submit( @Nonnull final Callable<T> task ) {
+        FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try {
+                    return task.call();
+                }
+                catch( Exception e ) {
+                    failed.incrementAndGet();
+                    throw e;
+                }
+            }
+        });
+
+        submitted.incrementAndGet();
+        pool.execute(future);
+        return future;
+    }
+
+    /**
+     * Waits for the result of a task submitted to this executor. If no worker has picked the task up yet, it is run
+     * on the waiting thread instead, so tasks waiting on their own subtasks cannot tie up every worker while the
+     * subtasks sit in the queue.
+     *
+     * @param future a future returned by {@link #submit(Callable)}
+     * @param <T>    the type of the task result
+     * @return the result of the task
+     * @throws InterruptedException the waiting thread was interrupted
+     * @throws ExecutionException the task failed
+     */
+    public <T> T await( @Nonnull Future<T> future ) throws InterruptedException, ExecutionException {
+        if( future instanceof RunnableFuture ) {
+            // a no-op if the task has already been started elsewhere
+            ( ( RunnableFuture<T> ) future ).run();
+        }
+        return future.get();
+    }
+
+    /**
+     * Waits for the result of a task like {@link #await(Future)} does, unwrapping its failure.
+     *
+     * @param future a future returned by {@link #submit(Callable)}
+     * @param <T>    the type of the task result
+     * @return the result of the task
+     * @throws CloudException the task failed with a cloud error or the waiting thread was interrupted
+     * @throws InternalException the task failed with any other error
+     */
+    public <T> T awaitResult( @Nonnull Future<T> future ) throws CloudException, InternalException {
+        try {
+            return await(future);
+        }
+        catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new CloudException("Interrupted while waiting for a background task");
+        }
+        catch( ExecutionException e ) {
+            if( e.getCause() instanceof CloudException ) {
+                throw ( CloudException ) e.getCause();
+            }
+            if( e.getCause() instanceof InternalException ) {
+                throw ( InternalException ) e.getCause();
+            }
+            throw new InternalException(e.getCause());
+        }
+    }
+
+    /**
+     * Replacement for {@link org.dasein.util.PopulatorThread} that fills the jiterator from a pool worker
+     * instead of a dedicated thread.
+     *
+     * @param populator the populator filling the result
+     * @param <T>       the type of the items in the result
+     * @return a jiterator filled asynchronously by the populator
+     */
+    public @Nonnull <T> Jiterator<T> populate( @Nonnull final JiteratorPopulator<T> populator ) {
+        final Jiterator<T> iterator = new Jiterator<T>();
+
+        submitted.incrementAndGet();
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    populator.populate(iterator);
+                    iterator.complete();
+                }
+                catch( Exception e ) {
+                    failed.incrementAndGet();
+                    iterator.setLoadException(e);
+                }
+                catch( Error e ) {
+                    failed.incrementAndGet();
+                    iterator.setLoadException(new RuntimeException(e));
+                    throw e;
+                }
+            }
+        });
+        return iterator;
+    }
+
+    /**
+     * Stops accepting new work. Tasks already queued are allowed to finish, so pending jiterators still complete.
+     */
+    public void shutdown() {
+        if( !pool.isShutdown() ) {
+            if( logger.isDebugEnabled() ) {
+                logger.debug("Shutting down " + toString());
+            }
+            pool.shutdown();
+            scheduler.shutdown();
+        }
+    }
+
+    public boolean isShutdown() {
+        return pool.isShutdown();
+    }
+
+    public @Nonnull String getName() {
+        return name;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getMaximumPoolSize() {
+        return pool.getMaximumPoolSize();
+    }
+
+    public int getPoolSize() {
+        return pool.getPoolSize();
+    }
+
+    public int getLargestPoolSize() {
+        return pool.getLargestPoolSize();
+    }
+
+    public int getActiveCount() {
+        return pool.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return pool.getQueue().size();
+    }
+
+    public long getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public long getCompletedCount() {
+        return pool.getCompletedTaskCount();
+    }
+
+    /**
+     * @return the number of tasks which ran on the submitting thread because the pool was saturated
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    @Override
+    public String toString() {
+        return name + "[pool=" + getPoolSize() + "/" + getMaximumPoolSize() + ",active=" + getActiveCount() + ",queued=" + getQueuedCount() + ",submitted=" + getSubmittedCount() + ",completed=" + getCompletedCount() + ",callerRuns=" + getCallerRunsCount() + ",failed=" + getFailedCount() + ( virtualThreads ? ",virtual" : "" ) + "]";
+    }
+}
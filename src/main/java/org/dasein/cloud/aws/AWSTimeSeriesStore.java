@@ -0,0 +1,227 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the part of a time series which can no longer change, so that reading a window of the series again only
+ * fetches what comes after it. Each series is stored under a key and covers the window from the start of the first
+ * read up to the point the subclass knows to be settled; a read which is not contiguous with what is stored fetches
+ * its whole window and starts the series over. At most a given number of series are kept, evicting the least
+ * recently used, and a store sized 0 or less is disabled.
+ * <p>Stored points are never modified; extending a series replaces it.</p>
+ *
+ * @param <P> the points of a series
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSMetricCache
+ * @see org.dasein.cloud.aws.compute.EC2SpotPriceStore
+ */
+public abstract class AWSTimeSeriesStore<P extends AWSTimeSeriesStore.Points<P>> {
+    static private final Logger logger = AWSCloud.getLogger(AWSTimeSeriesStore.class);
+
+    /**
+     * Points of a time series.
+     *
+     * @param <P> the type of the points themselves
+     */
+    public interface Points<P> {
+        /**
+         * Adds the points of another series falling into a window.
+         *
+         * @param other the points to copy from, sorted by timestamp
+         * @param startTimestamp the start of the window, inclusive
+         * @param endTimestamp the end of the window, exclusive
+         */
+        void addAll( @Nonnull P other, long startTimestamp, long endTimestamp );
+
+        /**
+         * @return the number of points
+         */
+        int size();
+
+        /**
+         * @return these points sorted by timestamp, without duplicates
+         */
+        @Nonnull P sorted();
+    }
+
+    /**
+     * Fetches the points of a series from the cloud.
+     *
+     * @param <P> the points of the series
+     */
+    public interface Fetcher<P> {
+        /**
+         * @param startTimestamp the start of the window to fetch, inclusive
+         * @param endTimestamp the end of the window to fetch, exclusive
+         * @param into the points to add the fetched points to, in any order
+         * @throws CloudException an error occurred with the cloud provider
+         * @throws InternalException an error occurred within the Dasein Cloud implementation
+         */
+        void fetch( long startTimestamp, long endTimestamp, @Nonnull P into ) throws CloudException, InternalException;
+    }
+
+    /**
+     * The points of a series, complete for the window from <code>from</code> up to <code>until</code>.
+     */
+    static private final class Series<P> {
+        final long from;
+        final long until;
+        final P    points;
+
+        Series( long from, long until, @Nonnull P points ) {
+            this.from = from;
+            this.until = until;
+            this.points = points;
+        }
+    }
+
+    /**
+     * Reads the size of a store from a custom property of the provider's context.
+     *
+     * @param provider the provider the store belongs to
+     * @param property the name of the custom property
+     * @param defaultSize the size if the property is not set or not a number
+     * @return the maximum number of series to keep
+     */
+    static protected int getSize( @Nonnull AWSCloud provider, @Nonnull String property, int defaultSize ) {
+        ProviderContext ctx = provider.getContext();
+        Properties props = ( ctx == null ? null : ctx.getCustomProperties() );
+        String value = ( props == null ? null : props.getProperty(property) );
+
+        if( value != null ) {
+            try {
+                return Integer.parseInt(value.trim());
+            }
+            catch( NumberFormatException e ) {
+                logger.warn("Invalid value for " + property + ": " + value);
+            }
+        }
+        return defaultSize;
+    }
+
+    private final int                    maximumSeries;
+    private final Map<String, Series<P>> series;
+    private final AtomicLong             fetched = new AtomicLong(0L);
+
+    protected AWSTimeSeriesStore( final int maximumSeries ) {
+        this.maximumSeries = maximumSeries;
+        this.series = new LinkedHashMap<String, Series<P>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, Series<P>> eldest ) {
+                return ( size() > maximumSeries );
+            }
+        };
+    }
+
+    /**
+     * @return true if points should be looked up through this store
+     */
+    public boolean isEnabled() {
+        return ( maximumSeries > 0 );
+    }
+
+    /**
+     * @return the number of points fetched from the cloud so far
+     */
+    public long getFetchedCount() {
+        return fetched.get();
+    }
+
+    /**
+     * @return new, empty points
+     */
+    protected abstract @Nonnull P newPoints();
+
+    /**
+     * Provides the points of a series for a window, fetching from the cloud only what is not stored.
+     *
+     * @param key the key of the series
+     * @param startTimestamp the start of the window, inclusive
+     * @param endTimestamp the end of the window, exclusive
+     * @param settled the end of what can no longer change; nothing after it is stored
+     * @param keepFrom the start of what is worth storing; nothing before it is stored
+     * @param fetcher fetches points from the cloud
+     * @return the points in the window, sorted by timestamp
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    protected @Nonnull P getPoints( @Nonnull String key, long startTimestamp, long endTimestamp, long settled, long keepFrom, @Nonnull Fetcher<P> fetcher ) throws CloudException, InternalException {
+        P points = newPoints();
+        Series<P> current;
+
+        synchronized( series ) {
+            current = series.get(key);
+        }
+        if( current != null && ( current.from > startTimestamp || current.until < startTimestamp ) ) {
+            // not contiguous with what we have, start over
+            current = null;
+        }
+        long fetchFrom = ( current == null ? startTimestamp : Math.max(startTimestamp, current.until) );
+
+        if( fetchFrom < endTimestamp ) {
+            fetcher.fetch(fetchFrom, endTimestamp, points);
+            fetched.addAndGet(points.size());
+            points = points.sorted();
+        }
+        if( settled > fetchFrom ) {
+            P merged = newPoints();
+
+            if( current != null ) {
+                merged.addAll(current.points, current.from, current.until);
+            }
+            merged.addAll(points, fetchFrom, settled);
+            current = new Series<P>(( current == null ? startTimestamp : current.from ), settled, merged);
+            if( settled > keepFrom ) {
+                Series<P> stored = current;
+
+                if( stored.from < keepFrom ) {
+                    P trimmed = newPoints();
+
+                    trimmed.addAll(merged, keepFrom, settled);
+                    stored = new Series<P>(keepFrom, settled, trimmed);
+                }
+                synchronized( series ) {
+                    series.put(key, stored);
+                }
+            }
+        }
+        if( current == null ) {
+            return points;
+        }
+        long storedUntil = Math.min(current.until, endTimestamp);
+        P result = newPoints();
+
+        result.addAll(current.points, startTimestamp, storedUntil);
+        result.addAll(points, storedUntil, endTimestamp);
+        return result;
+    }
+}
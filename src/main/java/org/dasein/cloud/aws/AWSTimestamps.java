@@ -0,0 +1,423 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import javax.annotation.Nonnull;
+import java.text.ParseException;
+
+/**
+ * Thread-safe parsing and formatting of the timestamp formats used by the AWS APIs. Works directly on the
+ * characters of the value and on epoch milliseconds: no <code>SimpleDateFormat</code>, <code>Calendar</code>
+ * or <code>Date</code> is created, so it is cheap enough to call for every item of a large response.
+ * <ul>
+ *     <li>ISO-8601, e.g. <code>2015-10-01T12:34:56.789Z</code>, as used in the XML responses. Fractional
+ *     seconds are optional and a missing zone designator is taken as UTC.</li>
+ *     <li>The basic ISO-8601 form <code>20151001T123456Z</code> used by signature version 4.</li>
+ *     <li>RFC-1123, e.g. <code>Thu, 01 Oct 2015 12:34:56 GMT</code>, as used in HTTP date headers.</li>
+ * </ul>
+ * All values are formatted in UTC.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public final class AWSTimestamps {
+    static private final String[] DAYS   = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
+    static private final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    static private final long MILLIS_PER_DAY = 86400000L;
+
+    private AWSTimestamps() { }
+
+    /**
+     * Parses an ISO-8601 timestamp of the form <code>yyyy-MM-dd'T'HH:mm:ss[.fraction][zone]</code> where the
+     * zone is one of <code>Z</code>, <code>+hh:mm</code>, <code>+hhmm</code> or absent (UTC).
+     *
+     * @param value the timestamp, surrounding whitespace is ignored
+     * @return the timestamp in epoch milliseconds
+     * @throws ParseException if the value is not a valid timestamp
+     */
+    static public long parseIso8601( @Nonnull CharSequence value ) throws ParseException {
+        int end = value.length();
+        int pos = 0;
+
+        while( pos < end && value.charAt(pos) <= ' ' ) {
+            pos++;
+        }
+        while( end > pos && value.charAt(end - 1) <= ' ' ) {
+            end--;
+        }
+        int year = digits(value, pos, 4, end);
+        pos += 4;
+        expect(value, pos++, '-', end);
+        int month = digits(value, pos, 2, end);
+        pos += 2;
+        expect(value, pos++, '-', end);
+        int day = digits(value, pos, 2, end);
+        pos += 2;
+        if( pos >= end || ( value.charAt(pos) != 'T' && value.charAt(pos) != 't' ) ) {
+            throw error(value, pos);
+        }
+        pos++;
+        int hour = digits(value, pos, 2, end);
+        pos += 2;
+        expect(value, pos++, ':', end);
+        int minute = digits(value, pos, 2, end);
+        pos += 2;
+        expect(value, pos++, ':', end);
+        int second = digits(value, pos, 2, end);
+        pos += 2;
+
+        int millis = 0;
+
+        if( pos < end && value.charAt(pos) == '.' ) {
+            int start = ++pos;
+
+            while( pos < end && isDigit(value.charAt(pos)) ) {
+                if( pos - start < 3 ) {
+                    millis = millis * 10 + ( value.charAt(pos) - '0' );
+                }
+                pos++;
+            }
+            if( pos == start ) {
+                throw error(value, pos);
+            }
+            for( int i = pos - start; i < 3; i++ ) {
+                millis *= 10;
+            }
+        }
+        int offset = 0;
+
+        if( pos < end ) {
+            char c = value.charAt(pos);
+
+            if( c == 'Z' || c == 'z' ) {
+                pos++;
+            }
+            else if( c == '+' || c == '-' ) {
+                pos++;
+                offset = digits(value, pos, 2, end) * 60;
+                pos += 2;
+                if( pos < end ) {
+                    if( value.charAt(pos) == ':' ) {
+                        pos++;
+                    }
+                    offset += digits(value, pos, 2, end);
+                    pos += 2;
+                }
+                if( c == '-' ) {
+                    offset = -offset;
+                }
+            }
+        }
+        if( pos != end ) {
+            throw error(value, pos);
+        }
+        return toEpochMillis(value, year, month, day, hour, minute, second, millis) - offset * 60000L;
+    }
+
+    /**
+     * Parses an RFC-1123 HTTP date of the form <code>[EEE, ]dd MMM yyyy HH:mm:ss zone</code> where the zone
+     * is one of <code>GMT</code>, <code>UTC</code>, <code>Z</code> or <code>+hhmm</code>.
+     *
+     * @param value the date, surrounding whitespace is ignored
+     * @return the timestamp in epoch milliseconds
+     * @throws ParseException if the value is not a valid date
+     */
+    static public long parseRfc1123( @Nonnull CharSequence value ) throws ParseException {
+        int end = value.length();
+        int pos = 0;
+
+        while( pos < end && value.charAt(pos) <= ' ' ) {
+            pos++;
+        }
+        while( end > pos && value.charAt(end - 1) <= ' ' ) {
+            end--;
+        }
+        // the day of the week is redundant
+        if( pos < end && !isDigit(value.charAt(pos)) ) {
+            while( pos < end && value.charAt(pos) != ',' ) {
+                pos++;
+            }
+            expect(value, pos++, ',', end);
+            pos = skipSpaces(value, pos, end);
+        }
+        int day;
+
+        if( pos + 1 < end && isDigit(value.charAt(pos + 1)) ) {
+            day = digits(value, pos, 2, end);
+            pos += 2;
+        }
+        else {
+            day = digits(value, pos, 1, end);
+            pos++;
+        }
+        expect(value, pos++, ' ', end);
+        int month = -1;
+
+        if( pos + 3 <= end ) {
+            for( int i = 0; i < MONTHS.length; i++ ) {
+                String m = MONTHS[i];
+
+                if( Character.toLowerCase(value.charAt(pos)) == Character.toLowerCase(m.charAt(0))
+                        && Character.toLowerCase(value.charAt(pos + 1)) == m.charAt(1)
+                        && Character.toLowerCase(value.charAt(pos + 2)) == m.charAt(2) ) {
+                    month = i + 1;
+                    break;
+                }
+            }
+        }
+        if( month < 0 ) {
+            throw error(value, pos);
+        }
+        pos += 3;
+        expect(value, pos++, ' ', end);
+        int year = digits(value, pos, 4, end);
+        pos += 4;
+        expect(value, pos++, ' ', end);
+        int hour = digits(value, pos, 2, end);
+        pos += 2;
+        expect(value, pos++, ':', end);
+        int minute = digits(value, pos, 2, end);
+        pos += 2;
+        expect(value, pos++, ':', end);
+        int second = digits(value, pos, 2, end);
+        pos += 2;
+        pos = skipSpaces(value, pos, end);
+
+        int offset = 0;
+
+        if( pos < end ) {
+            char c = value.charAt(pos);
+
+            if( c == '+' || c == '-' ) {
+                pos++;
+                offset = digits(value, pos, 2, end) * 60 + digits(value, pos + 2, 2, end);
+                pos += 4;
+                if( c == '-' ) {
+                    offset = -offset;
+                }
+            }
+            else if( regionMatches(value, pos, end, "GMT") || regionMatches(value, pos, end, "UTC") ) {
+                pos += 3;
+            }
+            else if( c == 'Z' || c == 'z' ) {
+                pos++;
+            }
+        }
+        if( pos != end ) {
+            throw error(value, pos);
+        }
+        return toEpochMillis(value, year, month, day, hour, minute, second, 0) - offset * 60000L;
+    }
+
+    /**
+     * @param timestamp  the timestamp in epoch milliseconds
+     * @param withMillis whether to include milliseconds
+     * @return the timestamp as <code>yyyy-MM-dd'T'HH:mm:ss[.SSS]'Z'</code>
+     */
+    static public @Nonnull String formatIso8601( long timestamp, boolean withMillis ) {
+        return appendIso8601(new StringBuilder(24), timestamp, withMillis).toString();
+    }
+
+    static public @Nonnull StringBuilder appendIso8601( @Nonnull StringBuilder sb, long timestamp, boolean withMillis ) {
+        long epochDay = floorDiv(timestamp, MILLIS_PER_DAY);
+        int millisOfDay = ( int ) ( timestamp - epochDay * MILLIS_PER_DAY );
+        int date = toCivil(epochDay);
+
+        pad(sb, date >> 9, 4).append('-');
+        pad(sb, ( date >> 5 ) & 0xF, 2).append('-');
+        pad(sb, date & 0x1F, 2).append('T');
+        appendTime(sb, millisOfDay, ':');
+        if( withMillis ) {
+            sb.append('.');
+            pad(sb, millisOfDay % 1000, 3);
+        }
+        return sb.append('Z');
+    }
+
+    /**
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the timestamp as <code>yyyyMMdd'T'HHmmss'Z'</code>, as required by signature version 4
+     */
+    static public @Nonnull String formatIso8601Basic( long timestamp ) {
+        StringBuilder sb = new StringBuilder(16);
+        long epochDay = floorDiv(timestamp, MILLIS_PER_DAY);
+        int millisOfDay = ( int ) ( timestamp - epochDay * MILLIS_PER_DAY );
+        int date = toCivil(epochDay);
+
+        pad(sb, date >> 9, 4);
+        pad(sb, ( date >> 5 ) & 0xF, 2);
+        pad(sb, date & 0x1F, 2).append('T');
+        appendTime(sb, millisOfDay, ( char ) 0);
+        return sb.append('Z').toString();
+    }
+
+    /**
+     * @param timestamp the timestamp in epoch milliseconds
+     * @return the timestamp as <code>EEE, dd MMM yyyy HH:mm:ss 'GMT'</code>
+     */
+    static public @Nonnull String formatRfc1123( long timestamp ) {
+        StringBuilder sb = new StringBuilder(29);
+        long epochDay = floorDiv(timestamp, MILLIS_PER_DAY);
+        int millisOfDay = ( int ) ( timestamp - epochDay * MILLIS_PER_DAY );
+        int date = toCivil(epochDay);
+
+        // 1970-01-01 was a Thursday
+        sb.append(DAYS[( int ) floorMod(epochDay + 4, 7)]).append(", ");
+        pad(sb, date & 0x1F, 2).append(' ');
+        sb.append(MONTHS[( ( date >> 5 ) & 0xF ) - 1]).append(' ');
+        pad(sb, date >> 9, 4).append(' ');
+        appendTime(sb, millisOfDay, ':');
+        return sb.append(" GMT").toString();
+    }
+
+    static private void appendTime( @Nonnull StringBuilder sb, int millisOfDay, char separator ) {
+        int seconds = millisOfDay / 1000;
+
+        pad(sb, seconds / 3600, 2);
+        if( separator != 0 ) {
+            sb.append(separator);
+        }
+        pad(sb, ( seconds / 60 ) % 60, 2);
+        if( separator != 0 ) {
+            sb.append(separator);
+        }
+        pad(sb, seconds % 60, 2);
+    }
+
+    static private @Nonnull StringBuilder pad( @Nonnull StringBuilder sb, int value, int width ) {
+        if( value < 0 ) {
+            return sb.append(value);
+        }
+        for( int limit = 10, i = 1; i < width; i++, limit *= 10 ) {
+            if( value < limit ) {
+                sb.append('0');
+            }
+        }
+        return sb.append(value);
+    }
+
+    /**
+     * Converts days since the epoch into the proleptic Gregorian calendar.
+     *
+     * @return the date packed as <code>year &lt;&lt; 9 | month &lt;&lt; 5 | day</code>
+     */
+    static private int toCivil( long epochDay ) {
+        long z = epochDay + 719468L;
+        long era = ( z >= 0 ? z : z - 146096L ) / 146097L;
+        int doe = ( int ) ( z - era * 146097L );
+        int yoe = ( doe - doe / 1460 + doe / 36524 - doe / 146096 ) / 365;
+        int doy = doe - ( 365 * yoe + yoe / 4 - yoe / 100 );
+        int mp = ( 5 * doy + 2 ) / 153;
+        int day = doy - ( 153 * mp + 2 ) / 5 + 1;
+        int month = ( mp < 10 ? mp + 3 : mp - 9 );
+        int year = ( int ) ( yoe + era * 400 ) + ( month <= 2 ? 1 : 0 );
+
+        return ( year << 9 ) | ( month << 5 ) | day;
+    }
+
+    static private long toEpochMillis( @Nonnull CharSequence value, int year, int month, int day, int hour, int minute, int second, int millis ) throws ParseException {
+        if( month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour > 23 || minute > 59 || second > 60 ) {
+            throw error(value, 0);
+        }
+        int y = ( month <= 2 ? year - 1 : year );
+        int era = ( y >= 0 ? y : y - 399 ) / 400;
+        int yoe = y - era * 400;
+        int doy = ( 153 * ( month > 2 ? month - 3 : month + 9 ) + 2 ) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        long epochDay = era * 146097L + doe - 719468L;
+
+        return epochDay * MILLIS_PER_DAY + ( hour * 3600L + minute * 60L + second ) * 1000L + millis;
+    }
+
+    static private int daysInMonth( int year, int month ) {
+        switch( month ) {
+            case 2:
+                return ( ( year % 4 == 0 && year % 100 != 0 ) || year % 400 == 0 ) ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    static private int digits( @Nonnull CharSequence value, int pos, int count, int end ) throws ParseException {
+        if( pos + count > end ) {
+            throw error(value, pos);
+        }
+        int result = 0;
+
+        for( int i = pos; i < pos + count; i++ ) {
+            char c = value.charAt(i);
+
+            if( !isDigit(c) ) {
+                throw error(value, i);
+            }
+            result = result * 10 + ( c - '0' );
+        }
+        return result;
+    }
+
+    static private void expect( @Nonnull CharSequence value, int pos, char c, int end ) throws ParseException {
+        if( pos >= end || value.charAt(pos) != c ) {
+            throw error(value, pos);
+        }
+    }
+
+    static private int skipSpaces( @Nonnull CharSequence value, int pos, int end ) {
+        while( pos < end && value.charAt(pos) == ' ' ) {
+            pos++;
+        }
+        return pos;
+    }
+
+    static private boolean regionMatches( @Nonnull CharSequence value, int pos, int end, @Nonnull String s ) {
+        if( pos + s.length() > end ) {
+            return false;
+        }
+        for( int i = 0; i < s.length(); i++ ) {
+            if( Character.toUpperCase(value.charAt(pos + i)) != s.charAt(i) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static private boolean isDigit( char c ) {
+        return ( c >= '0' && c <= '9' );
+    }
+
+    static private long floorDiv( long x, long y ) {
+        long q = x / y;
+
+        if( ( x % y ) != 0 && ( ( x ^ y ) < 0 ) ) {
+            q--;
+        }
+        return q;
+    }
+
+    static private long floorMod( long x, long y ) {
+        return x - floorDiv(x, y) * y;
+    }
+
+    static private @Nonnull ParseException error( @Nonnull CharSequence value, int pos ) {
+        return new ParseException("Unparseable date: \"" + value + "\"", pos);
+    }
+}
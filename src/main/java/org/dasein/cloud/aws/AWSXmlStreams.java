@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * The pieces shared by the streaming (StAX) parsers of AWS responses. Readers come from a single factory which
+ * refuses DTDs and external entities and coalesces text, so the parsers read each text value in one go.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public final class AWSXmlStreams {
+    static private final XMLInputFactory factory;
+
+    static {
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+    }
+
+    private AWSXmlStreams() { }
+
+    /**
+     * @param input the response body
+     * @return a reader over the response body
+     * @throws XMLStreamException the reader could not be created
+     */
+    static public @Nonnull XMLStreamReader createReader( @Nonnull InputStream input ) throws XMLStreamException {
+        return factory.createXMLStreamReader(input);
+    }
+
+    /**
+     * Moves past the end of the current element and everything in it.
+     *
+     * @param reader a reader positioned on the start of an element
+     * @throws XMLStreamException the response could not be read
+     */
+    static public void skip( @Nonnull XMLStreamReader reader ) throws XMLStreamException {
+        int depth = 1;
+
+        while( depth > 0 && reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                depth++;
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Closes a reader, ignoring any error. The underlying stream is left open.
+     *
+     * @param reader the reader to close, may be null
+     */
+    static public void close( @Nullable XMLStreamReader reader ) {
+        if( reader != null ) {
+            try {
+                reader.close();
+            }
+            catch( XMLStreamException ignore ) {
+                // ignore
+            }
+        }
+    }
+}
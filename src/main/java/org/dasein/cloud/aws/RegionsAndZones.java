@@ -399,48 +399,56 @@ public class RegionsAndZones extends AbstractDataCenterServices<AWSCloud> {
         HashMap<String, String> platformMap = null;
 
         if(region2Ec2Types == null){
-            region2Ec2Types = new ArrayList<HashMap>();
-            Collection<Region> regions = listRegions();
-            platformMap = new HashMap<String, String>();
-
-            for(Region r : regions){
-                Map<String,String> parameters = getProvider().getStandardParameters(getProvider().getContext(), EC2Method.DESCRIBE_ACCOUNT_ATTRIBUTES);
-                parameters.put("AttributeName.1", "supported-platforms");
-                EC2Method method = new EC2Method(EC2Method.SERVICE_ID, r.getProviderRegionId(), getProvider(), parameters);
-                try{
-                    Document doc = method.invoke();
+            List<String> regionIds = new ArrayList<String>();
 
-                    String supportedPlatform = null;
-                    NodeList attributes = doc.getElementsByTagName("attributeValueSet").item(0).getChildNodes();
-                    for(int i=0;i<attributes.getLength();i++){
-                        Node attribute = attributes.item(i);
-                        if(attribute.getNodeType() == Node.TEXT_NODE)continue;
+            for( Region r : listRegions() ) {
+                regionIds.add(r.getProviderRegionId());
+            }
+            // ask all regions at once rather than one after the other
+            AWSRegionScatter.Sweep<String[]> sweep = AWSRegionScatter.getInstance(getProvider()).scatter(regionIds, new AWSRegionScatter.RegionOperation<String[]>() {
+                @Override
+                public boolean isRegionContextRequired() {
+                    return false;
+                }
 
-                        if(attribute.getNodeName().equals("item")){
-                            NodeList data = attribute.getChildNodes();
+                @Override
+                public @Nonnull Iterable<String[]> execute(@Nonnull AWSCloud provider, @Nonnull String regionId) throws CloudException, InternalException {
+                    String platform = getSupportedPlatform(regionId);
 
-                            for(int j=0;j<data.getLength();j++){
-                                Node value = data.item(j);
-                                if(value.getNodeType() == Node.TEXT_NODE)continue;
+                    if( platform == null ) {
+                        return Collections.emptyList();
+                    }
+                    return Collections.singletonList(new String[] { regionId, platform });
+                }
+            });
+            boolean complete = true;
 
-                                if(supportedPlatform != null){
-                                    supportedPlatform = AWSCloud.PLATFORM_EC2;//For now if it can be either we'll use EC2-Classic
-                                }
-                                else{
-                                    supportedPlatform = value.getFirstChild().getNodeValue().trim();
-                                }
-                                platformMap.put(r.getProviderRegionId(), supportedPlatform);
-                            }
+            try {
+                // waits through the executor first, so this is safe on a pool worker
+                for( AWSRegionScatter.RegionOutcome outcome : sweep.getFailures() ) {
+                    complete = false;
+                    if( outcome.getRegionId().equals(regionId) ) {
+                        if( outcome.getError() instanceof CloudException ) {
+                            throw (CloudException)outcome.getError();
                         }
+                        throw new CloudException("Unable to determine the supported platforms of " + regionId + ": " + outcome);
                     }
                 }
-                catch( EC2Exception e ) {
-                    logger.error(e.getSummary());
-                    throw new CloudException(e);
-                }
             }
-            region2Ec2Types.add(platformMap);
-            cache.put(ctx, region2Ec2Types);
+            catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new InternalException(e);
+            }
+            platformMap = new HashMap<String, String>();
+            for( String[] platform : sweep.getResults() ) {
+                platformMap.put(platform[0], platform[1]);
+            }
+            // don't cache an incomplete answer
+            if( complete ) {
+                region2Ec2Types = new ArrayList<HashMap>();
+                region2Ec2Types.add(platformMap);
+                cache.put(ctx, region2Ec2Types);
+            }
         }
         else{
             platformMap = region2Ec2Types.iterator().next();
@@ -448,6 +456,44 @@ public class RegionsAndZones extends AbstractDataCenterServices<AWSCloud> {
         return platformMap.get(regionId);
     }
 
+    private @Nullable String getSupportedPlatform(@Nonnull String regionId) throws CloudException, InternalException {
+        Map<String,String> parameters = getProvider().getStandardParameters(getProvider().getContext(), EC2Method.DESCRIBE_ACCOUNT_ATTRIBUTES);
+        parameters.put("AttributeName.1", "supported-platforms");
+        EC2Method method = new EC2Method(EC2Method.SERVICE_ID, regionId, getProvider(), parameters);
+        String supportedPlatform = null;
+
+        try{
+            Document doc = method.invoke();
+
+            NodeList attributes = doc.getElementsByTagName("attributeValueSet").item(0).getChildNodes();
+            for(int i=0;i<attributes.getLength();i++){
+                Node attribute = attributes.item(i);
+                if(attribute.getNodeType() == Node.TEXT_NODE)continue;
+
+                if(attribute.getNodeName().equals("item")){
+                    NodeList data = attribute.getChildNodes();
+
+                    for(int j=0;j<data.getLength();j++){
+                        Node value = data.item(j);
+                        if(value.getNodeType() == Node.TEXT_NODE)continue;
+
+                        if(supportedPlatform != null){
+                            supportedPlatform = AWSCloud.PLATFORM_EC2;//For now if it can be either we'll use EC2-Classic
+                        }
+                        else{
+                            supportedPlatform = value.getFirstChild().getNodeValue().trim();
+                        }
+                    }
+                }
+            }
+        }
+        catch( EC2Exception e ) {
+            logger.error(e.getSummary());
+            throw new CloudException(e);
+        }
+        return supportedPlatform;
+    }
+
 	private DataCenter toDataCenter(String regionId, Node zone) throws CloudException {
 		NodeList data = zone.getChildNodes();
 		DataCenter dc = new DataCenter();
@@ -27,6 +27,7 @@ import org.dasein.cloud.admin.Prepayment;
 import org.dasein.cloud.admin.PrepaymentState;
 import org.dasein.cloud.admin.PrepaymentSupport;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTimestamps;
 import org.dasein.cloud.aws.compute.EC2Exception;
 import org.dasein.cloud.aws.compute.EC2Method;
 import org.dasein.cloud.compute.ComputeServices;
@@ -42,7 +43,6 @@ import javax.annotation.Nonnegative;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class ReservedInstance implements PrepaymentSupport {
@@ -394,11 +394,10 @@ public class ReservedInstance implements PrepaymentSupport {
 				prepayment.setPeriodInDays(seconds/SECONDS_IN_DAY);				
 			}
 			else if( name.equals("start") ) {
-				SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
 				String start = attr.getFirstChild().getNodeValue().trim();
 
 				try {
-					prepayment.setPeriodStartTimestamp(fmt.parse(start).getTime());
+					prepayment.setPeriodStartTimestamp(AWSTimestamps.parseIso8601(start));
 				} 
 				catch( ParseException e ) {
 					logger.error(e);
@@ -22,6 +22,9 @@ package org.dasein.cloud.aws.compute;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.*;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSResourceNotFoundException;
+import org.dasein.cloud.aws.AWSStateWaiter;
+import org.dasein.cloud.aws.AWSTimestamps;
 import org.dasein.cloud.aws.storage.S3Method;
 import org.dasein.cloud.compute.*;
 import org.dasein.cloud.identity.ServiceAction;
@@ -29,7 +32,6 @@ import org.dasein.cloud.util.APITrace;
 import org.dasein.util.CalendarWrapper;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -37,8 +39,9 @@ import org.w3c.dom.NodeList;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.UnsupportedEncodingException;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * @version 2013.01.1 Fixed a data consistency issue with AWS (issue #21)
@@ -237,12 +240,7 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
 
             uploadPolicy.append("{");
             uploadPolicy.append("\"expiration\":\"");
-            {
-                SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-                Date date = new Date(System.currentTimeMillis() + (CalendarWrapper.HOUR*12L));
-
-                uploadPolicy.append(fmt.format(date));
-            }
+            AWSTimestamps.appendIso8601(uploadPolicy, System.currentTimeMillis() + (CalendarWrapper.HOUR*12L), true);
             uploadPolicy.append("\",\"conditions\":");
             {
                 uploadPolicy.append("[");
@@ -377,6 +375,21 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
     }
 
     private @Nonnull Iterable<MachineImage> executeImageSearch(int pass, boolean forPublic, @Nonnull ImageFilterOptions options) throws CloudException, InternalException {
+        final List<MachineImage> list = new ArrayList<MachineImage>();
+
+        executeImageSearch(pass, forPublic, options, new DescribeImagesResponseParser.ImageSink() {
+            @Override
+            public void accept(@Nonnull MachineImage image) {
+                list.add(image);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Runs one pass of an image search, handing each image to the sink as soon as it has been parsed.
+     */
+    private void executeImageSearch(int pass, boolean forPublic, @Nonnull ImageFilterOptions options, @Nonnull DescribeImagesResponseParser.ImageSink sink) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "Image.executeImageSearch");
         try {
             final ProviderContext ctx = getProvider(). getContext();
@@ -393,13 +406,11 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
 
             if( architecture != null && !architecture.equals(Architecture.I32) && !architecture.equals(Architecture.I64) ) {
                 if( !options.isMatchesAny() ) {
-                    return Collections.emptyList();
+                    return;
                 }
             }
             Map<String,String> parameters = getProvider(). getStandardParameters(getProvider(). getContext(), EC2Method.DESCRIBE_IMAGES);
 
-            final List<MachineImage> list = new ArrayList<MachineImage>();
-
             if( forPublic ) {
                 if( pass == 1 ) {
                     parameters.put("ExecutableBy.1", "all");
@@ -425,13 +436,12 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
                                 getProvider(). getContext().getRegionId(),
                                 (getProvider(). getEC2Provider().isAWS() ? null : getProvider(). getContext().getAccountNumber()),
                                 finalOptions,
-                                list));
+                                sink));
             }
             catch( EC2Exception e ) {
                 logger.error(e.getSummary());
                 throw new CloudException(e);
             }
-            return list;
         }
         finally {
             APITrace.end();
@@ -506,6 +516,55 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
         }
     }
 	
+
+    /**
+     * Describes the specified images through a <code>image-id</code> filter. Unlike the indexed ID parameter,
+     * the filter silently skips images which no longer exist instead of failing the whole request.
+     *
+     * @param imageIds the images to describe
+     * @return the images which still exist
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    @Nonnull List<MachineImage> describeImagesByFilter(@Nonnull Collection<String> imageIds) throws InternalException, CloudException {
+        List<MachineImage> list = new ArrayList<MachineImage>();
+
+        if( imageIds.isEmpty() ) {
+            return list;
+        }
+        Map<String,String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_IMAGES);
+        EC2Method method;
+        NodeList blocks;
+        Document doc;
+
+        AWSCloud.addFilterParameters(parameters, 1, "image-id", imageIds);
+        method = new EC2Method(getProvider(), parameters);
+        try {
+            doc = method.invoke();
+        }
+        catch( EC2Exception e ) {
+            logger.error(e.getSummary());
+            throw new CloudException(e);
+        }
+        blocks = doc.getElementsByTagName("imagesSet");
+        for( int i=0; i<blocks.getLength(); i++ ) {
+            NodeList items = blocks.item(i).getChildNodes();
+
+            for( int j=0; j<items.getLength(); j++ ) {
+                Node item = items.item(j);
+
+                if( item.getNodeName().equals("item") ) {
+                    MachineImage image = toMachineImage(item);
+
+                    if( image != null ) {
+                        list.add(image);
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
     @Override
     public boolean isImageSharedWithPublic(@Nonnull String machineImageId) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "Image.isImageSharedWithPublic");
@@ -561,7 +620,7 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
 
     public @Nonnull Iterable<ResourceStatus> listImageStatus(final @Nonnull ImageClass cls) throws CloudException, InternalException {
             getProvider(). hold();
-            PopulatorThread<ResourceStatus> populator = new PopulatorThread<ResourceStatus>(new JiteratorPopulator<ResourceStatus>() {
+            Jiterator<ResourceStatus> populator = getProvider().getExecutor().populate(new JiteratorPopulator<ResourceStatus>() {
                 @Override
                 public void populate(@Nonnull Jiterator<ResourceStatus> iterator) throws Exception {
                     APITrace.begin(getProvider(), "Image.listImageStatus");
@@ -589,8 +648,7 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
                 }
             });
 
-            populator.populate();
-            return populator.getResult();
+            return populator;
 
     }
 
@@ -602,12 +660,12 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
             if( ctx == null ) {
                 throw new CloudException("No context was set for this request");
             }
+            if( ctx.getRegionId() == null ) {
+                throw new CloudException("No region was set for this request");
+            }
 
             Map<String,String> parameters = getProvider(). getStandardParameters(getProvider(). getContext(), EC2Method.DESCRIBE_IMAGES);
             ArrayList<ResourceStatus> list = new ArrayList<ResourceStatus>();
-            EC2Method method;
-            NodeList blocks;
-            Document doc;
 
             String accountNumber = ctx.getAccountNumber();
 
@@ -627,59 +685,13 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
             }
             parameters.put("Filter.1.Name", "image-type");
             parameters.put("Filter.1.Value", t);
-            method = new EC2Method(getProvider(), parameters);
-            try {
-                doc = method.invoke();
-            }
-            catch( EC2Exception e ) {
-                logger.error(e.getSummary());
-                throw new CloudException(e);
-            }
-            blocks = doc.getElementsByTagName("imagesSet");
-            for( int i=0; i<blocks.getLength(); i++ ) {
-                NodeList instances = blocks.item(i).getChildNodes();
-
-                for( int j=0; j<instances.getLength(); j++ ) {
-                    Node instance = instances.item(j);
-
-                    if( instance.getNodeName().equals("item") ) {
-                        ResourceStatus status = toStatus(instance);
-
-                        if( status != null ) {
-                            list.add(status);
-                        }
-                    }
-                }
-            }
+            describeImageStatus(parameters, list);
             if( getProvider(). getEC2Provider().isAWS() ) {
                 parameters = getProvider(). getStandardParameters(getProvider(). getContext(), EC2Method.DESCRIBE_IMAGES);
                 parameters.put("ExecutableBy", accountNumber);
                 parameters.put("Filter.1.Name", "image-type");
                 parameters.put("Filter.1.Value", t);
-                method = new EC2Method(getProvider(), parameters);
-                try {
-                    doc = method.invoke();
-                }
-                catch( EC2Exception e ) {
-                    logger.error(e.getSummary());
-                    throw new CloudException(e);
-                }
-                blocks = doc.getElementsByTagName("imagesSet");
-                for( int i=0; i<blocks.getLength(); i++ ) {
-                    NodeList instances = blocks.item(i).getChildNodes();
-
-                    for( int j=0; j<instances.getLength(); j++ ) {
-                        Node instance = instances.item(j);
-
-                        if( instance.getNodeName().equals("item") ) {
-                            ResourceStatus status = toStatus(instance);
-
-                            if( status != null ) {
-                                list.add(status);
-                            }
-                        }
-                    }
-                }
+                describeImageStatus(parameters, list);
             }
             return list;
         }
@@ -688,6 +700,41 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
         }
     }
 
+    /**
+     * Describes images keeping only their state, following any <code>nextToken</code> the response carries.
+     * <code>DescribeImages</code> cannot be asked for pages, so each response is streamed rather than paged.
+     *
+     * @param parameters the request parameters
+     * @param list the list to add the status of each image to
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    private void describeImageStatus(@Nonnull Map<String,String> parameters, @Nonnull List<ResourceStatus> list) throws CloudException, InternalException {
+        List<DescribeStatusResponseParser.RawStatus> page = new ArrayList<DescribeStatusResponseParser.RawStatus>();
+        DescribeStatusResponseParser parser = DescribeStatusResponseParser.forImages(page);
+        String nextToken = null;
+
+        do {
+            Map<String,String> pageParameters = new HashMap<String,String>(parameters);
+
+            if( nextToken != null ) {
+                pageParameters.put("NextToken", nextToken);
+            }
+            page.clear();
+            try {
+                new EC2Method(getProvider(), pageParameters).invoke(parser);
+            }
+            catch( EC2Exception e ) {
+                logger.error(e.getSummary());
+                throw new CloudException(e);
+            }
+            for( DescribeStatusResponseParser.RawStatus status : page ) {
+                list.add(new ResourceStatus(status.getResourceId(), toImageState(status.getState())));
+            }
+            nextToken = parser.getNextToken();
+        } while( nextToken != null );
+    }
+
     private @Nonnull ImageFilterOptions fillImageFilterParameters(boolean forPublic, @Nonnull ImageFilterOptions options, @Nonnull Map<String,String> parameters) throws CloudException, InternalException {
         int filter = 1;
 
@@ -924,27 +971,21 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
         APITrace.begin(getProvider(), "Image.remove");
         try {
             if ( checkState ) {
-                long timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE * 30L);
+                Set<String> targets = new HashSet<String>();
 
-                while ( timeout > System.currentTimeMillis() ) {
-                    try {
-                        MachineImage img = getMachineImage( providerImageId );
+                targets.add(MachineImageState.ACTIVE.name());
+                targets.add(MachineImageState.DELETED.name());
+                targets.add(AWSStateWaiter.GONE);
+                try {
+                    String state = getProvider().getStateWaiter().await(getStatePoller(), providerImageId, targets, CalendarWrapper.MINUTE * 30L);
 
-                        if ( img == null || MachineImageState.DELETED.equals( img.getCurrentState() ) ) {
-                            return;
-                        }
-                        if ( MachineImageState.ACTIVE.equals( img.getCurrentState() ) ) {
-                            break;
-                        }
-                    } catch ( Throwable ignore ) {
-                        // ignore
-                    }
-                    try {
-                        Thread.sleep( 15000L );
-                    }
-                    catch ( InterruptedException ignore ) {
+                    if( !MachineImageState.ACTIVE.name().equals(state) ) {
+                        return;
                     }
                 }
+                catch( CloudException e ) {
+                    logger.warn("Removing image " + providerImageId + " without it becoming available: " + e.getMessage());
+                }
             }
 
             Map<String, String> parameters = getProvider(). getStandardParameters( getProvider(). getContext(), EC2Method.DEREGISTER_IMAGE );
@@ -1021,7 +1062,7 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
             opts = options;
         }
         getProvider(). hold();
-        PopulatorThread<MachineImage> populator = new PopulatorThread<MachineImage>(new JiteratorPopulator<MachineImage>() {
+        Jiterator<MachineImage> populator = getProvider().getExecutor().populate(new JiteratorPopulator<MachineImage>() {
             @Override
             public void populate(@Nonnull Jiterator<MachineImage> iterator) throws Exception {
                 APITrace.begin(getProvider(), "Image.listImages");
@@ -1049,24 +1090,40 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
             }
         });
 
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     @Override
     public @Nonnull Iterable<MachineImage> searchPublicImages(final @Nonnull ImageFilterOptions options) throws CloudException, InternalException {
         getProvider(). hold();
-        PopulatorThread<MachineImage> populator = new PopulatorThread<MachineImage>(new JiteratorPopulator<MachineImage>() {
+        Jiterator<MachineImage> populator = getProvider().getExecutor().populate(new JiteratorPopulator<MachineImage>() {
             @Override
             public void populate(@Nonnull Jiterator<MachineImage> iterator) throws Exception {
                 APITrace.begin(getProvider(), "searchPublicImages");
                 try {
                     try {
-                        for( MachineImage img : executeImageSearch(1, true, options) ) {
-                            iterator.push(img);
+                        // both passes stream into the iterator at once, an image found by both is only pushed once
+                        final ImageStream stream = new ImageStream(iterator);
+                        Future<Void> second = getProvider().getExecutor().submit(new Callable<Void>() {
+                            @Override
+                            public Void call() throws Exception {
+                                executeImageSearch(2, true, options, stream);
+                                return null;
+                            }
+                        });
+                        boolean done = false;
+
+                        try {
+                            executeImageSearch(1, true, options, stream);
+                            getProvider().getExecutor().awaitResult(second);
+                            done = true;
                         }
-                        for( MachineImage img : executeImageSearch(2, true, options) ) {
-                            iterator.push(img);
+                        finally {
+                            // the iterator completes once we return, whatever the second pass is still doing
+                            stream.close();
+                            if( !done ) {
+                                second.cancel(true);
+                            }
                         }
                     }
                     finally {
@@ -1079,33 +1136,93 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
             }
         });
 
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
-    private void setPrivateShare(@Nonnull String imageId, boolean allowed, @Nonnull String ... accountIds) throws CloudException, InternalException {
-        if( accountIds == null || accountIds.length < 1 ) {
-            return;
+    /**
+     * Pushes parsed images straight into an iterator, dropping any image ID already pushed. Safe to fill from
+     * several searches at once; once closed it rejects any further image, ending the search pushing it.
+     */
+    static final class ImageStream implements DescribeImagesResponseParser.ImageSink {
+        private final Jiterator<MachineImage> iterator;
+        private final Set<String>             seen   = new HashSet<String>();
+        private boolean                       closed = false;
+
+        ImageStream(@Nonnull Jiterator<MachineImage> iterator) {
+            this.iterator = iterator;
         }
-        long timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE * 30L);
 
-        while( timeout > System.currentTimeMillis() ) {
-            try {
-                MachineImage img = getMachineImage(imageId);
+        @Override
+        public synchronized void accept(@Nonnull MachineImage image) throws CloudException {
+            if( closed ) {
+                throw new CloudException("The image search has ended");
+            }
+            if( seen.add(image.getProviderMachineImageId()) ) {
+                iterator.push(image);
+            }
+        }
 
-                if( img == null ) {
-                    throw new CloudException("The machine image " + imageId + " disappeared while waiting to set sharing");
-                }
-                if( MachineImageState.ACTIVE.equals(img.getCurrentState()) ) {
-                    break;
-                }
+        synchronized void close() {
+            closed = true;
+        }
+    }
+
+    /**
+     * Provides a poller for the shared state waiter which looks up the state of many images with one
+     * <code>DescribeImages</code> call.
+     *
+     * @return a poller mapping image IDs to the names of their {@link MachineImageState}
+     */
+    public @Nonnull AWSStateWaiter.StatePoller getStatePoller() {
+        return new AWSStateWaiter.StatePoller() {
+            @Override
+            public @Nonnull String getResourceType() {
+                return "image";
             }
-            catch( Throwable ignore ) {
-                // ignore
+
+            @Override
+            public int getMaximumBatchSize() {
+                return 200;
             }
-            try { Thread.sleep(15000L); }
-            catch( InterruptedException ignore ) { }
+
+            @Override
+            public @Nonnull Map<String, String> poll(@Nonnull Collection<String> resourceIds) throws CloudException, InternalException {
+                Map<String, String> states = new HashMap<String, String>();
+
+                for( MachineImage img : describeImagesByFilter(resourceIds) ) {
+                    states.put(img.getProviderMachineImageId(), img.getCurrentState().name());
+                }
+                return states;
+            }
+        };
+    }
+
+    private void waitForActive(@Nonnull String imageId) throws CloudException {
+        Set<String> targets = new HashSet<String>();
+        String state;
+
+        targets.add(MachineImageState.ACTIVE.name());
+        targets.add(MachineImageState.DELETED.name());
+        try {
+            state = getProvider().getStateWaiter().await(getStatePoller(), imageId, targets, CalendarWrapper.MINUTE * 30L);
+        }
+        catch( AWSResourceNotFoundException e ) {
+            state = MachineImageState.DELETED.name();
+        }
+        catch( CloudException e ) {
+            logger.warn("Image " + imageId + " did not become available before setting sharing: " + e.getMessage());
+            return;
+        }
+        if( MachineImageState.DELETED.name().equals(state) ) {
+            throw new CloudException("The machine image " + imageId + " disappeared while waiting to set sharing");
+        }
+    }
+
+    private void setPrivateShare(@Nonnull String imageId, boolean allowed, @Nonnull String ... accountIds) throws CloudException, InternalException {
+        if( accountIds == null || accountIds.length < 1 ) {
+            return;
         }
+        waitForActive(imageId);
         Map<String,String> parameters = getProvider(). getStandardParameters(getProvider(). getContext(), EC2Method.MODIFY_IMAGE_ATTRIBUTE);
         EC2Method method;
         NodeList blocks;
@@ -1175,25 +1292,7 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
     }
 
     private void setPublicShare(@Nonnull String imageId, boolean allowed) throws CloudException, InternalException {
-        long timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE * 30L);
-
-        while( timeout > System.currentTimeMillis() ) {
-            try {
-                MachineImage img = getMachineImage(imageId);
-
-                if( img == null ) {
-                    throw new CloudException("The machine image " + imageId + " disappeared while waiting to set sharing");
-                }
-                if( MachineImageState.ACTIVE.equals(img.getCurrentState()) ) {
-                    break;
-                }
-            }
-            catch( Throwable ignore ) {
-                // ignore
-            }
-            try { Thread.sleep(15000L); }
-            catch( InterruptedException ignore ) { }
-        }
+        waitForActive(imageId);
         Map<String,String> parameters = getProvider(). getStandardParameters(getProvider(). getContext(), EC2Method.MODIFY_IMAGE_ATTRIBUTE);
         EC2Method method;
         NodeList blocks;
@@ -1382,52 +1481,14 @@ public class AMI extends AbstractImageSupport<AWSCloud> {
         return task;
     }
 
-    private @Nullable ResourceStatus toStatus(@Nullable Node node) throws CloudException, InternalException {
-        if( node == null ) {
-            return null;
-        }
-        ProviderContext ctx = getProvider(). getContext();
-
-        if( ctx == null ) {
-            throw new CloudException("No context was set for this request");
-        }
-        String regionId = ctx.getRegionId();
-
-        if( regionId == null ) {
-            throw new CloudException("No region was set for this request");
+    private @Nonnull MachineImageState toImageState(@Nullable String imageState) {
+        if( imageState != null && imageState.equalsIgnoreCase("available") ) {
+            return MachineImageState.ACTIVE;
         }
-        NodeList attributes = node.getChildNodes();
-        MachineImageState state = MachineImageState.PENDING;
-        String imageId = null;
-
-        for( int i=0; i<attributes.getLength(); i++ ) {
-            Node attribute = attributes.item(i);
-            String name = attribute.getNodeName();
-
-            if( name.equals("imageId") ) {
-                imageId = attribute.getFirstChild().getNodeValue().trim();
-            }
-            else if( name.equals("imageState") ) {
-                String value = null;
-
-                if( attribute.getChildNodes().getLength() > 0 ) {
-                    value = attribute.getFirstChild().getNodeValue().trim();
-                }
-                if( value != null && value.equalsIgnoreCase("available") ) {
-                    state = MachineImageState.ACTIVE;
-                }
-                else if( value != null && value.equalsIgnoreCase("failed") ) {
-                    state = MachineImageState.DELETED;
-                }
-                else {
-                    state = MachineImageState.PENDING;
-                }
-            }
-        }
-        if( imageId == null ) {
-            return null;
+        else if( imageState != null && imageState.equalsIgnoreCase("failed") ) {
+            return MachineImageState.DELETED;
         }
-        return new ResourceStatus(imageId, state);
+        return MachineImageState.PENDING;
     }
 
     private @Nullable MachineImage toMachineImage(@Nullable Node node) throws CloudException, InternalException {
@@ -22,12 +22,12 @@ package org.dasein.cloud.aws.compute;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.*;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTimestamps;
 import org.dasein.cloud.compute.*;
 import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.dasein.util.uom.storage.Gigabyte;
 import org.dasein.util.uom.storage.Storage;
 import org.w3c.dom.Document;
@@ -39,7 +39,6 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.UnsupportedEncodingException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class AutoScaling extends AbstractAutoScalingSupport<AWSCloud> {
@@ -1089,10 +1088,10 @@ public class AutoScaling extends AbstractAutoScalingSupport<AWSCloud> {
 
     @Override
     public Collection<AutoScalingGroupNotificationConfig> listNotificationConfigs( final String[] scalingGroupIds ) throws CloudException, InternalException {
-        PopulatorThread<AutoScalingGroupNotificationConfig> populatorThread;
+        Jiterator<AutoScalingGroupNotificationConfig> populatorThread;
 
         getProvider().hold();
-        populatorThread = new PopulatorThread<AutoScalingGroupNotificationConfig>(new JiteratorPopulator<AutoScalingGroupNotificationConfig>() {
+        populatorThread = getProvider().getExecutor().populate(new JiteratorPopulator<AutoScalingGroupNotificationConfig>() {
             @Override
             public void populate( @Nonnull Jiterator<AutoScalingGroupNotificationConfig> autoScalingGroupNotificationConfigs ) throws Exception {
                 try {
@@ -1104,8 +1103,7 @@ public class AutoScaling extends AbstractAutoScalingSupport<AWSCloud> {
             }
         });
 
-        populatorThread.populate();
-        return populatorThread.getResult();
+        return populatorThread;
     }
 
     private void populateNotificationConfig( @Nonnull Jiterator<AutoScalingGroupNotificationConfig> asgNotificationConfig, @Nullable String token, String[] scalingGroupIds ) throws CloudException, InternalException {
@@ -1252,10 +1250,8 @@ public class AutoScaling extends AbstractAutoScalingSupport<AWSCloud> {
                 }
             }
             else if( name.equalsIgnoreCase("CreatedTime") ) {
-                SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-
                 try {
-                    cfg.setCreationTimestamp(fmt.parse(attr.getFirstChild().getNodeValue()).getTime());
+                    cfg.setCreationTimestamp(AWSTimestamps.parseIso8601(attr.getFirstChild().getNodeValue()));
                 }
                 catch( ParseException e ) {
                     logger.error("Could not parse timestamp: " + attr.getFirstChild().getNodeValue());
@@ -1448,10 +1444,8 @@ public class AutoScaling extends AbstractAutoScalingSupport<AWSCloud> {
                 group.setDefaultCooldown(Integer.parseInt(attr.getFirstChild().getNodeValue()));
             }
             else if( name.equalsIgnoreCase("CreatedTime") ) {
-                SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-
                 try {
-                    group.setCreationTimestamp(fmt.parse(attr.getFirstChild().getNodeValue()).getTime());
+                    group.setCreationTimestamp(AWSTimestamps.parseIso8601(attr.getFirstChild().getNodeValue()));
                 }
                 catch( ParseException e ) {
                     logger.error("Could not parse timestamp: " + attr.getFirstChild().getNodeValue());
@@ -45,7 +45,19 @@ import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
  */
 public class DescribeImagesResponseParser implements XmlStreamParser<MachineImage> {
 
+    /**
+     * Receives each matching image as soon as it has been parsed.
+     */
+    public interface ImageSink {
+        /**
+         * @param image the image parsed
+         * @throws CloudException the sink takes no more images, which ends the parse
+         */
+        void accept(@Nonnull MachineImage image) throws CloudException;
+    }
+
     private final List<MachineImage> list;
+    private final ImageSink sink;
     private final String providerOwnerId;
     private final String regionId;
     private final ImageFilterOptions filterOptions;
@@ -54,11 +66,36 @@ public class DescribeImagesResponseParser implements XmlStreamParser<MachineImag
     public DescribeImagesResponseParser(@Nonnull String regionId,
                                         @Nullable String providerOwnerId,
                                         @Nullable ImageFilterOptions filterOptions,
-                                        @Nonnull List<MachineImage> list) {
+                                        @Nonnull final List<MachineImage> list) {
+        this(regionId, providerOwnerId, filterOptions, list, new ImageSink() {
+            @Override
+            public void accept(@Nonnull MachineImage image) {
+                list.add(image);
+            }
+        });
+    }
+
+    /**
+     * Creates a parser handing each image to a sink instead of collecting them; {@link #parse(InputStream)} then
+     * returns an empty list.
+     */
+    public DescribeImagesResponseParser(@Nonnull String regionId,
+                                        @Nullable String providerOwnerId,
+                                        @Nullable ImageFilterOptions filterOptions,
+                                        @Nonnull ImageSink sink) {
+        this(regionId, providerOwnerId, filterOptions, new ArrayList<MachineImage>(), sink);
+    }
+
+    private DescribeImagesResponseParser(@Nonnull String regionId,
+                                         @Nullable String providerOwnerId,
+                                         @Nullable ImageFilterOptions filterOptions,
+                                         @Nonnull List<MachineImage> list,
+                                         @Nonnull ImageSink sink) {
         this.providerOwnerId = providerOwnerId;
         this.regionId = regionId;
         this.filterOptions = filterOptions;
         this.list = list;
+        this.sink = sink;
     }
 
     @Override
@@ -80,7 +117,7 @@ public class DescribeImagesResponseParser implements XmlStreamParser<MachineImag
                             itemDepth++;
                             MachineImage image = readItem(reader);
                             if( image != null && ( filterOptions != null && filterOptions.matches(image) ) ) {
-                                list.add(image);
+                                sink.accept(image);
                             }
                         }
                         break;
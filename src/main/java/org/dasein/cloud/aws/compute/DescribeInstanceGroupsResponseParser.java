@@ -0,0 +1,233 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSXmlStreams;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams one page of a <code>DescribeInstances</code> response into the security group IDs of each instance,
+ * remembering the <code>nextToken</code> for the following page. Only the <code>groupSet</code> of each instance is
+ * read, falling back to the <code>groupSet</code> of its reservation; everything else is skipped over.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public class DescribeInstanceGroupsResponseParser implements XmlStreamParser<String> {
+    private final Map<String, List<String>> groups;
+    private final List<String>              instanceIds = new ArrayList<String>();
+    private String                          nextToken;
+
+    /**
+     * @param groups the map to put the security group IDs of each instance into, keyed by instance ID
+     */
+    public DescribeInstanceGroupsResponseParser( @Nonnull Map<String, List<String>> groups ) {
+        this.groups = groups;
+    }
+
+    /**
+     * @return the token for the next page, or null if this was the last page
+     */
+    public @Nullable String getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * @return the IDs of the instances found on the page
+     */
+    @Override
+    public List<String> parse( InputStream stream ) throws IOException, CloudException, InternalException {
+        XMLStreamReader reader = null;
+
+        nextToken = null;
+        instanceIds.clear();
+        try {
+            reader = AWSXmlStreams.createReader(stream);
+            while( reader.hasNext() ) {
+                if( reader.next() != XMLStreamConstants.START_ELEMENT ) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+
+                if( "reservationSet".equals(name) ) {
+                    readReservations(reader);
+                }
+                else if( "nextToken".equals(name) ) {
+                    String token = reader.getElementText().trim();
+
+                    nextToken = ( token.length() > 0 ? token : null );
+                }
+            }
+        }
+        catch( XMLStreamException e ) {
+            throw new CloudException(e);
+        }
+        finally {
+            AWSXmlStreams.close(reader);
+        }
+        return new ArrayList<String>(instanceIds);
+    }
+
+    private void readReservations( @Nonnull XMLStreamReader reader ) throws XMLStreamException {
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                if( "item".equals(reader.getLocalName()) ) {
+                    readReservation(reader);
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                return;
+            }
+        }
+    }
+
+    private void readReservation( @Nonnull XMLStreamReader reader ) throws XMLStreamException {
+        List<String> reservationGroups = new ArrayList<String>();
+        List<String> instances = new ArrayList<String>();
+        List<List<String>> instanceGroups = new ArrayList<List<String>>();
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                String name = reader.getLocalName();
+
+                if( "groupSet".equals(name) ) {
+                    readGroups(reader, reservationGroups);
+                }
+                else if( "instancesSet".equals(name) ) {
+                    readInstances(reader, instances, instanceGroups);
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                break;
+            }
+        }
+        // the groups of the reservation may come before or after its instances
+        for( int i = 0; i < instances.size(); i++ ) {
+            String instanceId = instances.get(i);
+            List<String> list = instanceGroups.get(i);
+
+            if( list.isEmpty() ) {
+                list.addAll(reservationGroups);
+            }
+            instanceIds.add(instanceId);
+            groups.put(instanceId, list);
+        }
+    }
+
+    private void readInstances( @Nonnull XMLStreamReader reader, @Nonnull List<String> instances, @Nonnull List<List<String>> instanceGroups ) throws XMLStreamException {
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                if( "item".equals(reader.getLocalName()) ) {
+                    List<String> list = new ArrayList<String>();
+                    String instanceId = readInstance(reader, list);
+
+                    if( instanceId != null ) {
+                        instances.add(instanceId);
+                        instanceGroups.add(list);
+                    }
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                return;
+            }
+        }
+    }
+
+    private @Nullable String readInstance( @Nonnull XMLStreamReader reader, @Nonnull List<String> list ) throws XMLStreamException {
+        String instanceId = null;
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                String name = reader.getLocalName();
+
+                if( "instanceId".equals(name) ) {
+                    instanceId = reader.getElementText().trim();
+                }
+                else if( "groupSet".equals(name) ) {
+                    readGroups(reader, list);
+                }
+                else {
+                    // network interfaces carry their own groupSet, which is not the instance's
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                break;
+            }
+        }
+        return ( instanceId == null || instanceId.length() == 0 ? null : instanceId );
+    }
+
+    /**
+     * Reads the <code>groupId</code> of each item of a <code>groupSet</code>.
+     */
+    private void readGroups( @Nonnull XMLStreamReader reader, @Nonnull List<String> list ) throws XMLStreamException {
+        int depth = 1;
+
+        while( depth > 0 && reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                if( depth == 2 && "groupId".equals(reader.getLocalName()) ) {
+                    String groupId = reader.getElementText().trim();
+
+                    if( groupId.length() > 0 && !list.contains(groupId) ) {
+                        list.add(groupId);
+                    }
+                }
+                else {
+                    depth++;
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                depth--;
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSTimestamps;
+import org.dasein.cloud.aws.AWSXmlStreams;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Streams one page of a <code>DescribeInstanceStatus</code> response into the state and scheduled events of each
+ * instance, remembering the <code>nextToken</code> for the following page. The status checks are skipped over.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public class DescribeInstanceStatusResponseParser implements XmlStreamParser<DescribeInstanceStatusResponseParser.RawInstanceStatus> {
+    /**
+     * An event EC2 scheduled for an instance, such as a reboot or a retirement.
+     */
+    static public final class RawEvent {
+        private final String code;
+        private final String description;
+        private final long   notBefore;
+
+        public RawEvent( @Nonnull String code, @Nullable String description, long notBefore ) {
+            this.code = code;
+            this.description = description;
+            this.notBefore = notBefore;
+        }
+
+        /**
+         * @return the event code, e.g. <code>system-reboot</code> or <code>instance-retirement</code>
+         */
+        public @Nonnull String getCode() {
+            return code;
+        }
+
+        public @Nullable String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return the earliest time the event may start, 0 if unknown
+         */
+        public long getNotBefore() {
+            return notBefore;
+        }
+
+        /**
+         * @return true if EC2 reports the event as completed or canceled
+         */
+        public boolean isOver() {
+            return ( description != null && ( description.startsWith("[Completed]") || description.startsWith("[Canceled]") ) );
+        }
+    }
+
+    /**
+     * The ID of an instance with its state exactly as EC2 reports it and its scheduled events.
+     */
+    static public final class RawInstanceStatus {
+        private final String         instanceId;
+        private final String         state;
+        private final List<RawEvent> events;
+
+        public RawInstanceStatus( @Nonnull String instanceId, @Nullable String state, @Nonnull List<RawEvent> events ) {
+            this.instanceId = instanceId;
+            this.state = state;
+            this.events = events;
+        }
+
+        public @Nonnull String getInstanceId() {
+            return instanceId;
+        }
+
+        /**
+         * @return the state as reported by EC2, e.g. <code>running</code>, or null if the instance had none
+         */
+        public @Nullable String getState() {
+            return state;
+        }
+
+        public @Nonnull List<RawEvent> getEvents() {
+            return events;
+        }
+
+        @Override
+        public String toString() {
+            return instanceId + " [" + state + "]";
+        }
+    }
+
+    private final List<RawInstanceStatus> list;
+    private String                        nextToken;
+
+    /**
+     * @param list the list to add the status of each instance to
+     */
+    public DescribeInstanceStatusResponseParser( @Nonnull List<RawInstanceStatus> list ) {
+        this.list = list;
+    }
+
+    /**
+     * @return the token for the next page, or null if this was the last page
+     */
+    public @Nullable String getNextToken() {
+        return nextToken;
+    }
+
+    @Override
+    public List<RawInstanceStatus> parse( InputStream stream ) throws IOException, CloudException, InternalException {
+        XMLStreamReader reader = null;
+
+        nextToken = null;
+        try {
+            reader = AWSXmlStreams.createReader(stream);
+            while( reader.hasNext() ) {
+                if( reader.next() != XMLStreamConstants.START_ELEMENT ) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+
+                if( "instanceStatusSet".equals(name) ) {
+                    readSet(reader);
+                }
+                else if( "nextToken".equals(name) ) {
+                    String token = reader.getElementText().trim();
+
+                    nextToken = ( token.length() > 0 ? token : null );
+                }
+            }
+        }
+        catch( XMLStreamException e ) {
+            throw new CloudException(e);
+        }
+        finally {
+            AWSXmlStreams.close(reader);
+        }
+        return list;
+    }
+
+    private void readSet( @Nonnull XMLStreamReader reader ) throws XMLStreamException, CloudException {
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                if( "item".equals(reader.getLocalName()) ) {
+                    RawInstanceStatus status = readItem(reader);
+
+                    if( status != null ) {
+                        list.add(status);
+                    }
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                return;
+            }
+        }
+    }
+
+    private @Nullable RawInstanceStatus readItem( @Nonnull XMLStreamReader reader ) throws XMLStreamException, CloudException {
+        String instanceId = null, state = null;
+        List<RawEvent> events = null;
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                String name = reader.getLocalName();
+
+                if( "instanceId".equals(name) ) {
+                    instanceId = reader.getElementText().trim();
+                }
+                else if( "instanceState".equals(name) ) {
+                    state = readState(reader);
+                }
+                else if( "eventsSet".equals(name) ) {
+                    events = readEvents(reader);
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                break;
+            }
+        }
+        if( instanceId == null || instanceId.length() == 0 ) {
+            return null;
+        }
+        return new RawInstanceStatus(instanceId, state, events == null ? Collections.<RawEvent>emptyList() : events);
+    }
+
+    private @Nullable String readState( @Nonnull XMLStreamReader reader ) throws XMLStreamException {
+        String state = null;
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                if( "name".equals(reader.getLocalName()) ) {
+                    state = reader.getElementText().trim();
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                break;
+            }
+        }
+        return ( state == null || state.length() == 0 ? null : state );
+    }
+
+    private @Nonnull List<RawEvent> readEvents( @Nonnull XMLStreamReader reader ) throws XMLStreamException, CloudException {
+        List<RawEvent> events = new ArrayList<RawEvent>();
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                if( "item".equals(reader.getLocalName()) ) {
+                    RawEvent e = readEvent(reader);
+
+                    if( e != null ) {
+                        events.add(e);
+                    }
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                break;
+            }
+        }
+        return events;
+    }
+
+    private @Nullable RawEvent readEvent( @Nonnull XMLStreamReader reader ) throws XMLStreamException, CloudException {
+        String code = null, description = null, notBefore = null;
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                String name = reader.getLocalName();
+
+                if( "code".equals(name) ) {
+                    code = reader.getElementText().trim();
+                }
+                else if( "description".equals(name) ) {
+                    description = reader.getElementText().trim();
+                }
+                else if( "notBefore".equals(name) ) {
+                    notBefore = reader.getElementText().trim();
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                break;
+            }
+        }
+        if( code == null || code.length() == 0 ) {
+            return null;
+        }
+        try {
+            return new RawEvent(code, description, notBefore == null || notBefore.length() == 0 ? 0L : AWSTimestamps.parseIso8601(notBefore));
+        }
+        catch( ParseException e ) {
+            throw new CloudException("Could not parse date: " + notBefore);
+        }
+    }
+}
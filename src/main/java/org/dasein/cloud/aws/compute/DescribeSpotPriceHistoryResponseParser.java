@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSTimestamps;
+import org.dasein.cloud.aws.AWSXmlStreams;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * Streams one page of a <code>DescribeSpotPriceHistory</code> response into spot prices, remembering the
+ * <code>nextToken</code> for the following page.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public class DescribeSpotPriceHistoryResponseParser implements XmlStreamParser<EC2SpotPrice> {
+    private final List<EC2SpotPrice> list;
+    private String                   nextToken;
+
+    /**
+     * @param list the list to add the spot prices of each page to
+     */
+    public DescribeSpotPriceHistoryResponseParser( @Nonnull List<EC2SpotPrice> list ) {
+        this.list = list;
+    }
+
+    /**
+     * @return the token for the next page, or null if this was the last page
+     */
+    public @Nullable String getNextToken() {
+        return nextToken;
+    }
+
+    @Override
+    public List<EC2SpotPrice> parse( InputStream stream ) throws IOException, CloudException, InternalException {
+        XMLStreamReader reader = null;
+
+        nextToken = null;
+        try {
+            reader = AWSXmlStreams.createReader(stream);
+            while( reader.hasNext() ) {
+                if( reader.next() != XMLStreamConstants.START_ELEMENT ) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+
+                if( "item".equals(name) ) {
+                    EC2SpotPrice price = readItem(reader);
+
+                    if( price != null ) {
+                        list.add(price);
+                    }
+                }
+                else if( "nextToken".equals(name) ) {
+                    String token = reader.getElementText().trim();
+
+                    nextToken = ( token.length() > 0 ? token : null );
+                }
+            }
+        }
+        catch( XMLStreamException e ) {
+            throw new CloudException(e);
+        }
+        finally {
+            AWSXmlStreams.close(reader);
+        }
+        return list;
+    }
+
+    private @Nullable EC2SpotPrice readItem( @Nonnull XMLStreamReader reader ) throws XMLStreamException, CloudException {
+        String instanceType = null, productDescription = null, availabilityZone = null, spotPrice = null, timestamp = null;
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                String name = reader.getLocalName();
+
+                if( "instanceType".equals(name) ) {
+                    instanceType = reader.getElementText().trim();
+                }
+                else if( "productDescription".equals(name) ) {
+                    productDescription = reader.getElementText().trim();
+                }
+                else if( "availabilityZone".equals(name) ) {
+                    availabilityZone = reader.getElementText().trim();
+                }
+                else if( "spotPrice".equals(name) ) {
+                    spotPrice = reader.getElementText().trim();
+                }
+                else if( "timestamp".equals(name) ) {
+                    timestamp = reader.getElementText().trim();
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT && "item".equals(reader.getLocalName()) ) {
+                break;
+            }
+        }
+        if( instanceType == null || availabilityZone == null || spotPrice == null || timestamp == null ) {
+            return null;
+        }
+        try {
+            return new EC2SpotPrice(instanceType, productDescription, availabilityZone, AWSTimestamps.parseIso8601(timestamp), Float.parseFloat(spotPrice));
+        }
+        catch( ParseException e ) {
+            throw new CloudException("Could not parse date: " + timestamp);
+        }
+        catch( NumberFormatException e ) {
+            throw new CloudException("Could not parse spot price: " + spotPrice);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSXmlStreams;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Streams one page of a describe response into just the ID and raw state of each resource, remembering the
+ * <code>nextToken</code> for the following page. Everything else about a resource (block devices, attachments,
+ * tags, product codes...) is skipped over as it is read, without building a DOM for it.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public class DescribeStatusResponseParser implements XmlStreamParser<DescribeStatusResponseParser.RawStatus> {
+    /**
+     * The ID of a resource with its state exactly as EC2 reports it.
+     */
+    static public final class RawStatus {
+        private final String resourceId;
+        private final String state;
+
+        public RawStatus( @Nonnull String resourceId, @Nullable String state ) {
+            this.resourceId = resourceId;
+            this.state = state;
+        }
+
+        public @Nonnull String getResourceId() {
+            return resourceId;
+        }
+
+        /**
+         * @return the state as reported by EC2, or null if the resource had none
+         */
+        public @Nullable String getState() {
+            return state;
+        }
+
+        @Override
+        public String toString() {
+            return resourceId + " [" + state + "]";
+        }
+    }
+
+    /**
+     * @param list the list to add the status of each instance to
+     * @return a parser for <code>DescribeInstances</code>
+     */
+    static public @Nonnull DescribeStatusResponseParser forInstances( @Nonnull List<RawStatus> list ) {
+        return new DescribeStatusResponseParser("instancesSet", "instanceId", new String[] { "instanceState", "name" }, list);
+    }
+
+    /**
+     * @param list the list to add the status of each volume to
+     * @return a parser for <code>DescribeVolumes</code>
+     */
+    static public @Nonnull DescribeStatusResponseParser forVolumes( @Nonnull List<RawStatus> list ) {
+        return new DescribeStatusResponseParser("volumeSet", "volumeId", new String[] { "status" }, list);
+    }
+
+    /**
+     * @param list the list to add the status of each snapshot to
+     * @return a parser for <code>DescribeSnapshots</code>
+     */
+    static public @Nonnull DescribeStatusResponseParser forSnapshots( @Nonnull List<RawStatus> list ) {
+        return new DescribeStatusResponseParser("snapshotSet", "snapshotId", new String[] { "status" }, list);
+    }
+
+    /**
+     * @param list the list to add the status of each image to
+     * @return a parser for <code>DescribeImages</code>
+     */
+    static public @Nonnull DescribeStatusResponseParser forImages( @Nonnull List<RawStatus> list ) {
+        return new DescribeStatusResponseParser("imagesSet", "imageId", new String[] { "imageState" }, list);
+    }
+
+    private final String          setName;
+    private final String          idName;
+    private final String[]        statePath;
+    private final List<RawStatus> list;
+    private String                nextToken;
+
+    /**
+     * @param setName the element holding the resources, each of them as an <code>item</code>
+     * @param idName the child element of an item holding the resource ID
+     * @param statePath the path from an item to the element holding the state
+     * @param list the list to add the status of each resource to
+     */
+    public DescribeStatusResponseParser( @Nonnull String setName, @Nonnull String idName, @Nonnull String[] statePath, @Nonnull List<RawStatus> list ) {
+        this.setName = setName;
+        this.idName = idName;
+        this.statePath = statePath;
+        this.list = list;
+    }
+
+    /**
+     * @return the token for the next page, or null if this was the last page
+     */
+    public @Nullable String getNextToken() {
+        return nextToken;
+    }
+
+    @Override
+    public List<RawStatus> parse( InputStream stream ) throws IOException, CloudException, InternalException {
+        XMLStreamReader reader = null;
+
+        nextToken = null;
+        try {
+            reader = AWSXmlStreams.createReader(stream);
+            while( reader.hasNext() ) {
+                if( reader.next() != XMLStreamConstants.START_ELEMENT ) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+
+                if( setName.equals(name) ) {
+                    readSet(reader);
+                }
+                else if( "nextToken".equals(name) ) {
+                    String token = reader.getElementText().trim();
+
+                    nextToken = ( token.length() > 0 ? token : null );
+                }
+            }
+        }
+        catch( XMLStreamException e ) {
+            throw new CloudException(e);
+        }
+        finally {
+            AWSXmlStreams.close(reader);
+        }
+        return list;
+    }
+
+    private void readSet( @Nonnull XMLStreamReader reader ) throws XMLStreamException {
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                if( "item".equals(reader.getLocalName()) ) {
+                    RawStatus status = readItem(reader);
+
+                    if( status != null ) {
+                        list.add(status);
+                    }
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                return;
+            }
+        }
+    }
+
+    private @Nullable RawStatus readItem( @Nonnull XMLStreamReader reader ) throws XMLStreamException {
+        String resourceId = null, state = null;
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                String name = reader.getLocalName();
+
+                if( idName.equals(name) ) {
+                    resourceId = reader.getElementText().trim();
+                }
+                else if( statePath[0].equals(name) ) {
+                    state = readState(reader, 1);
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                break;
+            }
+        }
+        if( resourceId == null || resourceId.length() == 0 ) {
+            return null;
+        }
+        return new RawStatus(resourceId, state);
+    }
+
+    /**
+     * Reads the state below the current element, which is at <code>depth</code> within the state path.
+     */
+    private @Nullable String readState( @Nonnull XMLStreamReader reader, int depth ) throws XMLStreamException {
+        if( depth == statePath.length ) {
+            String value = reader.getElementText().trim();
+
+            return ( value.length() > 0 ? value : null );
+        }
+        String state = null;
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                if( statePath[depth].equals(reader.getLocalName()) ) {
+                    state = readState(reader, depth + 1);
+                }
+                else {
+                    AWSXmlStreams.skip(reader);
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT ) {
+                break;
+            }
+        }
+        return state;
+    }
+}
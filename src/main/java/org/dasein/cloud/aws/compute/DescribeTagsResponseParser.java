@@ -0,0 +1,163 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSXmlStreams;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Streams one page of a <code>DescribeTags</code> response into a list of resource tags, remembering the
+ * <code>nextToken</code> for the following page.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.EC2TagIndex
+ */
+public class DescribeTagsResponseParser implements XmlStreamParser<DescribeTagsResponseParser.ResourceTag> {
+    /**
+     * A single tag as reported by <code>DescribeTags</code>.
+     */
+    static public final class ResourceTag {
+        private final String resourceId;
+        private final String resourceType;
+        private final String key;
+        private final String value;
+
+        public ResourceTag( @Nonnull String resourceId, @Nullable String resourceType, @Nonnull String key, @Nullable String value ) {
+            this.resourceId = resourceId;
+            this.resourceType = resourceType;
+            this.key = key;
+            this.value = ( value == null ? "" : value );
+        }
+
+        public @Nonnull String getResourceId() {
+            return resourceId;
+        }
+
+        public @Nullable String getResourceType() {
+            return resourceType;
+        }
+
+        public @Nonnull String getKey() {
+            return key;
+        }
+
+        public @Nonnull String getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return resourceId + " [" + key + "=" + value + "]";
+        }
+    }
+
+    private final List<ResourceTag> list;
+    private String nextToken;
+
+    public DescribeTagsResponseParser( @Nonnull List<ResourceTag> list ) {
+        this.list = list;
+    }
+
+    /**
+     * @return the token for the next page, or null if this was the last page
+     */
+    public @Nullable String getNextToken() {
+        return nextToken;
+    }
+
+    @Override
+    public List<ResourceTag> parse( InputStream stream ) throws IOException, CloudException, InternalException {
+        XMLStreamReader reader = null;
+
+        nextToken = null;
+        try {
+            reader = AWSXmlStreams.createReader(stream);
+            while( reader.hasNext() ) {
+                if( reader.next() != XMLStreamConstants.START_ELEMENT ) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+
+                if( "item".equals(name) ) {
+                    ResourceTag tag = readItem(reader);
+
+                    if( tag != null ) {
+                        list.add(tag);
+                    }
+                }
+                else if( "nextToken".equals(name) ) {
+                    String token = reader.getElementText().trim();
+
+                    nextToken = ( token.length() > 0 ? token : null );
+                }
+            }
+        }
+        catch( XMLStreamException e ) {
+            throw new CloudException(e);
+        }
+        finally {
+            AWSXmlStreams.close(reader);
+        }
+        return list;
+    }
+
+    private @Nullable ResourceTag readItem( @Nonnull XMLStreamReader reader ) throws XMLStreamException {
+        String resourceId = null, resourceType = null, key = null, value = null;
+
+        while( reader.hasNext() ) {
+            int event = reader.next();
+
+            if( event == XMLStreamConstants.START_ELEMENT ) {
+                String name = reader.getLocalName();
+
+                if( "resourceId".equals(name) ) {
+                    resourceId = reader.getElementText().trim();
+                }
+                else if( "resourceType".equals(name) ) {
+                    resourceType = reader.getElementText().trim();
+                }
+                else if( "key".equals(name) ) {
+                    key = reader.getElementText();
+                }
+                else if( "value".equals(name) ) {
+                    value = reader.getElementText();
+                }
+            }
+            else if( event == XMLStreamConstants.END_ELEMENT && "item".equals(reader.getLocalName()) ) {
+                break;
+            }
+        }
+        if( resourceId == null || resourceId.length() == 0 || key == null ) {
+            return null;
+        }
+        return new ResourceTag(resourceId, resourceType, key, value);
+    }
+}
@@ -20,8 +20,8 @@
 package org.dasein.cloud.aws.compute;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.dasein.cloud.CloudException;
@@ -30,13 +30,15 @@ import org.dasein.cloud.ProviderContext;
 import org.dasein.cloud.Requirement;
 import org.dasein.cloud.ResourceStatus;
 import org.dasein.cloud.Tag;
+import org.dasein.cloud.aws.AWSBulkOperation;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSStateWaiter;
+import org.dasein.cloud.aws.AWSTimestamps;
 import org.dasein.cloud.compute.*;
 import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -209,6 +211,104 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
         }
     }
 
+    /**
+     * Describes the specified snapshots through a <code>snapshot-id</code> filter. Unlike the indexed ID parameter,
+     * the filter silently skips snapshots which no longer exist instead of failing the whole request.
+     *
+     * @param snapshotIds the snapshots to describe
+     * @return the snapshots which still exist
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull List<Snapshot> describeSnapshotsByFilter(@Nonnull Collection<String> snapshotIds) throws InternalException, CloudException {
+        List<Snapshot> list = new ArrayList<Snapshot>();
+
+        if( snapshotIds.isEmpty() ) {
+            return list;
+        }
+        Map<String,String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_SNAPSHOTS);
+        EC2Method method;
+        NodeList blocks;
+        Document doc;
+
+        AWSCloud.addFilterParameters(parameters, 1, "snapshot-id", snapshotIds);
+        method = new EC2Method(getProvider(), parameters);
+        try {
+            doc = method.invoke();
+        }
+        catch( EC2Exception e ) {
+            logger.error(e.getSummary());
+            throw new CloudException(e);
+        }
+        blocks = doc.getElementsByTagName("snapshotSet");
+        for( int i=0; i<blocks.getLength(); i++ ) {
+            NodeList items = blocks.item(i).getChildNodes();
+
+            for( int j=0; j<items.getLength(); j++ ) {
+                Node item = items.item(j);
+
+                if( item.getNodeName().equals("item") ) {
+                    Snapshot snapshot = toSnapshot(item);
+
+                    if( snapshot != null ) {
+                        list.add(snapshot);
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Provides a poller for the shared state waiter which looks up the state of many snapshots with one
+     * <code>DescribeSnapshots</code> call.
+     *
+     * @return a poller mapping snapshot IDs to the names of their {@link SnapshotState}
+     */
+    public @Nonnull AWSStateWaiter.StatePoller getStatePoller() {
+        return new AWSStateWaiter.StatePoller() {
+            @Override
+            public @Nonnull String getResourceType() {
+                return "snapshot";
+            }
+
+            @Override
+            public int getMaximumBatchSize() {
+                return 200;
+            }
+
+            @Override
+            public @Nonnull Map<String, String> poll(@Nonnull Collection<String> resourceIds) throws CloudException, InternalException {
+                Map<String, String> states = new HashMap<String, String>();
+
+                for( Snapshot snapshot : describeSnapshotsByFilter(resourceIds) ) {
+                    states.put(snapshot.getProviderSnapshotId(), snapshot.getCurrentState().name());
+                }
+                return states;
+            }
+        };
+    }
+
+    /**
+     * Waits in the background for a snapshot to reach a state, sharing one <code>DescribeSnapshots</code> call per
+     * interval with everyone else waiting for snapshots.
+     *
+     * @param snapshotId the snapshot to wait for
+     * @param state the state to wait for
+     * @param timeout the maximum time to wait in milliseconds
+     * @return a future providing the name of the state reached, or {@link AWSStateWaiter#GONE} if the snapshot was
+     * waited for to be deleted and no longer exists
+     */
+    public @Nonnull Future<String> waitForState(@Nonnull String snapshotId, @Nonnull SnapshotState state, long timeout) {
+        Set<String> targets = new HashSet<String>();
+
+        targets.add(state.name());
+        if( SnapshotState.DELETED.equals(state) ) {
+            targets.add(AWSStateWaiter.GONE);
+        }
+        return getProvider().getStateWaiter().waitFor(getStatePoller(), snapshotId, targets, timeout);
+    }
+
     @Override
     public @Nonnull Requirement identifyAttachmentRequirement() throws InternalException, CloudException {
         return getCapabilities().identifyAttachmentRequirement();
@@ -344,42 +444,34 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
     @Override
     public @Nonnull Iterable<ResourceStatus> listSnapshotStatus() throws InternalException, CloudException {
         getProvider().hold();
-        PopulatorThread<ResourceStatus> populator = new PopulatorThread<ResourceStatus>(new JiteratorPopulator<ResourceStatus>() {
+        Jiterator<ResourceStatus> populator = getProvider().getExecutor().populate(new JiteratorPopulator<ResourceStatus>() {
             @Override
             public void populate(@Nonnull Jiterator<ResourceStatus> iterator) throws Exception {
                 try {
                     APITrace.begin(getProvider(), "Snapshot.listSnapshotStatus");
                     try {
-                        Map<String,String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_SNAPSHOTS);
-                        EC2Method method;
-                        NodeList blocks;
-                        Document doc;
+                        List<DescribeStatusResponseParser.RawStatus> page = new ArrayList<DescribeStatusResponseParser.RawStatus>();
+                        DescribeStatusResponseParser parser = DescribeStatusResponseParser.forSnapshots(page);
+                        String nextToken = null;
 
-                        parameters.put("Owner.1", "self");
-                        method = new EC2Method(getProvider(), parameters);
-                        try {
-                            doc = method.invoke();
-                        }
-                        catch( EC2Exception e ) {
-                            logger.error(e.getSummary());
-                            throw new CloudException(e);
-                        }
-                        blocks = doc.getElementsByTagName("snapshotSet");
-                        for( int i=0; i<blocks.getLength(); i++ ) {
-                            NodeList items = blocks.item(i).getChildNodes();
+                        do {
+                            Map<String,String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_SNAPSHOTS);
 
-                            for( int j=0; j<items.getLength(); j++ ) {
-                                Node item = items.item(j);
-
-                                if( item.getNodeName().equals("item") ) {
-                                    ResourceStatus status = toStatus(item);
-
-                                    if( status != null ) {
-                                        iterator.push(status);
-                                    }
-                                }
+                            parameters.put("Owner.1", "self");
+                            EC2Instance.addPageParameters(parameters, EC2Instance.getPageSize(getContext()), nextToken);
+                            page.clear();
+                            try {
+                                new EC2Method(getProvider(), parameters).invoke(parser);
                             }
-                        }
+                            catch( EC2Exception e ) {
+                                logger.error(e.getSummary());
+                                throw new CloudException(e);
+                            }
+                            for( DescribeStatusResponseParser.RawStatus status : page ) {
+                                iterator.push(new ResourceStatus(status.getResourceId(), toSnapshotState(status.getState())));
+                            }
+                            nextToken = parser.getNextToken();
+                        } while( nextToken != null );
                     }
                     finally {
                         APITrace.end();
@@ -391,8 +483,7 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
             }
         });
 
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
 
@@ -404,7 +495,7 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
 	@Override
 	public @Nonnull Iterable<Snapshot> listSnapshots(final @Nullable SnapshotFilterOptions options) throws InternalException, CloudException {
         getProvider().hold();
-        PopulatorThread<Snapshot> populator = new PopulatorThread<Snapshot>(new JiteratorPopulator<Snapshot>() {
+        Jiterator<Snapshot> populator = getProvider().getExecutor().populate(new JiteratorPopulator<Snapshot>() {
             @Override
             public void populate(@Nonnull Jiterator<Snapshot> iterator) throws Exception {
                 try {
@@ -468,8 +559,7 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
             }
         });
 
-        populator.populate();
-        return populator.getResult();
+        return populator;
 	}
 
     @Override
@@ -492,6 +582,28 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
         return new String[0];
     }
 
+    /**
+     * Deletes many snapshots. <code>DeleteSnapshot</code> takes a single ID, so the deletes are fanned out with
+     * bounded parallelism instead of being made one after the other.
+     *
+     * @param snapshotIds the snapshots to delete
+     * @return the outcome for each snapshot
+     */
+    public @Nonnull AWSBulkOperation.Report remove(@Nonnull Collection<String> snapshotIds) {
+        APITrace.begin(getProvider(), "Snapshot.removeSnapshots");
+        try {
+            return getProvider().getBulkOperation().invokeEach("Snapshot.removeSnapshots", snapshotIds, new AWSBulkOperation.SingleAction() {
+                @Override
+                public void invoke(@Nonnull String snapshotId) throws CloudException, InternalException {
+                    remove(snapshotId);
+                }
+            });
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
     @Override
     public void remove(@Nonnull String snapshotId) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "Snapshot.remove");
@@ -593,7 +705,7 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
     @Override
     public @Nonnull Iterable<Snapshot> searchSnapshots(final @Nonnull SnapshotFilterOptions opts) throws InternalException, CloudException {
         getProvider().hold();
-        PopulatorThread<Snapshot> populator = new PopulatorThread<Snapshot>(new JiteratorPopulator<Snapshot>() {
+        Jiterator<Snapshot> populator = getProvider().getExecutor().populate(new JiteratorPopulator<Snapshot>() {
             @Override
             public void populate(@Nonnull Jiterator<Snapshot> iterator) throws Exception {
                 try {
@@ -664,8 +776,7 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
             }
         });
 
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     private void setPublicShare(@Nonnull String snapshotId, boolean affirmative) throws InternalException, CloudException {
@@ -787,12 +898,10 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
 					String t = children.item(0).getNodeValue();
 					
 					if( t != null ) {
-						SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-						
 						t = t.trim();
 						if( t.length() > 0 ) {
 							try {
-								ts = fmt.parse(t).getTime();
+								ts = AWSTimestamps.parseIso8601(t);
 							} 
 							catch( ParseException e ) {
 								logger.error(e);
@@ -891,40 +1000,14 @@ public class EBSSnapshot extends AbstractSnapshotSupport<AWSCloud> {
 		return snapshot;
 	}
 
-    private @Nullable ResourceStatus toStatus(@Nullable Node node) throws CloudException {
-        if( node == null ) {
-            return null;
+    private @Nonnull SnapshotState toSnapshotState(@Nullable String status) {
+        if( "completed".equals(status) ) {
+            return SnapshotState.AVAILABLE;
         }
-        NodeList attrs = node.getChildNodes();
-        SnapshotState state = SnapshotState.PENDING;
-        String snapshotId = null;
-
-        for( int i=0; i<attrs.getLength(); i++ ) {
-            Node attr = attrs.item(i);
-            String name;
-
-            name = attr.getNodeName();
-            if( name.equals("snapshotId") ) {
-                snapshotId = attr.getFirstChild().getNodeValue().trim();
-            }
-            else if( name.equals("status") ) {
-                String s = attr.getFirstChild().getNodeValue().trim();
-
-                if( s.equals("completed") ) {
-                    state = SnapshotState.AVAILABLE;
-                }
-                else if( s.equals("deleting") || s.equals("deleted") ) {
-                    state = SnapshotState.DELETED;
-                }
-                else {
-                    state = SnapshotState.PENDING;
-                }
-            }
-        }
-        if( snapshotId == null ) {
-            return null;
+        else if( "deleting".equals(status) || "deleted".equals(status) ) {
+            return SnapshotState.DELETED;
         }
-        return new ResourceStatus(snapshotId, state);
+        return SnapshotState.PENDING;
     }
 
     @Override
@@ -20,8 +20,8 @@
 package org.dasein.cloud.aws.compute;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
 import org.dasein.cloud.CloudException;
@@ -31,7 +31,11 @@ import org.dasein.cloud.ProviderContext;
 import org.dasein.cloud.Requirement;
 import org.dasein.cloud.ResourceStatus;
 import org.dasein.cloud.Tag;
+import org.dasein.cloud.aws.AWSBulkOperation;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTagWriter;
+import org.dasein.cloud.aws.AWSStateWaiter;
+import org.dasein.cloud.aws.AWSTimestamps;
 import org.dasein.cloud.aws.model.*;
 import org.dasein.cloud.compute.*;
 import org.dasein.cloud.compute.VolumeProduct;
@@ -40,6 +44,8 @@ import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.cloud.util.Cache;
 import org.dasein.cloud.util.CacheLevel;
+import org.dasein.util.Jiterator;
+import org.dasein.util.JiteratorPopulator;
 import org.dasein.util.uom.storage.Gigabyte;
 import org.dasein.util.uom.storage.Storage;
 import org.w3c.dom.Document;
@@ -316,62 +322,268 @@ public class EBSVolume extends AbstractVolumeSupport<AWSCloud> {
         }
 	}
 
-    @Override
-    public @Nonnull Requirement getVolumeProductRequirement() throws InternalException, CloudException {
-        return getCapabilities().getVolumeProductRequirement();
-    }
+    /**
+     * Describes the specified volumes through a <code>volume-id</code> filter. Unlike the indexed ID parameter,
+     * the filter silently skips volumes which no longer exist instead of failing the whole request.
+     *
+     * @param volumeIds the volumes to describe
+     * @return the volumes which still exist
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull List<Volume> describeVolumesByFilter(@Nonnull Collection<String> volumeIds) throws InternalException, CloudException {
+        List<Volume> list = new ArrayList<Volume>();
+
+        if( volumeIds.isEmpty() ) {
+            return list;
+        }
+        ProviderContext ctx = getProvider().getContext();
 
-    @Override
-    public boolean isVolumeSizeDeterminedByProduct() throws InternalException, CloudException {
-        return getCapabilities().isVolumeSizeDeterminedByProduct();
-    }
+        if( ctx == null ) {
+            throw new CloudException("No context exists for this request.");
+        }
+        Map<String,String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_VOLUMES);
+        EC2Method method;
+        NodeList blocks;
+        Document doc;
 
-    @Override
-    public @Nonnull Iterable<ResourceStatus> listVolumeStatus() throws InternalException, CloudException {
-        APITrace.begin(getProvider(), "Volume.listVolumeStatus");
+        AWSCloud.addFilterParameters(parameters, 1, "volume-id", volumeIds);
+        method = new EC2Method(getProvider(), parameters);
         try {
-            ProviderContext ctx = getProvider().getContext();
+            doc = method.invoke();
+        }
+        catch( EC2Exception e ) {
+            logger.error(e.getSummary());
+            throw new CloudException(e);
+        }
+        blocks = doc.getElementsByTagName("volumeSet");
+        for( int i=0; i<blocks.getLength(); i++ ) {
+            NodeList items = blocks.item(i).getChildNodes();
 
-            if( ctx == null ) {
-                throw new CloudException("No context exists for this request.");
+            for( int j=0; j<items.getLength(); j++ ) {
+                Node item = items.item(j);
+
+                if( item.getNodeName().equals("item") ) {
+                    Volume volume = toVolume(ctx, item);
+
+                    if( volume != null ) {
+                        list.add(volume);
+                    }
+                }
             }
-            Map<String,String> parameters = getProvider().getStandardParameters(getProvider().getContext(), EC2Method.DESCRIBE_VOLUMES);
-            ArrayList<ResourceStatus> list = new ArrayList<ResourceStatus>();
-            EC2Method method;
-            NodeList blocks;
-            Document doc;
+        }
+        return list;
+    }
 
-            method = new EC2Method(getProvider(), parameters);
-            try {
-                doc = method.invoke();
+    /**
+     * Provides a poller for the shared state waiter which looks up the state of many volumes with one
+     * <code>DescribeVolumes</code> call.
+     *
+     * @return a poller mapping volume IDs to the names of their {@link VolumeState}
+     */
+    public @Nonnull AWSStateWaiter.StatePoller getStatePoller() {
+        return new AWSStateWaiter.StatePoller() {
+            @Override
+            public @Nonnull String getResourceType() {
+                return "volume";
             }
-            catch( EC2Exception e ) {
-                logger.error(e.getSummary());
-                throw new CloudException(e);
+
+            @Override
+            public int getMaximumBatchSize() {
+                return 200;
             }
-            blocks = doc.getElementsByTagName("volumeSet");
-            for( int i=0; i<blocks.getLength(); i++ ) {
-                NodeList items = blocks.item(i).getChildNodes();
 
-                for( int j=0; j<items.getLength(); j++ ) {
-                    Node item = items.item(j);
+            @Override
+            public @Nonnull Map<String, String> poll(@Nonnull Collection<String> resourceIds) throws CloudException, InternalException {
+                Map<String, String> states = new HashMap<String, String>();
 
-                    if( item.getNodeName().equals("item") ) {
-                        ResourceStatus status = toStatus(item);
+                for( Volume volume : describeVolumesByFilter(resourceIds) ) {
+                    states.put(volume.getProviderVolumeId(), volume.getCurrentState().name());
+                }
+                return states;
+            }
+        };
+    }
 
-                        if( status != null ) {
-                            list.add(status);
+    /**
+     * Provides a poller for the shared state waiter which looks up the attachment status of many volumes with one
+     * <code>DescribeVolumes</code> call.
+     *
+     * @return a poller mapping volume IDs to their attachment status (attaching, attached, detaching or detached)
+     */
+    public @Nonnull AWSStateWaiter.StatePoller getAttachmentPoller() {
+        return new AWSStateWaiter.StatePoller() {
+            @Override
+            public @Nonnull String getResourceType() {
+                return "volume-attachment";
+            }
+
+            @Override
+            public int getMaximumBatchSize() {
+                return 200;
+            }
+
+            @Override
+            public @Nonnull Map<String, String> poll(@Nonnull Collection<String> resourceIds) throws CloudException, InternalException {
+                Map<String,String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_VOLUMES);
+                Map<String, String> states = new HashMap<String, String>();
+                EC2Method method;
+                NodeList blocks;
+                Document doc;
+
+                AWSCloud.addFilterParameters(parameters, 1, "volume-id", resourceIds);
+                method = new EC2Method(getProvider(), parameters);
+                try {
+                    doc = method.invoke();
+                }
+                catch( EC2Exception e ) {
+                    logger.error(e.getSummary());
+                    throw new CloudException(e);
+                }
+                blocks = doc.getElementsByTagName("volumeSet");
+                for( int i=0; i<blocks.getLength(); i++ ) {
+                    NodeList items = blocks.item(i).getChildNodes();
+
+                    for( int j=0; j<items.getLength(); j++ ) {
+                        Node item = items.item(j);
+
+                        if( item.getNodeName().equals("item") ) {
+                            NodeList attrs = item.getChildNodes();
+                            String volumeId = null;
+                            String status = "detached";
+
+                            for( int k=0; k<attrs.getLength(); k++ ) {
+                                Node attr = attrs.item(k);
+
+                                if( attr.getNodeName().equals("volumeId") && attr.hasChildNodes() ) {
+                                    volumeId = attr.getFirstChild().getNodeValue().trim();
+                                }
+                                else if( attr.getNodeName().equals("attachmentSet") ) {
+                                    Node s = findAttachmentStatus(attr);
+
+                                    if( s != null && s.hasChildNodes() ) {
+                                        status = s.getFirstChild().getNodeValue().trim();
+                                    }
+                                }
+                            }
+                            if( volumeId != null ) {
+                                states.put(volumeId, status);
+                            }
                         }
                     }
                 }
+                return states;
+            }
+        };
+    }
+
+    private @Nullable Node findAttachmentStatus(@Nonnull Node attachmentSet) {
+        NodeList attachments = attachmentSet.getChildNodes();
+
+        for( int i=0; i<attachments.getLength(); i++ ) {
+            Node item = attachments.item(i);
+
+            if( item.getNodeName().equals("item") ) {
+                NodeList infoList = item.getChildNodes();
+
+                for( int j=0; j<infoList.getLength(); j++ ) {
+                    if( infoList.item(j).getNodeName().equals("status") ) {
+                        return infoList.item(j);
+                    }
+                }
             }
-            return list;
-        }
-        finally {
-            APITrace.end();
         }
+        return null;
+    }
+
+    /**
+     * Waits in the background for a volume to reach a state, sharing one <code>DescribeVolumes</code> call per
+     * interval with everyone else waiting for volumes.
+     *
+     * @param volumeId the volume to wait for
+     * @param state the state to wait for
+     * @param timeout the maximum time to wait in milliseconds
+     * @return a future providing the name of the state reached, or {@link AWSStateWaiter#GONE} if the volume was
+     * waited for to be deleted and no longer exists
+     */
+    public @Nonnull Future<String> waitForState(@Nonnull String volumeId, @Nonnull VolumeState state, long timeout) {
+        Set<String> targets = new HashSet<String>();
+
+        targets.add(state.name());
+        if( VolumeState.DELETED.equals(state) ) {
+            targets.add(AWSStateWaiter.GONE);
+        }
+        return getProvider().getStateWaiter().waitFor(getStatePoller(), volumeId, targets, timeout);
     }
 
+    /**
+     * Waits in the background for a volume to be attached to or detached from its server.
+     *
+     * @param volumeId the volume to wait for
+     * @param attached true to wait for the volume to be attached, false to wait for it to be detached
+     * @param timeout the maximum time to wait in milliseconds
+     * @return a future providing the attachment status reached
+     */
+    public @Nonnull Future<String> waitForAttachment(@Nonnull String volumeId, boolean attached, long timeout) {
+        return getProvider().getStateWaiter().waitFor(getAttachmentPoller(), volumeId, Collections.singleton(attached ? "attached" : "detached"), timeout);
+    }
+
+    @Override
+    public @Nonnull Requirement getVolumeProductRequirement() throws InternalException, CloudException {
+        return getCapabilities().getVolumeProductRequirement();
+    }
+
+    @Override
+    public boolean isVolumeSizeDeterminedByProduct() throws InternalException, CloudException {
+        return getCapabilities().isVolumeSizeDeterminedByProduct();
+    }
+
+    @Override
+    public @Nonnull Iterable<ResourceStatus> listVolumeStatus() throws InternalException, CloudException {
+        ProviderContext ctx = getProvider().getContext();
+
+        if( ctx == null ) {
+            throw new CloudException("No context exists for this request.");
+        }
+        getProvider().hold();
+        return getProvider().getExecutor().populate(new JiteratorPopulator<ResourceStatus>() {
+            @Override
+            public void populate(@Nonnull Jiterator<ResourceStatus> iterator) throws Exception {
+                try {
+                    APITrace.begin(getProvider(), "Volume.listVolumeStatus");
+                    try {
+                        List<DescribeStatusResponseParser.RawStatus> page = new ArrayList<DescribeStatusResponseParser.RawStatus>();
+                        DescribeStatusResponseParser parser = DescribeStatusResponseParser.forVolumes(page);
+                        String nextToken = null;
+
+                        do {
+                            Map<String,String> parameters = getProvider().getStandardParameters(getProvider().getContext(), EC2Method.DESCRIBE_VOLUMES);
+
+                            EC2Instance.addPageParameters(parameters, EC2Instance.getPageSize(getProvider().getContext()), nextToken);
+                            page.clear();
+                            try {
+                                new EC2Method(getProvider(), parameters).invoke(parser);
+                            }
+                            catch( EC2Exception e ) {
+                                logger.error(e.getSummary());
+                                throw new CloudException(e);
+                            }
+                            for( DescribeStatusResponseParser.RawStatus status : page ) {
+                                iterator.push(new ResourceStatus(status.getResourceId(), toVolumeState(status.getState())));
+                            }
+                            nextToken = parser.getNextToken();
+                        } while( nextToken != null );
+                    }
+                    finally {
+                        APITrace.end();
+                    }
+                }
+                finally {
+                    getProvider().release();
+                }
+            }
+        });
+    }
 
     @Override
     public @Nonnull Iterable<Volume> listVolumes() throws InternalException, CloudException {
@@ -451,6 +663,28 @@ public class EBSVolume extends AbstractVolumeSupport<AWSCloud> {
         return new String[0];
     }
 
+    /**
+     * Deletes many volumes. <code>DeleteVolume</code> takes a single ID, so the deletes are fanned out with
+     * bounded parallelism instead of being made one after the other.
+     *
+     * @param volumeIds the volumes to delete
+     * @return the outcome for each volume
+     */
+    public @Nonnull AWSBulkOperation.Report remove(@Nonnull Collection<String> volumeIds) {
+        APITrace.begin(getProvider(), "Volume.removeVolumes");
+        try {
+            return getProvider().getBulkOperation().invokeEach("Volume.removeVolumes", volumeIds, new AWSBulkOperation.SingleAction() {
+                @Override
+                public void invoke(@Nonnull String volumeId) throws CloudException, InternalException {
+                    remove(volumeId);
+                }
+            });
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
     @Override
     public void remove(@Nonnull String volumeId) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "Volume.remove");
@@ -483,7 +717,18 @@ public class EBSVolume extends AbstractVolumeSupport<AWSCloud> {
 
     @Override
     public void updateTags(@Nonnull String volumeId, @Nonnull Tag ... tags) throws CloudException, InternalException {
-        updateTags(new String[] { volumeId }, tags);
+        APITrace.begin(getProvider(), "Volume.updateTags");
+        try {
+            // merged with concurrent updates carrying the same tags
+            AWSTagWriter.Result result = getProvider().getTagWriter().awaitCreateTags(EC2Method.SERVICE_ID, volumeId, tags);
+
+            if( !result.isSuccess() ) {
+                throw result.getError();
+            }
+        }
+        finally {
+            APITrace.end();
+        }
     }
 
     @Override
@@ -526,40 +771,14 @@ public class EBSVolume extends AbstractVolumeSupport<AWSCloud> {
       return prd;
     }
 
-    private @Nullable ResourceStatus toStatus(@Nullable Node node) throws CloudException {
-        if( node == null ) {
-            return null;
-        }
-        NodeList attrs = node.getChildNodes();
-        VolumeState state = VolumeState.PENDING;
-        String volumeId = null;
-
-        for( int i=0; i<attrs.getLength(); i++ ) {
-            Node attr = attrs.item(i);
-            String name;
-
-            name = attr.getNodeName();
-            if( name.equals("volumeId") ) {
-                volumeId = attr.getFirstChild().getNodeValue().trim();
-            }
-            else if( name.equals("status") ) {
-                String s = attr.getFirstChild().getNodeValue().trim();
-
-                if( s.equals("creating") || s.equals("attaching") || s.equals("attached") || s.equals("detaching") || s.equals("detached") ) {
-                    state = VolumeState.PENDING;
-                }
-                else if( s.equals("available") || s.equals("in-use") ) {
-                    state = VolumeState.AVAILABLE;
-                }
-                else {
-                    state = VolumeState.DELETED;
-                }
-            }
+    private @Nonnull VolumeState toVolumeState(@Nullable String status) {
+        if( status == null || status.equals("creating") || status.equals("attaching") || status.equals("attached") || status.equals("detaching") || status.equals("detached") ) {
+            return VolumeState.PENDING;
         }
-        if( volumeId == null ) {
-            return null;
+        else if( status.equals("available") || status.equals("in-use") ) {
+            return VolumeState.AVAILABLE;
         }
-        return new ResourceStatus(volumeId, state);
+        return VolumeState.DELETED;
     }
 
 	private @Nullable Volume toVolume(@Nonnull ProviderContext ctx, @Nullable Node node) throws CloudException {
@@ -610,11 +829,10 @@ public class EBSVolume extends AbstractVolumeSupport<AWSCloud> {
                 volume.setIops(Integer.parseInt(attr.getFirstChild().getNodeValue().trim()));
             }
 			else if( name.equals("createTime") ) {
-				SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
 				String value = attr.getFirstChild().getNodeValue().trim();
 
 				try {
-					volume.setCreationTimestamp(fmt.parse(value).getTime());
+					volume.setCreationTimestamp(AWSTimestamps.parseIso8601(value));
 				} 
 				catch( ParseException e ) {
 					logger.error(e);
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.network.IpAddress;
+import org.dasein.cloud.network.RawAddress;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Elastic IP pool indexed by public address and by the instance each address is associated with, built once per
+ * listing so that mapping each instance is a hash lookup rather than a scan of the whole pool.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+final class EC2AddressIndex {
+    static public final EC2AddressIndex EMPTY = new EC2AddressIndex(Collections.<IpAddress>emptyList());
+
+    private final Map<String, IpAddress> byAddress  = new HashMap<String, IpAddress>();
+    private final Map<String, IpAddress> byInstance = new HashMap<String, IpAddress>();
+
+    EC2AddressIndex( @Nonnull Iterable<IpAddress> addresses ) {
+        for( IpAddress address : addresses ) {
+            RawAddress raw = address.getRawAddress();
+
+            // the first match wins, as it did when the pool was scanned in order
+            if( raw != null && raw.getIpAddress() != null && !byAddress.containsKey(raw.getIpAddress()) ) {
+                byAddress.put(raw.getIpAddress(), address);
+            }
+            if( address.getServerId() != null && !byInstance.containsKey(address.getServerId()) ) {
+                byInstance.put(address.getServerId(), address);
+            }
+        }
+    }
+
+    /**
+     * @param publicAddress the public IP address of an instance
+     * @return the elastic IP with that address, or null if the address is not an elastic IP
+     */
+    @Nullable IpAddress getByAddress( @Nullable String publicAddress ) {
+        return ( publicAddress == null ? null : byAddress.get(publicAddress) );
+    }
+
+    /**
+     * @param instanceId the ID of an instance
+     * @return an elastic IP associated with that instance, or null if none is
+     */
+    @Nullable IpAddress getByInstance( @Nullable String instanceId ) {
+        return ( instanceId == null ? null : byInstance.get(instanceId) );
+    }
+}
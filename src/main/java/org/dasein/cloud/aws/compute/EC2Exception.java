@@ -21,6 +21,7 @@ package org.dasein.cloud.aws.compute;
 
 import org.dasein.cloud.CloudErrorType;
 import org.dasein.cloud.CloudException;
+import org.dasein.cloud.aws.AWSErrorResponse;
 
 import java.net.HttpURLConnection;
 
@@ -71,16 +72,9 @@ public class EC2Exception extends CloudException {
      *
      * @param code AWS error code
      * @return dasein cloud error type
+     * @see AWSErrorResponse#toCloudErrorType(String)
      */
     private static CloudErrorType toCloudErrorType(String code) {
-        if ("Throttling".equals(code)) {
-            return CloudErrorType.THROTTLING;
-        } else if ("TooManyBuckets".equals(code)) {
-            return CloudErrorType.QUOTA;
-        } else if ("SignatureDoesNotMatch".equals(code)) {
-            return CloudErrorType.AUTHENTICATION;
-        } else {
-            return CloudErrorType.GENERAL;
-        }
+        return AWSErrorResponse.toCloudErrorType(code);
     }
 }
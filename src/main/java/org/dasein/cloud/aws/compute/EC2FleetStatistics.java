@@ -0,0 +1,85 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.compute.VmStatistics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * The statistics of one instance out of a fleet-wide statistics request.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see EC2Instance#getFleetStatistics(java.util.Collection, long, long, EC2FleetStatistics.ProgressListener)
+ */
+public class EC2FleetStatistics {
+    /**
+     * Notified as the statistics of each instance of the fleet are completed.
+     */
+    public interface ProgressListener {
+        /**
+         * @param result the statistics just completed
+         * @param completed the number of instances completed so far, including this one
+         * @param total the number of instances requested
+         */
+        void progress( @Nonnull EC2FleetStatistics result, int completed, int total );
+    }
+
+    private final String         instanceId;
+    private final VmStatistics   statistics;
+    private final CloudException error;
+
+    EC2FleetStatistics( @Nonnull String instanceId, @Nullable VmStatistics statistics, @Nullable CloudException error ) {
+        this.instanceId = instanceId;
+        this.statistics = statistics;
+        this.error = error;
+    }
+
+    public @Nonnull String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * @return the statistics of the instance; when some of its metrics could not be fetched, the statistics hold the
+     * metrics which were, and null if the instance does not exist
+     */
+    public @Nullable VmStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return the first error fetching the statistics of the instance, or null if all of them were fetched
+     */
+    public @Nullable CloudException getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return ( error == null );
+    }
+
+    @Override
+    public String toString() {
+        return instanceId + ( error == null ? " [ok]" : " [" + error.getMessage() + "]" );
+    }
+}
@@ -27,23 +27,23 @@ import org.apache.http.HttpStatus;
 import org.apache.http.protocol.HTTP;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.*;
+import org.dasein.cloud.aws.AWSBulkOperation;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSLookupBatcher;
+import org.dasein.cloud.aws.AWSMetricCache;
+import org.dasein.cloud.aws.AWSTimestamps;
 import org.dasein.cloud.aws.AWSResourceNotFoundException;
+import org.dasein.cloud.aws.AWSStateWaiter;
+import org.dasein.cloud.aws.AWSTagWriter;
+import org.dasein.cloud.aws.AWSTaskExecutor;
 import org.dasein.cloud.compute.*;
+import org.dasein.cloud.dc.DataCenter;
 import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.network.*;
 import org.dasein.cloud.util.APITrace;
-import org.dasein.cloud.util.Cache;
-import org.dasein.cloud.util.CacheLevel;
 import org.dasein.util.CalendarWrapper;
-import org.dasein.util.uom.storage.Gigabyte;
-import org.dasein.util.uom.storage.Megabyte;
-import org.dasein.util.uom.storage.Storage;
-import org.dasein.util.uom.time.Day;
-import org.dasein.util.uom.time.TimePeriod;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
+import org.dasein.util.Jiterator;
+import org.dasein.util.JiteratorPopulator;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -53,13 +53,31 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.*;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class EC2Instance extends AbstractVMSupport<AWSCloud> {
     static private final Logger   logger       = Logger.getLogger(EC2Instance.class);
-    static private final Calendar UTC_CALENDAR = Calendar.getInstance(new SimpleTimeZone(0, "GMT"));
+
+    /**
+     * Custom property setting the page size of paginated <code>DescribeInstances</code> and
+     * <code>DescribeInstanceStatus</code> calls, and of the volume and snapshot status listings.
+     */
+    static public final String P_PAGE_SIZE       = "instancePageSize";
+    static public final int    MINIMUM_PAGE_SIZE = 5;
+    static public final int    MAXIMUM_PAGE_SIZE = 1000;
+
+    /**
+     * Largest number of instance IDs looked up with a single <code>instance-id</code> filter.
+     */
+    static public final int MAXIMUM_LOOKUP_BATCH = 200;
+
+    /**
+     * How long the post-launch work waits for new instances to become visible, and then to start.
+     */
+    static private final long LAUNCH_VISIBLE_TIMEOUT = CalendarWrapper.MINUTE;
+    static private final long LAUNCH_READY_TIMEOUT   = CalendarWrapper.MINUTE * 10L;
 
     private transient volatile EC2InstanceCapabilities capabilities;
 
@@ -162,6 +180,11 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
+    /**
+     * The period of CloudWatch datapoints for VM statistics, in seconds.
+     */
+    static private final int METRIC_PERIOD = 60;
+
     static private class Metric implements Comparable<Metric> {
         int    samples   = 0;
         long   timestamp = -1L;
@@ -177,71 +200,39 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
-    private Set<Metric> calculate( String metric, String unit, String id, boolean idIsVolumeId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
+    private Set<Metric> calculate( final String metric, final String unit, final String id, final boolean idIsVolumeId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "calculateVMAnalytics");
         try {
             if( !getProvider().getEC2Provider().isAWS() ) {
                 return new TreeSet<Metric>();
             }
-            Map<String, String> parameters = getProvider().getStandardCloudWatchParameters(getContext(), EC2Method.GET_METRIC_STATISTICS);
-            SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ");
-            fmt.setCalendar(UTC_CALENDAR);
-            EC2Method method;
-            NodeList blocks;
-            Document doc;
+            AWSMetricCache cache = getProvider().getMetricCache();
+            AWSMetricCache.Datapoints points;
 
-            parameters.put("EndTime", fmt.format(new Date(endTimestamp)));
-            parameters.put("StartTime", fmt.format(new Date(startTimestamp)));
-            parameters.put("MetricName", metric);
-            parameters.put("Namespace", idIsVolumeId ? "AWS/EBS" : "AWS/EC2");
-            parameters.put("Unit", unit);
-            parameters.put("Dimensions.member.Name.1", idIsVolumeId ? "VolumeId" : "InstanceId");
-            parameters.put("Dimensions.member.Value.1", id);
-            parameters.put("Statistics.member.1", "Average");
-            parameters.put("Statistics.member.2", "Minimum");
-            parameters.put("Statistics.member.3", "Maximum");
-            parameters.put("Period", "60");
-            method = new EC2Method("monitoring", getProvider(), parameters);
-            try {
-                doc = method.invoke();
-            } catch( EC2Exception e ) {
-                logger.error(e.getSummary());
-                throw new CloudException(e);
+            if( cache.isEnabled() ) {
+                String key = AWSMetricCache.getKey(idIsVolumeId ? "AWS/EBS" : "AWS/EC2", metric, idIsVolumeId ? "VolumeId" : "InstanceId", id, unit, METRIC_PERIOD);
+
+                points = cache.get(key, startTimestamp, endTimestamp, METRIC_PERIOD * 1000L, new AWSMetricCache.Fetcher<AWSMetricCache.Datapoints>() {
+                    @Override
+                    public void fetch( long start, long end, @Nonnull AWSMetricCache.Datapoints into ) throws CloudException, InternalException {
+                        getMetricStatistics(metric, unit, id, idIsVolumeId, start, end, into);
+                    }
+                });
+            }
+            else {
+                points = new AWSMetricCache.Datapoints();
+                getMetricStatistics(metric, unit, id, idIsVolumeId, startTimestamp, endTimestamp, points);
             }
             TreeSet<Metric> metrics = new TreeSet<Metric>();
-            fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-            fmt.setCalendar(UTC_CALENDAR);
-            blocks = doc.getElementsByTagName("member");
-            for( int i = 0; i < blocks.getLength(); i++ ) {
-                NodeList items = blocks.item(i).getChildNodes();
-                Metric m = new Metric();
-
-                for( int j = 0; j < items.getLength(); j++ ) {
-                    Node item = items.item(j);
 
-                    if( item.getNodeName().equals("Timestamp") ) {
-                        String dateString = item.getFirstChild().getNodeValue();
+            for( int i = 0; i < points.size(); i++ ) {
+                Metric m = new Metric();
 
-                        try {
-                            m.timestamp = fmt.parse(dateString).getTime();
-                        } catch( ParseException e ) {
-                            logger.error(e);
-                            throw new InternalException(e);
-                        }
-                    }
-                    else if( item.getNodeName().equals("Average") ) {
-                        m.average = Double.parseDouble(item.getFirstChild().getNodeValue());
-                    }
-                    else if( item.getNodeName().equals("Minimum") ) {
-                        m.minimum = Double.parseDouble(item.getFirstChild().getNodeValue());
-                    }
-                    else if( item.getNodeName().equals("Maximum") ) {
-                        m.maximum = Double.parseDouble(item.getFirstChild().getNodeValue());
-                    }
-                    else if( item.getNodeName().equals("Samples") ) {
-                        m.samples = ( int ) Double.parseDouble(item.getFirstChild().getNodeValue());
-                    }
-                }
+                m.timestamp = points.getTimestamp(i);
+                m.average = points.getAverage(i);
+                m.minimum = points.getMinimum(i);
+                m.maximum = points.getMaximum(i);
+                m.samples = points.getSamples(i);
                 metrics.add(m);
             }
             return metrics;
@@ -250,12 +241,216 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
+    private void getMetricStatistics( String metric, String unit, String id, boolean idIsVolumeId, long startTimestamp, long endTimestamp, AWSMetricCache.Datapoints into ) throws CloudException, InternalException {
+        Map<String, String> parameters = getProvider().getStandardCloudWatchParameters(getContext(), EC2Method.GET_METRIC_STATISTICS);
+        EC2Method method;
+        NodeList blocks;
+        Document doc;
+
+        parameters.put("EndTime", AWSTimestamps.formatIso8601(endTimestamp, false));
+        parameters.put("StartTime", AWSTimestamps.formatIso8601(startTimestamp, false));
+        parameters.put("MetricName", metric);
+        parameters.put("Namespace", idIsVolumeId ? "AWS/EBS" : "AWS/EC2");
+        parameters.put("Unit", unit);
+        parameters.put("Dimensions.member.Name.1", idIsVolumeId ? "VolumeId" : "InstanceId");
+        parameters.put("Dimensions.member.Value.1", id);
+        parameters.put("Statistics.member.1", "Average");
+        parameters.put("Statistics.member.2", "Minimum");
+        parameters.put("Statistics.member.3", "Maximum");
+        parameters.put("Period", String.valueOf(METRIC_PERIOD));
+        method = new EC2Method("monitoring", getProvider(), parameters);
+        try {
+            doc = method.invoke();
+        } catch( EC2Exception e ) {
+            logger.error(e.getSummary());
+            throw new CloudException(e);
+        }
+        blocks = doc.getElementsByTagName("member");
+        for( int i = 0; i < blocks.getLength(); i++ ) {
+            NodeList items = blocks.item(i).getChildNodes();
+            Metric m = new Metric();
+
+            for( int j = 0; j < items.getLength(); j++ ) {
+                Node item = items.item(j);
+
+                if( item.getNodeName().equals("Timestamp") ) {
+                    String dateString = item.getFirstChild().getNodeValue();
+
+                    try {
+                        m.timestamp = AWSTimestamps.parseIso8601(dateString);
+                    } catch( ParseException e ) {
+                        logger.error(e);
+                        throw new InternalException(e);
+                    }
+                }
+                else if( item.getNodeName().equals("Average") ) {
+                    m.average = Double.parseDouble(item.getFirstChild().getNodeValue());
+                }
+                else if( item.getNodeName().equals("Minimum") ) {
+                    m.minimum = Double.parseDouble(item.getFirstChild().getNodeValue());
+                }
+                else if( item.getNodeName().equals("Maximum") ) {
+                    m.maximum = Double.parseDouble(item.getFirstChild().getNodeValue());
+                }
+                else if( item.getNodeName().equals("Samples") ) {
+                    m.samples = ( int ) Double.parseDouble(item.getFirstChild().getNodeValue());
+                }
+            }
+            into.add(m.timestamp, m.average, m.minimum, m.maximum, m.samples);
+        }
+    }
+
+    /**
+     * Starts fetching the statistics for a metric on the shared executor, so that the several metrics making up
+     * VM statistics are fetched at the same time rather than one after the other.
+     */
+    private @Nonnull Future<Set<Metric>> calculateConcurrently( final String metric, final String unit, final String id, final boolean idIsVolumeId, final long startTimestamp, final long endTimestamp ) {
+        getProvider().hold();
+        return getProvider().getExecutor().submit(new Callable<Set<Metric>>() {
+            @Override
+            public Set<Metric> call() throws Exception {
+                try {
+                    return calculate(metric, unit, id, idIsVolumeId, startTimestamp, endTimestamp);
+                } finally {
+                    getProvider().release();
+                }
+            }
+        });
+    }
+
+    private @Nonnull Set<Metric> awaitMetrics( @Nonnull Future<Set<Metric>> future ) throws CloudException, InternalException {
+        return getProvider().getExecutor().awaitResult(future);
+    }
+
+    /**
+     * Reads the root volume from the block device mappings <code>DescribeInstances</code> already returned with the
+     * instance, rather than asking for the volumes attached to it.
+     *
+     * @param vm the instance, if it exists
+     * @return the ID of the root EBS volume of the instance, or null if disk statistics come from the instance itself
+     */
+    static private @Nullable String getStatisticsVolumeId( @Nullable VirtualMachine vm ) {
+        if( vm == null || !vm.isPersistent() || vm.getVolumes() == null ) {
+            return null;
+        }
+        String volumeId = null;
+
+        for( Volume volume : vm.getVolumes() ) {
+            if( volume.getProviderVolumeId() == null ) {
+                continue;
+            }
+            if( volume.isRootVolume() ) {
+                return volume.getProviderVolumeId();
+            }
+            if( volumeId == null ) {
+                // no root device name came back, so go by the first EBS volume as the attachment order would
+                volumeId = volume.getProviderVolumeId();
+            }
+        }
+        return volumeId;
+    }
+
+    /**
+     * The metrics making up VM statistics. Disk metrics come from the root volume of EBS-backed instances, so
+     * those metrics also name the EBS volume metric to use instead. CPU utilization is applied first as it sets the
+     * samples and the window of the statistics.
+     */
+    private enum StatisticsMetric {
+        CPU_UTILIZATION("CPUUtilization", null, "Percent") {
+            @Override
+            void apply( @Nonnull EC2Instance support, @Nonnull VmStatistics statistics, @Nonnull Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
+                support.calculateCpuUtilization(statistics, metrics, startTimestamp, endTimestamp);
+            }
+        },
+        DISK_READ_BYTES("DiskReadBytes", "VolumeReadBytes", "Bytes") {
+            @Override
+            void apply( @Nonnull EC2Instance support, @Nonnull VmStatistics statistics, @Nonnull Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
+                support.calculateDiskReadBytes(statistics, metrics, startTimestamp, endTimestamp);
+            }
+        },
+        DISK_READ_OPS("DiskReadOps", "VolumeReadOps", "Count") {
+            @Override
+            void apply( @Nonnull EC2Instance support, @Nonnull VmStatistics statistics, @Nonnull Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
+                support.calculateDiskReadOps(statistics, metrics, startTimestamp, endTimestamp);
+            }
+        },
+        DISK_WRITE_BYTES("DiskWriteBytes", "VolumeWriteBytes", "Bytes") {
+            @Override
+            void apply( @Nonnull EC2Instance support, @Nonnull VmStatistics statistics, @Nonnull Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
+                support.calculateDiskWriteBytes(statistics, metrics, startTimestamp, endTimestamp);
+            }
+        },
+        DISK_WRITE_OPS("DiskWriteOps", "VolumeWriteOps", "Count") {
+            @Override
+            void apply( @Nonnull EC2Instance support, @Nonnull VmStatistics statistics, @Nonnull Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
+                support.calculateDiskWriteOps(statistics, metrics, startTimestamp, endTimestamp);
+            }
+        },
+        NETWORK_IN("NetworkIn", null, "Bytes") {
+            @Override
+            void apply( @Nonnull EC2Instance support, @Nonnull VmStatistics statistics, @Nonnull Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
+                support.calculateNetworkIn(statistics, metrics, startTimestamp, endTimestamp);
+            }
+        },
+        NETWORK_OUT("NetworkOut", null, "Bytes") {
+            @Override
+            void apply( @Nonnull EC2Instance support, @Nonnull VmStatistics statistics, @Nonnull Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
+                support.calculateNetworkOut(statistics, metrics, startTimestamp, endTimestamp);
+            }
+        };
+
+        final String instanceMetric;
+        final String volumeMetric;
+        final String unit;
+
+        StatisticsMetric( @Nonnull String instanceMetric, @Nullable String volumeMetric, @Nonnull String unit ) {
+            this.instanceMetric = instanceMetric;
+            this.volumeMetric = volumeMetric;
+            this.unit = unit;
+        }
+
+        abstract void apply( @Nonnull EC2Instance support, @Nonnull VmStatistics statistics, @Nonnull Set<Metric> metrics, long startTimestamp, long endTimestamp );
+    }
+
+    /**
+     * A single CloudWatch query for one of the {@link StatisticsMetric}s of an instance.
+     */
+    static private final class StatisticsQuery {
+        final String           instanceId;
+        final StatisticsMetric metric;
+        final String           volumeId;
+
+        StatisticsQuery( @Nonnull String instanceId, @Nonnull StatisticsMetric metric, @Nullable String volumeId ) {
+            this.instanceId = instanceId;
+            this.metric = metric;
+            this.volumeId = ( metric.volumeMetric == null ? null : volumeId );
+        }
+
+        /**
+         * @return the key identifying this query among the queries of a fleet
+         */
+        @Nonnull String getKey() {
+            return instanceId + "/" + metric.name();
+        }
+
+        @Nonnull String getMetricName() {
+            return ( volumeId == null ? metric.instanceMetric : metric.volumeMetric );
+        }
+
+        @Nonnull String getTargetId() {
+            return ( volumeId == null ? instanceId : volumeId );
+        }
+
+        boolean isVolumeQuery() {
+            return ( volumeId != null );
+        }
+    }
+
     private interface ApplyCalcs {
         public void apply( VmStatistics stats, long start, long end, int samples, double average, double minimum, double maximum );
     }
 
-    private void calculate( VmStatistics stats, String metricName, String unit, String id, boolean idIsVolumeId, long startTimestamp, long endTimestamp, ApplyCalcs apply ) throws CloudException, InternalException {
-        Set<Metric> metrics = calculate(metricName, unit, id, idIsVolumeId, startTimestamp, endTimestamp);
+    private void calculate( VmStatistics stats, Set<Metric> metrics, long startTimestamp, long endTimestamp, ApplyCalcs apply ) {
         double minimum = -1.0, maximum = 0.0, sum = 0.0;
         long start = -1L, end = 0L;
         int samples = 0;
@@ -291,7 +486,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         apply.apply(stats, start, end, samples, samples == 0 ? 0.0 : sum / samples, minimum, maximum);
     }
 
-    private void calculateCpuUtilization( VmStatistics statistics, String instanceId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
+    private void calculateCpuUtilization( VmStatistics statistics, Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
         ApplyCalcs apply = new ApplyCalcs() {
             public void apply( VmStatistics stats, long start, long end, int samples, double average, double minimum, double maximum ) {
                 stats.setSamples(samples);
@@ -302,10 +497,10 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 stats.setEndTimestamp(end);
             }
         };
-        calculate(statistics, "CPUUtilization", "Percent", instanceId, false, startTimestamp, endTimestamp, apply);
+        calculate(statistics, metrics, startTimestamp, endTimestamp, apply);
     }
 
-    private void calculateDiskReadBytes( VmStatistics statistics, String id, boolean idIsVolumeId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
+    private void calculateDiskReadBytes( VmStatistics statistics, Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
         ApplyCalcs apply = new ApplyCalcs() {
             public void apply( VmStatistics stats, long start, long end, int samples, double average, double minimum, double maximum ) {
                 stats.setMinimumDiskReadBytes(minimum);
@@ -313,10 +508,10 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 stats.setMaximumDiskReadBytes(maximum);
             }
         };
-        calculate(statistics, idIsVolumeId ? "VolumeReadBytes" : "DiskReadBytes", "Bytes", id, idIsVolumeId, startTimestamp, endTimestamp, apply);
+        calculate(statistics, metrics, startTimestamp, endTimestamp, apply);
     }
 
-    private void calculateDiskReadOps( VmStatistics statistics, String id, boolean idIsVolumeId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
+    private void calculateDiskReadOps( VmStatistics statistics, Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
         ApplyCalcs apply = new ApplyCalcs() {
             public void apply( VmStatistics stats, long start, long end, int samples, double average, double minimum, double maximum ) {
                 stats.setMinimumDiskReadOperations(minimum);
@@ -324,10 +519,10 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 stats.setMaximumDiskReadOperations(maximum);
             }
         };
-        calculate(statistics, idIsVolumeId ? "VolumeReadOps" : "DiskReadOps", "Count", id, idIsVolumeId, startTimestamp, endTimestamp, apply);
+        calculate(statistics, metrics, startTimestamp, endTimestamp, apply);
     }
 
-    private void calculateDiskWriteBytes( VmStatistics statistics, String id, boolean idIsVolumeId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
+    private void calculateDiskWriteBytes( VmStatistics statistics, Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
         ApplyCalcs apply = new ApplyCalcs() {
             public void apply( VmStatistics stats, long start, long end, int samples, double average, double minimum, double maximum ) {
                 stats.setMinimumDiskWriteBytes(minimum);
@@ -335,10 +530,10 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 stats.setMaximumDiskWriteBytes(maximum);
             }
         };
-        calculate(statistics, idIsVolumeId ? "VolumeWriteBytes" : "DiskWriteBytes", "Bytes", id, idIsVolumeId, startTimestamp, endTimestamp, apply);
+        calculate(statistics, metrics, startTimestamp, endTimestamp, apply);
     }
 
-    private void calculateDiskWriteOps( VmStatistics statistics, String id, boolean idIsVolumeId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
+    private void calculateDiskWriteOps( VmStatistics statistics, Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
         ApplyCalcs apply = new ApplyCalcs() {
             public void apply( VmStatistics stats, long start, long end, int samples, double average, double minimum, double maximum ) {
                 stats.setMinimumDiskWriteOperations(minimum);
@@ -346,10 +541,10 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 stats.setMaximumDiskWriteOperations(maximum);
             }
         };
-        calculate(statistics, idIsVolumeId ? "VolumeWriteOps" : "DiskWriteOps", "Count", id, idIsVolumeId, startTimestamp, endTimestamp, apply);
+        calculate(statistics, metrics, startTimestamp, endTimestamp, apply);
     }
 
-    private void calculateNetworkIn( VmStatistics statistics, String instanceId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
+    private void calculateNetworkIn( VmStatistics statistics, Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
         ApplyCalcs apply = new ApplyCalcs() {
             public void apply( VmStatistics stats, long start, long end, int samples, double average, double minimum, double maximum ) {
                 stats.setMinimumNetworkIn(minimum);
@@ -357,10 +552,10 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 stats.setMaximumNetworkIn(maximum);
             }
         };
-        calculate(statistics, "NetworkIn", "Bytes", instanceId, false, startTimestamp, endTimestamp, apply);
+        calculate(statistics, metrics, startTimestamp, endTimestamp, apply);
     }
 
-    private void calculateNetworkOut( VmStatistics statistics, String instanceId, long startTimestamp, long endTimestamp ) throws CloudException, InternalException {
+    private void calculateNetworkOut( VmStatistics statistics, Set<Metric> metrics, long startTimestamp, long endTimestamp ) {
         ApplyCalcs apply = new ApplyCalcs() {
             public void apply( VmStatistics stats, long start, long end, int samples, double average, double minimum, double maximum ) {
                 stats.setMinimumNetworkOut(minimum);
@@ -368,7 +563,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 stats.setMaximumNetworkOut(maximum);
             }
         };
-        calculate(statistics, "NetworkOut", "Bytes", instanceId, false, startTimestamp, endTimestamp, apply);
+        calculate(statistics, metrics, startTimestamp, endTimestamp, apply);
     }
 
     @Override
@@ -515,17 +710,16 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
 
         public GetUserDataCallable( String iId, Map<String, String> p, AWSCloud ap, String eUrl ) {
             instanceId = iId;
+            params = p;
             awsProvider = ap;
+            ec2url = ( eUrl == null ? ap.getEc2Url() : eUrl );
         }
 
         public String call() throws CloudException, InternalException {
             EC2Method method;
             NodeList blocks;
             Document doc;
-            if( ec2url == null ) {
-                ec2url = awsProvider.getEc2Url();
-            }
-            Map<String, String> params = awsProvider.getStandardParameters(awsProvider.getContext(), EC2Method.GET_PASSWORD_DATA);
+            Map<String, String> params = ( this.params == null ? awsProvider.getStandardParameters(awsProvider.getContext(), EC2Method.DESCRIBE_INSTANCE_ATTRIBUTE) : new HashMap<String, String>(this.params) );
             params.put("InstanceId", instanceId);
             params.put("Attribute", "userData");
             try {
@@ -565,6 +759,80 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
+    /**
+     * Looks up the user data of many instances through the provider's {@link AWSBulkOperation}.
+     *
+     * @param instanceIds the instances to look up
+     * @return the outcome for each instance, carrying its user data; an instance whose lookup failed carries the error
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull AWSBulkOperation.Report getUserData( @Nonnull Collection<String> instanceIds ) throws InternalException, CloudException {
+        return getUserData(instanceIds, null);
+    }
+
+    /**
+     * Looks up the user data of many instances through the provider's {@link AWSBulkOperation}, handing the outcome
+     * for each instance to the listener as soon as its lookup completes.
+     *
+     * @param instanceIds the instances to look up
+     * @param listener receives the outcome for each instance as it completes, null for none
+     * @return the outcome for each instance, carrying its user data; an instance whose lookup failed carries the error
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull AWSBulkOperation.Report getUserData( @Nonnull Collection<String> instanceIds, @Nullable AWSBulkOperation.OutcomeListener listener ) throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "getUserDataForVMs");
+        try {
+            return getProvider().getBulkOperation().invokeLookup("VM.getUserData", instanceIds, new AWSBulkOperation.LookupAction() {
+                @Override
+                public @Nullable String lookup( @Nonnull String instanceId ) throws CloudException, InternalException {
+                    return new GetUserDataCallable(instanceId, getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCE_ATTRIBUTE), getProvider(), getProvider().getEc2Url()).call();
+                }
+            }, listener);
+        } finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Looks up the encrypted Windows passwords of many instances through the provider's {@link AWSBulkOperation}.
+     *
+     * @param instanceIds the instances to look up
+     * @return the outcome for each instance, carrying its password or null for instances without one (yet); an
+     * instance whose lookup failed carries the error
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull AWSBulkOperation.Report getPasswords( @Nonnull Collection<String> instanceIds ) throws InternalException, CloudException {
+        return getPasswords(instanceIds, null);
+    }
+
+    /**
+     * Looks up the encrypted Windows passwords of many instances through the provider's {@link AWSBulkOperation},
+     * handing the outcome for each instance to the listener as soon as its lookup completes.
+     *
+     * @param instanceIds the instances to look up
+     * @param listener receives the outcome for each instance as it completes, null for none
+     * @return the outcome for each instance, carrying its password or null for instances without one (yet); an
+     * instance whose lookup failed carries the error
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull AWSBulkOperation.Report getPasswords( @Nonnull Collection<String> instanceIds, @Nullable AWSBulkOperation.OutcomeListener listener ) throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "getPasswordsForVMs");
+        try {
+            return getProvider().getBulkOperation().invokeLookup("VM.getPasswords", instanceIds, new AWSBulkOperation.LookupAction() {
+                @Override
+                public @Nullable String lookup( @Nonnull String instanceId ) throws CloudException, InternalException {
+                    return new GetPassCallable(instanceId, getProvider()).call();
+                }
+            }, listener);
+        } finally {
+            APITrace.end();
+        }
+    }
+
     @Override
     public @Nonnull String getConsoleOutput( @Nonnull String instanceId ) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "getConsoleOutput");
@@ -590,13 +858,11 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
             }
             blocks = doc.getElementsByTagName("timestamp");
             for( int i = 0; i < blocks.getLength(); i++ ) {
-                SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-                fmt.setCalendar(UTC_CALENDAR);
                 String ts = blocks.item(i).getFirstChild().getNodeValue();
                 long timestamp;
 
                 try {
-                    timestamp = fmt.parse(ts).getTime();
+                    timestamp = AWSTimestamps.parseIso8601(ts);
                 } catch( ParseException e ) {
                     logger.error(e);
                     throw new CloudException(e);
@@ -678,37 +944,91 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
+    /**
+     * Looks up the security groups of many instances at once, with one paged <code>DescribeInstances</code> call per
+     * {@value #MAXIMUM_LOOKUP_BATCH} instances. Only the <code>groupSet</code> of each instance is parsed from the
+     * responses.
+     *
+     * @param instanceIds the instances to look up
+     * @return the IDs of the security groups of each instance, keyed by instance ID; instances which do not exist are left out
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull Map<String, List<String>> listFirewalls( @Nonnull Collection<String> instanceIds ) throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "listFirewallsForVMs");
+        try {
+            Map<String, List<String>> firewalls = new HashMap<String, List<String>>();
+            List<String> ids = new ArrayList<String>(new LinkedHashSet<String>(instanceIds));
+            int pageSize = getPageSize(getContext());
+
+            for( int i = 0; i < ids.size(); i += MAXIMUM_LOOKUP_BATCH ) {
+                String nextToken = null;
+
+                do {
+                    Map<String, String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCES);
+                    DescribeInstanceGroupsResponseParser parser = new DescribeInstanceGroupsResponseParser(firewalls);
+
+                    AWSCloud.addFilterParameters(parameters, 1, "instance-id", ids.subList(i, Math.min(ids.size(), i + MAXIMUM_LOOKUP_BATCH)));
+                    addPageParameters(parameters, pageSize, nextToken);
+                    try {
+                        new EC2Method(getProvider(), parameters).invoke(parser);
+                    } catch( EC2Exception e ) {
+                        logger.error(e.getSummary());
+                        throw new CloudException(e);
+                    }
+                    nextToken = parser.getNextToken();
+                } while( nextToken != null );
+            }
+            return firewalls;
+        } finally {
+            APITrace.end();
+        }
+    }
+
     private @Nonnull List<VirtualMachine> describeInstances(@Nonnull String ... instanceIds) throws InternalException, CloudException {
-        List<VirtualMachine> results = new ArrayList<VirtualMachine>();
-        ProviderContext ctx = getContext();
+        Map<String, String> idParameters = new HashMap<String, String>();
 
-        if( ctx == null ) {
-            throw new CloudException("No context was established for this request");
+        AWSCloud.addIndexedParameters(idParameters, "InstanceId", instanceIds);
+        return describeInstances(idParameters, instanceIds);
+    }
+
+    /**
+     * Describes the specified instances through an <code>instance-id</code> filter. Unlike <code>InstanceId.N</code>,
+     * the filter silently skips instances which no longer exist instead of failing the whole request.
+     *
+     * @param instanceIds the instances to describe
+     * @return the instances which still exist
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull List<VirtualMachine> describeInstancesByFilter(@Nonnull Collection<String> instanceIds) throws InternalException, CloudException {
+        if( instanceIds.isEmpty() ) {
+            return Collections.emptyList();
         }
+        Map<String, String> filterParameters = new HashMap<String, String>();
 
-        Future<Iterable<IpAddress>> ipPoolFuture = null;
-        Iterable<IpAddress> addresses;
-        if( getProvider().hasNetworkServices() ) {
-            NetworkServices services = getProvider().getNetworkServices();
+        AWSCloud.addFilterParameters(filterParameters, 1, "instance-id", instanceIds);
+        return describeInstances(filterParameters, null);
+    }
 
-            if( services != null ) {
-                if( services.hasIpAddressSupport() ) {
-                    IpAddressSupport support = services.getIpAddressSupport();
+    private @Nonnull List<VirtualMachine> describeInstances(@Nonnull Map<String, String> extraParameters, @Nullable String[] instanceIds) throws InternalException, CloudException {
+        List<VirtualMachine> results = new ArrayList<VirtualMachine>();
+        Set<String> wanted = ( instanceIds == null ? null : new HashSet<String>(Arrays.asList(instanceIds)) );
+        ProviderContext ctx = getContext();
 
-                    if( support != null ) {
-                        ipPoolFuture = support.listIpPoolConcurrently(IPVersion.IPV4, false);
-                    }
-                }
-            }
+        if( ctx == null ) {
+            throw new CloudException("No context was established for this request");
         }
 
+        Future<Iterable<IpAddress>> ipPoolFuture = listIpPoolConcurrently();
+        EC2AddressIndex addresses = null;
 
         Map<String, String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCES);
         EC2Method method;
         NodeList blocks;
         Document doc;
 
-        AWSCloud.addIndexedParameters(parameters, "InstanceId", instanceIds);
+        AWSCloud.addExtraParameters(parameters, extraParameters);
 
         method = new EC2Method(getProvider(), parameters);
         try {
@@ -730,25 +1050,11 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 Node instance = instances.item(j);
 
                 if( instance.getNodeName().equals("item") ) {
-                    try {
-                        if( ipPoolFuture != null ) {
-                            addresses = ipPoolFuture.get(30, TimeUnit.SECONDS);
-                        }
-                        else {
-                            addresses = Collections.emptyList();
-                        }
-                    } catch( InterruptedException e ) {
-                        logger.error(e.getMessage());
-                        addresses = Collections.emptyList();
-                    } catch( ExecutionException e ) {
-                        logger.error(e.getMessage());
-                        addresses = Collections.emptyList();
-                    } catch( TimeoutException e ) {
-                        logger.error(e.getMessage());
-                        addresses = Collections.emptyList();
+                    if( addresses == null ) {
+                        addresses = new EC2AddressIndex(awaitIpPool(ipPoolFuture));
                     }
                     VirtualMachine server = toVirtualMachine(ctx, instance, addresses);
-                    if( server != null && Arrays.binarySearch(instanceIds, server.getProviderVirtualMachineId()) >= 0) {
+                    if( server != null && (wanted == null || wanted.contains(server.getProviderVirtualMachineId())) ) {
                         results.add(server);
                     }
                 }
@@ -761,6 +1067,11 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
     public @Nullable VirtualMachine getVirtualMachine( @Nonnull String instanceId ) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "getVirtualMachine");
         try {
+            AWSLookupBatcher batcher = getProvider().getLookupBatcher();
+
+            if( batcher.isEnabled() ) {
+                return batcher.get(getLookupLoader(), instanceId);
+            }
             List<VirtualMachine> instances = describeInstances(instanceId);
             if( instances.size() == 1 ) {
                 return instances.get(0);
@@ -777,16 +1088,59 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         return null;
     }
 
-    @Override
-    public @Nullable VirtualMachineProduct getProduct( @Nonnull String sizeId ) throws CloudException, InternalException {
-        for( Architecture a : getCapabilities().listSupportedArchitectures() ) {
-            for( VirtualMachineProduct prd : listProducts(null, a) ) {
-                if( prd.getProviderProductId().equals(sizeId) ) {
-                    return prd;
+    /**
+     * Looks up many instances at once, with one <code>DescribeInstances</code> call per {@value #MAXIMUM_LOOKUP_BATCH}
+     * instances.
+     *
+     * @param instanceIds the instances to look up
+     * @return the instances found, keyed by instance ID; instances which do not exist are left out
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull Map<String, VirtualMachine> getVirtualMachines( @Nonnull Collection<String> instanceIds ) throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "getVirtualMachines");
+        try {
+            Map<String, VirtualMachine> vms = new HashMap<String, VirtualMachine>();
+            List<String> ids = new ArrayList<String>(new LinkedHashSet<String>(instanceIds));
+
+            for( int i = 0; i < ids.size(); i += MAXIMUM_LOOKUP_BATCH ) {
+                for( VirtualMachine vm : describeInstancesByFilter(ids.subList(i, Math.min(ids.size(), i + MAXIMUM_LOOKUP_BATCH))) ) {
+                    vms.put(vm.getProviderVirtualMachineId(), vm);
                 }
             }
+            return vms;
+        } finally {
+            APITrace.end();
         }
-        return null;
+    }
+
+    /**
+     * @return a loader merging concurrent {@link #getVirtualMachine(String)} calls into {@link #getVirtualMachines(Collection)}
+     */
+    private @Nonnull AWSLookupBatcher.BatchLoader<VirtualMachine> getLookupLoader() {
+        return new AWSLookupBatcher.BatchLoader<VirtualMachine>() {
+            @Override
+            public @Nonnull String getResourceType() {
+                return "instance";
+            }
+
+            @Override
+            public int getMaximumBatchSize() {
+                return MAXIMUM_LOOKUP_BATCH;
+            }
+
+            @Override
+            public @Nonnull Map<String, VirtualMachine> load( @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+                return getVirtualMachines(resourceIds);
+            }
+        };
+    }
+
+    @Override
+    public @Nullable VirtualMachineProduct getProduct( @Nonnull String sizeId ) throws CloudException, InternalException {
+        ProviderContext ctx = getContext();
+
+        return EC2ProductCatalog.getInstance(getProvider()).getProduct(sizeId, getCapabilities().listSupportedArchitectures(), ctx == null ? null : ctx.getRegionId());
     }
 
     private VmState getServerState( String state ) {
@@ -820,37 +1174,37 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         APITrace.begin(getProvider(), "getVMStatistics");
         try {
             VmStatistics statistics = new VmStatistics();
+            long[] window = getStatisticsWindow(startTimestamp, endTimestamp);
 
-            if( endTimestamp < 1L ) {
-                endTimestamp = System.currentTimeMillis() + 1000L;
-            }
-            if( startTimestamp < ( System.currentTimeMillis() - ( 2L * CalendarWrapper.DAY ) ) ) {
-                startTimestamp = System.currentTimeMillis() - ( 2L * CalendarWrapper.DAY );
-                if( startTimestamp > ( endTimestamp - ( 2L * CalendarWrapper.MINUTE ) ) ) {
-                    endTimestamp = startTimestamp + ( 2L * CalendarWrapper.MINUTE );
+            startTimestamp = window[0];
+            endTimestamp = window[1];
+
+            Map<StatisticsMetric, Future<Set<Metric>>> fetches = new EnumMap<StatisticsMetric, Future<Set<Metric>>>(StatisticsMetric.class);
+
+            // the instance metrics are fetched while we find out whether disk metrics come from EBS
+            for( StatisticsMetric metric : StatisticsMetric.values() ) {
+                if( metric.volumeMetric == null ) {
+                    fetches.put(metric, calculateConcurrently(metric.instanceMetric, metric.unit, instanceId, false, startTimestamp, endTimestamp));
                 }
             }
-            else if( startTimestamp > ( endTimestamp - ( 2L * CalendarWrapper.MINUTE ) ) ) {
-                startTimestamp = endTimestamp - ( 2L * CalendarWrapper.MINUTE );
+            VirtualMachine vm = getVirtualMachine(instanceId);
+
+            if( vm == null ) {
+                // the fetches already started end on their own
+                return statistics;
             }
+            String volumeId = getStatisticsVolumeId(vm);
 
-            String id = instanceId;
-            boolean idIsVolumeId = false;
-            VirtualMachine vm = getVirtualMachine(instanceId);
-            if( vm != null ) {
-                if( vm.isPersistent() ) {
-                    if( vm.getProviderVolumeIds(getProvider()).length > 0 ) {
-                        id = vm.getProviderVolumeIds(getProvider())[0];
-                        idIsVolumeId = true;
-                    }
+            for( StatisticsMetric metric : StatisticsMetric.values() ) {
+                if( metric.volumeMetric != null ) {
+                    StatisticsQuery query = new StatisticsQuery(instanceId, metric, volumeId);
+
+                    fetches.put(metric, calculateConcurrently(query.getMetricName(), metric.unit, query.getTargetId(), query.isVolumeQuery(), startTimestamp, endTimestamp));
                 }
-                calculateCpuUtilization(statistics, instanceId, startTimestamp, endTimestamp);
-                calculateDiskReadBytes(statistics, id, idIsVolumeId, startTimestamp, endTimestamp);
-                calculateDiskReadOps(statistics, id, idIsVolumeId, startTimestamp, endTimestamp);
-                calculateDiskWriteBytes(statistics, id, idIsVolumeId, startTimestamp, endTimestamp);
-                calculateDiskWriteOps(statistics, id, idIsVolumeId, startTimestamp, endTimestamp);
-                calculateNetworkIn(statistics, instanceId, startTimestamp, endTimestamp);
-                calculateNetworkOut(statistics, instanceId, startTimestamp, endTimestamp);
+            }
+            // in the order of the metrics, whatever order they were started in
+            for( Map.Entry<StatisticsMetric, Future<Set<Metric>>> fetch : fetches.entrySet() ) {
+                fetch.getKey().apply(this, statistics, awaitMetrics(fetch.getValue()), startTimestamp, endTimestamp);
             }
             return statistics;
         } finally {
@@ -858,29 +1212,168 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
-    @Override
-    public @Nonnull Iterable<VmStatistics> getVMStatisticsForPeriod( @Nonnull String instanceId, long startTimestamp, long endTimestamp ) throws InternalException, CloudException {
-        APITrace.begin(getProvider(), "getVMStatisticsForPeriod");
-        try {
-            if( endTimestamp < 1L ) {
-                endTimestamp = System.currentTimeMillis() + 1000L;
-            }
-            if( startTimestamp < ( System.currentTimeMillis() - CalendarWrapper.DAY ) ) {
-                startTimestamp = System.currentTimeMillis() - CalendarWrapper.DAY;
-                if( startTimestamp > ( endTimestamp - ( 2L * CalendarWrapper.MINUTE ) ) ) {
-                    endTimestamp = startTimestamp + ( 2L * CalendarWrapper.MINUTE );
-                }
-            }
-            else if( startTimestamp > ( endTimestamp - ( 2L * CalendarWrapper.MINUTE ) ) ) {
-                startTimestamp = endTimestamp - ( 2L * CalendarWrapper.MINUTE );
+    /**
+     * @return the start and end of the window for aggregated VM statistics, limited to the last two days and at least
+     * two minutes long
+     */
+    static private @Nonnull long[] getStatisticsWindow( long startTimestamp, long endTimestamp ) {
+        if( endTimestamp < 1L ) {
+            endTimestamp = System.currentTimeMillis() + 1000L;
+        }
+        if( startTimestamp < ( System.currentTimeMillis() - ( 2L * CalendarWrapper.DAY ) ) ) {
+            startTimestamp = System.currentTimeMillis() - ( 2L * CalendarWrapper.DAY );
+            if( startTimestamp > ( endTimestamp - ( 2L * CalendarWrapper.MINUTE ) ) ) {
+                endTimestamp = startTimestamp + ( 2L * CalendarWrapper.MINUTE );
             }
-            TreeMap<Integer, VmStatistics> statMap = new TreeMap<Integer, VmStatistics>();
-            int minutes = ( int ) ( ( endTimestamp - startTimestamp ) / CalendarWrapper.MINUTE );
+        }
+        else if( startTimestamp > ( endTimestamp - ( 2L * CalendarWrapper.MINUTE ) ) ) {
+            startTimestamp = endTimestamp - ( 2L * CalendarWrapper.MINUTE );
+        }
+        return new long[] { startTimestamp, endTimestamp };
+    }
 
-            for( int i = 1; i <= minutes; i++ ) {
-                statMap.put(i, new VmStatistics());
+    /**
+     * Computes the aggregated statistics of many instances at once, as {@link #getVMStatistics(String, long, long)}
+     * would for each of them. The instances are looked up in batches, their root volumes are read from the block
+     * device mappings which come back with them, and the CloudWatch queries for all of the instances are then
+     * worked off by the bulk operation engine, so no more than <code>bulkParallelism</code> queries are in flight and throttled queries are retried with back-off.
+     * The statistics of each instance are handed out as soon as its last query completes.
+     *
+     * @param instanceIds the instances whose statistics are requested
+     * @param startTimestamp the start of the window
+     * @param endTimestamp the end of the window
+     * @param listener an optional listener notified as each instance completes
+     * @return the statistics of each instance, in the order they complete; instances which do not exist or whose
+     * metrics could not all be fetched are reported with an error
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    public @Nonnull Iterable<EC2FleetStatistics> getFleetStatistics( @Nonnull Collection<String> instanceIds, @Nonnegative long startTimestamp, @Nonnegative long endTimestamp, final @Nullable EC2FleetStatistics.ProgressListener listener ) throws InternalException, CloudException {
+        final List<String> ids = new ArrayList<String>(new LinkedHashSet<String>(instanceIds));
+        final long[] window = getStatisticsWindow(startTimestamp, endTimestamp);
+
+        getProvider().hold();
+        return getProvider().getExecutor().populate(new JiteratorPopulator<EC2FleetStatistics>() {
+            @Override
+            public void populate( @Nonnull final Jiterator<EC2FleetStatistics> iterator ) throws Exception {
+                try {
+                    APITrace.begin(getProvider(), "getFleetStatistics");
+                    try {
+                        final Map<String, VmStatistics> statistics = new HashMap<String, VmStatistics>();
+                        final Map<String, Integer> remaining = new HashMap<String, Integer>();
+                        final AtomicInteger completed = new AtomicInteger(0);
+                        final Map<String, StatisticsQuery> queries = new LinkedHashMap<String, StatisticsQuery>();
+                        Map<String, VirtualMachine> vms = getVirtualMachines(ids);
+
+                        for( String id : ids ) {
+                            VirtualMachine vm = vms.get(id);
+
+                            if( vm == null ) {
+                                publish(iterator, listener, new EC2FleetStatistics(id, null, new AWSResourceNotFoundException("No such instance: " + id)), completed.incrementAndGet(), ids.size());
+                                continue;
+                            }
+                            String volumeId = getStatisticsVolumeId(vm);
+
+                            statistics.put(id, new VmStatistics());
+                            remaining.put(id, StatisticsMetric.values().length);
+                            // instance by instance, so the first instances complete while the rest are still queued
+                            for( StatisticsMetric metric : StatisticsMetric.values() ) {
+                                StatisticsQuery query = new StatisticsQuery(id, metric, volumeId);
+
+                                queries.put(query.getKey(), query);
+                            }
+                        }
+                        AWSBulkOperation.Report report = getProvider().getBulkOperation().invokeEach("VM.getFleetStatistics", queries.keySet(), new AWSBulkOperation.SingleAction() {
+                            @Override
+                            public void invoke( @Nonnull String key ) throws CloudException, InternalException {
+                                StatisticsQuery query = queries.get(key);
+                                Set<Metric> metrics = calculate(query.getMetricName(), query.metric.unit, query.getTargetId(), query.isVolumeQuery(), window[0], window[1]);
+                                VmStatistics stats = statistics.get(query.instanceId);
+                                boolean done;
+
+                                synchronized( stats ) {
+                                    query.metric.apply(EC2Instance.this, stats, metrics, window[0], window[1]);
+                                }
+                                synchronized( remaining ) {
+                                    int left = remaining.get(query.instanceId) - 1;
+
+                                    remaining.put(query.instanceId, left);
+                                    done = ( left == 0 );
+                                }
+                                if( done ) {
+                                    publish(iterator, listener, new EC2FleetStatistics(query.instanceId, stats, null), completed.incrementAndGet(), ids.size());
+                                }
+                            }
+                        });
+                        Map<String, CloudException> failures = new LinkedHashMap<String, CloudException>();
+
+                        for( AWSBulkOperation.Outcome outcome : report.getFailures() ) {
+                            String instanceId = queries.get(outcome.getResourceId()).instanceId;
+
+                            if( !failures.containsKey(instanceId) ) {
+                                failures.put(instanceId, outcome.getError());
+                            }
+                        }
+                        // whatever could be fetched is still handed out along with the first error
+                        for( Map.Entry<String, CloudException> failure : failures.entrySet() ) {
+                            publish(iterator, listener, new EC2FleetStatistics(failure.getKey(), statistics.get(failure.getKey()), failure.getValue()), completed.incrementAndGet(), ids.size());
+                        }
+                    } finally {
+                        APITrace.end();
+                    }
+                } finally {
+                    getProvider().release();
+                }
+            }
+        });
+    }
+
+    private void publish( @Nonnull Jiterator<EC2FleetStatistics> iterator, @Nullable EC2FleetStatistics.ProgressListener listener, @Nonnull EC2FleetStatistics result, int completed, int total ) {
+        iterator.push(result);
+        if( listener != null ) {
+            try {
+                listener.progress(result, completed, total);
+            } catch( RuntimeException e ) {
+                logger.warn("Fleet statistics listener failed: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public @Nonnull Iterable<VmStatistics> getVMStatisticsForPeriod( @Nonnull String instanceId, long startTimestamp, long endTimestamp ) throws InternalException, CloudException {
+        APITrace.begin(getProvider(), "getVMStatisticsForPeriod");
+        try {
+            if( endTimestamp < 1L ) {
+                endTimestamp = System.currentTimeMillis() + 1000L;
+            }
+            if( startTimestamp < ( System.currentTimeMillis() - CalendarWrapper.DAY ) ) {
+                startTimestamp = System.currentTimeMillis() - CalendarWrapper.DAY;
+                if( startTimestamp > ( endTimestamp - ( 2L * CalendarWrapper.MINUTE ) ) ) {
+                    endTimestamp = startTimestamp + ( 2L * CalendarWrapper.MINUTE );
+                }
+            }
+            else if( startTimestamp > ( endTimestamp - ( 2L * CalendarWrapper.MINUTE ) ) ) {
+                startTimestamp = endTimestamp - ( 2L * CalendarWrapper.MINUTE );
+            }
+            TreeMap<Integer, VmStatistics> statMap = new TreeMap<Integer, VmStatistics>();
+            int minutes = ( int ) ( ( endTimestamp - startTimestamp ) / CalendarWrapper.MINUTE );
+
+            for( int i = 1; i <= minutes; i++ ) {
+                statMap.put(i, new VmStatistics());
             }
-            Set<Metric> metrics = calculate("CPUUtilization", "Percent", instanceId, false, startTimestamp, endTimestamp);
+            // the instance metrics are fetched while we find out whether disk metrics come from EBS
+            Future<Set<Metric>> cpu = calculateConcurrently("CPUUtilization", "Percent", instanceId, false, startTimestamp, endTimestamp);
+            Future<Set<Metric>> networkIn = calculateConcurrently("NetworkIn", "Bytes", instanceId, false, startTimestamp, endTimestamp);
+            Future<Set<Metric>> networkOut = calculateConcurrently("NetworkOut", "Bytes", instanceId, false, startTimestamp, endTimestamp);
+            String volumeId = getStatisticsVolumeId(getVirtualMachine(instanceId));
+            boolean idIsVolumeId = ( volumeId != null );
+            String id = ( idIsVolumeId ? volumeId : instanceId );
+            Future<Set<Metric>> readBytes = calculateConcurrently(idIsVolumeId ? "VolumeReadBytes" : "DiskReadBytes", "Bytes", id, idIsVolumeId, startTimestamp, endTimestamp);
+            Future<Set<Metric>> readOps = calculateConcurrently(idIsVolumeId ? "VolumeReadOps" : "DiskReadOps", "Count", id, idIsVolumeId, startTimestamp, endTimestamp);
+            Future<Set<Metric>> writeBytes = calculateConcurrently(idIsVolumeId ? "VolumeWriteBytes" : "DiskWriteBytes", "Bytes", id, idIsVolumeId, startTimestamp, endTimestamp);
+            Future<Set<Metric>> writeOps = calculateConcurrently(idIsVolumeId ? "VolumeWriteOps" : "DiskWriteOps", "Count", id, idIsVolumeId, startTimestamp, endTimestamp);
+
+            Set<Metric> metrics = awaitMetrics(cpu);
             for( Metric m : metrics ) {
                 int minute = 1 + ( int ) ( ( m.timestamp - startTimestamp ) / CalendarWrapper.MINUTE );
                 VmStatistics stats = statMap.get(minute);
@@ -896,16 +1389,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 stats.setEndTimestamp(m.timestamp);
                 stats.setSamples(m.samples);
             }
-            String id = instanceId;
-            boolean idIsVolumeId = false;
-            VirtualMachine vm = getVirtualMachine(instanceId);
-            if( vm != null && vm.isPersistent() ) {
-                if( vm.getProviderVolumeIds(getProvider()).length > 0 ) {
-                    id = vm.getProviderVolumeIds(getProvider())[0];
-                    idIsVolumeId = true;
-                }
-            }
-            metrics = calculate(idIsVolumeId ? "VolumeReadBytes" : "DiskReadBytes", "Bytes", id, idIsVolumeId, startTimestamp, endTimestamp);
+            metrics = awaitMetrics(readBytes);
             for( Metric m : metrics ) {
                 int minute = 1 + ( int ) ( ( m.timestamp - startTimestamp ) / CalendarWrapper.MINUTE );
                 VmStatistics stats = statMap.get(minute);
@@ -921,7 +1405,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                     stats.setSamples(m.samples);
                 }
             }
-            metrics = calculate(idIsVolumeId ? "VolumeReadOps" : "DiskReadOps", "Count", id, idIsVolumeId, startTimestamp, endTimestamp);
+            metrics = awaitMetrics(readOps);
             for( Metric m : metrics ) {
                 int minute = 1 + ( int ) ( ( m.timestamp - startTimestamp ) / CalendarWrapper.MINUTE );
                 VmStatistics stats = statMap.get(minute);
@@ -937,7 +1421,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                     stats.setSamples(m.samples);
                 }
             }
-            metrics = calculate(idIsVolumeId ? "VolumeWriteBytes" : "DiskWriteBytes", "Bytes", id, idIsVolumeId, startTimestamp, endTimestamp);
+            metrics = awaitMetrics(writeBytes);
             for( Metric m : metrics ) {
                 int minute = 1 + ( int ) ( ( m.timestamp - startTimestamp ) / CalendarWrapper.MINUTE );
                 VmStatistics stats = statMap.get(minute);
@@ -953,7 +1437,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                     stats.setSamples(m.samples);
                 }
             }
-            metrics = calculate(idIsVolumeId ? "VolumeWriteOps" : "DiskWriteOps", "Count", id, idIsVolumeId, startTimestamp, endTimestamp);
+            metrics = awaitMetrics(writeOps);
             for( Metric m : metrics ) {
                 int minute = 1 + ( int ) ( ( m.timestamp - startTimestamp ) / CalendarWrapper.MINUTE );
                 VmStatistics stats = statMap.get(minute);
@@ -969,7 +1453,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                     stats.setSamples(m.samples);
                 }
             }
-            metrics = calculate("NetworkIn", "Bytes", instanceId, false, startTimestamp, endTimestamp);
+            metrics = awaitMetrics(networkIn);
             for( Metric m : metrics ) {
                 int minute = 1 + ( int ) ( ( m.timestamp - startTimestamp ) / CalendarWrapper.MINUTE );
                 VmStatistics stats = statMap.get(minute);
@@ -985,7 +1469,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                     stats.setSamples(m.samples);
                 }
             }
-            metrics = calculate("NetworkOut", "Bytes", instanceId, false, startTimestamp, endTimestamp);
+            metrics = awaitMetrics(networkOut);
             for( Metric m : metrics ) {
                 int minute = 1 + ( int ) ( ( m.timestamp - startTimestamp ) / CalendarWrapper.MINUTE );
                 VmStatistics stats = statMap.get(minute);
@@ -1023,91 +1507,183 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
 
     @Override
     public @Nullable Iterable<VirtualMachineStatus> getVMStatus( @Nullable VmStatusFilterOptions filterOptions ) throws InternalException, CloudException {
-        APITrace.begin(getProvider(), "getVMStatus");
-        try {
-            ProviderContext ctx = getContext();
-            if( ctx == null ) {
-                throw new CloudException("No context was established for this request");
-            }
-            Map<String, String> params = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCE_STATUS);
-            EC2Method method;
-            NodeList blocks;
-            Document doc;
-            Map<String, String> filterParameters = createFilterParametersFrom(filterOptions);
-            AWSCloud.addExtraParameters(params, filterParameters);
-            try {
-                method = new EC2Method(getProvider(), params);
-            } catch( InternalException e ) {
-                logger.error(e.getMessage());
-                throw new CloudException(e);
-            }
+        ProviderContext ctx = getContext();
+
+        if( ctx == null ) {
+            throw new CloudException("No context was established for this request");
+        }
+        final Map<String, String> filterParameters = createFilterParametersFrom(filterOptions);
+
+        if( filterParameters.containsKey("InstanceId.1") ) {
+            // EC2 doesn't page requests for specific instances, but the IDs bound the response anyway
+            APITrace.begin(getProvider(), "getVMStatus");
             try {
-                doc = method.invoke();
-            } catch( EC2Exception e ) {
-                String code = e.getCode();
-                if( code != null && code.startsWith("InvalidInstanceID") ) {
-                    return null;
+                Map<String, String> params = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCE_STATUS);
+                ArrayList<VirtualMachineStatus> list = new ArrayList<VirtualMachineStatus>();
+
+                AWSCloud.addExtraParameters(params, filterParameters);
+                try {
+                    describeInstanceStatus(params, list);
+                } catch( EC2Exception e ) {
+                    String code = e.getCode();
+
+                    if( code != null && code.startsWith("InvalidInstanceID") ) {
+                        return null;
+                    }
+                    logger.error(e.getSummary());
+                    throw new CloudException(e);
                 }
-                logger.error(e.getSummary());
-                throw new CloudException(e);
-            } catch( InternalException e ) {
-                logger.error(e.getMessage());
-                throw new CloudException(e);
+                return list;
+            } finally {
+                APITrace.end();
             }
-            ArrayList<VirtualMachineStatus> list = new ArrayList<VirtualMachineStatus>();
-            blocks = doc.getElementsByTagName("instanceStatusSet");
-            for( int i = 0; i < blocks.getLength(); i++ ) {
-                NodeList instances = blocks.item(i).getChildNodes();
-                for( int j = 0; j < instances.getLength(); j++ ) {
-                    Node instance = instances.item(j);
-                    if( instance.getNodeName().equals("item") ) {
-                        NodeList attrs = instance.getChildNodes();
-                        VirtualMachineStatus vm = new VirtualMachineStatus();
-                        for( int k = 0; k < attrs.getLength(); k++ ) {
-                            Node attr = attrs.item(k);
-                            String name;
-                            name = attr.getNodeName();
-                            if( name.equals("instanceId") ) {
-                                String value = attr.getFirstChild().getNodeValue().trim();
-                                vm.setProviderVirtualMachineId(value);
+        }
+        final int pageSize = getPageSize(getContext());
+
+        getProvider().hold();
+        return getProvider().getExecutor().populate(new JiteratorPopulator<VirtualMachineStatus>() {
+            @Override
+            public void populate( @Nonnull Jiterator<VirtualMachineStatus> iterator ) throws Exception {
+                try {
+                    APITrace.begin(getProvider(), "getVMStatus");
+                    try {
+                        String nextToken = null;
+
+                        do {
+                            Map<String, String> params = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCE_STATUS);
+                            List<VirtualMachineStatus> page = new ArrayList<VirtualMachineStatus>();
+
+                            AWSCloud.addExtraParameters(params, filterParameters);
+                            addPageParameters(params, pageSize, nextToken);
+                            try {
+                                nextToken = describeInstanceStatus(params, page);
+                            } catch( EC2Exception e ) {
+                                logger.error(e.getSummary());
+                                throw new CloudException(e);
                             }
-                            else if( name.equals("systemStatus") ) {
-                                NodeList details = attr.getChildNodes();
-                                for( int l = 0; l < details.getLength(); l++ ) {
-                                    Node detail = details.item(l);
-                                    name = detail.getNodeName();
-                                    if( name.equals("status") ) {
-                                        String value = detail.getFirstChild().getNodeValue().trim();
-                                        vm.setProviderHostStatus(toVmStatus(value));
-                                    }
+                            for( VirtualMachineStatus status : page ) {
+                                iterator.push(status);
+                            }
+                        } while( nextToken != null );
+                    } finally {
+                        APITrace.end();
+                    }
+                } finally {
+                    getProvider().release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Describes a page of instance status checks.
+     *
+     * @param params the request parameters, including any paging parameters
+     * @param list the list to add the status of each instance to
+     * @return the token for the next page, or null if this was the last page
+     * @throws EC2Exception EC2 rejected the request
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    private @Nullable String describeInstanceStatus( @Nonnull Map<String, String> params, @Nonnull List<VirtualMachineStatus> list ) throws EC2Exception, InternalException, CloudException {
+        EC2Method method = new EC2Method(getProvider(), params);
+        NodeList blocks;
+        Document doc;
+
+        doc = method.invoke();
+        blocks = doc.getElementsByTagName("instanceStatusSet");
+        for( int i = 0; i < blocks.getLength(); i++ ) {
+            NodeList instances = blocks.item(i).getChildNodes();
+            for( int j = 0; j < instances.getLength(); j++ ) {
+                Node instance = instances.item(j);
+                if( instance.getNodeName().equals("item") ) {
+                    NodeList attrs = instance.getChildNodes();
+                    VirtualMachineStatus vm = new VirtualMachineStatus();
+                    for( int k = 0; k < attrs.getLength(); k++ ) {
+                        Node attr = attrs.item(k);
+                        String name;
+                        name = attr.getNodeName();
+                        if( name.equals("instanceId") ) {
+                            String value = attr.getFirstChild().getNodeValue().trim();
+                            vm.setProviderVirtualMachineId(value);
+                        }
+                        else if( name.equals("systemStatus") ) {
+                            NodeList details = attr.getChildNodes();
+                            for( int l = 0; l < details.getLength(); l++ ) {
+                                Node detail = details.item(l);
+                                name = detail.getNodeName();
+                                if( name.equals("status") ) {
+                                    String value = detail.getFirstChild().getNodeValue().trim();
+                                    vm.setProviderHostStatus(toVmStatus(value));
                                 }
                             }
-                            else if( name.equals("instanceStatus") ) {
-                                NodeList details = attr.getChildNodes();
-                                for( int l = 0; l < details.getLength(); l++ ) {
-                                    Node detail = details.item(l);
-                                    name = detail.getNodeName();
-                                    if( name.equals("status") ) {
-                                        String value = detail.getFirstChild().getNodeValue().trim();
-                                        vm.setProviderVmStatus(toVmStatus(value));
-                                    }
+                        }
+                        else if( name.equals("instanceStatus") ) {
+                            NodeList details = attr.getChildNodes();
+                            for( int l = 0; l < details.getLength(); l++ ) {
+                                Node detail = details.item(l);
+                                name = detail.getNodeName();
+                                if( name.equals("status") ) {
+                                    String value = detail.getFirstChild().getNodeValue().trim();
+                                    vm.setProviderVmStatus(toVmStatus(value));
                                 }
                             }
                         }
-                        list.add(vm);
                     }
+                    list.add(vm);
                 }
             }
-            return list;
-        } catch( CloudException ce ) {
-            ce.printStackTrace();
-            throw ce;
-        } catch( Exception e ) {
-            e.printStackTrace();
-            throw new InternalException(e);
-        } finally {
-            APITrace.end();
         }
+        return getNextToken(doc);
+    }
+
+    /**
+     * Subscribes to the lifecycle events of all instances: state transitions, scheduled events and instances going
+     * away. All subscribers of the provider share one polling loop, see {@link EC2InstanceWatcher}.
+     *
+     * @param listener the listener to notify
+     */
+    public void subscribe( @Nonnull EC2InstanceWatcher.Listener listener ) {
+        getProvider().getInstanceWatcher().subscribe(getStatusSource(), listener);
+    }
+
+    /**
+     * Stops notifying a listener of instance lifecycle events.
+     *
+     * @param listener the listener to remove
+     */
+    public void unsubscribe( @Nonnull EC2InstanceWatcher.Listener listener ) {
+        getProvider().getInstanceWatcher().unsubscribe(listener);
+    }
+
+    /**
+     * @return a source paging through the status of all instances, whether running or not
+     */
+    private @Nonnull EC2InstanceWatcher.StatusSource getStatusSource() {
+        final int pageSize = getPageSize(getContext());
+
+        return new EC2InstanceWatcher.StatusSource() {
+            @Override
+            public @Nullable String fetch( @Nullable String nextToken, @Nonnull List<DescribeInstanceStatusResponseParser.RawInstanceStatus> page ) throws CloudException, InternalException {
+                APITrace.begin(getProvider(), "watchInstanceStatus");
+                try {
+                    Map<String, String> params = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCE_STATUS);
+                    DescribeInstanceStatusResponseParser parser = new DescribeInstanceStatusResponseParser(page);
+
+                    params.put("IncludeAllInstances", "true");
+                    addPageParameters(params, pageSize, nextToken);
+                    try {
+                        new EC2Method(getProvider(), params).invoke(parser);
+                    } catch( EC2Exception e ) {
+                        logger.error(e.getSummary());
+                        throw new CloudException(e);
+                    }
+                    return parser.getNextToken();
+                } finally {
+                    APITrace.end();
+                }
+            }
+        };
     }
 
     private Map<String, String> createFilterParametersFrom( @Nullable VmStatusFilterOptions options ) {
@@ -1201,249 +1777,21 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
     protected @Nonnull Iterable<VirtualMachineProduct> listProducts( @Nullable VirtualMachineProductFilterOptions options, @Nullable Architecture architecture ) throws InternalException, CloudException {
         ProviderContext ctx = getContext();
         // FIXME: until core fixes the annotation for architecture let's assume it's nullable
-        String cacheName = "productsALL";
-        if( architecture != null ) {
-            cacheName = "products" + architecture.name();
-        }
-        Cache<VirtualMachineProduct> cache = Cache.getInstance(getProvider(), cacheName, VirtualMachineProduct.class, CacheLevel.REGION, new TimePeriod<Day>(1, TimePeriod.DAY));
-        Iterable<VirtualMachineProduct> products = cache.get(ctx);
-
-        if( products == null ) {
-            List<VirtualMachineProduct> list = new ArrayList<VirtualMachineProduct>();
-
-            try {
-                InputStream input = EC2Instance.class.getResourceAsStream("/org/dasein/cloud/aws/vmproducts.json");
-
-                if( input != null ) {
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-                    StringBuilder json = new StringBuilder();
-                    String line;
-
-                    while( ( line = reader.readLine() ) != null ) {
-                        json.append(line);
-                        json.append("\n");
-                    }
-                    JSONArray arr = new JSONArray(json.toString());
-                    JSONObject toCache = null;
-
-                    for( int i = 0; i < arr.length(); i++ ) {
-                        JSONObject productSet = arr.getJSONObject(i);
-                        String cloud, providerName;
-
-                        if( productSet.has("cloud") ) {
-                            cloud = productSet.getString("cloud");
-                        }
-                        else {
-                            continue;
-                        }
-                        if( productSet.has("provider") ) {
-                            providerName = productSet.getString("provider");
-                        }
-                        else {
-                            continue;
-                        }
-                        if( !productSet.has("products") ) {
-                            continue;
-                        }
-                        if( toCache == null || ( providerName.equals("AWS") && cloud.equals("AWS") ) ) {
-                            toCache = productSet;
-                        }
-                        if( providerName.equalsIgnoreCase(getProvider().getProviderName()) && cloud.equalsIgnoreCase(getProvider().getCloudName()) ) {
-                            toCache = productSet;
-                            break;
-                        }
-                    }
-                    if( toCache == null ) {
-                        logger.warn("No products were defined");
-                        return Collections.emptyList();
-                    }
-                    JSONArray plist = toCache.getJSONArray("products");
-
-                    for( int i = 0; i < plist.length(); i++ ) {
-                        JSONObject product = plist.getJSONObject(i);
-                        boolean supported = true;
-
-                        if( architecture != null ) {
-                            supported = false;
-                            if( product.has("architectures") ) {
-                                JSONArray architectures = product.getJSONArray("architectures");
-
-                                for( int j = 0; j < architectures.length(); j++ ) {
-                                    String a = architectures.getString(j);
-
-                                    if( architecture.name().equals(a) ) {
-                                        supported = true;
-                                        break;
-                                    }
-                                }
-                            }
-                            if( !supported ) {
-                                continue;
-                            }
-                        }
-                        if( product.has("excludesRegions") ) {
-                            JSONArray regions = product.getJSONArray("excludesRegions");
-
-                            for( int j = 0; j < regions.length(); j++ ) {
-                                String r = regions.getString(j);
-
-                                if( r.equals(ctx.getRegionId()) ) {
-                                    supported = false;
-                                    break;
-                                }
-                            }
-                        }
-                        if( !supported ) {
-                            continue;
-                        }
-                        VirtualMachineProduct prd = toProduct(product);
-
-                        if( prd != null ) {
-                            if( options != null) {
-                                if( options.matches(prd) ) {
-                                    list.add(prd);
-                                }
-                            }
-                            else {
-                                list.add(prd);
-                            }
-                        }
+        List<VirtualMachineProduct> products = EC2ProductCatalog.getInstance(getProvider()).listProducts(architecture, ctx == null ? null : ctx.getRegionId());
 
-                    }
-
-                }
-                else {
-                    logger.warn("No standard products resource exists for /org/dasein/cloud/aws/vmproducts.json");
-                }
-                input = EC2Instance.class.getResourceAsStream("/org/dasein/cloud/aws/vmproducts-custom.json");
-                if( input != null ) {
-                    ArrayList<VirtualMachineProduct> customList = new ArrayList<VirtualMachineProduct>();
-                    TreeSet<String> discard = new TreeSet<String>();
-                    boolean discardAll = false;
-
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(input));
-                    StringBuilder json = new StringBuilder();
-                    String line;
-
-                    while( ( line = reader.readLine() ) != null ) {
-                        json.append(line);
-                        json.append("\n");
-                    }
-                    JSONArray arr = new JSONArray(json.toString());
-                    JSONObject toCache = null;
-
-                    for( int i = 0; i < arr.length(); i++ ) {
-                        JSONObject listing = arr.getJSONObject(i);
-                        String cloud, providerName, endpoint = null;
-
-                        if( listing.has("cloud") ) {
-                            cloud = listing.getString("cloud");
-                        }
-                        else {
-                            continue;
-                        }
-                        if( listing.has("provider") ) {
-                            providerName = listing.getString("provider");
-                        }
-                        else {
-                            continue;
-                        }
-                        if( listing.has("endpoint") ) {
-                            endpoint = listing.getString("endpoint");
-                        }
-                        if( !cloud.equals(getProvider().getCloudName()) || !providerName.equals(getProvider().getProviderName()) ) {
-                            continue;
-                        }
-                        if( endpoint != null && endpoint.equals(ctx.getCloud().getEndpoint()) ) {
-                            toCache = listing;
-                            break;
-                        }
-                        if( endpoint == null && toCache == null ) {
-                            toCache = listing;
-                        }
-                    }
-                    if( toCache != null ) {
-                        if( toCache.has("discardDefaults") ) {
-                            discardAll = toCache.getBoolean("discardDefaults");
-                        }
-                        if( toCache.has("discard") ) {
-                            JSONArray dlist = toCache.getJSONArray("discard");
-
-                            for( int i = 0; i < dlist.length(); i++ ) {
-                                discard.add(dlist.getString(i));
-                            }
-                        }
-                        if( toCache.has("products") ) {
-                            JSONArray plist = toCache.getJSONArray("products");
-
-                            for( int i = 0; i < plist.length(); i++ ) {
-                                JSONObject product = plist.getJSONObject(i);
-                                boolean supported = true;
-                                
-                                if( architecture != null ) {
-                                    supported = false;
-                                    if( product.has("architectures") ) {
-                                        JSONArray architectures = product.getJSONArray("architectures");
-
-                                        for( int j = 0; j < architectures.length(); j++ ) {
-                                            String a = architectures.getString(j);
-
-                                            if( architecture.name().equals(a) ) {
-                                                supported = true;
-                                                break;
-                                            }
-                                        }
-                                    }
-                                    if( !supported ) {
-                                        continue;
-                                    }
-                                }
-                                if( product.has("excludesRegions") ) {
-                                    JSONArray regions = product.getJSONArray("excludesRegions");
-
-                                    for( int j = 0; j < regions.length(); j++ ) {
-                                        String r = regions.getString(j);
-
-                                        if( r.equals(ctx.getRegionId()) ) {
-                                            supported = false;
-                                            break;
-                                        }
-                                    }
-                                }
-                                if( !supported ) {
-                                    continue;
-                                }
-                                VirtualMachineProduct prd = toProduct(product);
-
-                                if( prd != null ) {
-                                    customList.add(prd);
-                                }
-                            }
-                        }
-                        if( !discardAll ) {
-                            for( VirtualMachineProduct product : list ) {
-                                if( !discard.contains(product.getProviderProductId()) ) {
-                                    customList.add(product);
-                                }
-                            }
-                        }
-                        list = customList;
-                    }
-                }
-                products = list;
-                cache.put(ctx, products);
+        if( options == null ) {
+            return products;
+        }
+        List<VirtualMachineProduct> list = new ArrayList<VirtualMachineProduct>();
 
-            } catch( IOException e ) {
-                throw new InternalException(e);
-            } catch( JSONException e ) {
-                throw new InternalException(e);
+        for( VirtualMachineProduct prd : products ) {
+            if( options.matches(prd) ) {
+                list.add(prd);
             }
         }
-        return products;
+        return list;
     }
 
-
-
     private String guess( String privateDnsAddress ) {
         String dnsAddress = privateDnsAddress;
         String[] parts = dnsAddress.split("\\.");
@@ -1462,9 +1810,9 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
     public @Nonnull VirtualMachine launch( @Nonnull VMLaunchOptions withLaunchOptions ) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "launch");
         try {
-            List<VirtualMachine> servers = runInstances(withLaunchOptions, 1);
-            if( servers.size() == 1 ) {
-                return servers.get(0);
+            List<EC2LaunchHandle> handles = runInstances(withLaunchOptions, 1);
+            if( handles.size() == 1 ) {
+                return handles.get(0).getVirtualMachine();
             }
             throw new InternalException("Couldn't launch a virtual machine");
         } finally {
@@ -1472,24 +1820,131 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
+    /**
+     * Launches the instances with as many <code>RunInstances</code> calls as {@link EC2LaunchPlanner} sees fit. Unless
+     * the options pin the launch to a zone, the calls are spread over the zones of the region (or the subnets of the
+     * VPC) and a zone without capacity hands its share over to the others. The IDs are streamed as the calls return.
+     */
     @Override
-    public @Nonnull Iterable<String> launchMany( @Nonnull VMLaunchOptions withLaunchOptions, @Nonnegative int count ) throws CloudException, InternalException {
-        APITrace.begin(getProvider(), "launchMany");
-        List<String> instanceIds = new ArrayList<String>();
-        try {
-            List<VirtualMachine> servers = runInstances(withLaunchOptions, count);
-            for( VirtualMachine server : servers ) {
-                instanceIds.add(server.getProviderVirtualMachineId());
+    public @Nonnull Iterable<String> launchMany( @Nonnull final VMLaunchOptions withLaunchOptions, @Nonnegative final int count ) throws CloudException, InternalException {
+        final EC2LaunchPlanner planner = EC2LaunchPlanner.getInstance(getProvider());
+        final List<EC2LaunchPlanner.Placement> placements = getLaunchPlacements(withLaunchOptions, count > planner.getChunkSize(), planner.isSubnetSpillover());
+
+        getProvider().hold();
+        return getProvider().getExecutor().populate(new JiteratorPopulator<String>() {
+            @Override
+            public void populate( @Nonnull Jiterator<String> iterator ) throws Exception {
+                try {
+                    APITrace.begin(getProvider(), "launchMany");
+                    try {
+                        planner.launch(placements, count, withLaunchOptions.getClientRequestToken(), new EC2LaunchPlanner.Launcher() {
+                            @Override
+                            public @Nonnull Collection<String> launch( @Nonnull EC2LaunchPlanner.Placement placement, @Nonnegative int chunkCount, @Nullable String clientToken ) throws CloudException, InternalException {
+                                List<String> instanceIds = new ArrayList<String>();
+
+                                for( EC2LaunchHandle handle : runInstances(withLaunchOptions, chunkCount, placement.getDataCenterId(), placement.getSubnetId(), clientToken) ) {
+                                    instanceIds.add(handle.getInstanceId());
+                                }
+                                return instanceIds;
+                            }
+                        }, iterator);
+                    } finally {
+                        APITrace.end();
+                    }
+                } finally {
+                    getProvider().release();
+                }
+            }
+        });
+    }
+
+    /**
+     * Lists where a launch may go, the preferred placement first. Launches pinned to a zone, network interfaces or
+     * volumes stay where they are; launches into a subnet stay in that subnet unless spillover is enabled, in which
+     * case the other subnets of its VPC, one per zone, take over once the subnet runs out of capacity; all other
+     * launches may go to any available zone of the region.
+     *
+     * @param cfg the launch options
+     * @param spread true if the launch is large enough to be split up, in which case every placement is a zone
+     * @param spillover true if a launch into a subnet may fall back to the other subnets of its VPC
+     * @return the placements of the launch
+     */
+    private @Nonnull List<EC2LaunchPlanner.Placement> getLaunchPlacements( @Nonnull VMLaunchOptions cfg, boolean spread, boolean spillover ) throws CloudException, InternalException {
+        List<EC2LaunchPlanner.Placement> placements = new ArrayList<EC2LaunchPlanner.Placement>();
+        EC2LaunchPlanner.Placement preferred = new EC2LaunchPlanner.Placement(cfg.getDataCenterId(), cfg.getSubnetId());
+        boolean nics = ( cfg.getNetworkInterfaces() != null && cfg.getNetworkInterfaces().length > 0 );
+
+        if( cfg.getDataCenterId() != null || nics || cfg.getVolumes().length > 0 ) {
+            placements.add(preferred);
+            return placements;
+        }
+        if( cfg.getSubnetId() != null ) {
+            if( !spillover ) {
+                placements.add(preferred);
+                return placements;
             }
+            NetworkServices services = getProvider().getNetworkServices();
+            VLANSupport support = ( services == null ? null : services.getVlanSupport() );
+            Subnet subnet = ( support == null ? null : support.getSubnet(cfg.getSubnetId()) );
+
+            placements.add(preferred);
+            if( subnet != null && subnet.getProviderVlanId() != null ) {
+                Set<String> zones = new HashSet<String>();
+
+                zones.add(subnet.getProviderDataCenterId());
+                for( Subnet s : support.listSubnets(subnet.getProviderVlanId()) ) {
+                    if( SubnetState.AVAILABLE.equals(s.getCurrentState()) && zones.add(s.getProviderDataCenterId()) ) {
+                        placements.add(new EC2LaunchPlanner.Placement(s.getProviderDataCenterId(), s.getProviderSubnetId(), true));
+                    }
+                }
+            }
+            return placements;
+        }
+        if( !spread ) {
+            // small launches still let EC2 pick the zone, the zones are only the fallback
+            placements.add(preferred);
+        }
+        for( DataCenter dc : getProvider().getDataCenterServices().listDataCenters(getContext().getRegionId()) ) {
+            if( dc.isAvailable() ) {
+                placements.add(new EC2LaunchPlanner.Placement(dc.getProviderDataCenterId(), null, !spread));
+            }
+        }
+        if( placements.isEmpty() ) {
+            placements.add(preferred);
+        }
+        return placements;
+    }
+
+    /**
+     * Launches instances, returning as soon as <code>RunInstances</code> has. Tagging the instances, attaching
+     * existing volumes, enabling IP forwarding and retrieving passwords carry on in the background on the provider's
+     * executor; the handle of each instance reports when that work is finished.
+     *
+     * @param withLaunchOptions the options of the instances to launch
+     * @param count the number of instances to launch
+     * @return a handle for each instance launched
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull List<EC2LaunchHandle> launchManyAsync( @Nonnull VMLaunchOptions withLaunchOptions, @Nonnegative int count ) throws CloudException, InternalException {
+        APITrace.begin(getProvider(), "launchManyAsync");
+        try {
+            return runInstances(withLaunchOptions, count);
         } finally {
             APITrace.end();
         }
-        return instanceIds;
     }
 
-    private @Nonnull List<VirtualMachine> runInstances( @Nonnull VMLaunchOptions cfg, @Nonnegative int instanceCount ) throws CloudException, InternalException {
-        List<VirtualMachine> servers = new ArrayList<VirtualMachine>(); // instance cache
-        List<String> instanceIds = new ArrayList<String>(); // instanceId cache
+    private @Nonnull List<EC2LaunchHandle> runInstances( @Nonnull VMLaunchOptions cfg, @Nonnegative int instanceCount ) throws CloudException, InternalException {
+        return runInstances(cfg, instanceCount, cfg.getDataCenterId(), cfg.getSubnetId(), cfg.getClientRequestToken());
+    }
+
+    /**
+     * Launches instances with a single <code>RunInstances</code> call, the placement and idempotency token given
+     * separately so that several calls for the same options can run at once.
+     */
+    private @Nonnull List<EC2LaunchHandle> runInstances( @Nonnull VMLaunchOptions cfg, @Nonnegative int instanceCount, @Nullable String dataCenterId, @Nullable String subnetId, @Nullable String clientToken ) throws CloudException, InternalException {
+        List<EC2LaunchHandle> handles = new ArrayList<EC2LaunchHandle>();
 
         ProviderContext ctx = getContext();
         if( ctx == null ) {
@@ -1527,8 +1982,8 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         if( cfg.isPreventApiTermination() ) {
             parameters.put("DisableApiTermination", "true");
         }
-        if( cfg.getDataCenterId() != null ) {
-            parameters.put("Placement.AvailabilityZone", cfg.getDataCenterId());
+        if( dataCenterId != null ) {
+            parameters.put("Placement.AvailabilityZone", dataCenterId);
         }
         else if( cfg.getVolumes().length > 0 ) {
             for( VolumeAttachment a : cfg.getVolumes() ) {
@@ -1541,7 +1996,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 }
             }
         }
-        AWSCloud.addValueIfNotNull(parameters, "ClientToken", cfg.getClientRequestToken());
+        AWSCloud.addValueIfNotNull(parameters, "ClientToken", clientToken);
         AWSCloud.addValueIfNotNull(parameters, "KeyName", cfg.getBootstrapKey());
 
         if( getProvider().getEC2Provider().isAWS() ) {
@@ -1602,7 +2057,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 }
             }
         }
-        if( cfg.getSubnetId() == null ) {
+        if( subnetId == null ) {
             AWSCloud.addIndexedParameters(parameters, "SecurityGroupId.", cfg.getFirewallIds());
         }
         else if( cfg.getNetworkInterfaces() != null && cfg.getNetworkInterfaces().length > 0 ) {
@@ -1631,7 +2086,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
         else {
             parameters.put("NetworkInterface.1.DeviceIndex", "0");
-            parameters.put("NetworkInterface.1.SubnetId", cfg.getSubnetId());
+            parameters.put("NetworkInterface.1.SubnetId", subnetId);
             AWSCloud.addValueIfNotNull(parameters,
                     "NetworkInterface.1.AssociatePublicIpAddress",
                     cfg.isAssociatePublicIpAddress());
@@ -1647,7 +2102,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
             String code = e.getCode();
 
             if( code != null && code.equals("InsufficientInstanceCapacity") ) {
-                return servers;
+                return handles;
             }
             logger.error(e.getSummary());
             throw new CloudException(e);
@@ -1661,32 +2116,24 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 Node instance = instances.item(j);
 
                 if( instance.getNodeName().equals("item") ) {
-                    VirtualMachine server = toVirtualMachine(ctx, instance, new ArrayList<IpAddress>() /* can't be an elastic IP */);
+                    VirtualMachine server = toVirtualMachine(ctx, instance, EC2AddressIndex.EMPTY /* can't be an elastic IP */);
                     if( server != null ) {
-                        servers.add(server);
-                        instanceIds.add(server.getProviderVirtualMachineId());
+                        if( cfg.getBootstrapKey() != null ) {
+                            // until the password is retrieved in the background it can be fetched on demand
+                            server.setPasswordCallback(new GetPassCallable(server.getProviderVirtualMachineId(), getProvider()));
+                        }
+                        handles.add(new EC2LaunchHandle(server));
                     }
                 }
             }
         }
-
-        // Wait for EC2 to figure out the server exists
-        List<VirtualMachine> serversCopy = describeInstances(instanceIds.toArray(new String[instanceIds.size()]));
-        long timeout = System.currentTimeMillis() + CalendarWrapper.MINUTE;
-        while( timeout > System.currentTimeMillis() && serversCopy.size() < servers.size()) {
-            try {
-                Thread.sleep(5000L);
-            } catch( InterruptedException ignore ) {
-            }
-            try {
-                serversCopy = describeInstances(instanceIds.toArray(new String[instanceIds.size()]));
-            } catch( Throwable ignore ) {
-            }
+        if( !handles.isEmpty() ) {
+            finishLaunch(handles, getLaunchTags(cfg), cfg.isIpForwardingAllowed(), cfg.getBootstrapKey() != null, existingVolumes);
         }
+        return handles;
+    }
 
-        // FIXME: not clear what is to be done if time is out but `serversCopy` is still less than `servers`
-
-        // Set all instances their tags
+    private @Nonnull Tag[] getLaunchTags( @Nonnull VMLaunchOptions cfg ) {
         List<Tag> tags = new ArrayList<Tag>();
         Map<String, Object> meta = cfg.getMetaData();
         for( Map.Entry<String, Object> entry : meta.entrySet() ) {
@@ -1701,157 +2148,346 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         if( cfg.getVirtualMachineGroup() != null ) {
             tags.add(new Tag("dsnVMGroup", cfg.getVirtualMachineGroup()));
         }
-        getProvider().createTags(EC2Method.SERVICE_ID, instanceIds.toArray(new String[instanceIds.size()]), tags.toArray(new Tag[tags.size()]));
+        return tags.toArray(new Tag[tags.size()]);
+    }
 
-        // Set all instances their passwords and attach volumes
-        for( VirtualMachine server : servers ) {
-            if( cfg.isIpForwardingAllowed() ) {
-                enableIpForwarding(server.getProviderVirtualMachineId());
-            }
-            if( cfg.isIpForwardingAllowed() ) {
-                enableIpForwarding(server.getProviderVirtualMachineId());
-            }
-            if( server != null && cfg.getBootstrapKey() != null ) {
-                try {
-                    final String sid = server.getProviderVirtualMachineId();
-                    try {
-                        Callable<String> callable = new GetPassCallable(sid, getProvider());
-                        String password = callable.call();
+    /**
+     * Finishes the work left on newly launched instances without blocking a thread on any of them. The instances
+     * are waited for with batched polls; once the last of them is visible (or has run out of time to become so) a
+     * short task tags them all in one call and starts a task for each step of each instance. Volumes are attached by
+     * a task started when the wait for each instance to run ends, so launching hundreds of instances neither blocks
+     * the caller nor ties up a thread while the instances boot.
+     */
+    private void finishLaunch( @Nonnull final List<EC2LaunchHandle> handles, @Nonnull final Tag[] tags, final boolean ipForwarding, final boolean password, @Nonnull final List<VolumeAttachment> existingVolumes ) {
+        final AtomicInteger invisible = new AtomicInteger(handles.size());
+        AWSStateWaiter waiter;
+        AWSStateWaiter.StatePoller poller;
 
-                        if( password == null ) {
-                            server.setRootPassword(null);
-                            server.setPasswordCallback(callable);
-                        }
-                        else {
-                            server.setRootPassword(password);
-                        }
-                        server.setPlatform(Platform.WINDOWS);
-                    } catch( CloudException e ) {
-                        logger.warn(e.getMessage());
+        getProvider().hold();
+        try {
+            waiter = getProvider().getStateWaiter();
+            poller = getStatePoller();
+        } catch( RuntimeException e ) {
+            // the handles must not be left waiting for work that never starts
+            logger.error("Unable to finish launching " + handles + ": " + e.getMessage(), e);
+            for( EC2LaunchHandle handle : handles ) {
+                handle.release();
+            }
+            getProvider().release();
+            return;
+        }
+        // new instances are not always visible right away; the waiter looks all of them up with one call, and a wait
+        // which can't be polled (e.g. the provider was closed) still ends and tells its listener
+        for( EC2LaunchHandle handle : handles ) {
+            waiter.waitFor(poller, handle.getInstanceId(), null, LAUNCH_VISIBLE_TIMEOUT, new AWSStateWaiter.WaitListener() {
+                @Override
+                public void waitEnded( @Nonnull String resourceId, @Nullable String state, @Nullable CloudException error ) {
+                    if( error != null ) {
+                        logger.warn("Instance " + resourceId + " is not visible yet: " + error.getMessage());
+                    }
+                    if( invisible.decrementAndGet() == 0 ) {
+                        startLaunchSteps(handles, tags, ipForwarding, password, existingVolumes);
                     }
-                } catch( Throwable t ) {
-                    logger.warn("Unable to retrieve password for " + server.getProviderVirtualMachineId() + ", Let's hope it's Unix: " + t.getMessage());
                 }
-            }
-
-            if( !existingVolumes.isEmpty() ) {
-                final VirtualMachine vm = server;
+            });
+        }
+    }
 
-                getProvider().hold();
-                Thread thread = new Thread() {
-                    public void run() {
+    /**
+     * Hands tagging and the start of the per-instance steps to the pool, since a wait listener must not make calls
+     * of its own.
+     */
+    private void startLaunchSteps( @Nonnull final List<EC2LaunchHandle> handles, @Nonnull final Tag[] tags, final boolean ipForwarding, final boolean password, @Nonnull final List<VolumeAttachment> existingVolumes ) {
+        try {
+            getProvider().getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        APITrace.begin(getProvider(), "finishLaunch");
                         try {
-                            for( VolumeAttachment a : existingVolumes ) {
-                                try {
-                                    if( computeServices != null ) {
-                                        computeServices.getVolumeSupport().attach(a.existingVolumeId, vm.getProviderMachineImageId(), a.deviceId);
-                                    }
-                                } catch( Throwable t ) {
-                                    // ignore all errors
-                                }
-                            }
+                            runLaunchSteps(handles, tags, ipForwarding, password, existingVolumes);
                         } finally {
-                            getProvider().release();
+                            APITrace.end();
                         }
+                    } catch( Throwable t ) {
+                        logger.error("Unable to finish launching " + handles + ": " + t.getMessage(), t);
+                    } finally {
+                        for( EC2LaunchHandle handle : handles ) {
+                            handle.release();
+                        }
+                        getProvider().release();
                     }
-                };
-
-                thread.setName("Volume Mounter for " + server);
-                thread.start();
+                }
+            });
+        } catch( RuntimeException e ) {
+            logger.error("Unable to finish launching " + handles + ": " + e.getMessage(), e);
+            for( EC2LaunchHandle handle : handles ) {
+                handle.release();
             }
+            getProvider().release();
         }
-        return servers;
     }
 
-    private void enableIpForwarding( final String instanceId ) throws CloudException {
+    /**
+     * Tags the visible instances and starts their steps. Nothing here waits on an instance: the volume step of each
+     * instance is begun now and carried on by the listener of its wait.
+     */
+    private void runLaunchSteps( @Nonnull List<EC2LaunchHandle> handles, @Nonnull Tag[] tags, boolean ipForwarding, boolean password, @Nonnull final List<VolumeAttachment> existingVolumes ) {
+        List<String> instanceIds = new ArrayList<String>();
 
-        Thread t = new Thread() {
-            public void run() {
-                APITrace.begin(getProvider(), "enableIpForwarding");
+        for( EC2LaunchHandle handle : handles ) {
+            instanceIds.add(handle.getInstanceId());
+        }
+        // one call per thousand instances rather than one per instance
+        Map<String, AWSTagWriter.Result> tagged = getProvider().getTagWriter().createTags(EC2Method.SERVICE_ID, instanceIds, tags);
+        for( EC2LaunchHandle handle : handles ) {
+            AWSTagWriter.Result result = tagged.get(handle.getInstanceId());
 
-                long timeout = System.currentTimeMillis() + CalendarWrapper.MINUTE;
+            if( result != null && !result.isSuccess() ) {
+                logger.warn("Unable to tag " + result.getResourceId() + " after launch: " + result.getError().getMessage());
+                handle.begin();
+                handle.end(EC2LaunchHandle.STEP_TAGS, result.getError());
+            }
+        }
 
-                while( timeout > System.currentTimeMillis() ) {
-                    try {
-                        Map<String, String> params = getProvider().getStandardParameters(getContext(), EC2Method.MODIFY_INSTANCE_ATTRIBUTE);
-                        EC2Method m;
-
-                        params.put("InstanceId", instanceId);
-                        params.put("SourceDestCheck.Value", "false");
-                        m = new EC2Method(getProvider(), params);
-
-                        m.invoke();
-                        return;
-                    } catch( EC2Exception ex ) {
-                        if( ex.getStatus() != 404 ) {
-                            logger.error("Unable to modify instance attributes on " + instanceId + ".", ex);
-                            return;
-                        }
-                    } catch( Throwable ex ) {
-                        logger.error("Unable to modify instance attributes on " + instanceId + ".", ex);
-                        return;
-                    } finally {
-                        APITrace.end();
+        for( final EC2LaunchHandle handle : handles ) {
+            if( ipForwarding ) {
+                handle.begin();
+                startLaunchStep(handle, EC2LaunchHandle.STEP_NETWORKING, new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        enableIpForwarding(handle.getInstanceId());
+                        return null;
+                    }
+                });
+            }
+            if( password ) {
+                handle.begin();
+                startLaunchStep(handle, EC2LaunchHandle.STEP_PASSWORD, new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        // only Windows instances have password data, whether or not the password is ready yet
+                        handle.setPasswordData(new GetPassCallable(handle.getInstanceId(), getProvider()).call());
+                        return null;
                     }
+                });
+            }
+        }
 
-                    try {
-                        Thread.sleep(5000L);
-                    } catch( InterruptedException ignore ) {
+        if( existingVolumes.isEmpty() ) {
+            return;
+        }
+        AWSStateWaiter waiter = getProvider().getStateWaiter();
+        AWSStateWaiter.StatePoller poller = getStatePoller();
+        // volumes can only be attached once the instance is running
+        Set<String> targets = new HashSet<String>(Arrays.asList(VmState.RUNNING.toString(), VmState.STOPPED.toString(), VmState.TERMINATED.toString()));
+
+        for( final EC2LaunchHandle handle : handles ) {
+            handle.begin();
+            waiter.waitFor(poller, handle.getInstanceId(), targets, LAUNCH_READY_TIMEOUT, new AWSStateWaiter.WaitListener() {
+                @Override
+                public void waitEnded( @Nonnull String resourceId, @Nullable String state, @Nullable CloudException error ) {
+                    if( error != null ) {
+                        handle.end(EC2LaunchHandle.STEP_VOLUMES, error);
+                    }
+                    else if( VmState.TERMINATED.toString().equals(state) ) {
+                        handle.end(EC2LaunchHandle.STEP_VOLUMES, new CloudException("Instance " + resourceId + " terminated before its volumes were attached"));
+                    }
+                    else {
+                        startLaunchStep(handle, EC2LaunchHandle.STEP_VOLUMES, new Callable<Void>() {
+                            @Override
+                            public Void call() throws Exception {
+                                attachExistingVolumes(handle.getInstanceId(), existingVolumes);
+                                return null;
+                            }
+                        });
                     }
                 }
+            });
+        }
+    }
+
+    private void attachExistingVolumes( @Nonnull String instanceId, @Nonnull List<VolumeAttachment> existingVolumes ) throws Exception {
+        VolumeSupport support = getProvider().getComputeServices().getVolumeSupport();
+        Exception error = null;
 
+        for( VolumeAttachment a : existingVolumes ) {
+            try {
+                support.attach(a.existingVolumeId, instanceId, a.deviceId);
+            } catch( Exception e ) {
+                logger.warn("Unable to attach " + a.existingVolumeId + " to " + instanceId + ": " + e.getMessage());
+                if( error == null ) {
+                    error = e;
+                }
             }
-        };
+        }
+        if( error != null ) {
+            throw error;
+        }
+    }
 
-        t.setName(EC2Method.MODIFY_INSTANCE_ATTRIBUTE + " thread");
-        t.setDaemon(true);
-        t.start();
+    /**
+     * Runs a step of post-launch work on the provider's executor, ending it on the handle when done, or right away if
+     * it cannot be started. The step must have been begun on the handle.
+     */
+    private void startLaunchStep( @Nonnull final EC2LaunchHandle handle, @Nonnull final String step, @Nonnull final Callable<Void> work ) {
+        getProvider().hold();
+        try {
+            getProvider().getExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    CloudException error = null;
 
+                    try {
+                        work.call();
+                    } catch( CloudException e ) {
+                        error = e;
+                    } catch( Throwable t ) {
+                        error = new CloudException(t);
+                    } finally {
+                        if( error != null ) {
+                            logger.warn("Unable to finish " + step + " of " + handle.getInstanceId() + ": " + error.getMessage());
+                        }
+                        handle.end(step, error);
+                        getProvider().release();
+                    }
+                }
+            });
+        } catch( RuntimeException e ) {
+            handle.end(step, new CloudException(e));
+            getProvider().release();
+        }
     }
 
-    @Override
-    public @Nonnull Iterable<ResourceStatus> listVirtualMachineStatus() throws InternalException, CloudException {
-        APITrace.begin(getProvider(), "listVirtualMachineStatus");
+    private void enableIpForwarding( @Nonnull String instanceId ) throws CloudException, InternalException {
+        APITrace.begin(getProvider(), "enableIpForwarding");
         try {
-            ProviderContext ctx = getContext();
-
-            if( ctx == null ) {
-                throw new CloudException("No context was established for this request");
-            }
-            Map<String, String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCES);
-            EC2Method method = new EC2Method(getProvider(), parameters);
-            ArrayList<ResourceStatus> list = new ArrayList<ResourceStatus>();
-            NodeList blocks;
-            Document doc;
+            Map<String, String> params = getProvider().getStandardParameters(getContext(), EC2Method.MODIFY_INSTANCE_ATTRIBUTE);
 
+            params.put("InstanceId", instanceId);
+            params.put("SourceDestCheck.Value", "false");
             try {
-                doc = method.invoke();
+                new EC2Method(getProvider(), params).invoke();
             } catch( EC2Exception e ) {
                 logger.error(e.getSummary());
                 throw new CloudException(e);
             }
-            blocks = doc.getElementsByTagName("instancesSet");
-            for( int i = 0; i < blocks.getLength(); i++ ) {
-                NodeList instances = blocks.item(i).getChildNodes();
+        } finally {
+            APITrace.end();
+        }
+    }
 
-                for( int j = 0; j < instances.getLength(); j++ ) {
-                    Node instance = instances.item(j);
+    /**
+     * Provides a poller for the shared state waiter which looks up the state of many instances with one
+     * <code>DescribeInstances</code> call.
+     *
+     * @return a poller mapping instance IDs to the names of their {@link VmState}
+     */
+    public @Nonnull AWSStateWaiter.StatePoller getStatePoller() {
+        return new AWSStateWaiter.StatePoller() {
+            @Override
+            public @Nonnull String getResourceType() {
+                return "instance";
+            }
 
-                    if( instance.getNodeName().equals("item") ) {
-                        ResourceStatus status = toStatus(instance);
+            @Override
+            public int getMaximumBatchSize() {
+                return MAXIMUM_LOOKUP_BATCH;
+            }
 
-                        if( status != null ) {
-                            list.add(status);
-                        }
-                    }
+            @Override
+            public @Nonnull Map<String, String> poll( @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+                Map<String, String> filterParameters = new HashMap<String, String>();
+                Map<String, String> states = new HashMap<String, String>();
+                List<ResourceStatus> list = new ArrayList<ResourceStatus>();
+                String nextToken = null;
+
+                AWSCloud.addFilterParameters(filterParameters, 1, "instance-id", resourceIds);
+                do {
+                    Map<String, String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCES);
+
+                    AWSCloud.addExtraParameters(parameters, filterParameters);
+                    addPageParameters(parameters, getPageSize(getContext()), nextToken);
+                    nextToken = describeStatus(parameters, list);
+                } while( nextToken != null );
+                for( ResourceStatus status : list ) {
+                    states.put(status.getProviderResourceId(), status.getResourceStatus().toString());
                 }
+                return states;
             }
-            return list;
-        } finally {
-            APITrace.end();
+        };
+    }
+
+    static void addPageParameters( @Nonnull Map<String, String> parameters, int pageSize, @Nullable String nextToken ) {
+        parameters.put("MaxResults", String.valueOf(pageSize));
+        if( nextToken != null ) {
+            parameters.put("NextToken", nextToken);
         }
     }
 
+    /**
+     * Describes a page of instances, keeping only their state.
+     *
+     * @param parameters the request parameters, including any paging parameters
+     * @param list the list to add the status of each instance to
+     * @return the token for the next page, or null if this was the last page
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     * @throws CloudException an error occurred with the cloud provider
+     */
+    private @Nullable String describeStatus( @Nonnull Map<String, String> parameters, @Nonnull List<ResourceStatus> list ) throws InternalException, CloudException {
+        List<DescribeStatusResponseParser.RawStatus> page = new ArrayList<DescribeStatusResponseParser.RawStatus>();
+        DescribeStatusResponseParser parser = DescribeStatusResponseParser.forInstances(page);
+
+        try {
+            new EC2Method(getProvider(), parameters).invoke(parser);
+        } catch( EC2Exception e ) {
+            logger.error(e.getSummary());
+            throw new CloudException(e);
+        }
+        for( DescribeStatusResponseParser.RawStatus status : page ) {
+            list.add(new ResourceStatus(status.getResourceId(), status.getState() == null ? VmState.PENDING : getServerState(status.getState())));
+        }
+        return parser.getNextToken();
+    }
+
+    @Override
+    public @Nonnull Iterable<ResourceStatus> listVirtualMachineStatus() throws InternalException, CloudException {
+        ProviderContext ctx = getContext();
+
+        if( ctx == null ) {
+            throw new CloudException("No context was established for this request");
+        }
+        final int pageSize = getPageSize(getContext());
+
+        getProvider().hold();
+        return getProvider().getExecutor().populate(new JiteratorPopulator<ResourceStatus>() {
+            @Override
+            public void populate( @Nonnull Jiterator<ResourceStatus> iterator ) throws Exception {
+                try {
+                    APITrace.begin(getProvider(), "listVirtualMachineStatus");
+                    try {
+                        String nextToken = null;
+
+                        do {
+                            Map<String, String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCES);
+                            List<ResourceStatus> page = new ArrayList<ResourceStatus>();
+
+                            addPageParameters(parameters, pageSize, nextToken);
+                            nextToken = describeStatus(parameters, page);
+                            for( ResourceStatus status : page ) {
+                                iterator.push(status);
+                            }
+                        } while( nextToken != null );
+                    } finally {
+                        APITrace.end();
+                    }
+                } finally {
+                    getProvider().release();
+                }
+            }
+        });
+    }
+
     @Override
     public @Nonnull Iterable<VirtualMachine> listVirtualMachines() throws InternalException, CloudException {
         return listVirtualMachinesWithParams(null, null);
@@ -1899,85 +2535,134 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         return extraParameters;
     }
 
-    private @Nonnull Iterable<VirtualMachine> listVirtualMachinesWithParams( Map<String, String> extraParameters, @Nullable VMFilterOptions options ) throws InternalException, CloudException {
-        APITrace.begin(getProvider(), "listVirtualMachines");
-        try {
-            ProviderContext ctx = getContext();
+    private @Nonnull Iterable<VirtualMachine> listVirtualMachinesWithParams( final Map<String, String> extraParameters, final @Nullable VMFilterOptions options ) throws InternalException, CloudException {
+        final ProviderContext ctx = getContext();
 
-            if( ctx == null ) {
-                throw new CloudException("No context was established for this request");
-            }
+        if( ctx == null ) {
+            throw new CloudException("No context was established for this request");
+        }
+        final Future<Iterable<IpAddress>> ipPoolFuture = listIpPoolConcurrently();
+        final int pageSize = getPageSize(getContext());
 
-            Future<Iterable<IpAddress>> ipPoolFuture = null;
-            Iterable<IpAddress> addresses;
-            if( getProvider().hasNetworkServices() ) {
-                NetworkServices services = getProvider().getNetworkServices();
+        getProvider().hold();
+        return getProvider().getExecutor().populate(new JiteratorPopulator<VirtualMachine>() {
+            @Override
+            public void populate( @Nonnull Jiterator<VirtualMachine> iterator ) throws Exception {
+                try {
+                    APITrace.begin(getProvider(), "listVirtualMachines");
+                    try {
+                        EC2AddressIndex addresses = null;
+                        String nextToken = null;
+
+                        // each page is handed to the caller as soon as it is parsed, while the next one is fetched
+                        do {
+                            Map<String, String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCES);
+
+                            AWSCloud.addExtraParameters(parameters, extraParameters);
+                            addPageParameters(parameters, pageSize, nextToken);
+                            EC2Method method = new EC2Method(getProvider(), parameters);
+                            NodeList blocks;
+                            Document doc;
+
+                            try {
+                                doc = method.invoke();
+                            } catch( EC2Exception e ) {
+                                logger.error(e.getSummary());
+                                throw new CloudException(e);
+                            }
+                            blocks = doc.getElementsByTagName("instancesSet");
+                            for( int i = 0; i < blocks.getLength(); i++ ) {
+                                NodeList instances = blocks.item(i).getChildNodes();
 
-                if( services != null ) {
-                    if( services.hasIpAddressSupport() ) {
-                        IpAddressSupport support = services.getIpAddressSupport();
+                                for( int j = 0; j < instances.getLength(); j++ ) {
+                                    Node instance = instances.item(j);
 
-                        if( support != null ) {
-                            ipPoolFuture = support.listIpPoolConcurrently(IPVersion.IPV4, false);
-                        }
+                                    if( instance.getNodeName().equals("item") ) {
+                                        if( addresses == null ) {
+                                            addresses = new EC2AddressIndex(awaitIpPool(ipPoolFuture));
+                                        }
+                                        VirtualMachine vm = toVirtualMachine(ctx, instance, addresses);
+
+                                        if( vm != null && (options == null || options.matches(vm)) ) {
+                                            iterator.push(vm);
+                                        }
+                                    }
+                                }
+                            }
+                            nextToken = getNextToken(doc);
+                        } while( nextToken != null );
+                    } finally {
+                        APITrace.end();
                     }
+                } finally {
+                    getProvider().release();
                 }
             }
+        });
+    }
 
-            Map<String, String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_INSTANCES);
+    /**
+     * @param ctx the context of the request
+     * @return the number of results to request per page of a paginated describe call, from the custom property
+     * <code>instancePageSize</code> within the range EC2 accepts
+     */
+    static int getPageSize( @Nullable ProviderContext ctx ) {
+        if( ctx != null && ctx.getCustomProperties() != null ) {
+            String value = ctx.getCustomProperties().getProperty(P_PAGE_SIZE);
 
-            AWSCloud.addExtraParameters(parameters, extraParameters);
+            if( value != null ) {
+                try {
+                    return Math.max(MINIMUM_PAGE_SIZE, Math.min(MAXIMUM_PAGE_SIZE, Integer.parseInt(value.trim())));
+                } catch( NumberFormatException e ) {
+                    logger.warn("Invalid value for " + P_PAGE_SIZE + ": " + value);
+                }
+            }
+        }
+        return MAXIMUM_PAGE_SIZE;
+    }
 
-            EC2Method method = new EC2Method(getProvider(), parameters);
-            ArrayList<VirtualMachine> list = new ArrayList<VirtualMachine>();
-            NodeList blocks;
-            Document doc;
+    /**
+     * @param doc a page of a paginated describe response
+     * @return the token for the next page, or null if this was the last page
+     */
+    static @Nullable String getNextToken( @Nonnull Document doc ) {
+        NodeList tokens = doc.getElementsByTagName("nextToken");
 
-            try {
-                doc = method.invoke();
-            } catch( EC2Exception e ) {
-                logger.error(e.getSummary());
-                throw new CloudException(e);
-            }
-            blocks = doc.getElementsByTagName("instancesSet");
-            for( int i = 0; i < blocks.getLength(); i++ ) {
-                NodeList instances = blocks.item(i).getChildNodes();
+        for( int i = 0; i < tokens.getLength(); i++ ) {
+            Node token = tokens.item(i);
 
-                for( int j = 0; j < instances.getLength(); j++ ) {
-                    Node instance = instances.item(j);
+            if( token.getParentNode() == doc.getDocumentElement() && token.hasChildNodes() ) {
+                String value = token.getFirstChild().getNodeValue().trim();
 
-                    if( instance.getNodeName().equals("item") ) {
+                if( value.length() > 0 ) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
 
-                        try {
-                            if( ipPoolFuture != null ) {
-                                addresses = ipPoolFuture.get(30, TimeUnit.SECONDS);
-                            }
-                            else {
-                                addresses = Collections.emptyList();
-                            }
-                        } catch( InterruptedException e ) {
-                            logger.error(e.getMessage());
-                            addresses = Collections.emptyList();
-                        } catch( ExecutionException e ) {
-                            logger.error(e.getMessage());
-                            addresses = Collections.emptyList();
-                        } catch( TimeoutException e ) {
-                            logger.error(e.getMessage());
-                            addresses = Collections.emptyList();
-                        }
+    private @Nullable Future<Iterable<IpAddress>> listIpPoolConcurrently() throws InternalException, CloudException {
+        if( getProvider().hasNetworkServices() ) {
+            NetworkServices services = getProvider().getNetworkServices();
 
-                        VirtualMachine vm = toVirtualMachine(ctx, instance, addresses);
+            if( services != null && services.hasIpAddressSupport() ) {
+                IpAddressSupport support = services.getIpAddressSupport();
 
-                        if( options == null || options.matches(vm) ) {
-                            list.add(vm);
-                        }
-                    }
+                if( support != null ) {
+                    return support.listIpPoolConcurrently(IPVersion.IPV4, false);
                 }
             }
-            return list;
-        } finally {
-            APITrace.end();
         }
+        return null;
+    }
+
+    private @Nonnull Iterable<IpAddress> awaitIpPool( @Nullable Future<Iterable<IpAddress>> ipPoolFuture ) throws CloudException, InternalException {
+        if( ipPoolFuture == null ) {
+            return Collections.emptyList();
+        }
+        // lists the pool right here if no worker has picked it up yet, rather than giving up on it after a while
+        return getProvider().getExecutor().awaitResult(ipPoolFuture);
     }
 
     @Override
@@ -2104,46 +2789,116 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
-    @Override
-    public void unpause( @Nonnull String vmId ) throws CloudException, InternalException {
-        throw new OperationNotSupportedException("Pause/unpause not supported by the EC2 API");
+    /**
+     * Terminates many instances with as few <code>TerminateInstances</code> calls as possible.
+     *
+     * @param instanceIds the instances to terminate
+     * @param explanation the reason for terminating them (ignored by EC2)
+     * @return the outcome for each instance
+     */
+    public @Nonnull AWSBulkOperation.Report terminate( @Nonnull Collection<String> instanceIds, @Nullable String explanation ) {
+        APITrace.begin(getProvider(), "terminateVMs");
+        try {
+            return invokeInstanceAction("terminateVMs", EC2Method.TERMINATE_INSTANCES, instanceIds, null);
+        } finally {
+            APITrace.end();
+        }
     }
 
-    private @Nullable ResourceStatus toStatus( @Nullable Node instance ) {
-        if( instance == null ) {
-            return null;
+    /**
+     * Starts many instances with as few <code>StartInstances</code> calls as possible. Unlike {@link #start(String)}
+     * the instances are not checked up front; instances backed by ephemeral drives are reported as failed.
+     *
+     * @param instanceIds the instances to start
+     * @return the outcome for each instance
+     */
+    public @Nonnull AWSBulkOperation.Report start( @Nonnull Collection<String> instanceIds ) {
+        APITrace.begin(getProvider(), "startVMs");
+        try {
+            return invokeInstanceAction("startVMs", EC2Method.START_INSTANCES, instanceIds, null);
+        } finally {
+            APITrace.end();
         }
-        NodeList attrs = instance.getChildNodes();
-        VmState state = VmState.PENDING;
-        String vmId = null;
+    }
 
-        for( int i = 0; i < attrs.getLength(); i++ ) {
-            Node attr = attrs.item(i);
-            String name;
+    /**
+     * Stops many instances with as few <code>StopInstances</code> calls as possible. Unlike {@link #stop(String, boolean)}
+     * the instances are not checked up front; instances backed by ephemeral drives are reported as failed.
+     *
+     * @param instanceIds the instances to stop
+     * @param force true to force the instances to stop
+     * @return the outcome for each instance
+     */
+    public @Nonnull AWSBulkOperation.Report stop( @Nonnull Collection<String> instanceIds, boolean force ) {
+        APITrace.begin(getProvider(), "stopVMs");
+        try {
+            return invokeInstanceAction("stopVMs", EC2Method.STOP_INSTANCES, instanceIds, force ? Collections.singletonMap("Force", "true") : null);
+        } finally {
+            APITrace.end();
+        }
+    }
 
-            name = attr.getNodeName();
-            if( name.equals("instanceId") ) {
-                vmId = attr.getFirstChild().getNodeValue().trim();
-            }
-            else if( name.equals("instanceState") ) {
-                NodeList details = attr.getChildNodes();
+    /**
+     * Reboots many instances with as few <code>RebootInstances</code> calls as possible.
+     *
+     * @param instanceIds the instances to reboot
+     * @return the outcome for each instance
+     */
+    public @Nonnull AWSBulkOperation.Report reboot( @Nonnull Collection<String> instanceIds ) {
+        APITrace.begin(getProvider(), "rebootVMs");
+        try {
+            return invokeInstanceAction("rebootVMs", EC2Method.REBOOT_INSTANCES, instanceIds, null);
+        } finally {
+            APITrace.end();
+        }
+    }
 
-                for( int j = 0; j < details.getLength(); j++ ) {
-                    Node detail = details.item(j);
+    /**
+     * Enables detailed monitoring for many instances with as few <code>MonitorInstances</code> calls as possible.
+     *
+     * @param instanceIds the instances to monitor
+     * @return the outcome for each instance
+     */
+    public @Nonnull AWSBulkOperation.Report enableAnalytics( @Nonnull Collection<String> instanceIds ) {
+        APITrace.begin(getProvider(), "enableVMAnalytics");
+        try {
+            return invokeInstanceAction("enableVMAnalytics", EC2Method.MONITOR_INSTANCES, instanceIds, null);
+        } finally {
+            APITrace.end();
+        }
+    }
 
-                    name = detail.getNodeName();
-                    if( name.equals("name") ) {
-                        String value = detail.getFirstChild().getNodeValue().trim();
+    /**
+     * Disables detailed monitoring for many instances with as few <code>UnmonitorInstances</code> calls as possible.
+     *
+     * @param instanceIds the instances to stop monitoring
+     * @return the outcome for each instance
+     */
+    public @Nonnull AWSBulkOperation.Report disableAnalytics( @Nonnull Collection<String> instanceIds ) {
+        APITrace.begin(getProvider(), "disableVMAnalytics");
+        try {
+            return invokeInstanceAction("disableVMAnalytics", EC2Method.UNMONITOR_INSTANCES, instanceIds, null);
+        } finally {
+            APITrace.end();
+        }
+    }
 
-                        state = getServerState(value);
-                    }
-                }
+    private @Nonnull AWSBulkOperation.Report invokeInstanceAction( @Nonnull String operation, @Nonnull final String action, @Nonnull Collection<String> instanceIds, @Nullable final Map<String, String> extraParameters ) {
+        return getProvider().getBulkOperation().invokeBatched(operation, instanceIds, AWSBulkOperation.MAX_BATCH_SIZE, new AWSBulkOperation.BatchAction() {
+            @Override
+            public void invoke( @Nonnull List<String> ids ) throws CloudException, InternalException {
+                Map<String, String> parameters = getProvider().getStandardParameters(getContext(), action);
+
+                AWSCloud.addIndexedParameters(parameters, "InstanceId.", ids.toArray(new String[ids.size()]));
+                AWSCloud.addExtraParameters(parameters, extraParameters);
+                new EC2Method(getProvider(), parameters).invoke();
             }
-        }
-        if( vmId == null ) {
-            return null;
-        }
-        return new ResourceStatus(vmId, state);
+        });
+    }
+
+    @Override
+    public void unpause( @Nonnull String vmId ) throws CloudException, InternalException {
+        throw new OperationNotSupportedException("Pause/unpause not supported by the EC2 API");
     }
 
     private @Nullable VmStatus toVmStatus( @Nonnull String status ) {
@@ -2163,7 +2918,7 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
-    private @Nullable VirtualMachine toVirtualMachine( @Nonnull ProviderContext ctx, @Nullable Node instance, @Nonnull Iterable<IpAddress> addresses ) throws CloudException {
+    private @Nullable VirtualMachine toVirtualMachine( @Nonnull ProviderContext ctx, @Nullable Node instance, @Nonnull EC2AddressIndex addresses ) throws CloudException {
         if( instance == null ) {
             return null;
         }
@@ -2265,12 +3020,11 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 if( attr.hasChildNodes() ) {
                     String value = attr.getFirstChild().getNodeValue();
 
+                    IpAddress addr = addresses.getByAddress(value);
+
                     server.setPublicAddresses(new RawAddress(value));
-                    for( IpAddress addr : addresses ) {
-                        if( value.equals(addr.getRawAddress().getIpAddress()) ) {
-                            server.setProviderAssignedIpAddressId(addr.getProviderIpAddressId());
-                            break;
-                        }
+                    if( addr != null ) {
+                        server.setProviderAssignedIpAddressId(addr.getProviderIpAddressId());
                     }
                 }
             }
@@ -2300,12 +3054,10 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 server.setProductId(value);
             }
             else if( name.equals("launchTime") ) {
-                SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-                fmt.setCalendar(UTC_CALENDAR);
                 String value = attr.getFirstChild().getNodeValue().trim();
 
                 try {
-                    server.setLastBootTimestamp(fmt.parse(value).getTime());
+                    server.setLastBootTimestamp(AWSTimestamps.parseIso8601(value));
                     server.setCreationTimestamp(server.getLastBootTimestamp());
                 } catch( ParseException e ) {
                     logger.error(e);
@@ -2547,6 +3299,14 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
                 server.setClientRequestToken(AWSCloud.getTextValue(attr));
             }
         }
+        if( server.getProviderAssignedIpAddressId() == null ) {
+            // an elastic IP on a secondary interface is not the instance's public address
+            IpAddress addr = addresses.getByInstance(server.getProviderVirtualMachineId());
+
+            if( addr != null ) {
+                server.setProviderAssignedIpAddressId(addr.getProviderIpAddressId());
+            }
+        }
         if( server.getPlatform() == null ) {
             server.setPlatform(Platform.UNKNOWN);
         }
@@ -2599,117 +3359,14 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
-    protected @Nullable VirtualMachineProduct toProduct( @Nonnull JSONObject json ) throws InternalException {
-        /*
-                    {
-                "architectures":["I32"],
-                "id":"m1.small",
-                "name":"Small Instance (m1.small)",
-                "description":"Small Instance (m1.small)",
-                "cpuCount":1,
-                "rootVolumeSizeInGb":160,
-                "ramSizeInMb": 1700,
-                "generation":"current",
-                "vt":["hvm"],
-                "rdt":["ebs","instance"]
-
-            },
-         */
-        VirtualMachineProduct prd = new VirtualMachineProduct();
-
-        try {
-            if( json.has("id") ) {
-                prd.setProviderProductId(json.getString("id"));
-            }
-            else {
-                return null;
-            }
-            if( json.has("name") ) {
-                prd.setName(json.getString("name"));
-            }
-            else {
-                prd.setName(prd.getProviderProductId());
-            }
-            if( json.has("description") ) {
-                prd.setDescription(json.getString("description"));
-            }
-            else {
-                prd.setDescription(prd.getName());
-            }
-            if( json.has("cpuCount") ) {
-                prd.setCpuCount(json.getInt("cpuCount"));
-            }
-            else {
-                prd.setCpuCount(1);
-            }
-            if( json.has("rootVolumeSizeInGb") ) {
-                prd.setRootVolumeSize(new Storage<Gigabyte>(json.getInt("rootVolumeSizeInGb"), Storage.GIGABYTE));
-            }
-            else {
-                prd.setRootVolumeSize(new Storage<Gigabyte>(1, Storage.GIGABYTE));
-            }
-            if( json.has("ramSizeInMb") ) {
-                prd.setRamSize(new Storage<Megabyte>(json.getInt("ramSizeInMb"), Storage.MEGABYTE));
-            }
-            else {
-                prd.setRamSize(new Storage<Megabyte>(512, Storage.MEGABYTE));
-            }
-            if( json.has("generation") && json.getString("generation").equalsIgnoreCase("previous")) {      	
-                   prd.setStatusDeprecated();
-            }
-            if( json.has("standardHourlyRates") ) {
-                JSONArray rates = json.getJSONArray("standardHourlyRates");
-
-                for( int i = 0; i < rates.length(); i++ ) {
-                    JSONObject rate = rates.getJSONObject(i);
-
-                    if( rate.has("rate") ) {
-                        prd.setStandardHourlyRate(( float ) rate.getDouble("rate"));
-                    }
-                }
-            }
-            if( json.has("architectures") ) {
-                List<Architecture> architectures = new ArrayList<Architecture>();
-                JSONArray values = json.getJSONArray("architectures");
-                for( int i=0; i<values.length(); i++ ) {
-                    String arch = values.getString(i);
-                    architectures.add(Architecture.valueOf(arch));
-                }
-                prd.setArchitectures(architectures.toArray(new Architecture[architectures.size()]));
-            }
-            if( json.has("vt") ) {
-                JSONArray vts = json.getJSONArray("vt");
-                StringBuilder sb = new StringBuilder();
-                for( int i=0; i<vts.length(); i++ ) {
-                    String vt = vts.getString(i);
-                    if( sb.length() > 0 ) {
-                        sb.append(",");
-                    }
-                    sb.append(vt);
-                }
-                prd.getProviderMetadata().put("vt", sb.toString());
-            }
-            if( json.has("rdt") ) {
-                JSONArray types = json.getJSONArray("rdt");
-                StringBuilder sb = new StringBuilder();
-                for( int i=0; i<types.length(); i++ ) {
-                    String type = types.getString(i);
-                    if( sb.length() > 0 ) {
-                        sb.append(",");
-                    }
-                    sb.append(type);
-                }
-                prd.getProviderMetadata().put("rdt", sb.toString());
-            }
-        } catch( JSONException e ) {
-            throw new InternalException(e);
-        }
-        return prd;
-    }
-
     @Override
     public void updateTags( @Nonnull String vmId, @Nonnull Tag... tags ) throws CloudException, InternalException {
-        getProvider().createTags(EC2Method.SERVICE_ID, vmId, tags);
+        // merged with concurrent updates carrying the same tags
+        AWSTagWriter.Result result = getProvider().getTagWriter().awaitCreateTags(EC2Method.SERVICE_ID, vmId, tags);
+
+        if( !result.isSuccess() ) {
+            throw result.getError();
+        }
     }
 
     @Override
@@ -2881,31 +3538,122 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
 
     @Override
     public Iterable<SpotPriceHistory> listSpotPriceHistories( @Nullable SpotPriceHistoryFilterOptions options ) throws CloudException, InternalException {
-        if( getProvider().getEC2Provider().isAWS() ) {
+        return listSpotPriceHistories(options, null, null);
+    }
 
-            try {
-                APITrace.begin(getProvider(), "listSpotPriceHistories");
-                Map<Pair<String, String>, List<SpotPrice>> prices = new HashMap<Pair<String, String>, List<SpotPrice>>();
-                String token = null;
-                do {
-                    token = fetchSpotPriceHistories(prices, options, token);
-                } while( token != null );
-
-                List<SpotPriceHistory> list = new ArrayList<SpotPriceHistory>();
-                for( Pair<String, String> pair : prices.keySet() ) {
-                    SpotPriceHistory sph = SpotPriceHistory.getInstance(pair.getRight(), pair.getLeft(), prices.get(pair).toArray(new SpotPrice[prices.get(pair).size()]));
-                    if( options != null && options.matches(sph) ) {
-                        list.add(sph);
+    /**
+     * Lists the spot price history of each instance type and availability zone, having EC2 narrow the prices down
+     * to a product and an availability zone. When the spot price store is enabled and the options carry a time
+     * window, only the prices set since the window was last read are fetched.
+     *
+     * @param options the instance types and time window to list the history of, null for everything
+     * @param productDescription the product to list the history of, e.g. <code>Linux/UNIX</code>, null for all
+     * @param availabilityZone the availability zone to list the history of, null for all
+     * @return the spot price history of each instance type and availability zone
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull Iterable<SpotPriceHistory> listSpotPriceHistories( @Nullable SpotPriceHistoryFilterOptions options, @Nullable final String productDescription, @Nullable final String availabilityZone ) throws CloudException, InternalException {
+        if( !getProvider().getEC2Provider().isAWS() ) {
+            throw new OperationNotSupportedException("Spot VMs are not supported in " + getProvider().getCloudName());
+        }
+        APITrace.begin(getProvider(), "listSpotPriceHistories");
+        try {
+            final List<String> instanceTypes = getSpotInstanceTypes(options);
+            long startTimestamp = 0L, endTimestamp = 0L;
+
+            if( options != null && options.hasCriteria() && options.getStartTimestamp() > 0 ) {
+                startTimestamp = options.getStartTimestamp();
+                endTimestamp = options.getEndTimestamp();
+            }
+            Map<Pair<String, String>, List<SpotPrice>> prices = new HashMap<Pair<String, String>, List<SpotPrice>>();
+            EC2SpotPriceStore store = getProvider().getSpotPriceStore();
+
+            if( store.isEnabled() && startTimestamp > 0 ) {
+                String key = EC2SpotPriceStore.getKey(instanceTypes, productDescription, availabilityZone);
+                // the store works on windows exclusive of their end, the options include it
+                EC2SpotPriceStore.Prices stored = store.get(key, startTimestamp, endTimestamp + 1, new EC2SpotPriceStore.Fetcher<EC2SpotPriceStore.Prices>() {
+                    @Override
+                    public void fetch( long start, long end, @Nonnull EC2SpotPriceStore.Prices into ) throws CloudException, InternalException {
+                        List<EC2SpotPrice> page = new ArrayList<EC2SpotPrice>();
+                        String nextToken = null;
+
+                        do {
+                            page.clear();
+                            nextToken = fetchSpotPrices(instanceTypes, productDescription, availabilityZone, start, end - 1, nextToken, page);
+                            for( EC2SpotPrice price : page ) {
+                                into.add(price);
+                            }
+                        } while( nextToken != null );
                     }
+                });
+
+                for( int i = 0; i < stored.size(); i++ ) {
+                    addSpotPrice(prices, stored.get(i));
+                }
+            }
+            else {
+                for( EC2SpotPrice price : listSpotPrices(instanceTypes, productDescription, availabilityZone, startTimestamp, endTimestamp) ) {
+                    addSpotPrice(prices, price);
+                }
+            }
+            List<SpotPriceHistory> list = new ArrayList<SpotPriceHistory>();
+
+            for( Map.Entry<Pair<String, String>, List<SpotPrice>> entry : prices.entrySet() ) {
+                Pair<String, String> pair = entry.getKey();
+                SpotPriceHistory sph = SpotPriceHistory.getInstance(pair.getRight(), pair.getLeft(), entry.getValue().toArray(new SpotPrice[entry.getValue().size()]));
+
+                if( options == null || options.matches(sph) ) {
+                    list.add(sph);
                 }
-                return list;
-            } finally {
-                APITrace.end();
             }
+            return list;
+        } finally {
+            APITrace.end();
         }
-        else {
+    }
+
+    /**
+     * Streams spot prices a page at a time, having EC2 filter them by instance type, product and availability zone.
+     *
+     * @param instanceTypes the instance types to list the prices of, null for all of them
+     * @param productDescription the product to list the prices of, e.g. <code>Linux/UNIX</code>, null for all
+     * @param availabilityZone the availability zone to list the prices of, null for all
+     * @param startTimestamp the start of the window to list the prices set in, 0 for no window
+     * @param endTimestamp the end of the window to list the prices set in, inclusive
+     * @return the spot prices, in the order EC2 reports them
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull Iterable<EC2SpotPrice> listSpotPrices( @Nullable final Collection<String> instanceTypes, @Nullable final String productDescription, @Nullable final String availabilityZone, final long startTimestamp, final long endTimestamp ) throws CloudException, InternalException {
+        if( !getProvider().getEC2Provider().isAWS() ) {
             throw new OperationNotSupportedException("Spot VMs are not supported in " + getProvider().getCloudName());
         }
+        getProvider().hold();
+        return getProvider().getExecutor().populate(new JiteratorPopulator<EC2SpotPrice>() {
+            @Override
+            public void populate( @Nonnull Jiterator<EC2SpotPrice> iterator ) throws Exception {
+                try {
+                    APITrace.begin(getProvider(), "listSpotPrices");
+                    try {
+                        List<EC2SpotPrice> page = new ArrayList<EC2SpotPrice>();
+                        String nextToken = null;
+
+                        do {
+                            page.clear();
+                            nextToken = fetchSpotPrices(instanceTypes, productDescription, availabilityZone, startTimestamp, endTimestamp, nextToken, page);
+                            for( EC2SpotPrice price : page ) {
+                                iterator.push(price);
+                            }
+                        } while( nextToken != null );
+                    } finally {
+                        APITrace.end();
+                    }
+                } finally {
+                    getProvider().release();
+                }
+            }
+        });
     }
 
     @Override
@@ -2983,102 +3731,81 @@ public class EC2Instance extends AbstractVMSupport<AWSCloud> {
         }
     }
 
+    private @Nullable List<String> getSpotInstanceTypes( @Nullable SpotPriceHistoryFilterOptions options ) {
+        if( options == null || options.getProductIds() == null ) {
+            return null;
+        }
+        List<String> instanceTypes = new ArrayList<String>();
+
+        for( String product : options.getProductIds() ) {
+            instanceTypes.add(product);
+        }
+        return instanceTypes;
+    }
+
+    static private void addSpotPrice( @Nonnull Map<Pair<String, String>, List<SpotPrice>> prices, @Nonnull EC2SpotPrice price ) {
+        Pair<String, String> key = Pair.of(price.getInstanceType(), price.getAvailabilityZone());
+        List<SpotPrice> subList = prices.get(key);
+
+        if( subList == null ) {
+            subList = new ArrayList<SpotPrice>();
+            prices.put(key, subList);
+        }
+        subList.add(SpotPrice.getInstance(price.getTimestamp(), price.getPrice()));
+    }
+
     /**
-     * @param prices
-     * @param options
-     * @param nextToken
-     * @return
-     * @throws CloudException
-     * @throws InternalException
+     * Fetches a page of spot prices.
+     *
+     * @param instanceTypes the instance types to fetch the prices of, null for all of them
+     * @param productDescription the product to fetch the prices of, null for all
+     * @param availabilityZone the availability zone to fetch the prices of, null for all
+     * @param startTimestamp the start of the window to fetch the prices set in, 0 for no window
+     * @param endTimestamp the end of the window to fetch the prices set in, inclusive
+     * @param nextToken the token of the page to fetch, null for the first page
+     * @param page the list to add the prices of the page to
+     * @return the token for the next page, or null if this was the last page
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
      */
-    private String fetchSpotPriceHistories( Map<Pair<String, String>, List<SpotPrice>> prices, @Nullable SpotPriceHistoryFilterOptions options, String nextToken ) throws CloudException, InternalException {
+    private @Nullable String fetchSpotPrices( @Nullable Collection<String> instanceTypes, @Nullable String productDescription, @Nullable String availabilityZone, long startTimestamp, long endTimestamp, @Nullable String nextToken, @Nonnull List<EC2SpotPrice> page ) throws CloudException, InternalException {
         Map<String, String> parameters = getProvider().getStandardParameters(getContext(), EC2Method.DESCRIBE_SPOT_PRICE_HISTORY);
-        EC2Method method;
-        Document doc;
-        NodeList blocks;
+        List<EC2SpotPrice> prices = new ArrayList<EC2SpotPrice>();
+        DescribeSpotPriceHistoryResponseParser parser = new DescribeSpotPriceHistoryResponseParser(prices);
         int productIndex = 1;
-        if( options != null ) {
-            if( options.getProductIds() != null ) {
-                for( String product : options.getProductIds() ) {
-                    parameters.put(String.format("InstanceType.%d", productIndex), product);
-                    productIndex++;
-                }
-            }
-            if( options.hasCriteria() && options.getStartTimestamp() > 0 ) {
-                parameters.put("StartTime", getProvider().getTimestamp(options.getStartTimestamp(), true));
-                parameters.put("EndTime", getProvider().getTimestamp(options.getEndTimestamp(), true));
+
+        if( instanceTypes != null ) {
+            for( String product : instanceTypes ) {
+                parameters.put(String.format("InstanceType.%d", productIndex), product);
+                productIndex++;
             }
         }
-        if( nextToken != null ) {
-            parameters.put("NextToken", nextToken);
+        if( productDescription != null ) {
+            parameters.put("ProductDescription.1", productDescription);
         }
-        method = new EC2Method(getProvider(), parameters);
+        if( availabilityZone != null ) {
+            parameters.put("AvailabilityZone", availabilityZone);
+        }
+        if( startTimestamp > 0 ) {
+            parameters.put("StartTime", getProvider().getTimestamp(startTimestamp, true));
+            parameters.put("EndTime", getProvider().getTimestamp(endTimestamp, true));
+        }
+        addPageParameters(parameters, MAXIMUM_PAGE_SIZE, nextToken);
         try {
-            doc = method.invoke();
+            new EC2Method(getProvider(), parameters).invoke(parser);
         } catch( EC2Exception e ) {
             logger.error(e.getSummary());
             throw new CloudException(e);
         }
-        blocks = doc.getElementsByTagName("spotPriceHistorySet");
-
-        for( int i = 0; i < blocks.getLength(); i++ ) {
-            NodeList items = blocks.item(i).getChildNodes();
-
-            for( int j = 0; j < items.getLength(); j++ ) {
-                Node item = items.item(j);
-
-                if( "item".equals(item.getNodeName()) ) {
-                    NodeList attrs = item.getChildNodes();
-                    long timestamp = -1;
-                    float spotPrice = -1.0f;
-                    String product = null;
-                    String availabilityZone = null;
-
-                    for( int k = 0; k < attrs.getLength(); k++ ) {
-                        Node attr = attrs.item(k);
-                        String name = attr.getNodeName();
-                        if( "instanceType".equals(name) ) {
-                            product = attr.getFirstChild().getNodeValue().trim();
-                        }
-                        else if( "spotPrice".equals(name) ) {
-                            spotPrice = Float.valueOf(attr.getFirstChild().getNodeValue().trim());
-                        }
-                        else if( "timestamp".equals(name) ) {
-                            timestamp = AWSCloud.getTimestampValue(attr);
-                        }
-                        else if( "availabilityZone".equals(name) ) {
-                            availabilityZone = attr.getFirstChild().getNodeValue().trim();
-                        }
-                    }
-                    if( product == null || spotPrice < 0 || availabilityZone == null || timestamp < 0 ) {
-                        continue;
-                    }
-                    // AWS is not returning the prices precisely in the time-bounds requested,
-                    // so filter out what is out of bounds.
-                    if( options != null && options.getStartTimestamp() > 0 && ( timestamp < options.getStartTimestamp() || options.getEndTimestamp() < timestamp ) ) {
-                        // this timestamp is out of bounds, skip this price
-                        continue;
-                    }
-                    SpotPrice price = SpotPrice.getInstance(timestamp, spotPrice);
-                    Pair<String, String> key = Pair.of(product, availabilityZone);
-                    List<SpotPrice> subList = prices.get(key);
-                    if( subList == null ) {
-                        subList = new ArrayList<SpotPrice>();
-                        prices.put(key, subList);
-                    }
-                    subList.add(price);
-                }
-            }
-        }
-        nextToken = "";
-        blocks = doc.getElementsByTagName("nextToken");
-        if( blocks.getLength() > 0 ) {
-            nextToken = AWSCloud.getTextValue(blocks.item(0));
-            if( nextToken != null && nextToken.trim().length() == 0 ) {
-                nextToken = null;
+        for( EC2SpotPrice price : prices ) {
+            // AWS is not returning the prices precisely in the time-bounds requested,
+            // so filter out what is out of bounds.
+            if( startTimestamp > 0 && ( price.getTimestamp() < startTimestamp || endTimestamp < price.getTimestamp() ) ) {
+                continue;
             }
+            page.add(price);
         }
-        return nextToken;
+        return parser.getNextToken();
     }
 
     private SpotVirtualMachineRequest toSpotVmRequest( @Nonnull Node node, SpotVirtualMachineRequestCreateOptions options ) throws CloudException {
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A change in the lifecycle of an instance noticed by the {@link EC2InstanceWatcher}: a state transition, a newly
+ * scheduled event or the instance dropping out of EC2's listings.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see EC2Instance#subscribe(EC2InstanceWatcher.Listener)
+ */
+public class EC2InstanceEvent {
+    public enum Type {
+        /**
+         * The instance changed state, or appeared for the first time.
+         */
+        STATE_CHANGED,
+        /**
+         * EC2 scheduled an event such as a reboot or a retirement for the instance.
+         */
+        EVENT_SCHEDULED,
+        /**
+         * The instance is no longer listed, typically some time after it terminated.
+         */
+        GONE
+    }
+
+    private final Type   type;
+    private final String instanceId;
+    private final String previousState;
+    private final String currentState;
+    private final String eventCode;
+    private final String eventDescription;
+    private final long   eventNotBefore;
+    private final long   timestamp;
+
+    public EC2InstanceEvent( @Nonnull Type type, @Nonnull String instanceId, @Nullable String previousState, @Nullable String currentState, @Nullable String eventCode, @Nullable String eventDescription, long eventNotBefore, long timestamp ) {
+        this.type = type;
+        this.instanceId = instanceId;
+        this.previousState = previousState;
+        this.currentState = currentState;
+        this.eventCode = eventCode;
+        this.eventDescription = eventDescription;
+        this.eventNotBefore = eventNotBefore;
+        this.timestamp = timestamp;
+    }
+
+    public @Nonnull Type getType() {
+        return type;
+    }
+
+    public @Nonnull String getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * @return the state before the change as reported by EC2, e.g. <code>pending</code>, or null if the instance was not known
+     */
+    public @Nullable String getPreviousState() {
+        return previousState;
+    }
+
+    /**
+     * @return the state after the change as reported by EC2, e.g. <code>running</code>, or null if the instance is gone
+     */
+    public @Nullable String getCurrentState() {
+        return currentState;
+    }
+
+    /**
+     * @return the code of the scheduled event, e.g. <code>system-reboot</code>, for {@link Type#EVENT_SCHEDULED}
+     */
+    public @Nullable String getEventCode() {
+        return eventCode;
+    }
+
+    public @Nullable String getEventDescription() {
+        return eventDescription;
+    }
+
+    /**
+     * @return the earliest time the scheduled event may start, 0 if unknown or not a scheduled event
+     */
+    public long getEventNotBefore() {
+        return eventNotBefore;
+    }
+
+    /**
+     * @return when the change was noticed
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        switch( type ) {
+            case EVENT_SCHEDULED:
+                return instanceId + " " + eventCode + " [" + eventDescription + "]";
+            default:
+                return instanceId + " " + previousState + " -> " + currentState;
+        }
+    }
+}
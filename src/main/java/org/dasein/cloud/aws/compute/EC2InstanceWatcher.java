@@ -0,0 +1,403 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSCloud;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Watches the lifecycle of every instance of a provider and pushes the changes to any number of listeners. A single
+ * polling loop pages through <code>DescribeInstanceStatus</code> (including instances which are not running) no
+ * matter how many listeners there are, and only runs while at least one listener is subscribed. Each pass is a tick
+ * on the provider's scheduler which schedules the next one, so no thread is held between passes.
+ * <p>The interval starts at {@value #MINIMUM_INTERVAL} ms and stays there while anything changes or is in
+ * transition (pending, stopping, shutting down); otherwise it backs off up to {@value #MAXIMUM_INTERVAL} ms. The
+ * first pass only records the state of each instance, later passes report the differences. The last known state is
+ * kept as a single byte per instance indexing a table of up to {@value #MAXIMUM_STATE_NAMES} state names.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSCloud#getInstanceWatcher()
+ */
+public class EC2InstanceWatcher {
+    static private final Logger logger = AWSCloud.getLogger(EC2InstanceWatcher.class);
+
+    static public final long MINIMUM_INTERVAL = 5000L;
+    static public final long MAXIMUM_INTERVAL = 60000L;
+
+    /**
+     * Most state names told apart; any further names are recorded as "unknown".
+     */
+    static public final int MAXIMUM_STATE_NAMES = 256;
+
+    static private final String UNKNOWN_STATE = "unknown";
+
+    static private final Set<String> TRANSITIONAL_STATES = new HashSet<String>(Arrays.asList("pending", "stopping", "shutting-down"));
+
+    /**
+     * Receives instance lifecycle events. Events are delivered on the scheduler thread running the poll, so listeners
+     * should hand any lengthy work off elsewhere.
+     */
+    public interface Listener {
+        void onEvent( @Nonnull EC2InstanceEvent event );
+    }
+
+    /**
+     * Fetches a page of instance status.
+     */
+    public interface StatusSource {
+        /**
+         * @param nextToken the token of the page to fetch, null for the first page
+         * @param page the list to add the status of each instance on the page to
+         * @return the token for the next page, or null if this was the last page
+         * @throws CloudException an error occurred with the cloud provider
+         * @throws InternalException an error occurred within the Dasein Cloud implementation
+         */
+        @Nullable String fetch( @Nullable String nextToken, @Nonnull List<DescribeInstanceStatusResponseParser.RawInstanceStatus> page ) throws CloudException, InternalException;
+    }
+
+    private final AWSCloud                 provider;
+    private final List<Listener>           listeners  = new CopyOnWriteArrayList<Listener>();
+    private final Object                   lock       = new Object();
+    private final List<String>             stateNames = new ArrayList<String>();
+    private final Map<String, Byte>        states     = new HashMap<String, Byte>();
+    private final Map<String, Set<String>> scheduled  = new HashMap<String, Set<String>>();
+    private final AtomicLong               calls      = new AtomicLong(0L);
+    private boolean                        baseline   = false;
+    private boolean                        running    = false;
+    private boolean                        stopped    = false;
+    private long                           interval   = MINIMUM_INTERVAL;
+    private StatusSource                   source;
+    private ScheduledFuture<?>             next;
+
+    public EC2InstanceWatcher( @Nonnull AWSCloud provider ) {
+        this.provider = provider;
+        stateNames.add(UNKNOWN_STATE);
+    }
+
+    /**
+     * @return the number of <code>DescribeInstanceStatus</code> pages fetched so far
+     */
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    public int getListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * @return true while the polling loop is running
+     */
+    boolean isRunning() {
+        synchronized( lock ) {
+            return running;
+        }
+    }
+
+    /**
+     * @param instanceId the instance
+     * @return the last state seen for the instance as reported by EC2, or null if it is not known
+     */
+    public @Nullable String getState( @Nonnull String instanceId ) {
+        synchronized( lock ) {
+            Byte s = states.get(instanceId);
+
+            return ( s == null ? null : getStateName(s) );
+        }
+    }
+
+    /**
+     * Adds a listener, starting the polling loop if it is not running yet.
+     *
+     * @param source fetches instance status, used if the loop has to be started
+     * @param listener the listener to add
+     */
+    public void subscribe( @Nonnull StatusSource source, @Nonnull Listener listener ) {
+        synchronized( lock ) {
+            if( stopped ) {
+                throw new IllegalStateException("The instance watcher has been stopped");
+            }
+            listeners.add(listener);
+            if( !running ) {
+                running = true;
+                this.source = source;
+                // what was seen before the loop last ended may be long out of date
+                states.clear();
+                scheduled.clear();
+                baseline = false;
+                interval = MINIMUM_INTERVAL;
+                provider.hold();
+                if( !schedule(0L) ) {
+                    listeners.remove(listener);
+                    throw new IllegalStateException("The provider has been closed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes a listener; the polling loop ends once no listener is left.
+     *
+     * @param listener the listener to remove
+     */
+    public void unsubscribe( @Nonnull Listener listener ) {
+        synchronized( lock ) {
+            listeners.remove(listener);
+            if( listeners.isEmpty() ) {
+                cancel();
+            }
+        }
+    }
+
+    /**
+     * Stops polling for good, e.g. because the provider is being closed.
+     */
+    public void stop() {
+        synchronized( lock ) {
+            stopped = true;
+            listeners.clear();
+            cancel();
+        }
+    }
+
+    /**
+     * Ends the loop if its next tick has not started yet; a running tick ends the loop itself. Must hold the lock.
+     */
+    private void cancel() {
+        if( next != null && next.cancel(false) ) {
+            end();
+        }
+    }
+
+    /**
+     * Schedules the next tick, ending the loop if the provider has been closed. Must hold the lock.
+     *
+     * @return true if the tick was scheduled
+     */
+    private boolean schedule( long delay ) {
+        try {
+            next = provider.getExecutor().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    tick();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+            return true;
+        }
+        catch( RuntimeException e ) {
+            logger.warn("Stopped watching instances: " + e.getMessage());
+            end();
+            return false;
+        }
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private void end() {
+        next = null;
+        source = null;
+        running = false;
+        provider.release();
+    }
+
+    /**
+     * Polls once and schedules the next poll, or ends the loop if nobody is listening any more.
+     */
+    private void tick() {
+        StatusSource current;
+
+        synchronized( lock ) {
+            next = null;
+            if( stopped || listeners.isEmpty() ) {
+                end();
+                return;
+            }
+            current = source;
+        }
+        List<EC2InstanceEvent> events = new ArrayList<EC2InstanceEvent>();
+        boolean busy;
+
+        try {
+            busy = sweep(current, events);
+        }
+        catch( Exception e ) {
+            logger.warn("Unable to poll instance status: " + e.getMessage());
+            busy = false;
+        }
+        deliver(events);
+        synchronized( lock ) {
+            if( stopped || listeners.isEmpty() ) {
+                end();
+                return;
+            }
+            interval = ( busy ? MINIMUM_INTERVAL : Math.min(MAXIMUM_INTERVAL, interval + interval / 2) );
+            schedule(interval);
+        }
+    }
+
+    /**
+     * Pages through the status of all instances once and records their states.
+     *
+     * @param source fetches instance status
+     * @param events the list to add an event to for every change since the previous pass
+     * @return true if anything changed or is in transition, i.e. the next pass should come soon
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    boolean sweep( @Nonnull StatusSource source, @Nonnull List<EC2InstanceEvent> events ) throws CloudException, InternalException {
+        int previousCount = events.size();
+        Set<String> seen = new HashSet<String>();
+        long now = System.currentTimeMillis();
+        boolean transitional = false;
+        boolean report;
+        String nextToken = null;
+
+        synchronized( lock ) {
+            report = baseline;
+        }
+        do {
+            List<DescribeInstanceStatusResponseParser.RawInstanceStatus> page = new ArrayList<DescribeInstanceStatusResponseParser.RawInstanceStatus>();
+
+            calls.incrementAndGet();
+            nextToken = source.fetch(nextToken, page);
+            synchronized( lock ) {
+                for( DescribeInstanceStatusResponseParser.RawInstanceStatus status : page ) {
+                    seen.add(status.getInstanceId());
+                    update(status, report, now, events);
+                    transitional |= TRANSITIONAL_STATES.contains(status.getState());
+                }
+            }
+        } while( nextToken != null );
+
+        synchronized( lock ) {
+            for( Iterator<Map.Entry<String, Byte>> it = states.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Byte> entry = it.next();
+
+                if( !seen.contains(entry.getKey()) ) {
+                    if( report ) {
+                        events.add(new EC2InstanceEvent(EC2InstanceEvent.Type.GONE, entry.getKey(), getStateName(entry.getValue()), null, null, null, 0L, now));
+                    }
+                    scheduled.remove(entry.getKey());
+                    it.remove();
+                }
+            }
+            baseline = true;
+        }
+        return ( transitional || events.size() > previousCount );
+    }
+
+    private void deliver( @Nonnull List<EC2InstanceEvent> events ) {
+        for( EC2InstanceEvent event : events ) {
+            for( Listener listener : listeners ) {
+                try {
+                    listener.onEvent(event);
+                }
+                catch( RuntimeException e ) {
+                    logger.error("Instance event listener failed on " + event + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Records the status of an instance, adding an event for anything which changed. Must hold the lock.
+     */
+    private void update( @Nonnull DescribeInstanceStatusResponseParser.RawInstanceStatus status, boolean report, long now, @Nonnull List<EC2InstanceEvent> events ) {
+        String instanceId = status.getInstanceId();
+        Byte previous = states.get(instanceId);
+        Byte current = toStateIndex(status.getState());
+
+        if( !current.equals(previous) ) {
+            states.put(instanceId, current);
+            if( report ) {
+                events.add(new EC2InstanceEvent(EC2InstanceEvent.Type.STATE_CHANGED, instanceId, previous == null ? null : getStateName(previous), getStateName(current), null, null, 0L, now));
+            }
+        }
+        Set<String> known = scheduled.get(instanceId);
+        Set<String> pending = null;
+
+        for( DescribeInstanceStatusResponseParser.RawEvent event : status.getEvents() ) {
+            if( event.isOver() ) {
+                continue;
+            }
+            String key = event.getCode() + "@" + event.getNotBefore();
+
+            if( pending == null ) {
+                pending = new HashSet<String>();
+            }
+            pending.add(key);
+            if( report && ( known == null || !known.contains(key) ) ) {
+                events.add(new EC2InstanceEvent(EC2InstanceEvent.Type.EVENT_SCHEDULED, instanceId, null, getStateName(current), event.getCode(), event.getDescription(), event.getNotBefore(), now));
+            }
+        }
+        // only the few instances with events pending take up an entry
+        if( pending == null ) {
+            scheduled.remove(instanceId);
+        }
+        else {
+            scheduled.put(instanceId, pending);
+        }
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private @Nonnull String getStateName( byte index ) {
+        // the index is unsigned so that the table can hold a full 256 names
+        return stateNames.get(index & 0xFF);
+    }
+
+    /**
+     * Must hold the lock.
+     */
+    private @Nonnull Byte toStateIndex( @Nullable String state ) {
+        String name = ( state == null ? UNKNOWN_STATE : state );
+        int i = stateNames.indexOf(name);
+
+        if( i < 0 ) {
+            if( stateNames.size() >= MAXIMUM_STATE_NAMES ) {
+                logger.warn("Too many instance state names, recording " + name + " as " + UNKNOWN_STATE);
+                return toStateIndex(UNKNOWN_STATE);
+            }
+            i = stateNames.size();
+            stateNames.add(name);
+        }
+        return ( byte ) i;
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.compute.Platform;
+import org.dasein.cloud.compute.VirtualMachine;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the work done on an instance after <code>RunInstances</code> returned it: tagging, attaching existing
+ * volumes, networking and password retrieval. The work runs in the background on the provider's executor, the
+ * handle reports when all of it is finished and which steps failed.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see EC2Instance#launchManyAsync(org.dasein.cloud.compute.VMLaunchOptions, int)
+ */
+public class EC2LaunchHandle {
+    static public final String STEP_TAGS       = "tags";
+    static public final String STEP_VOLUMES    = "volumes";
+    static public final String STEP_NETWORKING = "networking";
+    static public final String STEP_PASSWORD   = "password";
+
+    private final VirtualMachine              virtualMachine;
+    private final CountDownLatch              done     = new CountDownLatch(1);
+    private final Map<String, CloudException> failures = new LinkedHashMap<String, CloudException>();
+    private int                               pending  = 1;
+    private String                            rootPassword;
+    private boolean                           passwordData;
+
+    EC2LaunchHandle( @Nonnull VirtualMachine virtualMachine ) {
+        this.virtualMachine = virtualMachine;
+    }
+
+    public @Nonnull String getInstanceId() {
+        return virtualMachine.getProviderVirtualMachineId();
+    }
+
+    /**
+     * @return the instance as <code>RunInstances</code> described it; the post-launch work never changes it, what it
+     * learns is published by {@link #getRootPassword()} and {@link #getPlatform()} instead
+     */
+    public @Nonnull VirtualMachine getVirtualMachine() {
+        return virtualMachine;
+    }
+
+    /**
+     * @return the root password retrieved after launch, or null if none was retrieved (yet); it can still be fetched
+     * later through the password callback of the virtual machine
+     */
+    public synchronized @Nullable String getRootPassword() {
+        return rootPassword;
+    }
+
+    /**
+     * @return {@link Platform#WINDOWS} once the password data of the instance could be read, otherwise the platform
+     * <code>RunInstances</code> reported
+     */
+    public @Nonnull Platform getPlatform() {
+        synchronized( this ) {
+            if( passwordData ) {
+                return Platform.WINDOWS;
+            }
+        }
+        Platform platform = virtualMachine.getPlatform();
+
+        return ( platform == null ? Platform.UNKNOWN : platform );
+    }
+
+    /**
+     * Records a successful <code>GetPasswordData</code> call, which only Windows instances answer.
+     *
+     * @param password the password, null if it is not available yet
+     */
+    synchronized void setPasswordData( @Nullable String password ) {
+        rootPassword = password;
+        passwordData = true;
+    }
+
+    /**
+     * @return true if all of the post-launch work on the instance has finished, whether or not it succeeded
+     */
+    public boolean isDone() {
+        return ( done.getCount() == 0L );
+    }
+
+    /**
+     * Waits for all of the post-launch work on the instance to finish.
+     *
+     * @throws InterruptedException the wait was interrupted
+     */
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    /**
+     * Waits for all of the post-launch work on the instance to finish.
+     *
+     * @param timeout the maximum time to wait in milliseconds
+     * @return true if the work finished, false if the wait timed out
+     * @throws InterruptedException the wait was interrupted
+     */
+    public boolean await( @Nonnegative long timeout ) throws InterruptedException {
+        return done.await(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return the steps which failed so far, with the first error of each
+     */
+    public @Nonnull Map<String, CloudException> getFailures() {
+        synchronized( failures ) {
+            return Collections.unmodifiableMap(new LinkedHashMap<String, CloudException>(failures));
+        }
+    }
+
+    /**
+     * @return true if all of the post-launch work has finished and none of it failed
+     */
+    public boolean isSuccess() {
+        synchronized( failures ) {
+            return ( isDone() && failures.isEmpty() );
+        }
+    }
+
+    /**
+     * Records that a step of work was started on the instance.
+     */
+    synchronized void begin() {
+        pending++;
+    }
+
+    /**
+     * Records that a step of work on the instance finished.
+     *
+     * @param step the step, one of the <code>STEP_*</code> constants
+     * @param error the error which failed the step, null if it succeeded
+     */
+    void end( @Nonnull String step, @Nullable CloudException error ) {
+        if( error != null ) {
+            synchronized( failures ) {
+                if( !failures.containsKey(step) ) {
+                    failures.put(step, error);
+                }
+            }
+        }
+        release();
+    }
+
+    /**
+     * Records that no more steps of work will be started on the instance; the handle is done once the steps already
+     * started have finished.
+     */
+    void release() {
+        synchronized( this ) {
+            if( --pending > 0 ) {
+                return;
+            }
+        }
+        done.countDown();
+    }
+
+    @Override
+    public String toString() {
+        return getInstanceId() + ( isDone() ? ( isSuccess() ? " [done]" : " [failed " + getFailures().keySet() + "]" ) : " [pending]" );
+    }
+}
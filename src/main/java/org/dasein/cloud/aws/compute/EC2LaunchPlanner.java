@@ -0,0 +1,336 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudErrorType;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTaskExecutor;
+import org.dasein.util.Jiterator;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Splits a large launch into several <code>RunInstances</code> calls spread over the availability zones (or the
+ * subnets of a VPC) of the region and runs them concurrently. A call failing for lack of capacity is sent to the next
+ * zone with capacity left, so a shortage in one zone does not fail the whole launch. Instance IDs are pushed to the
+ * result as each call returns.
+ * <p>The planner is configured through the custom properties of the provider context:</p>
+ * <ul>
+ *     <li>{@value #P_CHUNK_SIZE} - maximum number of instances launched by one call (default {@value #DEFAULT_CHUNK_SIZE})</li>
+ *     <li>{@value #P_PARALLELISM} - maximum number of calls in flight at once (default {@value #DEFAULT_PARALLELISM})</li>
+ *     <li>{@value #P_SUBNET_SPILLOVER} - true to let a launch into a subnet move to the other subnets of its VPC when the
+ *     subnet runs out of capacity (default false, i.e. the instances only ever go to the subnet asked for)</li>
+ * </ul>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see EC2Instance#launchMany(org.dasein.cloud.compute.VMLaunchOptions, int)
+ */
+public class EC2LaunchPlanner {
+    static private final Logger logger = AWSCloud.getLogger(EC2LaunchPlanner.class);
+
+    static public final String P_CHUNK_SIZE       = "launchChunkSize";
+    static public final String P_PARALLELISM      = "launchParallelism";
+    static public final String P_SUBNET_SPILLOVER = "launchSubnetSpillover";
+
+    static public final int DEFAULT_CHUNK_SIZE  = 100;
+    static public final int DEFAULT_PARALLELISM = 8;
+
+    /**
+     * Where a call launches its instances: an availability zone and, in a VPC, a subnet of that zone. A fallback
+     * placement is never given a share of the launch up front; it only takes over shares from placements which ran
+     * out of capacity.
+     */
+    static public final class Placement {
+        private final String  dataCenterId;
+        private final String  subnetId;
+        private final boolean fallback;
+
+        public Placement( @Nullable String dataCenterId, @Nullable String subnetId ) {
+            this(dataCenterId, subnetId, false);
+        }
+
+        public Placement( @Nullable String dataCenterId, @Nullable String subnetId, boolean fallback ) {
+            this.dataCenterId = dataCenterId;
+            this.subnetId = subnetId;
+            this.fallback = fallback;
+        }
+
+        public boolean isFallback() {
+            return fallback;
+        }
+
+        public @Nullable String getDataCenterId() {
+            return dataCenterId;
+        }
+
+        public @Nullable String getSubnetId() {
+            return subnetId;
+        }
+
+        @Override
+        public String toString() {
+            return ( subnetId == null ? String.valueOf(dataCenterId) : subnetId + "@" + dataCenterId );
+        }
+    }
+
+    /**
+     * Launches the instances of a single call.
+     */
+    public interface Launcher {
+        /**
+         * @param placement where to launch the instances
+         * @param count the number of instances to launch, all or none of them
+         * @param clientToken the idempotency token of the call, null if the launch has none
+         * @return the IDs of the instances launched, empty if the placement had no capacity
+         * @throws CloudException an error occurred with the cloud provider
+         * @throws InternalException an error occurred within the Dasein Cloud implementation
+         */
+        @Nonnull Collection<String> launch( @Nonnull Placement placement, @Nonnegative int count, @Nullable String clientToken ) throws CloudException, InternalException;
+    }
+
+    /**
+     * A share of the launch: its instance count and the placement it is currently routed to.
+     */
+    static private final class Chunk {
+        final int index;
+        final int count;
+        int       placement;
+        int       attempt = 0;
+
+        Chunk( int index, int count, int placement ) {
+            this.index = index;
+            this.count = count;
+            this.placement = placement;
+        }
+    }
+
+    static public @Nonnull EC2LaunchPlanner getInstance( @Nonnull AWSCloud provider ) {
+        ProviderContext ctx = provider.getContext();
+        Properties props = ( ctx == null ? null : ctx.getCustomProperties() );
+
+        boolean spillover = ( props != null && "true".equalsIgnoreCase(props.getProperty(P_SUBNET_SPILLOVER, "false").trim()) );
+
+        return new EC2LaunchPlanner(provider.getExecutor(), getIntProperty(props, P_CHUNK_SIZE, DEFAULT_CHUNK_SIZE), getIntProperty(props, P_PARALLELISM, DEFAULT_PARALLELISM), spillover);
+    }
+
+    static private int getIntProperty( @Nullable Properties props, @Nonnull String name, int defaultValue ) {
+        if( props != null && props.getProperty(name) != null ) {
+            try {
+                int value = Integer.parseInt(props.getProperty(name).trim());
+
+                if( value > 0 ) {
+                    return value;
+                }
+            }
+            catch( NumberFormatException ignore ) {
+                // handled below
+            }
+            logger.warn("Invalid value for " + name + ": " + props.getProperty(name));
+        }
+        return defaultValue;
+    }
+
+    private final AWSTaskExecutor executor;
+    private final int             chunkSize;
+    private final int             parallelism;
+    private final boolean         subnetSpillover;
+
+    public EC2LaunchPlanner( @Nonnull AWSTaskExecutor executor, @Nonnegative int chunkSize, @Nonnegative int parallelism ) {
+        this(executor, chunkSize, parallelism, false);
+    }
+
+    public EC2LaunchPlanner( @Nonnull AWSTaskExecutor executor, @Nonnegative int chunkSize, @Nonnegative int parallelism, boolean subnetSpillover ) {
+        this.executor = executor;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.subnetSpillover = subnetSpillover;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @return true if a launch into a subnet may fall back to the other subnets of its VPC for lack of capacity
+     */
+    public boolean isSubnetSpillover() {
+        return subnetSpillover;
+    }
+
+    /**
+     * Launches instances, pushing the ID of each instance into the result as soon as its call returns. The launch is
+     * shared out over the placements which are not fallbacks. Once a placement runs out of capacity no further calls
+     * are sent there, including calls for shares it was given up front. If some instances launched, errors are
+     * logged and the shortfall is left to the caller; if none did, the first error is thrown.
+     *
+     * @param placements the placements to spread the launch over, in order of preference
+     * @param count the number of instances to launch
+     * @param clientToken the idempotency token of the launch, null for none
+     * @param launcher launches the instances of a single call
+     * @param into the result to push instance IDs into
+     * @return the number of instances launched
+     * @throws CloudException no instance could be launched
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public int launch( @Nonnull List<Placement> placements, @Nonnegative int count, @Nullable final String clientToken, @Nonnull final Launcher launcher, @Nonnull final Jiterator<String> into ) throws CloudException, InternalException {
+        if( placements.isEmpty() ) {
+            throw new InternalException("No placement to launch into");
+        }
+        final List<Placement> targets = new ArrayList<Placement>(placements);
+        final AtomicReferenceArray<Boolean> exhausted = new AtomicReferenceArray<Boolean>(targets.size());
+        final Queue<Chunk> pending = new ConcurrentLinkedQueue<Chunk>();
+        final AtomicInteger launched = new AtomicInteger(0);
+        final AtomicReference<Exception> firstError = new AtomicReference<Exception>();
+        final List<Integer> primary = new ArrayList<Integer>();
+        int chunks = ( count + chunkSize - 1 ) / chunkSize;
+
+        for( int i = 0; i < targets.size(); i++ ) {
+            if( !targets.get(i).isFallback() ) {
+                primary.add(i);
+            }
+        }
+        if( primary.isEmpty() ) {
+            primary.add(0);
+        }
+        for( int i = 0; i < chunks; i++ ) {
+            // spread the remainder so the calls differ by at most one instance
+            pending.add(new Chunk(i, count / chunks + ( i < count % chunks ? 1 : 0 ), primary.get(i % primary.size())));
+        }
+        List<Future<Void>> workers = new ArrayList<Future<Void>>();
+
+        for( int i = 0; i < Math.min(parallelism, chunks); i++ ) {
+            workers.add(executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    Chunk chunk;
+
+                    while( ( chunk = pending.poll() ) != null ) {
+                        if( exhausted.get(chunk.placement) != null && !reroute(chunk, exhausted) ) {
+                            logger.warn("No capacity left for " + chunk.count + " instances in any of " + targets);
+                            firstError.compareAndSet(null, new CloudException(CloudErrorType.CAPACITY, 0, "InsufficientInstanceCapacity", "No capacity left in any of " + targets));
+                            continue;
+                        }
+                        Placement placement = targets.get(chunk.placement);
+                        String token = ( clientToken == null ? null : clientToken + "-" + chunk.index + "-" + chunk.attempt );
+                        Collection<String> ids;
+
+                        try {
+                            ids = launcher.launch(placement, chunk.count, token);
+                        }
+                        catch( CloudException e ) {
+                            if( !CloudErrorType.CAPACITY.equals(e.getErrorType()) ) {
+                                logger.error("Unable to launch " + chunk.count + " instances in " + placement + ": " + e.getMessage());
+                                firstError.compareAndSet(null, e);
+                                continue;
+                            }
+                            ids = null;
+                        }
+                        catch( InternalException e ) {
+                            logger.error("Unable to launch " + chunk.count + " instances in " + placement + ": " + e.getMessage());
+                            firstError.compareAndSet(null, e);
+                            continue;
+                        }
+                        if( ids == null || ids.isEmpty() ) {
+                            exhausted.set(chunk.placement, Boolean.TRUE);
+                            if( reroute(chunk, exhausted) ) {
+                                logger.info("No capacity for " + chunk.count + " instances in " + placement + ", trying " + targets.get(chunk.placement));
+                                pending.add(chunk);
+                            }
+                            else {
+                                logger.warn("No capacity left for " + chunk.count + " instances in any of " + targets);
+                                firstError.compareAndSet(null, new CloudException(CloudErrorType.CAPACITY, 0, "InsufficientInstanceCapacity", "No capacity left in any of " + targets));
+                            }
+                            continue;
+                        }
+                        launched.addAndGet(ids.size());
+                        for( String id : ids ) {
+                            into.push(id);
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+        for( Future<Void> worker : workers ) {
+            try {
+                executor.await(worker);
+            }
+            catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new InternalException(e);
+            }
+            catch( ExecutionException e ) {
+                firstError.compareAndSet(null, e.getCause() instanceof Exception ? ( Exception ) e.getCause() : new InternalException(e.getCause()));
+            }
+        }
+        Exception error = firstError.get();
+
+        if( error != null ) {
+            if( launched.get() == 0 ) {
+                if( error instanceof CloudException ) {
+                    throw ( CloudException ) error;
+                }
+                if( error instanceof InternalException ) {
+                    throw ( InternalException ) error;
+                }
+                throw new InternalException(error);
+            }
+            logger.warn("Launched " + launched.get() + " of " + count + " instances: " + error.getMessage());
+        }
+        return launched.get();
+    }
+
+    /**
+     * Routes a chunk to the next placement which still has capacity.
+     *
+     * @return false if every placement ran out of capacity
+     */
+    static private boolean reroute( @Nonnull Chunk chunk, @Nonnull AtomicReferenceArray<Boolean> exhausted ) {
+        for( int i = 1; i <= exhausted.length(); i++ ) {
+            int next = ( chunk.placement + i ) % exhausted.length();
+
+            if( exhausted.get(next) == null ) {
+                chunk.placement = next;
+                chunk.attempt++;
+                return true;
+            }
+        }
+        return false;
+    }
+}
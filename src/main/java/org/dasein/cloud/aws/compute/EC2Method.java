@@ -33,6 +33,7 @@ import org.apache.log4j.Logger;
 import org.dasein.cloud.*;
 import org.dasein.cloud.admin.PrepaymentSupport;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSErrorResponse;
 import org.dasein.cloud.aws.identity.IAMMethod;
 import org.dasein.cloud.compute.*;
 import org.dasein.cloud.identity.ServiceAction;
@@ -42,7 +43,6 @@ import org.dasein.cloud.platform.MonitoringSupport;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.cloud.util.XMLParser;
 import org.w3c.dom.Document;
-import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
@@ -778,68 +778,19 @@ public class EC2Method {
                     if( entity == null ) {
                         throw EC2Exception.create(status);
                     }
-                    InputStream input = entity.getContent();
-
-                    try {
-                        BufferedReader in = new BufferedReader(new InputStreamReader(input));
-                        StringBuilder sb = new StringBuilder();
-                        String line;
-
-                        while( ( line = in.readLine() ) != null ) {
-                            sb.append(line);
-                            sb.append("\n");
-                        }
-                        //System.out.println(sb);
-                        try {
-                            Document doc = parseResponse(sb.toString());
-
-                            if( doc != null ) {
-                                NodeList blocks = doc.getElementsByTagName("Error");
-                                String code = null, message = null, requestId = null;
+                    // the raw body is kept to explain a denial which carries no recognisable error
+                    String body = EntityUtils.toString(entity);
+                    AWSErrorResponse error = parseError(status, body);
 
-                                if( blocks.getLength() > 0 ) {
-                                    Node error = blocks.item(0);
-                                    NodeList attrs;
+                    if( !error.isEmpty() ) {
+                        String message = error.getMessage();
 
-                                    attrs = error.getChildNodes();
-                                    for( int i = 0; i < attrs.getLength(); i++ ) {
-                                        Node attr = attrs.item(i);
-
-                                        if( attr.getNodeName().equals("Code") ) {
-                                            code = attr.getFirstChild().getNodeValue().trim();
-                                        }
-                                        else if( attr.getNodeName().equals("Message") ) {
-                                            message = attr.getFirstChild().getNodeValue().trim();
-                                        }
-                                    }
-
-                                }
-                                blocks = doc.getElementsByTagName("RequestID");
-                                if( blocks.getLength() > 0 ) {
-                                    Node id = blocks.item(0);
-
-                                    requestId = id.getFirstChild().getNodeValue().trim();
-                                }
-                                if( message == null && code == null ) {
-                                    throw new CloudException(CloudErrorType.COMMUNICATION, status, null, "Unable to identify error condition: " + status + "/" + requestId + "/null");
-                                }
-                                else if( message == null ) {
-                                    message = code;
-                                }
-                                throw EC2Exception.create(status, requestId, code, message);
-                            }
-                        }
-                        catch( RuntimeException ignore ) {
-                            // ignore me
-                        }
-                        catch( Error ignore ) {
-                            // ignore me
+                        if( message == null ) {
+                            message = error.getCode();
                         }
-                        msg = msg + ": " + sb.toString().trim().replaceAll("\n", " / ");
-                    }
-                    finally {
-                        input.close();
+                        throw EC2Exception.create(status, error.getRequestId(), error.getCode(), message);
                     }
+                    msg = msg + ": " + body.trim().replaceAll("\n", " / ");
                 }
                 catch( IOException ignore ) {
                     // ignore me
@@ -901,54 +852,21 @@ public class EC2Method {
                         throw EC2Exception.create(status);
                     }
                     InputStream input = entity.getContent();
-                    Document doc;
+                    AWSErrorResponse error;
 
                     try {
-                        doc = parseResponse(input);
+                        error = parseError(status, input);
                     }
                     finally {
                         input.close();
                     }
-                    if( doc != null ) {
-                        NodeList blocks = doc.getElementsByTagName("Error");
-                        String code = null, message = null, requestId = null;
-
-                        if( blocks.getLength() > 0 ) {
-                            Node error = blocks.item(0);
-                            NodeList attrs;
-
-                            attrs = error.getChildNodes();
-                            for( int i = 0; i < attrs.getLength(); i++ ) {
-                                Node childNode = attrs.item(i).getFirstChild();
-                                String name = attrs.item(i).getNodeName();
-                                String value = null;
-                                if( childNode != null && childNode.getNodeValue() != null ) {
-                                    value = childNode.getNodeValue().trim();
-                                }
-                                if( "Code".equals(name) ) {
-                                    code = value;
-                                }
-                                else if( "Message".equals(name) ) {
-                                    message = value;
-                                }
-                            }
-
-                        }
-                        blocks = doc.getElementsByTagName("RequestID");
-                        if( blocks.getLength() > 0 ) {
-                            Node id = blocks.item(0);
-
-                            requestId = id.getFirstChild().getNodeValue().trim();
-                        }
-                        if( message == null ) {
-                            throw new CloudException(CloudErrorType.COMMUNICATION, status, null, "Unable to identify error condition: " + status + "/" + requestId + "/" + code);
-                        }
-                        if( code != null && code.toLowerCase().contains("capacity") ) {
-                            throw new CloudException(CloudErrorType.CAPACITY, status, code, message);
-                        }
-                        throw EC2Exception.create(status, requestId, code, message);
+                    if( error.getMessage() == null ) {
+                        throw new CloudException(CloudErrorType.COMMUNICATION, status, null, "Unable to identify error condition: " + status + "/" + error.getRequestId() + "/" + error.getCode());
+                    }
+                    if( error.isCapacity() ) {
+                        throw new CloudException(CloudErrorType.CAPACITY, status, error.getCode(), error.getMessage());
                     }
-                    throw new CloudException("Unable to parse error.");
+                    throw EC2Exception.create(status, error.getRequestId(), error.getCode(), error.getMessage());
                 }
                 catch( IOException e ) {
                     logger.error(e);
@@ -972,6 +890,31 @@ public class EC2Method {
         }
     }
 
+    private @Nonnull AWSErrorResponse parseError( int status, @Nonnull String responseBody ) {
+        if( wire.isDebugEnabled() ) {
+            for( String l : responseBody.split("\n") ) {
+                wire.debug(l);
+            }
+        }
+        return AWSErrorResponse.parse(status, responseBody);
+    }
+
+    private @Nonnull AWSErrorResponse parseError( int status, @Nonnull InputStream responseBodyAsStream ) throws IOException {
+        if( wire.isDebugEnabled() ) {
+            // the wire log wants the whole body anyway
+            BufferedReader in = new BufferedReader(new InputStreamReader(responseBodyAsStream));
+            StringBuilder sb = new StringBuilder();
+            String line;
+
+            while( ( line = in.readLine() ) != null ) {
+                sb.append(line);
+                sb.append("\n");
+            }
+            return parseError(status, sb.toString());
+        }
+        return AWSErrorResponse.parse(status, responseBodyAsStream);
+    }
+
     private Document parseResponse( String responseBody ) throws CloudException, InternalException {
         try {
             if( wire.isDebugEnabled() ) {
@@ -0,0 +1,444 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.compute.Architecture;
+import org.dasein.cloud.compute.VirtualMachineProduct;
+import org.dasein.util.uom.storage.Gigabyte;
+import org.dasein.util.uom.storage.Megabyte;
+import org.dasein.util.uom.storage.Storage;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The VM products of one cloud, read from <code>vmproducts.json</code> and <code>vmproducts-custom.json</code> once
+ * per JVM and indexed by product ID and architecture. Catalogs are shared by every {@link AWSCloud} talking to the
+ * same cloud and never change once built, so looking up products costs no I/O or JSON parsing; which products make
+ * up the list of each architecture and region is worked out on first use and kept. As {@link VirtualMachineProduct}
+ * is mutable, every lookup hands out new product objects built from the parsed listing rather than shared ones.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+final class EC2ProductCatalog {
+    static private final Logger logger = AWSCloud.getLogger(EC2ProductCatalog.class);
+
+    static private final String STANDARD_PRODUCTS = "/org/dasein/cloud/aws/vmproducts.json";
+    static private final String CUSTOM_PRODUCTS   = "/org/dasein/cloud/aws/vmproducts-custom.json";
+
+    static private final Map<String, EC2ProductCatalog> catalogs = new ConcurrentHashMap<String, EC2ProductCatalog>();
+
+    static private volatile JSONArray standardListings;
+    static private volatile JSONArray customListings;
+
+    /**
+     * A product listing, parsed once when the catalog is built, along with what decides where it is offered.
+     */
+    static private final class Entry {
+        final String            productId;
+        final String            name;
+        final String            description;
+        final int               cpuCount;
+        final int               rootVolumeSizeInGb;
+        final int               ramSizeInMb;
+        final boolean           deprecated;
+        final Float             hourlyRate;
+        final Architecture[]    productArchitectures;
+        final String            virtualizationTypes;
+        final String            rootDeviceTypes;
+        final Set<Architecture> architectures;
+        final Set<String>       excludedRegions;
+
+        Entry( @Nonnull JSONObject json ) throws JSONException {
+            List<Architecture> listed = new ArrayList<Architecture>();
+            Set<String> excluded = new HashSet<String>();
+            Float rate = null;
+
+            productId = json.getString("id");
+            name = ( json.has("name") ? json.getString("name") : productId );
+            description = ( json.has("description") ? json.getString("description") : name );
+            cpuCount = ( json.has("cpuCount") ? json.getInt("cpuCount") : 1 );
+            rootVolumeSizeInGb = ( json.has("rootVolumeSizeInGb") ? json.getInt("rootVolumeSizeInGb") : 1 );
+            ramSizeInMb = ( json.has("ramSizeInMb") ? json.getInt("ramSizeInMb") : 512 );
+            deprecated = ( json.has("generation") && json.getString("generation").equalsIgnoreCase("previous") );
+            if( json.has("standardHourlyRates") ) {
+                JSONArray rates = json.getJSONArray("standardHourlyRates");
+
+                for( int i = 0; i < rates.length(); i++ ) {
+                    JSONObject r = rates.getJSONObject(i);
+
+                    if( r.has("rate") ) {
+                        rate = ( float ) r.getDouble("rate");
+                    }
+                }
+            }
+            hourlyRate = rate;
+            if( json.has("architectures") ) {
+                JSONArray values = json.getJSONArray("architectures");
+
+                for( int i = 0; i < values.length(); i++ ) {
+                    listed.add(Architecture.valueOf(values.getString(i)));
+                }
+                productArchitectures = listed.toArray(new Architecture[listed.size()]);
+            }
+            else {
+                productArchitectures = null;
+            }
+            virtualizationTypes = ( json.has("vt") ? join(json.getJSONArray("vt")) : null );
+            rootDeviceTypes = ( json.has("rdt") ? join(json.getJSONArray("rdt")) : null );
+            if( json.has("excludesRegions") ) {
+                JSONArray regions = json.getJSONArray("excludesRegions");
+
+                for( int i = 0; i < regions.length(); i++ ) {
+                    excluded.add(regions.getString(i));
+                }
+            }
+            architectures = Collections.unmodifiableSet(listed.isEmpty() ? EnumSet.noneOf(Architecture.class) : EnumSet.copyOf(listed));
+            excludedRegions = Collections.unmodifiableSet(excluded);
+        }
+
+        /**
+         * @return a new product object for this listing, so that callers changing it do not change the catalog
+         */
+        @Nonnull VirtualMachineProduct toProduct() {
+            VirtualMachineProduct prd = new VirtualMachineProduct();
+
+            prd.setProviderProductId(productId);
+            prd.setName(name);
+            prd.setDescription(description);
+            prd.setCpuCount(cpuCount);
+            prd.setRootVolumeSize(new Storage<Gigabyte>(rootVolumeSizeInGb, Storage.GIGABYTE));
+            prd.setRamSize(new Storage<Megabyte>(ramSizeInMb, Storage.MEGABYTE));
+            if( deprecated ) {
+                prd.setStatusDeprecated();
+            }
+            if( hourlyRate != null ) {
+                prd.setStandardHourlyRate(hourlyRate);
+            }
+            if( productArchitectures != null ) {
+                prd.setArchitectures(productArchitectures.clone());
+            }
+            if( virtualizationTypes != null ) {
+                prd.getProviderMetadata().put("vt", virtualizationTypes);
+            }
+            if( rootDeviceTypes != null ) {
+                prd.getProviderMetadata().put("rdt", rootDeviceTypes);
+            }
+            return prd;
+        }
+
+        static private @Nonnull String join( @Nonnull JSONArray values ) throws JSONException {
+            StringBuilder sb = new StringBuilder();
+
+            for( int i = 0; i < values.length(); i++ ) {
+                if( sb.length() > 0 ) {
+                    sb.append(",");
+                }
+                sb.append(values.getString(i));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Provides the catalog of the cloud a provider talks to, building it the first time that cloud is asked for.
+     *
+     * @param provider the provider to find the catalog for
+     * @return the product catalog of the provider's cloud
+     * @throws InternalException the product resources could not be read
+     */
+    static @Nonnull EC2ProductCatalog getInstance( @Nonnull AWSCloud provider ) throws InternalException {
+        String providerName = provider.getProviderName();
+        String cloudName = provider.getCloudName();
+        String endpoint = ( provider.getContext() == null ? null : provider.getContext().getCloud().getEndpoint() );
+        String key = providerName + "|" + cloudName + "|" + endpoint;
+        EC2ProductCatalog catalog = catalogs.get(key);
+
+        if( catalog == null ) {
+            catalog = new EC2ProductCatalog(providerName, cloudName, endpoint);
+            // another thread may have built it too; they are equal, so either one will do
+            catalogs.put(key, catalog);
+        }
+        return catalog;
+    }
+
+    private final List<Entry>                    entries;
+    private final Map<String, Entry>             byId;
+    private final Map<Architecture, List<Entry>> byArchitecture;
+    private final Map<String, List<Entry>>       lists = new ConcurrentHashMap<String, List<Entry>>();
+
+    EC2ProductCatalog( @Nonnull String providerName, @Nonnull String cloudName, @Nullable String endpoint ) throws InternalException {
+        try {
+            entries = Collections.unmodifiableList(merge(getStandardProducts(providerName, cloudName), getCustomListing(providerName, cloudName, endpoint)));
+        }
+        catch( JSONException e ) {
+            throw new InternalException(e);
+        }
+        Map<String, Entry> ids = new HashMap<String, Entry>();
+        Map<Architecture, List<Entry>> architectures = new EnumMap<Architecture, List<Entry>>(Architecture.class);
+
+        for( Entry entry : entries ) {
+            if( !ids.containsKey(entry.productId) ) {
+                ids.put(entry.productId, entry);
+            }
+            for( Architecture architecture : entry.architectures ) {
+                List<Entry> list = architectures.get(architecture);
+
+                if( list == null ) {
+                    list = new ArrayList<Entry>();
+                    architectures.put(architecture, list);
+                }
+                list.add(entry);
+            }
+        }
+        byId = ids;
+        byArchitecture = architectures;
+    }
+
+    /**
+     * @param productId the ID of the product
+     * @param architectures the architectures the product must support one of
+     * @param regionId the region the product must be offered in
+     * @return the product, or null if there is no such product for any of the architectures in the region
+     */
+    @Nullable VirtualMachineProduct getProduct( @Nonnull String productId, @Nonnull Iterable<Architecture> architectures, @Nullable String regionId ) {
+        Entry entry = byId.get(productId);
+
+        if( entry == null || entry.excludedRegions.contains(regionId) ) {
+            return null;
+        }
+        for( Architecture architecture : architectures ) {
+            if( entry.architectures.contains(architecture) ) {
+                return entry.toProduct();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param architecture the architecture the products must support, or null for products of any architecture
+     * @param regionId the region the products must be offered in
+     * @return the products, in the order they are listed in the product resources
+     */
+    @Nonnull List<VirtualMachineProduct> listProducts( @Nullable Architecture architecture, @Nullable String regionId ) {
+        String key = ( architecture == null ? "ALL" : architecture.name() ) + "|" + regionId;
+        List<Entry> offered = lists.get(key);
+
+        if( offered == null ) {
+            List<Entry> candidates = ( architecture == null ? entries : byArchitecture.get(architecture) );
+            List<Entry> list = new ArrayList<Entry>();
+
+            if( candidates != null ) {
+                for( Entry entry : candidates ) {
+                    if( !entry.excludedRegions.contains(regionId) ) {
+                        list.add(entry);
+                    }
+                }
+            }
+            offered = Collections.unmodifiableList(list);
+            lists.put(key, offered);
+        }
+        List<VirtualMachineProduct> products = new ArrayList<VirtualMachineProduct>(offered.size());
+
+        for( Entry entry : offered ) {
+            products.add(entry.toProduct());
+        }
+        return products;
+    }
+
+    /**
+     * Puts the custom products ahead of the standard products they do not discard.
+     */
+    static private @Nonnull List<Entry> merge( @Nonnull List<Entry> standard, @Nullable JSONObject custom ) throws JSONException, InternalException {
+        if( custom == null ) {
+            return standard;
+        }
+        List<Entry> merged = new ArrayList<Entry>();
+        Set<String> discard = new HashSet<String>();
+
+        if( custom.has("products") ) {
+            merged.addAll(toEntries(custom.getJSONArray("products")));
+        }
+        if( custom.has("discardDefaults") && custom.getBoolean("discardDefaults") ) {
+            return merged;
+        }
+        if( custom.has("discard") ) {
+            JSONArray list = custom.getJSONArray("discard");
+
+            for( int i = 0; i < list.length(); i++ ) {
+                discard.add(list.getString(i));
+            }
+        }
+        for( Entry entry : standard ) {
+            if( !discard.contains(entry.productId) ) {
+                merged.add(entry);
+            }
+        }
+        return merged;
+    }
+
+    static private @Nonnull List<Entry> getStandardProducts( @Nonnull String providerName, @Nonnull String cloudName ) throws JSONException, InternalException {
+        JSONArray listings = standardListings;
+
+        if( listings == null ) {
+            listings = read(STANDARD_PRODUCTS);
+            if( listings == null ) {
+                logger.warn("No standard products resource exists for " + STANDARD_PRODUCTS);
+                listings = new JSONArray();
+            }
+            standardListings = listings;
+        }
+        JSONObject match = null;
+
+        for( int i = 0; i < listings.length(); i++ ) {
+            JSONObject listing = listings.getJSONObject(i);
+
+            if( !listing.has("cloud") || !listing.has("provider") || !listing.has("products") ) {
+                continue;
+            }
+            String cloud = listing.getString("cloud");
+            String provider = listing.getString("provider");
+
+            if( match == null || ( provider.equals("AWS") && cloud.equals("AWS") ) ) {
+                match = listing;
+            }
+            if( provider.equalsIgnoreCase(providerName) && cloud.equalsIgnoreCase(cloudName) ) {
+                match = listing;
+                break;
+            }
+        }
+        if( match == null ) {
+            if( listings.length() > 0 ) {
+                logger.warn("No products were defined");
+            }
+            return Collections.emptyList();
+        }
+        return toEntries(match.getJSONArray("products"));
+    }
+
+    static private @Nullable JSONObject getCustomListing( @Nonnull String providerName, @Nonnull String cloudName, @Nullable String endpoint ) throws JSONException, InternalException {
+        JSONArray listings = customListings;
+
+        if( listings == null ) {
+            listings = read(CUSTOM_PRODUCTS);
+            if( listings == null ) {
+                listings = new JSONArray();
+            }
+            customListings = listings;
+        }
+        JSONObject match = null;
+
+        for( int i = 0; i < listings.length(); i++ ) {
+            JSONObject listing = listings.getJSONObject(i);
+
+            if( !listing.has("cloud") || !listing.has("provider") ) {
+                continue;
+            }
+            if( !listing.getString("cloud").equals(cloudName) || !listing.getString("provider").equals(providerName) ) {
+                continue;
+            }
+            String listingEndpoint = ( listing.has("endpoint") ? listing.getString("endpoint") : null );
+
+            if( listingEndpoint != null && listingEndpoint.equals(endpoint) ) {
+                return listing;
+            }
+            if( listingEndpoint == null && match == null ) {
+                match = listing;
+            }
+        }
+        return match;
+    }
+
+    /**
+     * @return the listings in the resource, or null if there is no such resource
+     */
+    static private @Nullable JSONArray read( @Nonnull String resource ) throws InternalException {
+        InputStream input = EC2ProductCatalog.class.getResourceAsStream(resource);
+
+        if( input == null ) {
+            return null;
+        }
+        try {
+            return new JSONArray(new JSONTokener(new InputStreamReader(input, "utf-8")));
+        }
+        catch( IOException e ) {
+            throw new InternalException(e);
+        }
+        catch( JSONException e ) {
+            throw new InternalException(e);
+        }
+        finally {
+            try {
+                input.close();
+            }
+            catch( IOException ignore ) {
+                // ignore
+            }
+        }
+    }
+
+    static private @Nonnull List<Entry> toEntries( @Nonnull JSONArray products ) throws JSONException, InternalException {
+        List<Entry> list = new ArrayList<Entry>();
+
+        for( int i = 0; i < products.length(); i++ ) {
+            JSONObject json = products.getJSONObject(i);
+
+            /*
+                {
+                    "architectures":["I32"],
+                    "id":"m1.small",
+                    "name":"Small Instance (m1.small)",
+                    "description":"Small Instance (m1.small)",
+                    "cpuCount":1,
+                    "rootVolumeSizeInGb":160,
+                    "ramSizeInMb": 1700,
+                    "generation":"current",
+                    "vt":["hvm"],
+                    "rdt":["ebs","instance"]
+                },
+             */
+            if( json.has("id") ) {
+                list.add(new Entry(json));
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A single spot price as reported by <code>DescribeSpotPriceHistory</code>: the price of an instance type and
+ * product in an availability zone from the moment it was set.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see EC2Instance#listSpotPrices(java.util.Collection, String, String, long, long)
+ */
+public class EC2SpotPrice {
+    private final String instanceType;
+    private final String productDescription;
+    private final String availabilityZone;
+    private final long   timestamp;
+    private final float  price;
+
+    public EC2SpotPrice( @Nonnull String instanceType, @Nullable String productDescription, @Nonnull String availabilityZone, long timestamp, float price ) {
+        this.instanceType = instanceType;
+        this.productDescription = productDescription;
+        this.availabilityZone = availabilityZone;
+        this.timestamp = timestamp;
+        this.price = price;
+    }
+
+    public @Nonnull String getInstanceType() {
+        return instanceType;
+    }
+
+    /**
+     * @return the product the price applies to, e.g. <code>Linux/UNIX</code>
+     */
+    public @Nullable String getProductDescription() {
+        return productDescription;
+    }
+
+    public @Nonnull String getAvailabilityZone() {
+        return availabilityZone;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public float getPrice() {
+        return price;
+    }
+
+    @Override
+    public String toString() {
+        return instanceType + "/" + productDescription + "@" + availabilityZone + " " + price + " [" + timestamp + "]";
+    }
+}
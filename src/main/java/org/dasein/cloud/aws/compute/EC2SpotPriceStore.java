@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTimeSeriesStore;
+
+import javax.annotation.Nonnegative;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Keeps the spot price history already fetched so that reading the same window again only asks EC2 for the prices
+ * set since. Each query (instance types, product description and availability zone) keeps its prices from the start
+ * of its last window up to {@link #SETTLE_DELAY} before it was last fetched, which is when EC2 is assumed to have
+ * published every price; later queries fetch from there on. A bidding service reading the last week every minute
+ * downloads a minute of prices instead of a week.
+ * <p>Prices are kept in primitive arrays with each instance type, product and zone stored once. At most
+ * {@value #P_MAXIMUM_QUERIES} queries are kept, evicting the least recently used; the store is disabled unless the
+ * property is set to a positive number.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see AWSCloud#getSpotPriceStore()
+ */
+public class EC2SpotPriceStore extends AWSTimeSeriesStore<EC2SpotPriceStore.Prices> {
+    static public final String P_MAXIMUM_QUERIES       = "spotPriceStoreSize";
+    static public final int    DEFAULT_MAXIMUM_QUERIES = 0;
+
+    static public final long SETTLE_DELAY = 5L * 60000L;
+
+    /**
+     * Spot prices held in parallel primitive arrays, each distinct instance type, product and zone held only once.
+     */
+    static public final class Prices implements AWSTimeSeriesStore.Points<Prices> {
+        private final List<String[]>       series      = new ArrayList<String[]>();
+        private final Map<String, Integer> seriesIndex = new HashMap<String, Integer>();
+        private int[]                      seriesOf    = new int[16];
+        private long[]                     timestamps  = new long[16];
+        private float[]                    prices      = new float[16];
+        private int                        size        = 0;
+
+        public void add( @Nonnull EC2SpotPrice price ) {
+            add(price.getInstanceType(), price.getProductDescription(), price.getAvailabilityZone(), price.getTimestamp(), price.getPrice());
+        }
+
+        public void add( @Nonnull String instanceType, @Nullable String productDescription, @Nonnull String availabilityZone, long timestamp, float price ) {
+            String key = instanceType + "|" + productDescription + "|" + availabilityZone;
+            Integer s = seriesIndex.get(key);
+
+            if( s == null ) {
+                s = series.size();
+                series.add(new String[] { instanceType, productDescription, availabilityZone });
+                seriesIndex.put(key, s);
+            }
+            if( size == timestamps.length ) {
+                int capacity = size * 2;
+
+                seriesOf = Arrays.copyOf(seriesOf, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+            }
+            seriesOf[size] = s;
+            timestamps[size] = timestamp;
+            prices[size] = price;
+            size++;
+        }
+
+        /**
+         * Adds the prices of another set falling into a window.
+         *
+         * @param other the prices to copy from, sorted by timestamp
+         * @param startTimestamp the start of the window, inclusive
+         * @param endTimestamp the end of the window, exclusive
+         */
+        @Override
+        public void addAll( @Nonnull Prices other, long startTimestamp, long endTimestamp ) {
+            for( int i = other.indexOf(startTimestamp); i < other.size && other.timestamps[i] < endTimestamp; i++ ) {
+                String[] s = other.series.get(other.seriesOf[i]);
+
+                add(s[0], s[1], s[2], other.timestamps[i], other.prices[i]);
+            }
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        public @Nonnull EC2SpotPrice get( @Nonnegative int i ) {
+            String[] s = series.get(seriesOf[i]);
+
+            return new EC2SpotPrice(s[0], s[1], s[2], timestamps[i], prices[i]);
+        }
+
+        public long getTimestamp( @Nonnegative int i ) {
+            return timestamps[i];
+        }
+
+        public float getPrice( @Nonnegative int i ) {
+            return prices[i];
+        }
+
+        /**
+         * @return the index of the first price at or after the timestamp, assuming the prices are sorted
+         */
+        int indexOf( long timestamp ) {
+            int i = Arrays.binarySearch(timestamps, 0, size, timestamp);
+
+            if( i < 0 ) {
+                return -( i + 1 );
+            }
+            // several series may change price at the same moment
+            while( i > 0 && timestamps[i - 1] == timestamp ) {
+                i--;
+            }
+            return i;
+        }
+
+        /**
+         * @return these prices sorted by timestamp, without the same price reported twice
+         */
+        @Override
+        public @Nonnull Prices sorted() {
+            Integer[] order = new Integer[size];
+
+            for( int i = 0; i < size; i++ ) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare( Integer a, Integer b ) {
+                    if( timestamps[a] != timestamps[b] ) {
+                        return ( timestamps[a] < timestamps[b] ? -1 : 1 );
+                    }
+                    return ( seriesOf[a] < seriesOf[b] ? -1 : ( seriesOf[a] == seriesOf[b] ? 0 : 1 ) );
+                }
+            });
+            Prices copy = new Prices();
+            int last = -1;
+
+            for( Integer i : order ) {
+                if( last < 0 || timestamps[last] != timestamps[i] || seriesOf[last] != seriesOf[i] ) {
+                    String[] s = series.get(seriesOf[i]);
+
+                    copy.add(s[0], s[1], s[2], timestamps[i], prices[i]);
+                    last = i;
+                }
+            }
+            return copy;
+        }
+    }
+
+    /**
+     * Builds the key of a query.
+     *
+     * @param instanceTypes the instance types asked for, null for all of them
+     * @param productDescription the product asked for, null for all of them
+     * @param availabilityZone the availability zone asked for, null for all of them
+     * @return the key of the query
+     */
+    static public @Nonnull String getKey( @Nullable Collection<String> instanceTypes, @Nullable String productDescription, @Nullable String availabilityZone ) {
+        return ( instanceTypes == null ? "*" : new TreeSet<String>(instanceTypes).toString() ) + "|" + productDescription + "|" + availabilityZone;
+    }
+
+    static public @Nonnull EC2SpotPriceStore getInstance( @Nonnull AWSCloud provider ) {
+        return new EC2SpotPriceStore(getSize(provider, P_MAXIMUM_QUERIES, DEFAULT_MAXIMUM_QUERIES));
+    }
+
+    public EC2SpotPriceStore( int maximumQueries ) {
+        super(maximumQueries);
+    }
+
+    @Override
+    protected @Nonnull Prices newPoints() {
+        return new Prices();
+    }
+
+    /**
+     * Provides the spot prices of a query for a window, fetching from EC2 only what is not stored.
+     *
+     * @param key the key of the query, see {@link #getKey(java.util.Collection, String, String)}
+     * @param startTimestamp the start of the window, inclusive
+     * @param endTimestamp the end of the window, exclusive
+     * @param fetcher fetches spot prices from EC2
+     * @return the spot prices in the window, sorted by timestamp
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull Prices get( @Nonnull String key, long startTimestamp, long endTimestamp, @Nonnull Fetcher<Prices> fetcher ) throws CloudException, InternalException {
+        long settled = Math.min(endTimestamp, System.currentTimeMillis() - SETTLE_DELAY);
+
+        // the window slides, so nothing before its start is kept
+        return getPoints(key, startTimestamp, endTimestamp, settled, startTimestamp, fetcher);
+    }
+}
@@ -0,0 +1,783 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.apache.log4j.Logger;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.ProviderContext;
+import org.dasein.cloud.Tag;
+import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.compute.MachineImage;
+import org.dasein.cloud.compute.Snapshot;
+import org.dasein.cloud.compute.VirtualMachine;
+import org.dasein.cloud.compute.Volume;
+import org.dasein.cloud.util.APITrace;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index of EC2 resource tags, built by paging through <code>DescribeTags</code>. Lookups by tag
+ * are answered locally instead of listing every resource and matching tags client-side; the matching resources can
+ * then be hydrated with batched, ID-filtered describe calls.
+ * <p>The index is loaded in full on first use. After that it is refreshed incrementally, one resource type at a
+ * time: a lookup reloads only the types it covers whose tags are older than the maximum age (custom property
+ * <code>tagIndexMaxAge</code>, in milliseconds), and only a lookup across all types finding every type out of date
+ * reloads the whole index. It can also be refreshed for a single resource type or a set of resources, and tags
+ * written through {@link org.dasein.cloud.aws.AWSTagWriter} are applied to it as they succeed. Because tags can
+ * also change outside of this provider, results are only as fresh as the last refresh.</p>
+ * <p>Refreshes are serialized, so a full refresh never swaps in tags older than those of a partial refresh
+ * completed while it was fetching.</p>
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ */
+public class EC2TagIndex {
+    static private final Logger logger = AWSCloud.getLogger(EC2TagIndex.class);
+
+    static public final String P_MAX_AGE       = "tagIndexMaxAge";
+    static public final long   DEFAULT_MAX_AGE = 5L * 60L * 1000L;
+
+    static public final String INSTANCE = "instance";
+    static public final String VOLUME   = "volume";
+    static public final String SNAPSHOT = "snapshot";
+    static public final String IMAGE    = "image";
+
+    /**
+     * Largest page <code>DescribeTags</code> will return.
+     */
+    static public final int PAGE_SIZE = 1000;
+
+    /**
+     * Number of IDs sent in a single filter when refreshing or hydrating resources.
+     */
+    static public final int MAX_FILTER_VALUES = 200;
+
+    /**
+     * The tags currently known for a single resource.
+     */
+    static public final class Entry {
+        private final String              resourceId;
+        private final String              resourceType;
+        private final Map<String, String> tags;
+
+        Entry( @Nonnull String resourceId, @Nullable String resourceType, @Nonnull Map<String, String> tags ) {
+            this.resourceId = resourceId;
+            this.resourceType = resourceType;
+            this.tags = tags;
+        }
+
+        public @Nonnull String getResourceId() {
+            return resourceId;
+        }
+
+        public @Nullable String getResourceType() {
+            return resourceType;
+        }
+
+        public @Nonnull Map<String, String> getTags() {
+            return Collections.unmodifiableMap(tags);
+        }
+
+        @Override
+        public String toString() {
+            return resourceId + " (" + resourceType + ") " + tags;
+        }
+    }
+
+    static public @Nonnull EC2TagIndex getInstance( @Nonnull AWSCloud provider ) {
+        ProviderContext ctx = provider.getContext();
+        long maxAge = DEFAULT_MAX_AGE;
+
+        if( ctx != null && ctx.getCustomProperties() != null ) {
+            String value = ctx.getCustomProperties().getProperty(P_MAX_AGE);
+
+            if( value != null ) {
+                try {
+                    maxAge = Long.parseLong(value.trim());
+                }
+                catch( NumberFormatException e ) {
+                    logger.warn("Invalid value for " + P_MAX_AGE + ": " + value);
+                }
+            }
+        }
+        return new EC2TagIndex(provider, maxAge);
+    }
+
+    /**
+     * Guesses the type of an EC2 resource from the prefix of its ID, as needed when tags are written for a resource
+     * the index has not seen yet.
+     *
+     * @param resourceId the resource ID
+     * @return the resource type or null if it can't be told from the ID
+     */
+    static public @Nullable String guessResourceType( @Nonnull String resourceId ) {
+        if( resourceId.startsWith("i-") ) {
+            return INSTANCE;
+        }
+        else if( resourceId.startsWith("vol-") ) {
+            return VOLUME;
+        }
+        else if( resourceId.startsWith("snap-") ) {
+            return SNAPSHOT;
+        }
+        else if( resourceId.startsWith("ami-") ) {
+            return IMAGE;
+        }
+        return null;
+    }
+
+    /**
+     * A tag write applied while a refresh was fetching tags, to be applied again on top of what the refresh fetched.
+     */
+    static private final class TagWrite {
+        private final boolean            remove;
+        private final Collection<String> resourceIds;
+        private final Tag[]              tags;
+
+        TagWrite( boolean remove, @Nonnull Collection<String> resourceIds, @Nonnull Tag[] tags ) {
+            this.remove = remove;
+            this.resourceIds = new ArrayList<String>(resourceIds);
+            this.tags = tags;
+        }
+    }
+
+    /**
+     * The tag writes applied since a refresh started fetching.
+     */
+    static private final class Journal {
+        private final List<TagWrite> writes = new ArrayList<TagWrite>();
+    }
+
+    private final AWSCloud provider;
+    private final long     maxAge;
+    private final Object   refreshLock = new Object();
+
+    // resource ID -> entry, and tag key -> tag value -> resource IDs; both guarded by this
+    private Map<String, Entry>                    resources = new HashMap<String, Entry>();
+    private Map<String, Map<String, Set<String>>> index     = new HashMap<String, Map<String, Set<String>>>();
+
+    // one per refresh in progress, guarded by this
+    private final List<Journal> journals = new ArrayList<Journal>();
+
+    // resource type -> time its tags were last fetched, guarded by this
+    private final Map<String, Long> typeRefreshes = new HashMap<String, Long>();
+
+    private volatile long lastRefresh = -1L;
+
+    public EC2TagIndex( @Nonnull AWSCloud provider, long maxAge ) {
+        this.provider = provider;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * @return the number of milliseconds after which the index is reloaded on lookup
+     */
+    public long getMaximumAge() {
+        return maxAge;
+    }
+
+    /**
+     * @return the time of the last full refresh, or -1 if the index has not been loaded yet
+     */
+    public long getLastRefresh() {
+        return lastRefresh;
+    }
+
+    /**
+     * @return true if the index has never been loaded or the tags of any resource type are older than the maximum age
+     */
+    public boolean isStale() {
+        return isStale(null);
+    }
+
+    /**
+     * @param resourceType the resource type, or null for all types
+     * @return true if the index has never been loaded or the tags of the type are older than the maximum age
+     */
+    public boolean isStale( @Nullable String resourceType ) {
+        return ( lastRefresh < 0L || !getStaleTypes(resourceType).isEmpty() );
+    }
+
+    private synchronized @Nonnull List<String> getStaleTypes( @Nullable String resourceType ) {
+        List<String> stale = new ArrayList<String>();
+        long now = System.currentTimeMillis();
+
+        if( resourceType != null ) {
+            Long refreshed = typeRefreshes.get(resourceType);
+
+            if( refreshed == null || now - refreshed > maxAge ) {
+                stale.add(resourceType);
+            }
+            return stale;
+        }
+        for( Map.Entry<String, Long> entry : typeRefreshes.entrySet() ) {
+            if( now - entry.getValue() > maxAge ) {
+                stale.add(entry.getKey());
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Reloads the whole index from <code>DescribeTags</code>. The new index is built off to the side and swapped in
+     * at once; tag writes applied while the tags were being fetched are carried over.
+     *
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public void refresh() throws CloudException, InternalException {
+        APITrace.begin(provider, "TagIndex.refresh");
+        try {
+            synchronized( refreshLock ) {
+                long started = System.currentTimeMillis();
+                Journal journal = startJournal();
+                EC2TagIndex fresh = new EC2TagIndex(provider, maxAge);
+
+                try {
+                    List<DescribeTagsResponseParser.ResourceTag> tags = describeTags(null);
+
+                    for( DescribeTagsResponseParser.ResourceTag tag : tags ) {
+                        fresh.put(tag.getResourceId(), tag.getResourceType(), tag.getKey(), tag.getValue());
+                    }
+                    synchronized( this ) {
+                        fresh.replay(journal);
+                        resources = fresh.resources;
+                        index = fresh.index;
+                        typeRefreshes.clear();
+                        for( String type : new String[] { INSTANCE, VOLUME, SNAPSHOT, IMAGE } ) {
+                            typeRefreshes.put(type, started);
+                        }
+                        for( Entry entry : resources.values() ) {
+                            if( entry.getResourceType() != null ) {
+                                typeRefreshes.put(entry.getResourceType(), started);
+                            }
+                        }
+                    }
+                    if( logger.isDebugEnabled() ) {
+                        logger.debug("Indexed " + tags.size() + " tags in " + ( System.currentTimeMillis() - started ) + "ms");
+                    }
+                }
+                finally {
+                    endJournal(journal);
+                }
+                lastRefresh = started;
+            }
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Reloads the tags of all resources of the specified type, leaving the rest of the index alone.
+     *
+     * @param resourceType the resource type, such as {@link #INSTANCE} or {@link #VOLUME}
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public void refresh( @Nonnull String resourceType ) throws CloudException, InternalException {
+        APITrace.begin(provider, "TagIndex.refreshType");
+        try {
+            synchronized( refreshLock ) {
+                long started = System.currentTimeMillis();
+                Map<String, String> filter = new HashMap<String, String>();
+                Journal journal = startJournal();
+
+                AWSCloud.addFilterParameters(filter, 1, "resource-type", resourceType);
+                try {
+                    List<DescribeTagsResponseParser.ResourceTag> tags = describeTags(filter);
+
+                    synchronized( this ) {
+                        for( Entry entry : new ArrayList<Entry>(resources.values()) ) {
+                            if( resourceType.equals(entry.getResourceType()) ) {
+                                remove(entry.getResourceId());
+                            }
+                        }
+                        for( DescribeTagsResponseParser.ResourceTag tag : tags ) {
+                            put(tag.getResourceId(), tag.getResourceType(), tag.getKey(), tag.getValue());
+                        }
+                        replay(journal);
+                        typeRefreshes.put(resourceType, started);
+                    }
+                }
+                finally {
+                    endJournal(journal);
+                }
+            }
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Reloads the tags of the specified resources, for example right after they were created or modified.
+     * Resources which have no tags any more (or no longer exist) are dropped from the index.
+     *
+     * @param resourceIds the resources to reload
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public void refreshResources( @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+        APITrace.begin(provider, "TagIndex.refreshResources");
+        try {
+            List<String> ids = new ArrayList<String>(new HashSet<String>(resourceIds));
+
+            synchronized( refreshLock ) {
+                for( int i = 0; i < ids.size(); i += MAX_FILTER_VALUES ) {
+                    List<String> chunk = ids.subList(i, Math.min(ids.size(), i + MAX_FILTER_VALUES));
+                    Map<String, String> filter = new HashMap<String, String>();
+                    Journal journal = startJournal();
+
+                    AWSCloud.addFilterParameters(filter, 1, "resource-id", chunk);
+                    try {
+                        List<DescribeTagsResponseParser.ResourceTag> tags = describeTags(filter);
+
+                        synchronized( this ) {
+                            for( String id : chunk ) {
+                                remove(id);
+                            }
+                            for( DescribeTagsResponseParser.ResourceTag tag : tags ) {
+                                put(tag.getResourceId(), tag.getResourceType(), tag.getKey(), tag.getValue());
+                            }
+                            replay(journal);
+                        }
+                    }
+                    finally {
+                        endJournal(journal);
+                    }
+                }
+            }
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Applies a successful tag write to the index so that it does not have to wait for the next refresh to see it.
+     * A removed tag is only dropped where its value matches: <code>DeleteTags</code> only deletes a tag whatever its
+     * value when no value is sent, and this provider always sends one, a missing value being sent as an empty one.
+     *
+     * @param remove true if the tags were removed, false if they were created or overwritten
+     * @param resourceIds the resources whose tags were written
+     * @param tags the tags written
+     */
+    public synchronized void applyTagWrite( boolean remove, @Nonnull Collection<String> resourceIds, @Nonnull Tag... tags ) {
+        if( !journals.isEmpty() ) {
+            TagWrite write = new TagWrite(remove, resourceIds, tags);
+
+            for( Journal journal : journals ) {
+                journal.writes.add(write);
+            }
+        }
+        apply(remove, resourceIds, tags);
+    }
+
+    private void apply( boolean remove, @Nonnull Collection<String> resourceIds, @Nonnull Tag[] tags ) {
+        for( String id : resourceIds ) {
+            Entry entry = resources.get(id);
+
+            for( Tag tag : tags ) {
+                String value = ( tag.getValue() == null ? "" : tag.getValue() );
+
+                if( !remove ) {
+                    put(id, ( entry == null ? guessResourceType(id) : entry.getResourceType() ), tag.getKey(), value);
+                    entry = resources.get(id);
+                }
+                else if( entry != null ) {
+                    String current = entry.tags.get(tag.getKey());
+
+                    if( value.equals(current) ) {
+                        unindex(id, tag.getKey(), current);
+                        entry.tags.remove(tag.getKey());
+                    }
+                }
+            }
+            if( entry != null && entry.tags.isEmpty() ) {
+                resources.remove(id);
+            }
+        }
+    }
+
+    /**
+     * @param resourceId the resource ID
+     * @return the tags known for the resource, empty if it has no tags
+     * @throws CloudException an error occurred loading the index
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull Map<String, String> getTags( @Nonnull String resourceId ) throws CloudException, InternalException {
+        refreshIfStale(guessResourceType(resourceId));
+        synchronized( this ) {
+            Entry entry = resources.get(resourceId);
+
+            if( entry == null ) {
+                return Collections.emptyMap();
+            }
+            return new TreeMap<String, String>(entry.tags);
+        }
+    }
+
+    /**
+     * @return a snapshot of every resource in the index
+     * @throws CloudException an error occurred loading the index
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull List<Entry> getEntries() throws CloudException, InternalException {
+        refreshIfStale(null);
+        synchronized( this ) {
+            List<Entry> list = new ArrayList<Entry>(resources.size());
+
+            for( Entry entry : resources.values() ) {
+                list.add(new Entry(entry.resourceId, entry.resourceType, new HashMap<String, String>(entry.tags)));
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Finds the resources carrying a tag.
+     *
+     * @param key the tag key
+     * @param value the tag value, or null to match any value
+     * @return the matching resource IDs
+     * @throws CloudException an error occurred loading the index
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull Set<String> findResourceIds( @Nonnull String key, @Nullable String value ) throws CloudException, InternalException {
+        return findResourceIds(null, Collections.singletonMap(key, value));
+    }
+
+    /**
+     * Finds the resources of a given type carrying all of the specified tags.
+     *
+     * @param resourceType the resource type, or null for resources of any type
+     * @param tags the tags to match; a null value matches any value of that key
+     * @return the matching resource IDs
+     * @throws CloudException an error occurred loading the index
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull Set<String> findResourceIds( @Nullable String resourceType, @Nonnull Map<String, String> tags ) throws CloudException, InternalException {
+        refreshIfStale(resourceType);
+        synchronized( this ) {
+            Set<String> matches = null;
+
+            for( Map.Entry<String, String> tag : tags.entrySet() ) {
+                Set<String> ids = lookup(tag.getKey(), tag.getValue());
+
+                if( ids.isEmpty() ) {
+                    return new HashSet<String>();
+                }
+                if( matches == null ) {
+                    matches = new HashSet<String>(ids);
+                }
+                else {
+                    matches.retainAll(ids);
+                }
+            }
+            if( matches == null ) {
+                matches = new HashSet<String>(resources.keySet());
+            }
+            if( resourceType != null ) {
+                Iterator<String> it = matches.iterator();
+
+                while( it.hasNext() ) {
+                    Entry entry = resources.get(it.next());
+
+                    if( entry == null || !resourceType.equals(entry.getResourceType()) ) {
+                        it.remove();
+                    }
+                }
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Lists the virtual machines carrying all of the specified tags.
+     *
+     * @param tags the tags to match; a null value matches any value of that key
+     * @return the matching virtual machines
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull List<VirtualMachine> listVirtualMachines( @Nonnull Map<String, String> tags ) throws CloudException, InternalException {
+        APITrace.begin(provider, "TagIndex.listVirtualMachines");
+        try {
+            List<VirtualMachine> list = new ArrayList<VirtualMachine>();
+            List<String> ids = new ArrayList<String>(findResourceIds(INSTANCE, tags));
+            EC2Instance support = provider.getComputeServices().getVirtualMachineSupport();
+
+            for( int i = 0; i < ids.size(); i += MAX_FILTER_VALUES ) {
+                list.addAll(support.describeInstancesByFilter(ids.subList(i, Math.min(ids.size(), i + MAX_FILTER_VALUES))));
+            }
+            return list;
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Lists the volumes carrying all of the specified tags.
+     *
+     * @param tags the tags to match; a null value matches any value of that key
+     * @return the matching volumes
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull List<Volume> listVolumes( @Nonnull Map<String, String> tags ) throws CloudException, InternalException {
+        APITrace.begin(provider, "TagIndex.listVolumes");
+        try {
+            List<Volume> list = new ArrayList<Volume>();
+            List<String> ids = new ArrayList<String>(findResourceIds(VOLUME, tags));
+            EBSVolume support = provider.getComputeServices().getVolumeSupport();
+
+            for( int i = 0; i < ids.size(); i += MAX_FILTER_VALUES ) {
+                list.addAll(support.describeVolumesByFilter(ids.subList(i, Math.min(ids.size(), i + MAX_FILTER_VALUES))));
+            }
+            return list;
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Lists the snapshots carrying all of the specified tags.
+     *
+     * @param tags the tags to match; a null value matches any value of that key
+     * @return the matching snapshots
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull List<Snapshot> listSnapshots( @Nonnull Map<String, String> tags ) throws CloudException, InternalException {
+        APITrace.begin(provider, "TagIndex.listSnapshots");
+        try {
+            List<Snapshot> list = new ArrayList<Snapshot>();
+            List<String> ids = new ArrayList<String>(findResourceIds(SNAPSHOT, tags));
+            EBSSnapshot support = provider.getComputeServices().getSnapshotSupport();
+
+            for( int i = 0; i < ids.size(); i += MAX_FILTER_VALUES ) {
+                list.addAll(support.describeSnapshotsByFilter(ids.subList(i, Math.min(ids.size(), i + MAX_FILTER_VALUES))));
+            }
+            return list;
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    /**
+     * Lists the machine images carrying all of the specified tags.
+     *
+     * @param tags the tags to match; a null value matches any value of that key
+     * @return the matching images
+     * @throws CloudException an error occurred with the cloud provider
+     * @throws InternalException an error occurred within the Dasein Cloud implementation
+     */
+    public @Nonnull List<MachineImage> listImages( @Nonnull Map<String, String> tags ) throws CloudException, InternalException {
+        APITrace.begin(provider, "TagIndex.listImages");
+        try {
+            List<MachineImage> list = new ArrayList<MachineImage>();
+            List<String> ids = new ArrayList<String>(findResourceIds(IMAGE, tags));
+            AMI support = provider.getComputeServices().getImageSupport();
+
+            for( int i = 0; i < ids.size(); i += MAX_FILTER_VALUES ) {
+                list.addAll(support.describeImagesByFilter(ids.subList(i, Math.min(ids.size(), i + MAX_FILTER_VALUES))));
+            }
+            return list;
+        }
+        finally {
+            APITrace.end();
+        }
+    }
+
+    private synchronized @Nonnull Journal startJournal() {
+        Journal journal = new Journal();
+
+        journals.add(journal);
+        return journal;
+    }
+
+    private synchronized void endJournal( @Nonnull Journal journal ) {
+        for( Iterator<Journal> it = journals.iterator(); it.hasNext(); ) {
+            if( it.next() == journal ) {
+                it.remove();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies the tag writes made while fetching again, as the fetched tags may predate them. Must hold this.
+     */
+    private void replay( @Nonnull Journal journal ) {
+        for( TagWrite write : journal.writes ) {
+            apply(write.remove, write.resourceIds, write.tags);
+        }
+    }
+
+    /**
+     * Loads the index if it has never been loaded, otherwise reloads the tags of the out of date resource types
+     * covered by a lookup.
+     *
+     * @param resourceType the type covered by the lookup, or null for all types
+     */
+    private void refreshIfStale( @Nullable String resourceType ) throws CloudException, InternalException {
+        if( !isStale(resourceType) ) {
+            return;
+        }
+        synchronized( refreshLock ) {
+            // another thread may have refreshed while this one was waiting
+            if( lastRefresh < 0L ) {
+                refresh();
+                return;
+            }
+            List<String> stale = getStaleTypes(resourceType);
+            int known;
+
+            synchronized( this ) {
+                known = typeRefreshes.size();
+            }
+            if( resourceType == null && stale.size() == known ) {
+                refresh();
+                return;
+            }
+            for( String type : stale ) {
+                refresh(type);
+            }
+        }
+    }
+
+    /**
+     * Pages through <code>DescribeTags</code> with the specified filters.
+     */
+    private @Nonnull List<DescribeTagsResponseParser.ResourceTag> describeTags( @Nullable Map<String, String> filter ) throws CloudException, InternalException {
+        List<DescribeTagsResponseParser.ResourceTag> tags = new ArrayList<DescribeTagsResponseParser.ResourceTag>();
+        DescribeTagsResponseParser parser = new DescribeTagsResponseParser(tags);
+        String nextToken = null;
+
+        do {
+            Map<String, String> parameters = provider.getStandardParameters(provider.getContext(), EC2Method.DESCRIBE_TAGS);
+
+            parameters.put("MaxResults", String.valueOf(PAGE_SIZE));
+            if( nextToken != null ) {
+                parameters.put("NextToken", nextToken);
+            }
+            AWSCloud.addExtraParameters(parameters, filter);
+            try {
+                new EC2Method(provider, parameters).invoke(parser);
+            }
+            catch( EC2Exception e ) {
+                logger.error(e.getSummary());
+                throw new CloudException(e);
+            }
+            nextToken = parser.getNextToken();
+        } while( nextToken != null );
+        return tags;
+    }
+
+    private @Nonnull Set<String> lookup( @Nonnull String key, @Nullable String value ) {
+        Map<String, Set<String>> values = index.get(key);
+
+        if( values == null ) {
+            return Collections.emptySet();
+        }
+        if( value != null ) {
+            Set<String> ids = values.get(value);
+
+            return ( ids == null ? Collections.<String>emptySet() : ids );
+        }
+        Set<String> ids = new HashSet<String>();
+
+        for( Set<String> s : values.values() ) {
+            ids.addAll(s);
+        }
+        return ids;
+    }
+
+    private void put( @Nonnull String resourceId, @Nullable String resourceType, @Nonnull String key, @Nonnull String value ) {
+        Entry entry = resources.get(resourceId);
+
+        if( entry == null ) {
+            entry = new Entry(resourceId, resourceType, new HashMap<String, String>());
+            resources.put(resourceId, entry);
+        }
+        String previous = entry.tags.put(key, value);
+
+        if( previous != null ) {
+            unindex(resourceId, key, previous);
+        }
+        Map<String, Set<String>> values = index.get(key);
+
+        if( values == null ) {
+            values = new HashMap<String, Set<String>>();
+            index.put(key, values);
+        }
+        Set<String> ids = values.get(value);
+
+        if( ids == null ) {
+            ids = new HashSet<String>();
+            values.put(value, ids);
+        }
+        ids.add(resourceId);
+    }
+
+    private void remove( @Nonnull String resourceId ) {
+        Entry entry = resources.remove(resourceId);
+
+        if( entry != null ) {
+            for( Map.Entry<String, String> tag : entry.tags.entrySet() ) {
+                unindex(resourceId, tag.getKey(), tag.getValue());
+            }
+        }
+    }
+
+    private void unindex( @Nonnull String resourceId, @Nonnull String key, @Nonnull String value ) {
+        Map<String, Set<String>> values = index.get(key);
+
+        if( values != null ) {
+            Set<String> ids = values.get(value);
+
+            if( ids != null ) {
+                ids.remove(resourceId);
+                if( ids.isEmpty() ) {
+                    values.remove(value);
+                    if( values.isEmpty() ) {
+                        index.remove(key);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -45,14 +45,6 @@ import java.util.concurrent.*;
 public class ElasticIP extends AbstractIpAddressSupport<AWSCloud> {
     static private final Logger logger = AWSCloud.getLogger(ElasticIP.class);
 
-    static private final ExecutorService threadPool = Executors.newCachedThreadPool(new ThreadFactory() {
-        @Override
-        public Thread newThread(Runnable r) {
-            Thread t = new Thread(r, "dasein-ip-pool");
-            t.setDaemon(true);
-            return t;
-        }
-    });
     private transient volatile ElasticIPAddressCapabilities capabilities;
 
     ElasticIP(AWSCloud provider) {
@@ -304,8 +296,8 @@ public class ElasticIP extends AbstractIpAddressSupport<AWSCloud> {
     Iterable<IpAddress> listIpPool(@Nonnull IPVersion version, boolean unassignedOnly) throws InternalException, CloudException {
         APITrace.begin(getProvider(), "IpAddress.listIpPool");
         try {
-            Future<Iterable<IpAddress>> ipPoolFuture = listIpPoolConcurrently(version, unassignedOnly);
-            return ipPoolFuture.get();
+            // no point in handing a synchronous call over to the executor
+            return new ListIpPoolCallable(version, unassignedOnly).call();
         } catch (CloudException ce) {
             throw ce;
         } catch (Exception e) {
@@ -316,7 +308,7 @@ public class ElasticIP extends AbstractIpAddressSupport<AWSCloud> {
     }
 
     public Future<Iterable<IpAddress>> listIpPoolConcurrently(IPVersion version, boolean unassignedOnly) throws CloudException, InternalException {
-        return threadPool.submit(
+        return getProvider().getExecutor().submit(
                 new ListIpPoolCallable(
                         version,
                         unassignedOnly
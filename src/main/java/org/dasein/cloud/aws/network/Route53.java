@@ -34,7 +34,6 @@ import org.dasein.cloud.network.DNSZone;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -363,13 +362,13 @@ public class Route53 implements DNSSupport {
         if( ctx == null ) {
             throw new CloudException("No context was configured for this request");
         }
-        PopulatorThread<DNSRecord> populator;
+        Jiterator<DNSRecord> populator;
         final String zoneId = providerDnsZoneId;
         final DNSRecordType type = forType;
         final String nom = name;
 
         provider.hold();
-        populator = new PopulatorThread<DNSRecord>(new JiteratorPopulator<DNSRecord>() {
+        populator = provider.getExecutor().populate(new JiteratorPopulator<DNSRecord>() {
             public void populate(@Nonnull Jiterator<DNSRecord> iterator) throws CloudException, InternalException {
                 try {
                     populateRecords(iterator, zoneId, type, nom);
@@ -379,8 +378,7 @@ public class Route53 implements DNSSupport {
                 }
             }
         });
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
     
     private void populateRecords(@Nonnull Jiterator<DNSRecord> iterator, @Nonnull String providerDnsZoneId, @Nullable DNSRecordType forType, @Nullable String name) throws CloudException, InternalException {
@@ -450,10 +448,10 @@ public class Route53 implements DNSSupport {
         if( ctx == null ) {
             throw new CloudException("No context was configured for this request");
         }
-        PopulatorThread<ResourceStatus> populator;
+        Jiterator<ResourceStatus> populator;
 
         provider.hold();
-        populator = new PopulatorThread<ResourceStatus>(new JiteratorPopulator<ResourceStatus>() {
+        populator = provider.getExecutor().populate(new JiteratorPopulator<ResourceStatus>() {
             public void populate(@Nonnull Jiterator<ResourceStatus> iterator) throws CloudException, InternalException {
                 try {
                     populateZoneStatus(iterator, null);
@@ -463,8 +461,7 @@ public class Route53 implements DNSSupport {
                 }
             }
         });
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     @Override
@@ -474,17 +471,16 @@ public class Route53 implements DNSSupport {
         if( ctx == null ) {
             throw new CloudException("No context was configured for this request");
         }
-        PopulatorThread<DNSZone> populator;
+        Jiterator<DNSZone> populator;
         
         provider.hold();
-        populator = new PopulatorThread<DNSZone>(new JiteratorPopulator<DNSZone>() {
+        populator = provider.getExecutor().populate(new JiteratorPopulator<DNSZone>() {
             public void populate(@Nonnull Jiterator<DNSZone> iterator) throws CloudException, InternalException {
                 populateZones(ctx, iterator, null);
                 provider.release();
             }
         });        
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     @Override
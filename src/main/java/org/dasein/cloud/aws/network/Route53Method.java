@@ -36,22 +36,20 @@ import org.dasein.cloud.CloudException;
 import org.dasein.cloud.InternalException;
 import org.dasein.cloud.ProviderContext;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTimestamps;
+import org.dasein.cloud.aws.AWSErrorResponse;
 import org.dasein.cloud.aws.compute.EC2Exception;
 import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.network.DNSSupport;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.cloud.util.XMLParser;
 import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import javax.annotation.Nonnull;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.TimeZone;
 
 public class Route53Method {
     static private final Logger logger = AWSCloud.getLogger(Route53Method.class);
@@ -122,10 +120,7 @@ public class Route53Method {
 	}
 
     public String getTimestamp(long timestamp) {
-        SimpleDateFormat fmt = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z");
-
-        fmt.setTimeZone(TimeZone.getTimeZone("UTC"));
-        return fmt.format(new Date(timestamp));
+        return AWSTimestamps.formatRfc1123(timestamp);
     }
 
     private Document delete() throws EC2Exception, CloudException, InternalException {
@@ -237,45 +232,13 @@ public class Route53Method {
     		    String msg = "API Access Denied (403)";
     		    
                 try {
-                    try {
-                        Document doc = parseResponse(xml, false);
-
-                        if( doc != null ) {
-                            NodeList blocks = doc.getElementsByTagName("Error");
-                            String code = null, message = null, requestId = null;
-
-                            if( blocks.getLength() > 0 ) {
-                                Node error = blocks.item(0);
-                                NodeList attrs = error.getChildNodes();
-                                for( int i=0; i<attrs.getLength(); i++ ) {
-                                    Node attr = attrs.item(i);
-
-                                    if( attr.getNodeName().equals("Code") ) {
-                                        code = attr.getFirstChild().getNodeValue().trim();
-                                    }
-                                    else if( attr.getNodeName().equals("Message") ) {
-                                        message = attr.getFirstChild().getNodeValue().trim();
-                                    }
-                                }
+                    AWSErrorResponse error = AWSErrorResponse.parse(status, xml);
 
-                            }
-                            blocks = doc.getElementsByTagName("RequestID");
-                            if( blocks.getLength() > 0 ) {
-                                Node id = blocks.item(0);
-
-                                requestId = id.getFirstChild().getNodeValue().trim();
-                            }
-                            if( message == null ) {
-                                throw new CloudException("Unable to identify error condition: " + status + "/" + requestId + "/" + code);
-                            }
-                            throw EC2Exception.create(status, requestId, code, message);
+                    if( !error.isEmpty() ) {
+                        if( error.getMessage() == null ) {
+                            throw new CloudException("Unable to identify error condition: " + status + "/" + error.getRequestId() + "/" + error.getCode());
                         }
-                    }
-                    catch( RuntimeException ignore  ) {
-                        // ignore me
-                    }
-                    catch( Error ignore  ) {
-                        // ignore me
+                        throw EC2Exception.create(status, error.getRequestId(), error.getCode(), error.getMessage());
                     }
                     msg = msg + ": " + xml.trim().replaceAll("\n", " / ");
                 } 
@@ -313,40 +276,12 @@ public class Route53Method {
     					}
     				}
     			}
-                Document doc;
-
-                doc = parseResponse(xml, false);
-                if( doc != null ) {
-                    NodeList blocks = doc.getElementsByTagName("Error");
-                    String code = null, message = null, requestId = null;
+                AWSErrorResponse error = AWSErrorResponse.parse(status, xml);
 
-                    if( blocks.getLength() > 0 ) {
-                        Node error = blocks.item(0);
-                        NodeList attrs = error.getChildNodes();
-                        for( int i=0; i<attrs.getLength(); i++ ) {
-                            Node attr = attrs.item(i);
-
-                            if( attr.getNodeName().equals("Code") ) {
-                                code = attr.getFirstChild().getNodeValue().trim();
-                            }
-                            else if( attr.getNodeName().equals("Message") ) {
-                                message = attr.getFirstChild().getNodeValue().trim();
-                            }
-                        }
-
-                    }
-                    blocks = doc.getElementsByTagName("RequestID");
-                    if( blocks.getLength() > 0 ) {
-                        Node id = blocks.item(0);
-
-                        requestId = id.getFirstChild().getNodeValue().trim();
-                    }
-                    if( message == null ) {
-                        throw new CloudException("Unable to identify error condition: " + status + "/" + requestId + "/" + code);
-                    }
-                    throw EC2Exception.create(status, requestId, code, message);
+                if( error.getMessage() == null ) {
+                    throw new CloudException("Unable to identify error condition: " + status + "/" + error.getRequestId() + "/" + error.getCode());
                 }
-                throw new CloudException("Unable to parse error.");
+                throw EC2Exception.create(status, error.getRequestId(), error.getCode(), error.getMessage());
     		}
         }
         finally {
@@ -33,7 +33,6 @@ import org.dasein.cloud.network.*;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -1595,7 +1594,7 @@ public class VPC extends AbstractVLANSupport<AWSCloud> {
     public
     @Nonnull Iterable<Networkable> listResources(final @Nonnull String vlanId) throws CloudException, InternalException {
         getProvider().hold();
-        PopulatorThread<Networkable> populator = new PopulatorThread<Networkable>(new JiteratorPopulator<Networkable>() {
+        Jiterator<Networkable> populator = getProvider().getExecutor().populate(new JiteratorPopulator<Networkable>() {
             @Override
             public void populate(@Nonnull Jiterator<Networkable> iterator) throws Exception {
                 try {
@@ -1656,8 +1655,7 @@ public class VPC extends AbstractVLANSupport<AWSCloud> {
             }
         });
 
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     @Override
@@ -32,30 +32,22 @@ import org.dasein.cloud.CloudException;
 import org.dasein.cloud.InternalException;
 import org.dasein.cloud.ProviderContext;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTimestamps;
+import org.dasein.cloud.aws.AWSErrorResponse;
 import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.platform.CDNSupport;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.cloud.util.XMLParser;
 import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import javax.annotation.Nonnull;
 import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.Map;
-import java.util.SimpleTimeZone;
 
 public class CloudFrontMethod {
 	static private final Logger logger = Logger.getLogger(CloudFrontMethod.class);
-    static SimpleDateFormat fmt = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z");
-    static {
-        fmt.setCalendar(Calendar.getInstance(new SimpleTimeZone(0, "GMT")));
-    }
     static public final String CF_PREFIX = "cloudfront:";
 
     static public @Nonnull ServiceAction[] asCloudFrontServiceAction(@Nonnull String action) {
@@ -98,7 +90,7 @@ public class CloudFrontMethod {
 
 	private static String getDate() throws CloudException {
 		// TODO: sync regularly with CloudFront
-		return fmt.format(new Date());
+		return AWSTimestamps.formatRfc1123(System.currentTimeMillis());
 	}
 
 	CloudFrontResponse invoke(String ... args) throws CloudFrontException, CloudException, InternalException {
@@ -237,50 +229,18 @@ public class CloudFrontMethod {
                     catch( IOException e ) {
                         throw new CloudException(e);
                     }
-                    Document doc;
+                    AWSErrorResponse error;
 
                     try {
-                        doc = parseResponse(input);
+                        error = AWSErrorResponse.parse(status, input);
                     }
                     finally {
                         input.close();
                     }
-                    if( doc != null ) {
-                        String code = null, message = null, requestId = null, type = null;
-                        NodeList blocks = doc.getElementsByTagName("Error");
-
-                        if( blocks.getLength() > 0 ) {
-                            Node error = blocks.item(0);
-                            NodeList attrs;
-
-                            attrs = error.getChildNodes();
-                            for( int i=0; i<attrs.getLength(); i++ ) {
-                                Node attr = attrs.item(i);
-
-                                if( attr.getNodeName().equals("Code") ) {
-                                    code = attr.getFirstChild().getNodeValue().trim();
-                                }
-                                else if( attr.getNodeName().equals("Type") ) {
-                                    type = attr.getFirstChild().getNodeValue().trim();
-                                }
-                                else if( attr.getNodeName().equals("Message") ) {
-                                    message = attr.getFirstChild().getNodeValue().trim();
-                                }
-                            }
-
-                        }
-                        blocks = doc.getElementsByTagName("RequestId");
-                        if( blocks.getLength() > 0 ) {
-                            Node id = blocks.item(0);
-
-                            requestId = id.getFirstChild().getNodeValue().trim();
-                        }
-                        if( message == null ) {
-                            throw new CloudException("Unable to identify error condition: " + status + "/" + requestId + "/" + code);
-                        }
-                        throw new CloudFrontException(status, requestId, type, code, message);
+                    if( error.getMessage() == null ) {
+                        throw new CloudException("Unable to identify error condition: " + status + "/" + error.getRequestId() + "/" + error.getCode());
                     }
-                    throw new CloudException("Unable to parse error.");
+                    throw new CloudFrontException(status, error.getRequestId(), error.getType(), error.getCode(), error.getMessage());
                 }
                 catch( IOException e ) {
                     logger.error(e);
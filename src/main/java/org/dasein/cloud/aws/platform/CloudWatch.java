@@ -31,7 +31,6 @@ import org.dasein.cloud.platform.*;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -308,10 +307,10 @@ public class CloudWatch extends AbstractMonitoringSupport {
 
     @Override
     public @Nonnull Collection<Metric> listMetrics( final MetricFilterOptions options ) throws InternalException, CloudException {
-        PopulatorThread<Metric> populator;
+        Jiterator<Metric> populator;
 
         provider.hold();
-        populator = new PopulatorThread<Metric>(new JiteratorPopulator<Metric>() {
+        populator = provider.getExecutor().populate(new JiteratorPopulator<Metric>() {
             public void populate( @Nonnull Jiterator<Metric> iterator ) throws CloudException, InternalException {
                 try {
                     populateMetrics(iterator, null, options);
@@ -320,8 +319,7 @@ public class CloudWatch extends AbstractMonitoringSupport {
                 }
             }
         });
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     private void populateMetrics( @Nonnull Jiterator<Metric> iterator, @Nullable String nextToken, MetricFilterOptions options ) throws CloudException, InternalException {
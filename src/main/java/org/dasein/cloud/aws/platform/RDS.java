@@ -28,6 +28,7 @@ import org.apache.http.HttpStatus;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.*;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSStateWaiter;
 import org.dasein.cloud.aws.compute.EC2Exception;
 import org.dasein.cloud.aws.compute.EC2Method;
 import org.dasein.cloud.aws.model.DatabaseProductDefinition;
@@ -45,7 +46,6 @@ import org.dasein.cloud.util.APITrace;
 import org.dasein.util.CalendarWrapper;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -502,11 +502,11 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
         if( providerConfigurationId == null ) {
             return null;
         }
-        PopulatorThread<DatabaseConfiguration> populator;
+        Jiterator<DatabaseConfiguration> populator;
         final String id = providerConfigurationId;
 
         getProvider().hold();
-        populator = new PopulatorThread<DatabaseConfiguration>(new JiteratorPopulator<DatabaseConfiguration>() {
+        populator = getProvider().getExecutor().populate(new JiteratorPopulator<DatabaseConfiguration>() {
             public void populate(Jiterator<DatabaseConfiguration> iterator) throws CloudException, InternalException {
                 try {
                     populateConfigurationList(id, iterator);
@@ -516,8 +516,7 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
                 }
             }
         });
-        populator.populate();
-        Iterator<DatabaseConfiguration> it = populator.getResult().iterator();
+        Iterator<DatabaseConfiguration> it = populator.iterator();
         
         if( it.hasNext() ) {
             return it.next();
@@ -904,11 +903,11 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
     }
     
     private Iterable<String> getSecurityGroups(String databaseId) throws CloudException, InternalException {
-        PopulatorThread<String> populator;
+        Jiterator<String> populator;
         final String dbId = databaseId;
 
         getProvider().hold();
-        populator = new PopulatorThread<String>(new JiteratorPopulator<String>() {
+        populator = getProvider().getExecutor().populate(new JiteratorPopulator<String>() {
             public void populate(Jiterator<String> iterator) throws CloudException, InternalException {
                 try {
                     populateSecurityGroupIds(dbId, iterator);
@@ -918,19 +917,18 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
                 }
             }
         });
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
     
     public DatabaseSnapshot getSnapshot(String providerDbSnapshotId) throws CloudException, InternalException {
         if( providerDbSnapshotId == null ) {
             return null;
         }
-        PopulatorThread<DatabaseSnapshot> populator;
+        Jiterator<DatabaseSnapshot> populator;
         final String id = providerDbSnapshotId;
 
         getProvider().hold();
-        populator = new PopulatorThread<DatabaseSnapshot>(new JiteratorPopulator<DatabaseSnapshot>() {
+        populator = getProvider().getExecutor().populate(new JiteratorPopulator<DatabaseSnapshot>() {
             public void populate(Jiterator<DatabaseSnapshot> iterator) throws CloudException, InternalException {
                 try {
                     populateSnapshotList(id, null, iterator);
@@ -940,8 +938,7 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
                 }
             }
         });
-        populator.populate();
-        Iterator<DatabaseSnapshot> it = populator.getResult().iterator();
+        Iterator<DatabaseSnapshot> it = populator.iterator();
         
         if( it.hasNext() ) {
             return it.next();
@@ -981,11 +978,11 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
     }
 
     public Iterable<String> listAccess(String toProviderDatabaseId) throws CloudException, InternalException {
-        PopulatorThread<String> idPopulator, accessPopulator;
+        Jiterator<String> idPopulator, accessPopulator;
         final String dbId = toProviderDatabaseId;
 
         getProvider().hold();
-        idPopulator = new PopulatorThread<String>(new JiteratorPopulator<String>() {
+        idPopulator = getProvider().getExecutor().populate(new JiteratorPopulator<String>() {
             public void populate(Jiterator<String> iterator) throws CloudException, InternalException {
                 try {
                     populateSecurityGroupIds(dbId, iterator);
@@ -995,14 +992,13 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
                 }
             }
         });
-        idPopulator.populate();
 
-        final Iterable<String> ids = idPopulator.getResult();
+        final Iterable<String> ids = idPopulator;
 
         String ec2Type = getProvider().getDataCenterServices().isRegionEC2VPC(getProvider().getContext().getRegionId());
         if(ec2Type.equals(AWSCloud.PLATFORM_EC2)) {
             getProvider().hold();
-            accessPopulator = new PopulatorThread<String>(new JiteratorPopulator<String>() {
+            accessPopulator = getProvider().getExecutor().populate(new JiteratorPopulator<String>() {
                 public void populate(Jiterator<String> iterator) throws CloudException, InternalException {
                     try {
                         for( String id : ids ) {
@@ -1014,8 +1010,7 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
                     }
                 }
             });
-            accessPopulator.populate();
-            return accessPopulator.getResult();
+            return accessPopulator;
         }
         else {
             List<String> cidrs = new ArrayList<String>();
@@ -1034,15 +1029,14 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
     }
     
     public Iterable<DatabaseConfiguration> listConfigurations() throws CloudException, InternalException {
-        PopulatorThread<DatabaseConfiguration> populator;
+        Jiterator<DatabaseConfiguration> populator;
 
-        populator = new PopulatorThread<DatabaseConfiguration>(new JiteratorPopulator<DatabaseConfiguration>() {
+        populator = getProvider().getExecutor().populate(new JiteratorPopulator<DatabaseConfiguration>() {
             public void populate(Jiterator<DatabaseConfiguration> iterator) throws CloudException, InternalException {
                 populateConfigurationList(null, iterator);
             }
         });
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     @Override
@@ -1181,49 +1175,26 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
     }
     
     public Collection<ConfigurationParameter> listParameters(String forProviderConfigurationId) throws CloudException, InternalException {
-        PopulatorThread<ConfigurationParameter> populator;
-        final String id = forProviderConfigurationId;
+        // callers get the whole collection anyway, so there is nothing to gain from populating in the background
+        List<ConfigurationParameter> list = new ArrayList<ConfigurationParameter>();
 
-        getProvider().hold();
-        populator = new PopulatorThread<ConfigurationParameter>(new JiteratorPopulator<ConfigurationParameter>() {
-            public void populate(Jiterator<ConfigurationParameter> iterator) throws CloudException, InternalException {
-                try {
-                    populateParameterList(id, null, iterator);
-                }
-                finally {
-                    getProvider().release();
-                }
-            }
-        });
-        populator.populate();
-        return populator.getResult();
+        populateParameterList(forProviderConfigurationId, null, list);
+        return list;
     }
     
     public Collection<ConfigurationParameter> listDefaultParameters(DatabaseEngine engine) throws CloudException, InternalException {
-        PopulatorThread<ConfigurationParameter> populator;
-        final DatabaseEngine dbEngine = engine;
+        List<ConfigurationParameter> list = new ArrayList<ConfigurationParameter>();
 
-        getProvider().hold();
-        populator = new PopulatorThread<ConfigurationParameter>(new JiteratorPopulator<ConfigurationParameter>() {
-            public void populate(Jiterator<ConfigurationParameter> iterator) throws CloudException, InternalException {
-                try {
-                    populateParameterList(null, dbEngine, iterator);
-                }
-                finally {
-                    getProvider().release();
-                }
-            }
-        });
-        populator.populate();
-        return populator.getResult();
+        populateParameterList(null, engine, list);
+        return list;
     }
     
     public Iterable<DatabaseSnapshot> listSnapshots(String forOptionalProviderDatabaseId) throws CloudException, InternalException {
-        PopulatorThread<DatabaseSnapshot> populator;
+        Jiterator<DatabaseSnapshot> populator;
 
         getProvider().hold();
         final String id = (forOptionalProviderDatabaseId == null ? null : forOptionalProviderDatabaseId);
-        populator = new PopulatorThread<DatabaseSnapshot>(new JiteratorPopulator<DatabaseSnapshot>() {
+        populator = getProvider().getExecutor().populate(new JiteratorPopulator<DatabaseSnapshot>() {
             public void populate(Jiterator<DatabaseSnapshot> iterator) throws CloudException, InternalException {
                 try {
                     populateSnapshotList(null, id, iterator);
@@ -1233,8 +1204,7 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
                 }
             }
         });
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     @Override
@@ -1373,7 +1343,7 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
         }
     }
     
-    private void populateParameterList(String cfgId, DatabaseEngine engine, Jiterator<ConfigurationParameter> iterator) throws CloudException, InternalException {
+    private void populateParameterList(String cfgId, DatabaseEngine engine, Collection<ConfigurationParameter> list) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "RDBMS.populateParameterList");
         try {
             String marker = null;
@@ -1427,7 +1397,7 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
                             ConfigurationParameter param = toParameter(item);
 
                             if( param != null ) {
-                                iterator.push(param);
+                                list.add(param);
                             }
                         }
                     }
@@ -1650,20 +1620,20 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
     public void removeDatabase(String providerDatabaseId) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "RDBMS.removeDatabase");
         try {
-            long timeout = System.currentTimeMillis() + (CalendarWrapper.MINUTE*10L);
-            Database db = getDatabase(providerDatabaseId);
+            Set<String> targets = new HashSet<String>();
+
+            targets.add(DatabaseState.AVAILABLE.name());
+            targets.add(DatabaseState.DELETED.name());
+            targets.add(AWSStateWaiter.GONE);
+            try {
+                String state = getProvider().getStateWaiter().await(getStatePoller(), providerDatabaseId, targets, CalendarWrapper.MINUTE*10L);
 
-            while( timeout > System.currentTimeMillis() ) {
-                if( db == null || DatabaseState.DELETED.equals(db.getCurrentState()) ) {
+                if( !DatabaseState.AVAILABLE.name().equals(state) ) {
                     return;
                 }
-                if( DatabaseState.AVAILABLE.equals(db.getCurrentState()) ) {
-                    break;
-                }
-                try { Thread.sleep(15000L); }
-                catch( InterruptedException ignore ) { }
-                try { db = getDatabase(providerDatabaseId); }
-                catch( Throwable ignore ) { }
+            }
+            catch( CloudException e ) {
+                logger.warn("Removing database " + providerDatabaseId + " without it becoming available: " + e.getMessage());
             }
             Iterable<String> securityGroups = getSecurityGroups(providerDatabaseId);
 
@@ -1784,12 +1754,62 @@ public class RDS extends AbstractRelationalDatabaseSupport<AWSCloud> {
             catch( EC2Exception e ) {
                 throw new CloudException(e);
             }
+            if( blockUntilDone ) {
+                // the reboot is not always reflected right away, so don't mistake the old state for the end of it
+                try {
+                    getProvider().getStateWaiter().await(getStatePoller(), providerDatabaseId, Collections.singleton(DatabaseState.RESTARTING.name()), CalendarWrapper.MINUTE*2L);
+                }
+                catch( CloudException e ) {
+                    logger.debug("Database " + providerDatabaseId + " was not seen restarting: " + e.getMessage());
+                }
+                getProvider().getStateWaiter().await(getStatePoller(), providerDatabaseId, Collections.singleton(DatabaseState.AVAILABLE.name()), CalendarWrapper.MINUTE*30L);
+            }
         }
         finally {
             APITrace.end();
         }
     }
 
+    /**
+     * Provides a poller for the shared state waiter which looks up the state of databases. A single database is
+     * described directly, more than one are picked out of a single listing of all databases.
+     *
+     * @return a poller mapping database IDs to the names of their {@link DatabaseState}
+     */
+    public @Nonnull AWSStateWaiter.StatePoller getStatePoller() {
+        return new AWSStateWaiter.StatePoller() {
+            @Override
+            public @Nonnull String getResourceType() {
+                return "database";
+            }
+
+            @Override
+            public int getMaximumBatchSize() {
+                return Integer.MAX_VALUE;
+            }
+
+            @Override
+            public @Nonnull Map<String, String> poll(@Nonnull Collection<String> resourceIds) throws CloudException, InternalException {
+                Map<String, String> states = new HashMap<String, String>();
+
+                if( resourceIds.size() == 1 ) {
+                    Database db = getDatabase(resourceIds.iterator().next());
+
+                    if( db != null ) {
+                        states.put(db.getProviderDatabaseId(), db.getCurrentState().name());
+                    }
+                    return states;
+                }
+                for( Database db : listDatabases() ) {
+                    if( resourceIds.contains(db.getProviderDatabaseId()) ) {
+                        states.put(db.getProviderDatabaseId(), db.getCurrentState().name());
+                    }
+                }
+                return states;
+            }
+        };
+    }
+
     /**
      * Use this to revoke access of security groups in EC2-Classic
      * @param groupName
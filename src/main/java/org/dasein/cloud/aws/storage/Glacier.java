@@ -22,13 +22,13 @@ package org.dasein.cloud.aws.storage;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.*;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTimestamps;
 import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.storage.*;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.cloud.util.NamingConstraints;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.dasein.util.uom.storage.Byte;
 import org.dasein.util.uom.storage.Megabyte;
 import org.dasein.util.uom.storage.Storage;
@@ -40,7 +40,6 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.File;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 /**
@@ -198,7 +197,7 @@ public class Glacier extends AbstractBlobStoreSupport<AWSCloud> implements Offli
 
     @Override
     public @Nonnull Collection<Blob> list(final @Nullable String bucket) throws CloudException, InternalException {
-        PopulatorThread <Blob> populator;
+        Jiterator<Blob> populator;
 
         final String regionId = getContext().getRegionId();
 
@@ -206,7 +205,7 @@ public class Glacier extends AbstractBlobStoreSupport<AWSCloud> implements Offli
             throw new CloudException("No region ID was specified");
         }
     	getProvider().hold();
-    	populator = new PopulatorThread<Blob>(new JiteratorPopulator<Blob>() {
+    	populator = getProvider().getExecutor().populate(new JiteratorPopulator<Blob>() {
     		public void populate(@Nonnull Jiterator<Blob> iterator) throws CloudException, InternalException {
                 try {
                     list(regionId, bucket, iterator);
@@ -216,8 +215,7 @@ public class Glacier extends AbstractBlobStoreSupport<AWSCloud> implements Offli
                 }
     		}
     	});
-    	populator.populate();
-    	return populator.getResult();
+    	return populator;
     }
 
     private void list(@Nonnull String regionId, @Nullable String bucket, @Nonnull Jiterator<Blob> iterator) throws CloudException, InternalException {
@@ -314,19 +312,10 @@ public class Glacier extends AbstractBlobStoreSupport<AWSCloud> implements Offli
             return -1;
         }
         long creationTs;
-        SimpleDateFormat fmt;
 
-        // some response dates have MS component, some do not.
-        if (timestamp.contains(".")) {
-            fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-        }
-        else {
-            fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-        }
-        Calendar cal = Calendar.getInstance(new SimpleTimeZone(0, "GMT"));
-        fmt.setCalendar(cal);
+        // some response dates have MS component, some do not; the parser takes either
         try {
-            creationTs = fmt.parse(timestamp).getTime();
+            creationTs = AWSTimestamps.parseIso8601(timestamp);
         } catch (ParseException e) {
             creationTs = System.currentTimeMillis();
         }
@@ -481,7 +470,7 @@ public class Glacier extends AbstractBlobStoreSupport<AWSCloud> implements Offli
             throw new CloudException("No region ID was specified"); // TODO: doesn't look like it's needed though
         }
         getProvider().hold();
-        PopulatorThread <OfflineStoreRequest> populator = new PopulatorThread<OfflineStoreRequest>(new JiteratorPopulator<OfflineStoreRequest>() {
+        Jiterator<OfflineStoreRequest> populator = getProvider().getExecutor().populate(new JiteratorPopulator<OfflineStoreRequest>() {
             public void populate(@Nonnull Jiterator<OfflineStoreRequest> iterator) throws CloudException, InternalException {
                 try {
                     listRequests(bucket, iterator);
@@ -491,8 +480,7 @@ public class Glacier extends AbstractBlobStoreSupport<AWSCloud> implements Offli
                 }
             }
         });
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
     private void listRequests(@Nonnull String bucket, @Nonnull Jiterator<OfflineStoreRequest> iterator) throws CloudException, InternalException {
         APITrace.begin(getProvider(), "Blob.listRequests");
@@ -24,6 +24,7 @@ import org.apache.http.HttpStatus;
 import org.apache.log4j.Logger;
 import org.dasein.cloud.*;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTimestamps;
 import org.dasein.cloud.aws.storage.S3Method.S3Response;
 import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.storage.AbstractBlobStoreSupport;
@@ -38,7 +39,6 @@ import org.dasein.cloud.util.NamingConstraints;
 import org.dasein.util.CalendarWrapper;
 import org.dasein.util.Jiterator;
 import org.dasein.util.JiteratorPopulator;
-import org.dasein.util.PopulatorThread;
 import org.dasein.util.uom.storage.Storage;
 import org.dasein.util.uom.time.Day;
 import org.dasein.util.uom.time.TimePeriod;
@@ -56,7 +56,6 @@ import java.net.URLEncoder;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 
 public class S3 extends AbstractBlobStoreSupport<AWSCloud> {
@@ -485,11 +484,10 @@ public class S3 extends AbstractBlobStoreSupport<AWSCloud> {
                                 size = new Storage<org.dasein.util.uom.storage.Byte>(Long.parseLong(attr.getFirstChild().getNodeValue().trim()), Storage.BYTE);
                             }
                             else if( attr.getNodeName().equalsIgnoreCase("LastModified") ) {
-                                SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
                                 String dateString = attr.getFirstChild().getNodeValue().trim();
 
                                 try {
-                                    ts = fmt.parse(dateString).getTime();
+                                    ts = AWSTimestamps.parseIso8601(dateString);
                                 }
                                 catch( ParseException e ) {
                                     logger.error(e);
@@ -921,7 +919,7 @@ public class S3 extends AbstractBlobStoreSupport<AWSCloud> {
     @Override
     public @Nonnull Collection<Blob> list( final @Nullable String bucket ) throws CloudException, InternalException {
         final ProviderContext ctx = getProvider().getContext();
-        PopulatorThread<Blob> populator;
+        Jiterator<Blob> populator;
 
         if( ctx == null ) {
             throw new CloudException("No context was specified for this request");
@@ -935,7 +933,7 @@ public class S3 extends AbstractBlobStoreSupport<AWSCloud> {
             throw new CloudException("No such bucket in target region: " + bucket + " in " + regionId);
         }
         getProvider().hold();
-        populator = new PopulatorThread<Blob>(new JiteratorPopulator<Blob>() {
+        populator = getProvider().getExecutor().populate(new JiteratorPopulator<Blob>() {
             public void populate( @Nonnull Jiterator<Blob> iterator ) throws CloudException, InternalException {
                 try {
                     list(regionId, bucket, iterator);
@@ -945,8 +943,7 @@ public class S3 extends AbstractBlobStoreSupport<AWSCloud> {
                 }
             }
         });
-        populator.populate();
-        return populator.getResult();
+        return populator;
     }
 
     private void list( @Nonnull String regionId, @Nullable String bucket, @Nonnull Jiterator<Blob> iterator ) throws CloudException, InternalException {
@@ -1096,11 +1093,10 @@ public class S3 extends AbstractBlobStoreSupport<AWSCloud> {
                             size = new Storage<org.dasein.util.uom.storage.Byte>(Long.parseLong(attr.getFirstChild().getNodeValue().trim()), Storage.BYTE);
                         }
                         else if( attr.getNodeName().equalsIgnoreCase("LastModified") ) {
-                            SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
                             String dateString = attr.getFirstChild().getNodeValue().trim();
 
                             try {
-                                ts = fmt.parse(dateString).getTime();
+                                ts = AWSTimestamps.parseIso8601(dateString);
                             }
                             catch( ParseException e ) {
                                 logger.error(e);
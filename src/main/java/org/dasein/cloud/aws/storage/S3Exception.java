@@ -28,7 +28,11 @@ public class S3Exception extends CloudException {
 	private String requestId = null;
 	
 	public S3Exception(int status, String requestId, String code, String message) {
-		super(CloudErrorType.GENERAL, status, code, message);
+		this(CloudErrorType.GENERAL, status, requestId, code, message);
+	}
+
+	public S3Exception(CloudErrorType errorType, int status, String requestId, String code, String message) {
+		super(errorType, status, code, message);
 		this.requestId = requestId;
 	}
 	
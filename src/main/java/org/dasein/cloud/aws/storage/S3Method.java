@@ -36,13 +36,13 @@ import org.apache.log4j.Logger;
 import org.dasein.cloud.CloudException;
 import org.dasein.cloud.InternalException;
 import org.dasein.cloud.aws.AWSCloud;
+import org.dasein.cloud.aws.AWSTimestamps;
+import org.dasein.cloud.aws.AWSErrorResponse;
 import org.dasein.cloud.identity.ServiceAction;
 import org.dasein.cloud.storage.BlobStoreSupport;
 import org.dasein.cloud.util.APITrace;
 import org.dasein.cloud.util.XMLParser;
 import org.w3c.dom.Document;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
 import javax.annotation.Nonnull;
@@ -51,7 +51,6 @@ import javax.xml.parsers.ParserConfigurationException;
 import java.io.*;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.regex.Pattern;
 
@@ -181,20 +180,13 @@ public class S3Method {
     }
 
     private String getDate() throws CloudException {
-        if( provider.getEC2Provider().isStorage() && "google".equalsIgnoreCase(provider.getProviderName()) ) {
-            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ssz", new Locale("US"));
-            Calendar cal = Calendar.getInstance(new SimpleTimeZone(0, "GMT"));
-
-            format.setCalendar(cal);
-            return format.format(new Date());
-        }
-        else {
-            SimpleDateFormat fmt = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z");
-            Calendar cal = Calendar.getInstance(new SimpleTimeZone(0, "GMT"));
+        String date = AWSTimestamps.formatRfc1123(System.currentTimeMillis());
 
-            fmt.setCalendar(cal);
-            return fmt.format(new Date());
+        if( provider.getEC2Provider().isStorage() && "google".equalsIgnoreCase(provider.getProviderName()) ) {
+            // no space before the zone
+            return date.replace(" GMT", "GMT");
         }
+        return date;
     }
 
     S3Response invoke(String bucket, String object) throws S3Exception, CloudException, InternalException {
@@ -569,61 +561,30 @@ public class S3Method {
                         }
                     }
                     try {
-                        Document doc;
-                        
+                        AWSErrorResponse error;
+
                         try {
                             logger.warn("Received error code: " + status);
-                            doc = parseResponse(input);
+                            error = parseError(status, input);
                         }
                         finally {
                             if( input != null ) {
                                 input.close();
                             }
                         }
-                        if( doc != null ) {
-                            String endpoint = null, code = null, message = null, requestId = null;
-                            NodeList blocks = doc.getElementsByTagName("Error");
-        
-                            if( blocks.getLength() > 0 ) {
-                                Node error = blocks.item(0);
-                                NodeList attrs;
-                                
-                                attrs = error.getChildNodes();
-                                for( int i=0; i<attrs.getLength(); i++ ) {
-                                    Node attr = attrs.item(i);
-                                    
-                                    if( attr.getNodeName().equals("Code") && attr.hasChildNodes() ) {
-                                        code = attr.getFirstChild().getNodeValue().trim();
-                                    }
-                                    else if( attr.getNodeName().equals("Message") && attr.hasChildNodes() ) {
-                                        message = attr.getFirstChild().getNodeValue().trim();
-                                    }
-                                    else if( attr.getNodeName().equals("RequestId") && attr.hasChildNodes() ) {
-                                        requestId = attr.getFirstChild().getNodeValue().trim();
-                                    }
-                                    else if( attr.getNodeName().equals("Endpoint") && attr.hasChildNodes() ) {
-                                        endpoint = attr.getFirstChild().getNodeValue().trim();
-                                    }
-                                }
-                                
-                            }
-                            if( endpoint != null && code.equals("TemporaryRedirect") ) {
-                                if( temporaryEndpoint != null ) {
-                                    throw new CloudException("Too deep redirect to " + endpoint);
-                                }
-                                else {
-                                    return invoke(bucket, object, endpoint);
-                                }
+                        if( error.getEndpoint() != null && "TemporaryRedirect".equals(error.getCode()) ) {
+                            if( temporaryEndpoint != null ) {
+                                throw new CloudException("Too deep redirect to " + error.getEndpoint());
                             }
                             else {
-                                if( message == null ) {
-                                    throw new CloudException("Unable to identify error condition: " + status + "/" + requestId + "/" + code);
-                                }
-                                throw new S3Exception(status, requestId, code, message);
+                                return invoke(bucket, object, error.getEndpoint());
                             }
                         }
                         else {
-                            throw new CloudException("Unable to parse error.");
+                            if( error.getMessage() == null ) {
+                                throw new CloudException("Unable to identify error condition: " + status + "/" + error.getRequestId() + "/" + error.getCode());
+                            }
+                            throw new S3Exception(error.getErrorType(), status, error.getRequestId(), error.getCode(), error.getMessage());
                         }
                     }
                     catch( IOException e ) {
@@ -664,6 +625,21 @@ public class S3Method {
         return (bucket != null && Pattern.matches("^[a-z0-9](-*[a-z0-9]){2,62}$", bucket));
     }
 
+    private @Nonnull AWSErrorResponse parseError(int status, @Nullable InputStream responseBodyAsStream) throws IOException {
+        if( responseBodyAsStream != null && wire.isDebugEnabled() ) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(responseBodyAsStream));
+            StringBuilder sb = new StringBuilder();
+            String line;
+
+            while( (line = in.readLine()) != null ) {
+                sb.append(line);
+            }
+            wire.debug(sb.toString());
+            return AWSErrorResponse.parse(status, sb.toString());
+        }
+        return AWSErrorResponse.parse(status, responseBodyAsStream);
+    }
+
 	private Document parseResponse(InputStream responseBodyAsStream) throws CloudException, InternalException {
 		try {
 			BufferedReader in = new BufferedReader(new InputStreamReader(responseBodyAsStream));
@@ -0,0 +1,219 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudErrorType;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the batching, failure isolation, fan-out and lookups of bulk operations.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSBulkOperation
+ */
+public class AWSBulkOperationTest {
+
+    static private List<String> ids( int count ) {
+        List<String> ids = new ArrayList<String>();
+
+        for( int i = 0; i < count; i++ ) {
+            ids.add("i-" + i);
+        }
+        return ids;
+    }
+
+    /**
+     * Fails any batch containing a "bad" instance the way <code>TerminateInstances</code> does.
+     */
+    static class TerminateAction implements AWSBulkOperation.BatchAction {
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+
+        @Override
+        public void invoke( @Nonnull List<String> resourceIds ) throws CloudException, InternalException {
+            batches.add(resourceIds.size());
+            for( String id : resourceIds ) {
+                if( id.startsWith("bad") ) {
+                    throw new CloudException(CloudErrorType.GENERAL, 400, "InvalidInstanceID.NotFound", "The instance ID '" + id + "' does not exist");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBatching() {
+        AWSBulkOperation bulk = new AWSBulkOperation(new AWSCloud(), 4);
+        TerminateAction action = new TerminateAction();
+        AWSBulkOperation.Report report = bulk.invokeBatched("terminate", ids(5000), AWSBulkOperation.MAX_BATCH_SIZE, action);
+
+        assertEquals(5, action.batches.size());
+        assertEquals(5000, report.getOutcomes().size());
+        assertTrue(report.isSuccess());
+    }
+
+    @Test
+    public void testFailureIsolation() {
+        AWSBulkOperation bulk = new AWSBulkOperation(new AWSCloud(), 4);
+        TerminateAction action = new TerminateAction();
+        List<String> ids = ids(2000);
+
+        ids.set(1234, "bad-1234");
+        AWSBulkOperation.Report report = bulk.invokeBatched("terminate", ids, AWSBulkOperation.MAX_BATCH_SIZE, action);
+
+        assertEquals(2000, report.getOutcomes().size());
+        assertEquals(1999, report.getSucceeded().size());
+        assertEquals(1, report.getFailures().size());
+        assertFalse(report.getOutcome("bad-1234").isSuccess());
+        // the order of the report follows the request, not the order the batches finished in
+        assertEquals("i-0", report.getOutcomes().keySet().iterator().next());
+        assertTrue(action.batches.size() < 30);
+    }
+
+    @Test
+    public void testFanOut() {
+        AWSBulkOperation bulk = new AWSBulkOperation(new AWSCloud(), 8);
+        final AtomicInteger throttled = new AtomicInteger(0);
+        final AtomicInteger active = new AtomicInteger(0);
+        final AtomicInteger peak = new AtomicInteger(0);
+        AWSBulkOperation.Report report = bulk.invokeEach("delete", ids(40), new AWSBulkOperation.SingleAction() {
+            @Override
+            public void invoke( @Nonnull String resourceId ) throws CloudException, InternalException {
+                if( resourceId.equals("i-7") && throttled.getAndIncrement() == 0 ) {
+                    throw new CloudException(CloudErrorType.THROTTLING, 503, "RequestLimitExceeded", "Request limit exceeded.");
+                }
+                int count = active.incrementAndGet();
+
+                try {
+                    while( count > peak.get() && !peak.compareAndSet(peak.get(), count) ) {
+                        // another delete raised the peak at the same time
+                    }
+                    Thread.sleep(100L);
+                }
+                catch( InterruptedException e ) {
+                    throw new InternalException(e);
+                }
+                finally {
+                    active.decrementAndGet();
+                }
+            }
+        });
+
+        assertTrue(report.isSuccess());
+        assertEquals(2, throttled.get());
+        // the deletes were in flight side by side, but never more than the configured eight
+        assertTrue(peak.get() > 1);
+        assertTrue(peak.get() <= 8);
+    }
+
+    @Test
+    public void testBackoffFreesWorker() {
+        AWSBulkOperation bulk = new AWSBulkOperation(new AWSCloud(), 1);
+        final AtomicInteger throttled = new AtomicInteger(0);
+        final List<String> deleted = Collections.synchronizedList(new ArrayList<String>());
+        AWSBulkOperation.Report report = bulk.invokeEach("delete", ids(5), new AWSBulkOperation.SingleAction() {
+            @Override
+            public void invoke( @Nonnull String resourceId ) throws CloudException, InternalException {
+                if( resourceId.equals("i-0") && throttled.getAndIncrement() == 0 ) {
+                    throw new CloudException(CloudErrorType.THROTTLING, 503, "RequestLimitExceeded", "Request limit exceeded.");
+                }
+                deleted.add(resourceId);
+            }
+        });
+
+        assertTrue(report.isSuccess());
+        // the only worker went on with the other deletes while i-0 waited out its backoff
+        assertEquals(5, deleted.size());
+        assertEquals("i-1", deleted.get(0));
+        assertEquals("i-0", deleted.get(4));
+        assertEquals("i-0", report.getOutcomes().keySet().iterator().next());
+    }
+
+    @Test
+    public void testLookup() {
+        AWSBulkOperation bulk = new AWSBulkOperation(new AWSCloud(), 4);
+        AWSBulkOperation.Report report = bulk.invokeLookup("getUserData", ids(10), new AWSBulkOperation.LookupAction() {
+            @Override
+            public @Nullable String lookup( @Nonnull String resourceId ) throws CloudException, InternalException {
+                if( resourceId.equals("i-3") ) {
+                    throw new CloudException("No such instance");
+                }
+                return ( resourceId.equals("i-5") ? null : "data-" + resourceId );
+            }
+        });
+
+        assertEquals("data-i-0", report.getOutcome("i-0").getValue());
+        // a lookup may succeed without a value
+        assertTrue(report.getOutcome("i-5").isSuccess());
+        assertNull(report.getOutcome("i-5").getValue());
+        assertFalse(report.getOutcome("i-3").isSuccess());
+        assertNull(report.getOutcome("i-3").getValue());
+        assertEquals(9, report.getSucceeded().size());
+    }
+
+    @Test
+    public void testLookupStreamsOutcomes() throws Exception {
+        AWSBulkOperation bulk = new AWSBulkOperation(new AWSCloud(), 2);
+        final CountDownLatch first = new CountDownLatch(1);
+        final List<String> streamed = Collections.synchronizedList(new ArrayList<String>());
+
+        AWSBulkOperation.Report report = bulk.invokeLookup("getUserData", ids(2), new AWSBulkOperation.LookupAction() {
+            @Override
+            public @Nullable String lookup( @Nonnull String resourceId ) throws CloudException, InternalException {
+                // i-1 only completes once the outcome of i-0 reached the listener, i.e. before the report exists
+                if( resourceId.equals("i-1") ) {
+                    try {
+                        assertTrue(first.await(5, TimeUnit.SECONDS));
+                    }
+                    catch( InterruptedException e ) {
+                        throw new InternalException(e);
+                    }
+                }
+                return "data-" + resourceId;
+            }
+        }, new AWSBulkOperation.OutcomeListener() {
+            @Override
+            public void outcomeReady( @Nonnull AWSBulkOperation.Outcome outcome ) {
+                streamed.add(outcome.getResourceId());
+                first.countDown();
+            }
+        });
+
+        assertEquals(2, streamed.size());
+        assertEquals("i-0", streamed.get(0));
+        assertEquals("data-i-1", report.getOutcome("i-1").getValue());
+        assertTrue(report.isSuccess());
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudErrorType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the streaming error response parser.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSErrorResponse
+ */
+public class AWSErrorResponseTest {
+    final static String EC2_ERROR = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<Response><Errors><Error><Code>InsufficientInstanceCapacity</Code>" +
+            "<Message>We currently do not have sufficient capacity in the Availability Zone you requested.</Message></Error></Errors>" +
+            "<RequestID>ea966190-f9aa-478e-9ede-example</RequestID></Response>";
+
+    final static String QUERY_ERROR = "<ErrorResponse xmlns=\"http://elasticloadbalancing.amazonaws.com/doc/2012-06-01/\">" +
+            "<Error><Type>Sender</Type><Code>Throttling</Code><Message>Rate exceeded</Message></Error>" +
+            "<RequestId>a2b5c1f0-0000-11e5-example</RequestId></ErrorResponse>";
+
+    final static String S3_REDIRECT = "<Error><Code>TemporaryRedirect</Code><Message>Please re-send this request to the specified temporary endpoint.</Message>" +
+            "<Bucket>bucket</Bucket><Endpoint>bucket.s3-eu-west-1.amazonaws.com</Endpoint>" +
+            "<RequestId>B3D0A5E7-example</RequestId><HostId>host</HostId></Error>";
+
+    @Test
+    public void testEC2CapacityError() {
+        AWSErrorResponse error = AWSErrorResponse.parse(500, EC2_ERROR);
+
+        assertEquals("InsufficientInstanceCapacity", error.getCode());
+        assertEquals("ea966190-f9aa-478e-9ede-example", error.getRequestId());
+        assertEquals(CloudErrorType.CAPACITY, error.getErrorType());
+        assertTrue(error.isCapacity());
+        assertFalse(error.isThrottling());
+    }
+
+    @Test
+    public void testQueryThrottlingError() {
+        AWSErrorResponse error = AWSErrorResponse.parse(400, QUERY_ERROR);
+
+        assertEquals("Throttling", error.getCode());
+        assertEquals("Rate exceeded", error.getMessage());
+        assertEquals("Sender", error.getType());
+        assertEquals("a2b5c1f0-0000-11e5-example", error.getRequestId());
+        assertTrue(error.isThrottling());
+    }
+
+    @Test
+    public void testS3RedirectError() {
+        AWSErrorResponse error = AWSErrorResponse.parse(307, S3_REDIRECT);
+
+        assertEquals("TemporaryRedirect", error.getCode());
+        assertEquals("bucket.s3-eu-west-1.amazonaws.com", error.getEndpoint());
+        assertEquals("B3D0A5E7-example", error.getRequestId());
+        assertEquals(CloudErrorType.GENERAL, error.getErrorType());
+    }
+
+    @Test
+    public void testS3RedirectEndpointLast() {
+        AWSErrorResponse error = AWSErrorResponse.parse(301, "<Error><Code>PermanentRedirect</Code><Message>Use the specified endpoint.</Message>" +
+                "<RequestId>B3D0A5E7-example</RequestId><Bucket>bucket</Bucket><Endpoint>bucket.s3.amazonaws.com</Endpoint></Error>");
+
+        assertEquals("bucket.s3.amazonaws.com", error.getEndpoint());
+    }
+
+    @Test
+    public void testMalformedBody() {
+        AWSErrorResponse error = AWSErrorResponse.parse(502, "<html><body>Bad Gateway");
+
+        assertTrue(error.isEmpty());
+        assertNull(error.getRequestId());
+        assertEquals(502, error.getStatus());
+    }
+
+    @Test
+    public void testClassification() {
+        assertEquals(CloudErrorType.THROTTLING, AWSErrorResponse.toCloudErrorType("RequestLimitExceeded"));
+        assertEquals(CloudErrorType.THROTTLING, AWSErrorResponse.toCloudErrorType("SlowDown"));
+        assertEquals(CloudErrorType.AUTHENTICATION, AWSErrorResponse.toCloudErrorType("SignatureDoesNotMatch"));
+        assertEquals(CloudErrorType.QUOTA, AWSErrorResponse.toCloudErrorType("TooManyBuckets"));
+        assertEquals(CloudErrorType.CAPACITY, AWSErrorResponse.toCloudErrorType("InsufficientAddressCapacity"));
+        assertEquals(CloudErrorType.GENERAL, AWSErrorResponse.toCloudErrorType("InvalidInstanceID.NotFound"));
+        assertEquals(CloudErrorType.GENERAL, AWSErrorResponse.toCloudErrorType(null));
+    }
+}
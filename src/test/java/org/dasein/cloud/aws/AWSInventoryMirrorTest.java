@@ -0,0 +1,223 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the refreshes, staleness and change events of the inventory mirror.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSInventoryMirror
+ */
+public class AWSInventoryMirrorTest {
+
+    /**
+     * Serves "resources" which are just "id=state" strings from a map the test changes between refreshes.
+     */
+    static class StringFeed extends AWSInventoryMirror.Feed<String> {
+        final Map<String, String> cloud     = new ConcurrentHashMap<String, String>();
+        final AtomicInteger       fullLists = new AtomicInteger(0);
+
+        @Override
+        public @Nonnull String getResourceType() {
+            return "thing";
+        }
+
+        @Override
+        public @Nonnull Class<String> getResourceClass() {
+            return String.class;
+        }
+
+        @Override
+        public @Nonnull Iterable<String> list( @Nonnull AWSCloud provider ) throws CloudException, InternalException {
+            List<String> list = new ArrayList<String>();
+
+            fullLists.incrementAndGet();
+            for( Map.Entry<String, String> entry : cloud.entrySet() ) {
+                list.add(entry.getKey() + "=" + entry.getValue());
+            }
+            return list;
+        }
+
+        @Override
+        public Iterable<String> list( @Nonnull AWSCloud provider, @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+            List<String> list = new ArrayList<String>();
+
+            for( String id : resourceIds ) {
+                if( cloud.containsKey(id) ) {
+                    list.add(id + "=" + cloud.get(id));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public @Nonnull String getId( @Nonnull String resource ) {
+            return resource.substring(0, resource.indexOf('='));
+        }
+
+        @Override
+        public @Nonnull String getFingerprint( @Nonnull String resource ) {
+            return resource.substring(resource.indexOf('=') + 1);
+        }
+    }
+
+    static class RecordingListener implements AWSInventoryMirror.InventoryListener {
+        final List<AWSInventoryMirror.ChangeEvent> events = Collections.synchronizedList(new ArrayList<AWSInventoryMirror.ChangeEvent>());
+
+        @Override
+        public void inventoryChanged( @Nonnull List<AWSInventoryMirror.ChangeEvent> events ) {
+            this.events.addAll(events);
+        }
+    }
+
+    @Test
+    public void testChangeEvents() throws Exception {
+        AWSInventoryMirror mirror = new AWSInventoryMirror(new AWSCloud(), 60000L);
+        StringFeed feed = new StringFeed();
+        RecordingListener listener = new RecordingListener();
+
+        mirror.register(feed);
+        mirror.addListener(listener);
+        feed.cloud.put("a", "running");
+        feed.cloud.put("b", "running");
+        feed.cloud.put("c", "stopped");
+        mirror.refresh("thing");
+        assertEquals(3, listener.events.size());
+
+        listener.events.clear();
+        feed.cloud.put("b", "stopped");
+        feed.cloud.remove("c");
+        feed.cloud.put("d", "pending");
+        mirror.refresh("thing");
+
+        assertEquals(3, listener.events.size());
+        assertEquals(AWSInventoryMirror.ChangeType.ADDED, listener.events.get(0).getChangeType());
+        assertEquals("d", listener.events.get(0).getResourceId());
+        assertEquals(AWSInventoryMirror.ChangeType.CHANGED, listener.events.get(1).getChangeType());
+        assertEquals("b=running", listener.events.get(1).getPrevious());
+        assertEquals("b=stopped", listener.events.get(1).getCurrent());
+        assertEquals(AWSInventoryMirror.ChangeType.REMOVED, listener.events.get(2).getChangeType());
+        assertEquals("c", listener.events.get(2).getResourceId());
+
+        // nothing changed, nothing published
+        listener.events.clear();
+        mirror.refresh("thing");
+        assertTrue(listener.events.isEmpty());
+    }
+
+    @Test
+    public void testStaleness() throws Exception {
+        AWSInventoryMirror mirror = new AWSInventoryMirror(new AWSCloud(), 60000L);
+        StringFeed feed = new StringFeed();
+
+        mirror.register(feed);
+        feed.cloud.put("a", "running");
+        for( int i = 0; i < 10; i++ ) {
+            assertEquals(1, mirror.list("thing", String.class).size());
+        }
+        assertEquals(1, feed.fullLists.get());
+
+        mirror = new AWSInventoryMirror(new AWSCloud(), 0L);
+        mirror.register(feed);
+        mirror.list("thing", String.class);
+        Thread.sleep(5L);
+        mirror.list("thing", String.class);
+        assertEquals(3, feed.fullLists.get());
+    }
+
+    @Test
+    public void testResourceRefresh() throws Exception {
+        AWSInventoryMirror mirror = new AWSInventoryMirror(new AWSCloud(), 60000L);
+        StringFeed feed = new StringFeed();
+        RecordingListener listener = new RecordingListener();
+
+        mirror.register(feed);
+        feed.cloud.put("a", "running");
+        feed.cloud.put("b", "running");
+        mirror.refresh("thing");
+        mirror.addListener(listener);
+
+        feed.cloud.put("a", "stopped");
+        feed.cloud.put("b", "stopped");
+        feed.cloud.put("c", "pending");
+        mirror.refresh("thing", Arrays.asList("a", "c"));
+
+        // only the resources asked for are reloaded, without listing everything
+        assertEquals(1, feed.fullLists.get());
+        assertEquals(2, listener.events.size());
+        assertEquals("a=stopped", mirror.get("thing", String.class, "a"));
+        assertEquals("b=running", mirror.get("thing", String.class, "b"));
+
+        feed.cloud.remove("a");
+        mirror.refresh("thing", Collections.singletonList("a"));
+        assertNull(mirror.get("thing", String.class, "a"));
+        assertEquals(AWSInventoryMirror.ChangeType.REMOVED, listener.events.get(2).getChangeType());
+    }
+
+    @Test
+    public void testPollingHoldsNoWorker() throws Exception {
+        AWSCloud provider = new AWSCloud();
+        AWSInventoryMirror mirror = new AWSInventoryMirror(provider, 60000L);
+        StringFeed feed = new StringFeed();
+        RecordingListener listener = new RecordingListener();
+
+        mirror.register(feed);
+        mirror.addListener(listener);
+        feed.cloud.put("a", "running");
+        mirror.startPolling(60000L);
+        for( int i = 0; i < 1000 && ( feed.fullLists.get() < 1 || provider.getExecutor().getActiveCount() > 0 ); i++ ) {
+            Thread.sleep(10L);
+        }
+        // the first round is done and nothing waits out the interval on the pool
+        assertEquals(1, feed.fullLists.get());
+        assertEquals(0, provider.getExecutor().getActiveCount());
+        assertEquals(1, listener.events.size());
+        assertTrue(mirror.isPolling());
+
+        mirror.stopPolling();
+        assertFalse(mirror.isPolling());
+        mirror.startPolling(10L);
+        for( int i = 0; i < 1000 && feed.fullLists.get() < 3; i++ ) {
+            Thread.sleep(10L);
+        }
+        assertTrue(feed.fullLists.get() >= 3);
+        mirror.stopPolling();
+    }
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.compute.Architecture;
+import org.dasein.cloud.compute.Platform;
+import org.dasein.cloud.compute.Snapshot;
+import org.dasein.cloud.compute.SnapshotState;
+import org.dasein.cloud.compute.VirtualMachine;
+import org.dasein.cloud.compute.VmState;
+import org.dasein.cloud.compute.Volume;
+import org.dasein.cloud.compute.VolumeState;
+import org.dasein.cloud.network.AddressType;
+import org.dasein.cloud.network.Firewall;
+import org.dasein.cloud.network.IPVersion;
+import org.dasein.cloud.network.IpAddress;
+import org.dasein.cloud.network.RawAddress;
+import org.dasein.util.uom.storage.Gigabyte;
+import org.dasein.util.uom.storage.Storage;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the encoding, memory-mapped reading and versioning of inventory snapshots.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSInventorySnapshot
+ */
+public class AWSInventorySnapshotTest {
+
+    static private VirtualMachine vm( int i ) {
+        VirtualMachine vm = new VirtualMachine();
+
+        vm.setProviderVirtualMachineId("i-" + Integer.toHexString(0x10000000 + i));
+        vm.setName("worker-" + i);
+        vm.setCurrentState(VmState.RUNNING);
+        vm.setProductId("m3.large");
+        vm.setProviderRegionId("us-east-1");
+        vm.setProviderDataCenterId("us-east-1" + (char)('a' + i % 4));
+        vm.setArchitecture(Architecture.I64);
+        vm.setPlatform(Platform.UBUNTU);
+        vm.setPersistent(true);
+        vm.setCreationTimestamp(1400000000000L + i);
+        vm.setPrivateAddresses(new RawAddress("10.0." + (i / 256 % 256) + "." + (i % 256)));
+        vm.setTag("env", "production");
+        vm.setTag("team", "analytics");
+        return vm;
+    }
+
+    static private AWSInventorySnapshot sample() {
+        List<VirtualMachine> vms = new ArrayList<VirtualMachine>();
+        Volume volume = new Volume();
+        Snapshot snapshot = new Snapshot();
+        Firewall firewall = new Firewall();
+        IpAddress address = new IpAddress();
+
+        vms.add(vm(1));
+        vms.add(vm(2));
+        volume.setProviderVolumeId("vol-1");
+        volume.setCurrentState(VolumeState.AVAILABLE);
+        volume.setSize(new Storage<Gigabyte>(100, Storage.GIGABYTE));
+        volume.setProviderVirtualMachineId("i-10000001");
+        volume.setRootVolume(true);
+        volume.setTag("env", "production");
+        snapshot.setProviderSnapshotId("snap-1");
+        snapshot.setCurrentState(SnapshotState.AVAILABLE);
+        snapshot.setVolumeId("vol-1");
+        snapshot.setSizeInGb(100);
+        snapshot.setSnapshotTimestamp(1400000000000L);
+        firewall.setProviderFirewallId("sg-1");
+        firewall.setName("default");
+        firewall.setActive(true);
+        firewall.setAvailable(true);
+        address.setIpAddressId("eipalloc-1");
+        address.setAddress("54.1.2.3");
+        address.setServerId("i-10000001");
+        address.setAddressType(AddressType.PUBLIC);
+        address.setVersion(IPVersion.IPV4);
+        address.setForVlan(true);
+        return new AWSInventorySnapshot(1234L, vms, Collections.singletonList(volume), Collections.singletonList(snapshot), Collections.singletonList(firewall), Collections.singletonList(address));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        sample().write(bytes);
+
+        AWSInventorySnapshot copy = AWSInventorySnapshot.read(ByteBuffer.wrap(bytes.toByteArray()));
+        VirtualMachine vm = copy.getVirtualMachines().get(1);
+        Volume volume = copy.getVolumes().get(0);
+        IpAddress address = copy.getIpAddresses().get(0);
+
+        assertEquals(1234L, copy.getTimestamp());
+        assertEquals(2, copy.getVirtualMachines().size());
+        assertEquals("i-10000002", vm.getProviderVirtualMachineId());
+        assertEquals(VmState.RUNNING, vm.getCurrentState());
+        assertEquals("us-east-1c", vm.getProviderDataCenterId());
+        assertEquals(Platform.UBUNTU, vm.getPlatform());
+        assertEquals(1400000000002L, vm.getCreationTimestamp());
+        assertEquals("10.0.0.2", vm.getPrivateAddresses()[0].getIpAddress());
+        assertEquals("analytics", vm.getTags().get("team"));
+        assertNull(vm.getDescription());
+        assertEquals(100, volume.getSize().getQuantity().intValue());
+        assertTrue(volume.isRootVolume());
+        assertEquals("i-10000001", volume.getProviderVirtualMachineId());
+        assertEquals(SnapshotState.AVAILABLE, copy.getSnapshots().get(0).getCurrentState());
+        assertEquals("default", copy.getFirewalls().get(0).getName());
+        assertEquals("54.1.2.3", address.getAddress());
+        assertEquals(AddressType.PUBLIC, address.getAddressType());
+        assertTrue(address.isForVlan());
+    }
+
+    @Test
+    public void testMappedFile() throws Exception {
+        List<VirtualMachine> vms = new ArrayList<VirtualMachine>();
+        File file = File.createTempFile("inventory", ".bin");
+
+        for( int i = 0; i < 100000; i++ ) {
+            vms.add(vm(i));
+        }
+        try {
+            new AWSInventorySnapshot(0L, vms, Collections.<Volume>emptyList(), Collections.<Snapshot>emptyList(), Collections.<Firewall>emptyList(), Collections.<IpAddress>emptyList()).write(file);
+            // repeated products, zones, states and tags are written once, leaving little more than the unique IDs,
+            // names and addresses
+            assertTrue(file.length() < 100000L * 100L);
+
+            AWSInventorySnapshot copy = AWSInventorySnapshot.read(file);
+
+            assertEquals(100000, copy.getVirtualMachines().size());
+            assertEquals("worker-99999", copy.getVirtualMachines().get(99999).getName());
+        }
+        finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testVersionCheck() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        sample().write(bytes);
+        byte[] data = bytes.toByteArray();
+
+        data[5] = (byte)(AWSInventorySnapshot.VERSION + 1);
+        try {
+            AWSInventorySnapshot.read(ByteBuffer.wrap(data));
+            fail("A snapshot from a newer version was read");
+        }
+        catch( InternalException expected ) {
+            // expected
+        }
+        try {
+            AWSInventorySnapshot.read(ByteBuffer.wrap(new byte[] { 1, 2, 3, 4, 5, 6 }));
+            fail("Garbage was read as a snapshot");
+        }
+        catch( InternalException expected ) {
+            // expected
+        }
+        assertArrayEquals(new byte[] { 0x44, 0x43, 0x49, 0x53 }, new byte[] { data[0], data[1], data[2], data[3] });
+    }
+}
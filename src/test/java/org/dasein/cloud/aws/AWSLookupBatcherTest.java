@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for merging concurrent lookups into batches.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSLookupBatcher
+ */
+public class AWSLookupBatcherTest {
+
+    /**
+     * Finds every resource except "missing", failing the whole batch if asked for "broken".
+     */
+    static class EchoLoader implements AWSLookupBatcher.BatchLoader<String> {
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+
+        @Override
+        public @Nonnull String getResourceType() {
+            return "echo";
+        }
+
+        @Override
+        public int getMaximumBatchSize() {
+            return 50;
+        }
+
+        @Override
+        public @Nonnull Map<String, String> load( @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+            Map<String, String> results = new HashMap<String, String>();
+
+            batches.add(resourceIds.size());
+            for( String id : resourceIds ) {
+                if( id.equals("broken") ) {
+                    throw new CloudException("Broken");
+                }
+                if( !id.equals("missing") ) {
+                    results.put(id, "found-" + id);
+                }
+            }
+            return results;
+        }
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final AWSLookupBatcher batcher = new AWSLookupBatcher(50L);
+        final EchoLoader loader = new EchoLoader();
+        ExecutorService threads = Executors.newFixedThreadPool(200);
+        List<Future<String>> results = new ArrayList<Future<String>>();
+
+        try {
+            for( int i = 0; i < 200; i++ ) {
+                final String id = "i-" + i;
+
+                results.add(threads.submit(new Callable<String>() {
+                    @Override
+                    public String call() throws Exception {
+                        return batcher.get(loader, id);
+                    }
+                }));
+            }
+            for( int i = 0; i < 200; i++ ) {
+                assertEquals("found-i-" + i, results.get(i).get());
+            }
+        }
+        finally {
+            threads.shutdownNow();
+        }
+        // two hundred lookups cost a few batched calls, none of them larger than the loader allows
+        assertTrue(batcher.getCallCount() < 20);
+        for( Integer size : loader.batches ) {
+            assertTrue(size <= 50);
+        }
+    }
+
+    @Test
+    public void testMissingAndFailure() throws Exception {
+        AWSLookupBatcher batcher = new AWSLookupBatcher(1L);
+        EchoLoader loader = new EchoLoader();
+
+        assertTrue(batcher.isEnabled());
+        assertNull(batcher.get(loader, "missing"));
+        try {
+            batcher.get(loader, "broken");
+            fail("The failed batch was not reported");
+        }
+        catch( CloudException expected ) {
+            // expected
+        }
+        assertEquals("found-i-1", batcher.get(loader, "i-1"));
+        assertFalse(new AWSLookupBatcher(0L).isEnabled());
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the incremental fetching and merging of cached CloudWatch datapoints.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSMetricCache
+ */
+public class AWSMetricCacheTest {
+    static private final long MINUTE = AWSTimeSeriesStoreTest.MINUTE;
+
+    /**
+     * Serves one datapoint per minute with the minute number as its average.
+     */
+    static class MinuteFetcher extends AWSTimeSeriesStoreTest.MinuteFetcher<AWSMetricCache.Datapoints> {
+        @Override
+        protected void add( @Nonnull AWSMetricCache.Datapoints into, long timestamp ) {
+            into.add(timestamp, timestamp / MINUTE, 0.0, timestamp / MINUTE, 60);
+        }
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        AWSMetricCache cache = new AWSMetricCache(10);
+        MinuteFetcher fetcher = new MinuteFetcher();
+        long now = ( System.currentTimeMillis() / MINUTE ) * MINUTE;
+        long start = now - 24L * 60L * MINUTE;
+
+        AWSMetricCache.Datapoints first = cache.get("cpu", start, now, MINUTE, fetcher);
+
+        assertEquals(1440, first.size());
+        for( int i = 1; i < first.size(); i++ ) {
+            assertTrue(first.getTimestamp(i - 1) < first.getTimestamp(i));
+        }
+
+        // a minute later only the unfinalised tail is fetched again
+        AWSMetricCache.Datapoints second = cache.get("cpu", start + MINUTE, now + MINUTE, MINUTE, fetcher);
+        long[] tail = fetcher.windows.get(1);
+
+        assertEquals(1440, second.size());
+        assertEquals(start + MINUTE, second.getTimestamp(0));
+        assertEquals(now, second.getTimestamp(1439));
+        assertTrue(tail[0] > now - AWSMetricCache.FINALIZATION_DELAY - 3L * MINUTE);
+        assertTrue(cache.getFetchedCount() < 1440 + 20);
+        for( int i = 0; i < second.size(); i++ ) {
+            assertEquals(second.getTimestamp(i) / MINUTE, second.getAverage(i), 0.0);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the concurrency, deadlines and failure reporting of region sweeps.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSRegionScatter
+ */
+public class AWSRegionScatterTest {
+
+    static private List<String> regions( int count ) {
+        List<String> regions = new ArrayList<String>();
+
+        for( int i = 0; i < count; i++ ) {
+            regions.add("region-" + i);
+        }
+        return regions;
+    }
+
+    /**
+     * Sleeps for a while in every region; "slow" regions sleep well past the deadline and "broken" regions fail.
+     */
+    static class SleepingOperation extends AWSRegionScatter.RegionOperation<String> {
+        final AtomicInteger active = new AtomicInteger(0);
+        final AtomicInteger peak   = new AtomicInteger(0);
+
+        @Override
+        public boolean isRegionContextRequired() {
+            return false;
+        }
+
+        @Override
+        public @Nonnull Iterable<String> execute( @Nonnull AWSCloud provider, @Nonnull String regionId ) throws CloudException, InternalException {
+            if( regionId.startsWith("broken") ) {
+                throw new CloudException("Region " + regionId + " is unavailable");
+            }
+            int count = active.incrementAndGet();
+
+            try {
+                while( count > peak.get() && !peak.compareAndSet(peak.get(), count) ) {
+                    // another region raised the peak at the same time
+                }
+                Thread.sleep(regionId.startsWith("slow") ? 10000L : 200L);
+            }
+            catch( InterruptedException e ) {
+                throw new InternalException(e);
+            }
+            finally {
+                active.decrementAndGet();
+            }
+            return Arrays.asList(regionId + "/a", regionId + "/b");
+        }
+    }
+
+    @Test
+    public void testConcurrentSweep() throws InterruptedException {
+        AWSRegionScatter scatter = new AWSRegionScatter(new AWSCloud(), 14, 5000L);
+        SleepingOperation operation = new SleepingOperation();
+        AWSRegionScatter.Sweep<String> sweep = scatter.scatter(regions(14), operation);
+        List<String> results = new ArrayList<String>();
+
+        for( String item : sweep.getResults() ) {
+            results.add(item);
+        }
+        // the regions were worked on side by side rather than one after the other
+        assertTrue(operation.peak.get() > 1);
+        assertEquals(28, results.size());
+        assertEquals(14, sweep.getOutcomes().size());
+        assertTrue(sweep.getFailures().isEmpty());
+    }
+
+    @Test
+    public void testBoundedParallelism() throws InterruptedException {
+        AWSRegionScatter scatter = new AWSRegionScatter(new AWSCloud(), 2, 5000L);
+        SleepingOperation operation = new SleepingOperation();
+        AWSRegionScatter.Sweep<String> sweep = scatter.scatter(regions(6), operation);
+
+        assertEquals(6, sweep.getOutcomes().size());
+        // never more than two regions at a time
+        assertTrue(operation.peak.get() <= 2);
+    }
+
+    @Test
+    public void testPartialFailure() throws InterruptedException {
+        AWSRegionScatter scatter = new AWSRegionScatter(new AWSCloud(), 8, 1000L);
+        List<String> regions = regions(4);
+
+        regions.add("broken-1");
+        regions.add("slow-1");
+        AWSRegionScatter.Sweep<String> sweep = scatter.scatter(regions, new SleepingOperation());
+        List<String> results = new ArrayList<String>();
+
+        for( String item : sweep.getResults() ) {
+            results.add(item);
+        }
+        Map<String, AWSRegionScatter.RegionOutcome> outcomes = sweep.getOutcomes();
+
+        assertEquals(8, results.size());
+        assertEquals(6, outcomes.size());
+        assertEquals(2, sweep.getFailures().size());
+        assertFalse(outcomes.get("broken-1").isTimedOut());
+        assertTrue(outcomes.get("broken-1").getError() instanceof CloudException);
+        assertTrue(outcomes.get("slow-1").isTimedOut());
+        assertEquals(2, outcomes.get("region-0").getCount());
+    }
+
+    @Test
+    public void testSweepsFromEveryWorker() throws Exception {
+        AWSCloud provider = new AWSCloud();
+        final AWSRegionScatter scatter = new AWSRegionScatter(provider, 4, 5000L);
+        AWSTaskExecutor executor = provider.getExecutor();
+        List<Future<Integer>> sweeps = new ArrayList<Future<Integer>>();
+
+        // every worker waits on a sweep whose coordinator and regions have to queue behind it
+        for( int i = 0; i < executor.getMaximumPoolSize(); i++ ) {
+            sweeps.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return scatter.scatter(regions(2), new SleepingOperation()).getOutcomes().size();
+                }
+            }));
+        }
+        for( Future<Integer> sweep : sweeps ) {
+            assertEquals(2, sweep.get(30L, TimeUnit.SECONDS).intValue());
+        }
+    }
+
+    @Test
+    public void testStolenRegionDeadline() throws Exception {
+        AWSCloud provider = new AWSCloud();
+        final AWSRegionScatter scatter = new AWSRegionScatter(provider, 4, 500L);
+        AWSTaskExecutor executor = provider.getExecutor();
+        List<Future<Boolean>> sweeps = new ArrayList<Future<Boolean>>();
+
+        // the slow regions queue behind the workers, so each coordinator ends up running its region itself
+        for( int i = 0; i < executor.getMaximumPoolSize(); i++ ) {
+            sweeps.add(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    return scatter.scatter(Arrays.asList("slow-1"), new SleepingOperation()).getOutcomes().get("slow-1").isTimedOut();
+                }
+            }));
+        }
+        for( Future<Boolean> sweep : sweeps ) {
+            assertTrue(sweep.get(30L, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for the batching, completion and time-outs of shared state waits.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSStateWaiter
+ */
+public class AWSStateWaiterTest {
+
+    /**
+     * Reports every volume as "creating" on the first call and "available" after that, unless it is missing.
+     */
+    static class VolumePoller implements AWSStateWaiter.StatePoller {
+        final AtomicInteger calls   = new AtomicInteger(0);
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<Integer>());
+        final String        missing;
+        final boolean       stuck;
+
+        VolumePoller( String missing, boolean stuck ) {
+            this.missing = missing;
+            this.stuck = stuck;
+        }
+
+        @Override
+        public @Nonnull String getResourceType() {
+            return "volume-" + missing + "-" + stuck;
+        }
+
+        @Override
+        public int getMaximumBatchSize() {
+            return 200;
+        }
+
+        @Override
+        public @Nonnull Map<String, String> poll( @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+            Map<String, String> states = new HashMap<String, String>();
+            String state = ( calls.getAndIncrement() < 1 || stuck ? "creating" : "available" );
+
+            batches.add(resourceIds.size());
+            for( String id : resourceIds ) {
+                if( !id.equals(missing) ) {
+                    states.put(id, state);
+                }
+            }
+            return states;
+        }
+    }
+
+    @Test
+    public void testSharedPolling() throws Exception {
+        AWSStateWaiter waiter = new AWSStateWaiter(new AWSCloud());
+        VolumePoller poller = new VolumePoller(null, false);
+        List<Future<String>> futures = new ArrayList<Future<String>>();
+
+        for( int i = 0; i < 1000; i++ ) {
+            futures.add(waiter.waitFor(poller, "vol-" + i, Collections.singleton("available"), 60000L));
+        }
+        for( Future<String> future : futures ) {
+            assertEquals("available", future.get());
+        }
+        // a thousand waiters cost a handful of batched calls, not a thousand polling loops
+        assertTrue(waiter.getCallCount() <= 20);
+        for( Integer size : poller.batches ) {
+            assertTrue(size <= 200);
+        }
+    }
+
+    @Test
+    public void testAnyState() throws Exception {
+        AWSStateWaiter waiter = new AWSStateWaiter(new AWSCloud());
+        VolumePoller poller = new VolumePoller(null, false);
+
+        assertEquals("creating", waiter.await(poller, "vol-1", null, 60000L));
+        assertEquals(1, poller.calls.get());
+    }
+
+    @Test
+    public void testGone() throws Exception {
+        AWSStateWaiter waiter = new AWSStateWaiter(new AWSCloud());
+        VolumePoller poller = new VolumePoller("vol-2", false);
+
+        assertEquals(AWSStateWaiter.GONE, waiter.await(poller, "vol-2", Collections.singleton(AWSStateWaiter.GONE), 60000L));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        AWSStateWaiter waiter = new AWSStateWaiter(new AWSCloud());
+        VolumePoller poller = new VolumePoller(null, true);
+        Future<String> future = waiter.waitFor(poller, "vol-3", Collections.singleton("available"), 500L);
+        long started = System.currentTimeMillis();
+
+        try {
+            waiter.await(poller, "vol-4", Collections.singleton("available"), 500L);
+            fail("The wait for vol-4 did not time out");
+        }
+        catch( CloudException expected ) {
+            assertFalse(expected instanceof AWSResourceNotFoundException);
+        }
+        // the deadline ends the wait rather than the back-off interval
+        assertTrue(System.currentTimeMillis() - started < AWSStateWaiter.MINIMUM_INTERVAL);
+        assertTrue(future.isDone());
+    }
+
+    @Test
+    public void testWaitsFromEveryWorker() throws Exception {
+        AWSCloud provider = new AWSCloud();
+        final AWSStateWaiter waiter = new AWSStateWaiter(provider);
+        final VolumePoller poller = new VolumePoller(null, false);
+        AWSTaskExecutor executor = provider.getExecutor();
+        final CountDownLatch busy = new CountDownLatch(executor.getMaximumPoolSize());
+        List<Future<String>> waits = new ArrayList<Future<String>>();
+
+        // every worker waits, so the polling loop must not need a worker of its own
+        for( int i = 0; i < executor.getMaximumPoolSize(); i++ ) {
+            final String id = "vol-" + i;
+
+            waits.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    busy.countDown();
+                    busy.await();
+                    return waiter.await(poller, id, Collections.singleton("available"), 60000L);
+                }
+            }));
+        }
+        for( Future<String> wait : waits ) {
+            assertEquals("available", wait.get(30L, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testListenersWithoutCallers() throws Exception {
+        AWSStateWaiter waiter = new AWSStateWaiter(new AWSCloud());
+        final CountDownLatch ended = new CountDownLatch(2);
+        final Map<String, Object> results = Collections.synchronizedMap(new HashMap<String, Object>());
+        AWSStateWaiter.WaitListener listener = new AWSStateWaiter.WaitListener() {
+            @Override
+            public void waitEnded( @Nonnull String resourceId, String state, CloudException error ) {
+                results.put(resourceId, error == null ? state : error);
+                ended.countDown();
+            }
+        };
+
+        // nobody calls the futures, so the loop alone has to end both waits
+        waiter.waitFor(new VolumePoller(null, false), "vol-1", Collections.singleton("available"), 60000L, listener);
+        waiter.waitFor(new VolumePoller(null, true), "vol-2", Collections.singleton("available"), 300L, listener);
+        assertTrue(ended.await(30L, TimeUnit.SECONDS));
+        assertEquals("available", results.get("vol-1"));
+        assertTrue(results.get("vol-2") instanceof CloudException);
+    }
+
+    @Test
+    public void testDeadlineWithoutPolling() throws Exception {
+        AWSStateWaiter waiter = new AWSStateWaiter(new AWSCloud());
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger returned = new AtomicInteger(0);
+        VolumePoller poller = new VolumePoller(null, false) {
+            @Override
+            public @Nonnull Map<String, String> poll( @Nonnull Collection<String> resourceIds ) throws CloudException, InternalException {
+                try {
+                    release.await(30L, TimeUnit.SECONDS);
+                }
+                catch( InterruptedException e ) {
+                    throw new InternalException(e);
+                }
+                returned.incrementAndGet();
+                return super.poll(resourceIds);
+            }
+        };
+
+        try {
+            waiter.await(poller, "vol-5", Collections.singleton("available"), 300L);
+            fail("The wait for vol-5 outlived its deadline");
+        }
+        catch( CloudException expected ) {
+            // the wait ends by its deadline even while the loop is stuck in a slow poll
+            assertEquals(0, returned.get());
+        }
+        finally {
+            release.countDown();
+        }
+    }
+}
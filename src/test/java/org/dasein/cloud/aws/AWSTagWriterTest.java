@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudErrorType;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.Tag;
+import org.dasein.cloud.aws.compute.EC2Method;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the chunking, failure isolation and coalescing of the tag writer.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSTagWriter
+ */
+public class AWSTagWriterTest {
+
+    /**
+     * Records the tagging calls instead of sending them, failing any call which includes a "bad" resource.
+     */
+    static class RecordingCloud extends AWSCloud {
+        final List<String[]> calls = Collections.synchronizedList(new ArrayList<String[]>());
+
+        @Override
+        void invokeTagRequest( boolean remove, @Nonnull String service, @Nonnull String[] resourceIds, @Nonnull Tag... keyValuePairs ) throws CloudException, InternalException {
+            calls.add(resourceIds);
+            for( String id : resourceIds ) {
+                if( id.startsWith("bad") ) {
+                    throw new CloudException(CloudErrorType.GENERAL, 400, "InvalidInstanceID.NotFound", "The instance ID '" + id + "' does not exist");
+                }
+            }
+        }
+    }
+
+    static private List<String> ids( int count ) {
+        List<String> ids = new ArrayList<String>();
+
+        for( int i = 0; i < count; i++ ) {
+            ids.add("i-" + i);
+        }
+        return ids;
+    }
+
+    @Test
+    public void testChunking() {
+        RecordingCloud cloud = new RecordingCloud();
+        AWSTagWriter writer = new AWSTagWriter(cloud, 0L);
+        Map<String, AWSTagWriter.Result> results = writer.createTags(EC2Method.SERVICE_ID, ids(2500), new Tag("Name", "test"));
+
+        assertEquals(3, cloud.calls.size());
+        assertEquals(AWSTagWriter.MAX_RESOURCE_IDS, cloud.calls.get(0).length);
+        assertEquals(500, cloud.calls.get(2).length);
+        assertEquals(2500, results.size());
+        for( AWSTagWriter.Result result : results.values() ) {
+            assertTrue(result.isSuccess());
+        }
+    }
+
+    @Test
+    public void testFailureIsolation() {
+        RecordingCloud cloud = new RecordingCloud();
+        AWSTagWriter writer = new AWSTagWriter(cloud, 0L);
+        List<String> ids = ids(64);
+
+        ids.set(17, "bad-17");
+        Map<String, AWSTagWriter.Result> results = writer.createTags(EC2Method.SERVICE_ID, ids, new Tag("Name", "test"));
+
+        assertEquals(64, results.size());
+        assertFalse(results.get("bad-17").isSuccess());
+        assertEquals("InvalidInstanceID.NotFound", results.get("bad-17").getError().getProviderCode());
+        for( String id : ids ) {
+            if( !id.startsWith("bad") ) {
+                assertTrue(id, results.get(id).isSuccess());
+            }
+        }
+        // one failed call per level of the split plus the successful halves, nowhere near one call per resource
+        assertTrue(cloud.calls.size() < 16);
+    }
+
+    @Test
+    public void testNoTags() {
+        RecordingCloud cloud = new RecordingCloud();
+        AWSTagWriter writer = new AWSTagWriter(cloud, 0L);
+        Map<String, AWSTagWriter.Result> results = writer.createTags(EC2Method.SERVICE_ID, Arrays.asList("i-1", "i-2"));
+
+        assertEquals(0, cloud.calls.size());
+        assertTrue(results.get("i-1").isSuccess());
+    }
+
+    @Test
+    public void testLoadBalancerChunking() {
+        RecordingCloud cloud = new RecordingCloud();
+        AWSTagWriter writer = new AWSTagWriter(cloud, 0L);
+
+        writer.removeTags("elasticloadbalancing", ids(45), new Tag("Name", "test"));
+        assertEquals(3, cloud.calls.size());
+    }
+
+    @Test
+    public void testCoalescing() throws Exception {
+        RecordingCloud cloud = new RecordingCloud();
+        AWSTagWriter writer = new AWSTagWriter(cloud, 200L);
+        List<Future<AWSTagWriter.Result>> results = new ArrayList<Future<AWSTagWriter.Result>>();
+
+        for( String id : ids(5) ) {
+            results.add(writer.submitCreateTags(EC2Method.SERVICE_ID, id, new Tag("Name", "web")));
+        }
+        for( Future<AWSTagWriter.Result> result : results ) {
+            assertTrue(result.get().isSuccess());
+        }
+        // requests made within the window go out as one call
+        assertEquals(1, cloud.calls.size());
+        assertEquals(5, cloud.calls.get(0).length);
+    }
+}
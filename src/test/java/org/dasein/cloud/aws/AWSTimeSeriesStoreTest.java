@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the incremental fetching and merging of stored time series.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSTimeSeriesStore
+ */
+public class AWSTimeSeriesStoreTest {
+    static public final long MINUTE = 60000L;
+
+    /**
+     * Serves a point every minute, newest first since neither CloudWatch nor EC2 orders what it returns, and
+     * remembers the windows it was asked for.
+     */
+    static public abstract class MinuteFetcher<P> implements AWSTimeSeriesStore.Fetcher<P> {
+        public final List<long[]> windows = new ArrayList<long[]>();
+
+        @Override
+        public void fetch( long startTimestamp, long endTimestamp, @Nonnull P into ) throws CloudException, InternalException {
+            long first = ( ( startTimestamp + MINUTE - 1 ) / MINUTE ) * MINUTE;
+
+            windows.add(new long[] { startTimestamp, endTimestamp });
+            for( long t = ( ( endTimestamp - 1 ) / MINUTE ) * MINUTE; t >= first; t -= MINUTE ) {
+                add(into, t);
+            }
+        }
+
+        /**
+         * @param into the points to add to
+         * @param timestamp the minute to add the points of
+         */
+        protected abstract void add( @Nonnull P into, long timestamp );
+    }
+
+    static private final class Minutes implements AWSTimeSeriesStore.Points<Minutes> {
+        final List<Long> timestamps = new ArrayList<Long>();
+
+        @Override
+        public void addAll( @Nonnull Minutes other, long startTimestamp, long endTimestamp ) {
+            for( Long t : other.timestamps ) {
+                if( t >= startTimestamp && t < endTimestamp ) {
+                    timestamps.add(t);
+                }
+            }
+        }
+
+        @Override
+        public int size() {
+            return timestamps.size();
+        }
+
+        @Override
+        public @Nonnull Minutes sorted() {
+            Minutes copy = new Minutes();
+
+            copy.timestamps.addAll(new TreeSet<Long>(timestamps));
+            return copy;
+        }
+    }
+
+    static private final class MinuteStore extends AWSTimeSeriesStore<Minutes> {
+        MinuteStore( int maximumSeries ) {
+            super(maximumSeries);
+        }
+
+        @Override
+        protected @Nonnull Minutes newPoints() {
+            return new Minutes();
+        }
+
+        @Nonnull Minutes get( @Nonnull String key, long startTimestamp, long endTimestamp, long settled, long keepFrom, @Nonnull Fetcher<Minutes> fetcher ) throws CloudException, InternalException {
+            return getPoints(key, startTimestamp, endTimestamp, settled, keepFrom, fetcher);
+        }
+    }
+
+    static private final class MinutesFetcher extends MinuteFetcher<Minutes> {
+        @Override
+        protected void add( @Nonnull Minutes into, long timestamp ) {
+            into.timestamps.add(timestamp);
+        }
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        MinuteStore store = new MinuteStore(10);
+        MinutesFetcher fetcher = new MinutesFetcher();
+
+        assertEquals(60, store.get("a", 0L, 60L * MINUTE, 50L * MINUTE, 0L, fetcher).size());
+        // only what was not settled is fetched again
+        Minutes next = store.get("a", MINUTE, 61L * MINUTE, 55L * MINUTE, 0L, fetcher);
+
+        assertEquals(60, next.size());
+        assertEquals(MINUTE, ( long ) next.timestamps.get(0));
+        assertEquals(60L * MINUTE, ( long ) next.timestamps.get(59));
+        assertEquals(50L * MINUTE, fetcher.windows.get(1)[0]);
+        assertEquals(60 + 11, store.getFetchedCount());
+    }
+
+    @Test
+    public void testDisjointWindow() throws Exception {
+        MinuteStore store = new MinuteStore(10);
+        MinutesFetcher fetcher = new MinutesFetcher();
+
+        store.get("a", 100L * MINUTE, 160L * MINUTE, 150L * MINUTE, 0L, fetcher);
+        // an earlier window than the one stored is fetched in full
+        Minutes earlier = store.get("a", 40L * MINUTE, 70L * MINUTE, 70L * MINUTE, 0L, fetcher);
+
+        assertEquals(30, earlier.size());
+        assertEquals(40L * MINUTE, fetcher.windows.get(1)[0]);
+    }
+
+    @Test
+    public void testKeepFrom() throws Exception {
+        MinuteStore store = new MinuteStore(10);
+        MinutesFetcher fetcher = new MinutesFetcher();
+
+        // everything read is handed out, but only what comes after keepFrom is stored
+        assertEquals(60, store.get("a", 0L, 60L * MINUTE, 50L * MINUTE, 20L * MINUTE, fetcher).size());
+        store.get("a", 10L * MINUTE, 60L * MINUTE, 50L * MINUTE, 20L * MINUTE, fetcher);
+        assertEquals(10L * MINUTE, fetcher.windows.get(1)[0]);
+        store.get("a", 30L * MINUTE, 60L * MINUTE, 50L * MINUTE, 20L * MINUTE, fetcher);
+        assertEquals(50L * MINUTE, fetcher.windows.get(2)[0]);
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        MinuteStore store = new MinuteStore(1);
+        MinutesFetcher fetcher = new MinutesFetcher();
+
+        store.get("a", 0L, 60L * MINUTE, 50L * MINUTE, 0L, fetcher);
+        store.get("b", 0L, 60L * MINUTE, 50L * MINUTE, 0L, fetcher);
+        store.get("a", 0L, 60L * MINUTE, 50L * MINUTE, 0L, fetcher);
+        // "a" was evicted by "b", so it was fetched from the start again
+        assertEquals(0L, fetcher.windows.get(2)[0]);
+    }
+}
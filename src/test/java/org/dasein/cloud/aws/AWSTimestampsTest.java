@@ -0,0 +1,112 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws;
+
+import org.junit.Test;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the timestamp parser and formatter, checked against <code>SimpleDateFormat</code>.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.AWSTimestamps
+ */
+public class AWSTimestampsTest {
+
+    private static SimpleDateFormat utc( String pattern ) {
+        SimpleDateFormat fmt = new SimpleDateFormat(pattern, Locale.US);
+
+        fmt.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return fmt;
+    }
+
+    @Test
+    public void testParseIso8601() throws ParseException {
+        assertEquals(0L, AWSTimestamps.parseIso8601("1970-01-01T00:00:00Z"));
+        assertEquals(utc("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").parse("2015-10-01T12:34:56.789Z").getTime(), AWSTimestamps.parseIso8601("2015-10-01T12:34:56.789Z"));
+        assertEquals(utc("yyyy-MM-dd'T'HH:mm:ss'Z'").parse("2016-02-29T23:59:59Z").getTime(), AWSTimestamps.parseIso8601(" 2016-02-29T23:59:59Z\n"));
+        assertEquals(AWSTimestamps.parseIso8601("2015-10-01T12:34:56.700Z"), AWSTimestamps.parseIso8601("2015-10-01T12:34:56.7Z"));
+        assertEquals(AWSTimestamps.parseIso8601("2015-10-01T12:34:56.123Z"), AWSTimestamps.parseIso8601("2015-10-01T12:34:56.123456Z"));
+        assertEquals(AWSTimestamps.parseIso8601("2015-10-01T10:34:56Z"), AWSTimestamps.parseIso8601("2015-10-01T12:34:56+02:00"));
+        assertEquals(AWSTimestamps.parseIso8601("2015-10-01T17:34:56Z"), AWSTimestamps.parseIso8601("2015-10-01T12:34:56-0500"));
+        assertEquals(AWSTimestamps.parseIso8601("2015-10-01T12:34:56Z"), AWSTimestamps.parseIso8601("2015-10-01T12:34:56"));
+    }
+
+    @Test(expected = ParseException.class)
+    public void testParseIso8601InvalidDay() throws ParseException {
+        AWSTimestamps.parseIso8601("2015-02-29T00:00:00Z");
+    }
+
+    @Test(expected = ParseException.class)
+    public void testParseIso8601Garbage() throws ParseException {
+        AWSTimestamps.parseIso8601("2015-10-01 12:34:56Z trailing");
+    }
+
+    @Test
+    public void testParseRfc1123() throws ParseException {
+        long expected = utc("EEE, dd MMM yyyy HH:mm:ss zzz").parse("Thu, 01 Oct 2015 12:34:56 GMT").getTime();
+
+        assertEquals(expected, AWSTimestamps.parseRfc1123("Thu, 01 Oct 2015 12:34:56 GMT"));
+        assertEquals(expected, AWSTimestamps.parseRfc1123("1 Oct 2015 12:34:56 UTC"));
+        assertEquals(expected, AWSTimestamps.parseRfc1123("Thu, 01 Oct 2015 12:34:56GMT"));
+        assertEquals(expected, AWSTimestamps.parseRfc1123("Thu, 01 Oct 2015 14:34:56 +0200"));
+    }
+
+    @Test
+    public void testFormatMatchesSimpleDateFormat() {
+        SimpleDateFormat iso = utc("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        SimpleDateFormat isoMillis = utc("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        SimpleDateFormat basic = utc("yyyyMMdd'T'HHmmss'Z'");
+        SimpleDateFormat rfc = utc("EEE, dd MMM yyyy HH:mm:ss z");
+        Random random = new Random(42L);
+
+        for( int i = 0; i < 10000; i++ ) {
+            // anything between 1900 and 2100
+            long ts = -2208988800000L + ( long ) ( random.nextDouble() * 6311433600000L );
+            Date date = new Date(ts);
+
+            assertEquals(iso.format(date), AWSTimestamps.formatIso8601(ts, false));
+            assertEquals(isoMillis.format(date), AWSTimestamps.formatIso8601(ts, true));
+            assertEquals(basic.format(date), AWSTimestamps.formatIso8601Basic(ts));
+            assertEquals(rfc.format(date), AWSTimestamps.formatRfc1123(ts));
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws ParseException {
+        Random random = new Random(7L);
+
+        for( int i = 0; i < 10000; i++ ) {
+            long ts = ( long ) ( random.nextDouble() * 4102444800000L );
+
+            assertEquals(ts, AWSTimestamps.parseIso8601(AWSTimestamps.formatIso8601(ts, true)));
+            assertEquals(ts - ts % 1000L, AWSTimestamps.parseRfc1123(AWSTimestamps.formatRfc1123(ts)));
+        }
+    }
+}
@@ -19,18 +19,26 @@
 
 package org.dasein.cloud.aws.compute;
 
+import org.dasein.cloud.CloudException;
 import org.dasein.cloud.compute.ImageClass;
 import org.dasein.cloud.compute.ImageFilterOptions;
 import org.dasein.cloud.compute.MachineImage;
+import org.dasein.util.Jiterator;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Unit tests for streaming parser used to parse DescribeImages response.
@@ -171,4 +179,61 @@ public class DescribeImagesResponseParserTest {
         assertEquals("Tag 'Empty' is not found or is not parsed correctly", "", image1.getTag("Empty"));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testConcurrentImageStream() throws Exception {
+        final ImageFilterOptions filterOptions = ImageFilterOptions.getInstance().withImageClass(ImageClass.MACHINE);
+        final AMI.ImageStream stream = new AMI.ImageStream(new Jiterator<MachineImage>());
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        Jiterator<MachineImage> iterator = new Jiterator<MachineImage>();
+        final AMI.ImageStream shared = new AMI.ImageStream(iterator);
+        List<Thread> threads = new ArrayList<Thread>();
+
+        // several searches, each finding ami-image2, fill one stream at once
+        for( int i = 0; i < 8; i++ ) {
+            final String xml = ( i % 2 == 0 ? TEST_XML_TWO_IMAGES : TEST_XML_ONE_IMAGE );
+            Thread t = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        new DescribeImagesResponseParser("test-region", null, filterOptions, shared).parse(new ByteArrayInputStream(xml.getBytes()));
+                    }
+                    catch( Exception e ) {
+                        errors.add(e);
+                    }
+                }
+            };
+
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for( Thread t : threads ) {
+            t.join();
+        }
+        shared.close();
+        iterator.complete();
+
+        assertTrue(errors.isEmpty());
+        Set<String> ids = new TreeSet<String>();
+        int count = 0;
+
+        for( MachineImage image : iterator ) {
+            ids.add(image.getProviderMachineImageId());
+            count++;
+        }
+        assertEquals("Each image should be pushed once", 2, count);
+        assertTrue(ids.contains("ami-image1") && ids.contains(IMAGE_ID));
+
+        // once closed, a search still running is stopped instead of pushing into the completed iterator
+        stream.close();
+        try {
+            new DescribeImagesResponseParser("test-region", null, filterOptions, stream).parse(new ByteArrayInputStream(TEST_XML_ONE_IMAGE.getBytes()));
+            fail("A closed stream should reject images");
+        }
+        catch( CloudException expected ) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the streaming security group parser.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.DescribeInstanceGroupsResponseParser
+ */
+public class DescribeInstanceGroupsResponseParserTest {
+    final static String INSTANCES = "<DescribeInstancesResponse xmlns=\"http://ec2.amazonaws.com/doc/2014-06-15/\">" +
+            "<requestId>fdcdcab1-ae5c-489e-9c33-4637c5dda355</requestId><reservationSet>" +
+            "<item><reservationId>r-1a2b3c4d</reservationId><groupSet/><instancesSet>" +
+            "<item><instanceId>i-1a2b3c4d</instanceId><imageId>ami-1a2b3c4d</imageId>" +
+            "<groupSet><item><groupId>sg-1a2b3c4d</groupId><groupName>web</groupName></item>" +
+            "<item><groupId>sg-2a2b3c4d</groupId><groupName>ssh</groupName></item></groupSet>" +
+            "<networkInterfaceSet><item><networkInterfaceId>eni-1a2b3c4d</networkInterfaceId>" +
+            "<groupSet><item><groupId>sg-9a2b3c4d</groupId><groupName>other</groupName></item></groupSet></item></networkInterfaceSet>" +
+            "</item></instancesSet></item>" +
+            "<item><reservationId>r-2a2b3c4d</reservationId><instancesSet>" +
+            "<item><instanceId>i-2a2b3c4d</instanceId><instanceState><code>16</code><name>running</name></instanceState></item>" +
+            "</instancesSet><groupSet><item><groupId>sg-3a2b3c4d</groupId><groupName>default</groupName></item></groupSet></item>" +
+            "</reservationSet></DescribeInstancesResponse>";
+
+    @Test
+    public void testGroups() throws Exception {
+        Map<String, List<String>> groups = new HashMap<String, List<String>>();
+        DescribeInstanceGroupsResponseParser parser = new DescribeInstanceGroupsResponseParser(groups);
+
+        List<String> ids = parser.parse(new ByteArrayInputStream(INSTANCES.getBytes("UTF-8")));
+        assertNull(parser.getNextToken());
+        assertEquals(Arrays.asList("i-1a2b3c4d", "i-2a2b3c4d"), ids);
+        // the groups of a network interface are not the groups of the instance
+        assertEquals(Arrays.asList("sg-1a2b3c4d", "sg-2a2b3c4d"), groups.get("i-1a2b3c4d"));
+        // an instance without groups of its own has those of its reservation
+        assertEquals(Arrays.asList("sg-3a2b3c4d"), groups.get("i-2a2b3c4d"));
+    }
+}
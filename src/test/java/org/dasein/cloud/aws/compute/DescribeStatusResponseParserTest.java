@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the streaming status-only parser.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.DescribeStatusResponseParser
+ */
+public class DescribeStatusResponseParserTest {
+    final static String INSTANCES = "<DescribeInstancesResponse xmlns=\"http://ec2.amazonaws.com/doc/2014-06-15/\">" +
+            "<requestId>fdcdcab1-ae5c-489e-9c33-4637c5dda355</requestId><reservationSet><item>" +
+            "<reservationId>r-1a2b3c4d</reservationId><groupSet><item><groupId>sg-1a2b3c4d</groupId></item></groupSet>" +
+            "<instancesSet>" +
+            "<item><instanceId>i-1a2b3c4d</instanceId><imageId>ami-1a2b3c4d</imageId>" +
+            "<instanceState><code>16</code><name>running</name></instanceState>" +
+            "<stateReason><code>none</code><message>none</message></stateReason>" +
+            "<blockDeviceMapping><item><deviceName>/dev/sda1</deviceName><ebs><volumeId>vol-1a2b3c4d</volumeId>" +
+            "<status>attached</status></ebs></item></blockDeviceMapping>" +
+            "<tagSet><item><key>name</key><value>web</value></item></tagSet></item>" +
+            "<item><instanceId>i-2a2b3c4d</instanceId><instanceState><code>80</code><name>stopped</name></instanceState></item>" +
+            "</instancesSet></item></reservationSet><nextToken>token-2</nextToken></DescribeInstancesResponse>";
+
+    final static String VOLUMES = "<DescribeVolumesResponse><volumeSet>" +
+            "<item><volumeId>vol-1a2b3c4d</volumeId><size>80</size>" +
+            "<attachmentSet><item><volumeId>vol-1a2b3c4d</volumeId><instanceId>i-1a2b3c4d</instanceId><status>attached</status></item></attachmentSet>" +
+            "<status>in-use</status></item>" +
+            "<item><volumeId>vol-2a2b3c4d</volumeId><status>creating</status></item>" +
+            "<item><volumeId>vol-3a2b3c4d</volumeId></item>" +
+            "</volumeSet></DescribeVolumesResponse>";
+
+    @Test
+    public void testInstances() throws Exception {
+        List<DescribeStatusResponseParser.RawStatus> list = new ArrayList<DescribeStatusResponseParser.RawStatus>();
+        DescribeStatusResponseParser parser = DescribeStatusResponseParser.forInstances(list);
+
+        parser.parse(new ByteArrayInputStream(INSTANCES.getBytes("UTF-8")));
+        assertEquals("token-2", parser.getNextToken());
+        assertEquals(2, list.size());
+        assertEquals("i-1a2b3c4d", list.get(0).getResourceId());
+        assertEquals("running", list.get(0).getState());
+        assertEquals("i-2a2b3c4d", list.get(1).getResourceId());
+        assertEquals("stopped", list.get(1).getState());
+    }
+
+    @Test
+    public void testVolumes() throws Exception {
+        List<DescribeStatusResponseParser.RawStatus> list = new ArrayList<DescribeStatusResponseParser.RawStatus>();
+        DescribeStatusResponseParser parser = DescribeStatusResponseParser.forVolumes(list);
+
+        parser.parse(new ByteArrayInputStream(VOLUMES.getBytes("UTF-8")));
+        assertNull(parser.getNextToken());
+        assertEquals(3, list.size());
+        // the status of the attachment is not the status of the volume
+        assertEquals("in-use", list.get(0).getState());
+        assertEquals("creating", list.get(1).getState());
+        assertNull(list.get(2).getState());
+    }
+}
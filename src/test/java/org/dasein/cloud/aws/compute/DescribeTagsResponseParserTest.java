@@ -0,0 +1,68 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the streaming <code>DescribeTags</code> parser.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.DescribeTagsResponseParser
+ */
+public class DescribeTagsResponseParserTest {
+    final static String PAGE = "<DescribeTagsResponse xmlns=\"http://ec2.amazonaws.com/doc/2014-06-15/\">" +
+            "<requestId>7a62c49f-347e-4fc4-9331-6e8eEXAMPLE</requestId><tagSet>" +
+            "<item><resourceId>i-5f4e3d2a</resourceId><resourceType>instance</resourceType><key>webserver</key><value/></item>" +
+            "<item><resourceId>vol-1a2b3c4d</resourceId><resourceType>volume</resourceType><key>stack</key><value>Production</value></item>" +
+            "</tagSet><nextToken>token-2</nextToken></DescribeTagsResponse>";
+
+    final static String LAST_PAGE = "<DescribeTagsResponse><tagSet>" +
+            "<item><resourceId>ami-1a2b3c4d</resourceId><resourceType>image</resourceType><key>Name</key><value>base &amp; tools</value></item>" +
+            "</tagSet></DescribeTagsResponse>";
+
+    @Test
+    public void testPages() throws Exception {
+        List<DescribeTagsResponseParser.ResourceTag> tags = new ArrayList<DescribeTagsResponseParser.ResourceTag>();
+        DescribeTagsResponseParser parser = new DescribeTagsResponseParser(tags);
+
+        parser.parse(new ByteArrayInputStream(PAGE.getBytes("UTF-8")));
+        assertEquals("token-2", parser.getNextToken());
+        assertEquals(2, tags.size());
+        assertEquals("i-5f4e3d2a", tags.get(0).getResourceId());
+        assertEquals("instance", tags.get(0).getResourceType());
+        assertEquals("", tags.get(0).getValue());
+        assertEquals("stack", tags.get(1).getKey());
+        assertEquals("Production", tags.get(1).getValue());
+
+        parser.parse(new ByteArrayInputStream(LAST_PAGE.getBytes("UTF-8")));
+        assertNull(parser.getNextToken());
+        assertEquals(3, tags.size());
+        assertEquals("base & tools", tags.get(2).getValue());
+    }
+}
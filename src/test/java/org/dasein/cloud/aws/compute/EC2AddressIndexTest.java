@@ -0,0 +1,80 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.network.IPVersion;
+import org.dasein.cloud.network.IpAddress;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for the elastic IP lookups used when mapping instances.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.EC2AddressIndex
+ */
+public class EC2AddressIndexTest {
+
+    static private IpAddress address( String id, String ip, String instanceId ) {
+        IpAddress address = new IpAddress();
+
+        address.setIpAddressId(id);
+        address.setAddress(ip);
+        address.setVersion(IPVersion.IPV4);
+        address.setServerId(instanceId);
+        return address;
+    }
+
+    @Test
+    public void testLookups() {
+        List<IpAddress> pool = new ArrayList<IpAddress>();
+
+        for( int i = 0; i < 1500; i++ ) {
+            pool.add(address("eipalloc-" + i, "54.0." + (i / 256) + "." + (i % 256), ( i % 2 == 0 ? "i-" + i : null )));
+        }
+        EC2AddressIndex index = new EC2AddressIndex(pool);
+
+        assertEquals("eipalloc-1499", index.getByAddress("54.0.5.219").getProviderIpAddressId());
+        assertEquals("eipalloc-1498", index.getByInstance("i-1498").getProviderIpAddressId());
+        assertNull(index.getByInstance("i-1499"));
+        assertNull(index.getByAddress("10.0.0.1"));
+        assertNull(index.getByAddress(null));
+        assertNull(EC2AddressIndex.EMPTY.getByInstance("i-0"));
+    }
+
+    @Test
+    public void testFirstMatchWins() {
+        List<IpAddress> pool = new ArrayList<IpAddress>();
+
+        pool.add(address("eipalloc-1", "54.1.1.1", "i-1"));
+        pool.add(address("eipalloc-2", "54.1.1.1", "i-1"));
+
+        EC2AddressIndex index = new EC2AddressIndex(pool);
+
+        assertEquals("eipalloc-1", index.getByAddress("54.1.1.1").getProviderIpAddressId());
+        assertEquals("eipalloc-1", index.getByInstance("i-1").getProviderIpAddressId());
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSCloud;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for turning instance status polls into lifecycle events.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.EC2InstanceWatcher
+ */
+public class EC2InstanceWatcherTest {
+    final static String STATUS = "<DescribeInstanceStatusResponse xmlns=\"http://ec2.amazonaws.com/doc/2014-06-15/\">" +
+            "<requestId>3be1508e-c444-4fef-89cc-0b1223c4f02f</requestId><instanceStatusSet>" +
+            "<item><instanceId>i-1a2b3c4d</instanceId><availabilityZone>us-east-1d</availabilityZone>" +
+            "<eventsSet><item><code>system-reboot</code><description>Scheduled reboot</description>" +
+            "<notBefore>2015-10-19T23:00:00.000Z</notBefore><notAfter>2015-10-20T01:00:00.000Z</notAfter></item>" +
+            "<item><code>instance-stop</code><description>[Completed] Scheduled stop</description>" +
+            "<notBefore>2015-09-01T23:00:00.000Z</notBefore></item></eventsSet>" +
+            "<instanceState><code>16</code><name>running</name></instanceState>" +
+            "<systemStatus><status>ok</status><details><item><name>reachability</name><status>passed</status></item></details></systemStatus>" +
+            "</item></instanceStatusSet><nextToken>token-2</nextToken></DescribeInstanceStatusResponse>";
+
+    /**
+     * Serves the states set by the test, two instances per page.
+     */
+    static class FakeSource implements EC2InstanceWatcher.StatusSource {
+        final Map<String, String> states = new LinkedHashMap<String, String>();
+        final Map<String, DescribeInstanceStatusResponseParser.RawEvent> events = new LinkedHashMap<String, DescribeInstanceStatusResponseParser.RawEvent>();
+
+        @Override
+        public @Nullable String fetch( @Nullable String nextToken, @Nonnull List<DescribeInstanceStatusResponseParser.RawInstanceStatus> page ) throws CloudException, InternalException {
+            List<String> ids = new ArrayList<String>(states.keySet());
+            int start = ( nextToken == null ? 0 : Integer.parseInt(nextToken) );
+
+            for( int i = start; i < Math.min(ids.size(), start + 2); i++ ) {
+                String id = ids.get(i);
+                DescribeInstanceStatusResponseParser.RawEvent event = events.get(id);
+
+                page.add(new DescribeInstanceStatusResponseParser.RawInstanceStatus(id, states.get(id), event == null ? Collections.<DescribeInstanceStatusResponseParser.RawEvent>emptyList() : Collections.singletonList(event)));
+            }
+            return ( start + 2 < ids.size() ? String.valueOf(start + 2) : null );
+        }
+    }
+
+    @Test
+    public void testParse() throws Exception {
+        List<DescribeInstanceStatusResponseParser.RawInstanceStatus> list = new ArrayList<DescribeInstanceStatusResponseParser.RawInstanceStatus>();
+        DescribeInstanceStatusResponseParser parser = new DescribeInstanceStatusResponseParser(list);
+
+        parser.parse(new ByteArrayInputStream(STATUS.getBytes("UTF-8")));
+        assertEquals("token-2", parser.getNextToken());
+        assertEquals(1, list.size());
+        assertEquals("i-1a2b3c4d", list.get(0).getInstanceId());
+        assertEquals("running", list.get(0).getState());
+        assertEquals(2, list.get(0).getEvents().size());
+        assertEquals("system-reboot", list.get(0).getEvents().get(0).getCode());
+        assertFalse(list.get(0).getEvents().get(0).isOver());
+        assertTrue(list.get(0).getEvents().get(1).isOver());
+    }
+
+    @Test
+    public void testTransitions() throws Exception {
+        EC2InstanceWatcher watcher = new EC2InstanceWatcher(null);
+        List<EC2InstanceEvent> received = new ArrayList<EC2InstanceEvent>();
+        FakeSource source = new FakeSource();
+
+        source.states.put("i-1", "pending");
+        source.states.put("i-2", "running");
+        source.states.put("i-3", "running");
+
+        // the first pass only records what is there
+        assertTrue(watcher.sweep(source, received));
+        assertTrue(received.isEmpty());
+        assertEquals("pending", watcher.getState("i-1"));
+
+        source.states.put("i-1", "running");
+        source.states.put("i-2", "stopping");
+        source.states.remove("i-3");
+        source.events.put("i-1", new DescribeInstanceStatusResponseParser.RawEvent("system-reboot", "Scheduled reboot", 1445295600000L));
+        watcher.sweep(source, received);
+
+        assertEquals(4, received.size());
+        assertEquals(EC2InstanceEvent.Type.STATE_CHANGED, received.get(0).getType());
+        assertEquals("pending", received.get(0).getPreviousState());
+        assertEquals("running", received.get(0).getCurrentState());
+        assertEquals(EC2InstanceEvent.Type.EVENT_SCHEDULED, received.get(1).getType());
+        assertEquals("system-reboot", received.get(1).getEventCode());
+        assertEquals("stopping", received.get(2).getCurrentState());
+        assertEquals(EC2InstanceEvent.Type.GONE, received.get(3).getType());
+        assertEquals("i-3", received.get(3).getInstanceId());
+        assertNull(watcher.getState("i-3"));
+
+        // nothing changed and nothing in transition: no events, and the loop may back off
+        source.states.put("i-2", "stopped");
+        watcher.sweep(source, received);
+        received.clear();
+        assertFalse(watcher.sweep(source, received));
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testPollsOnScheduler() throws Exception {
+        AWSCloud provider = new AWSCloud();
+        EC2InstanceWatcher watcher = new EC2InstanceWatcher(provider);
+        FakeSource source = new FakeSource();
+        EC2InstanceWatcher.Listener listener = new EC2InstanceWatcher.Listener() {
+            @Override
+            public void onEvent( @Nonnull EC2InstanceEvent event ) {
+            }
+        };
+
+        source.states.put("i-1", "running");
+        watcher.subscribe(source, listener);
+        assertTrue(watcher.isRunning());
+        for( long deadline = System.currentTimeMillis() + 5000L; watcher.getState("i-1") == null && System.currentTimeMillis() < deadline; ) {
+            Thread.sleep(10L);
+        }
+        assertEquals("running", watcher.getState("i-1"));
+        // between passes the loop holds no thread of the pool
+        assertEquals(0, provider.getExecutor().getActiveCount());
+
+        watcher.unsubscribe(listener);
+        for( long deadline = System.currentTimeMillis() + 5000L; watcher.isRunning() && System.currentTimeMillis() < deadline; ) {
+            Thread.sleep(10L);
+        }
+        assertFalse(watcher.isRunning());
+        assertEquals(1L, watcher.getCallCount());
+    }
+
+    @Test
+    public void testManyStateNames() throws Exception {
+        EC2InstanceWatcher watcher = new EC2InstanceWatcher(null);
+        FakeSource source = new FakeSource();
+
+        for( int i = 0; i < 300; i++ ) {
+            source.states.put("i-" + i, "state-" + i);
+        }
+        watcher.sweep(source, new ArrayList<EC2InstanceEvent>());
+
+        // past 127 names the indexes no longer fit a signed byte, past 256 they are recorded as unknown
+        assertEquals("state-200", watcher.getState("i-200"));
+        assertEquals("state-254", watcher.getState("i-254"));
+        assertEquals("unknown", watcher.getState("i-255"));
+        assertEquals("unknown", watcher.getState("i-299"));
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.compute.Platform;
+import org.dasein.cloud.compute.VirtualMachine;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the completion tracking of post-launch work.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.EC2LaunchHandle
+ */
+public class EC2LaunchHandleTest {
+
+    private EC2LaunchHandle newHandle() {
+        VirtualMachine vm = new VirtualMachine();
+
+        vm.setProviderVirtualMachineId("i-12345678");
+        return new EC2LaunchHandle(vm);
+    }
+
+    @Test
+    public void testDoneOnceStepsAndPipelineFinish() throws Exception {
+        EC2LaunchHandle handle = newHandle();
+
+        handle.begin();
+        handle.begin();
+        handle.end(EC2LaunchHandle.STEP_NETWORKING, null);
+        handle.release();
+        // the password step is still running
+        assertFalse(handle.isDone());
+        assertFalse(handle.await(10L));
+
+        handle.end(EC2LaunchHandle.STEP_PASSWORD, null);
+        assertTrue(handle.isDone());
+        assertTrue(handle.isSuccess());
+        assertTrue(handle.await(10L));
+    }
+
+    @Test
+    public void testFirstFailureOfStepKept() throws Exception {
+        EC2LaunchHandle handle = newHandle();
+        CloudException first = new CloudException("first");
+
+        handle.begin();
+        handle.begin();
+        handle.end(EC2LaunchHandle.STEP_VOLUMES, first);
+        handle.end(EC2LaunchHandle.STEP_VOLUMES, new CloudException("second"));
+        handle.release();
+
+        assertTrue(handle.isDone());
+        assertFalse(handle.isSuccess());
+        assertEquals(1, handle.getFailures().size());
+        assertEquals(first, handle.getFailures().get(EC2LaunchHandle.STEP_VOLUMES));
+    }
+
+    @Test
+    public void testPasswordDataPublished() throws Exception {
+        EC2LaunchHandle handle = newHandle();
+
+        assertNull(handle.getRootPassword());
+        assertEquals(Platform.UNKNOWN, handle.getPlatform());
+
+        // the password is not ready yet, but only Windows instances have password data at all
+        handle.setPasswordData(null);
+        assertNull(handle.getRootPassword());
+        assertEquals(Platform.WINDOWS, handle.getPlatform());
+        assertNull(handle.getVirtualMachine().getRootPassword());
+
+        handle.setPasswordData("secret");
+        assertEquals("secret", handle.getRootPassword());
+    }
+}
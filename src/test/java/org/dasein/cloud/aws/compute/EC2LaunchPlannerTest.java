@@ -0,0 +1,179 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.CloudErrorType;
+import org.dasein.cloud.CloudException;
+import org.dasein.cloud.InternalException;
+import org.dasein.cloud.aws.AWSTaskExecutor;
+import org.dasein.util.Jiterator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for splitting launches over zones and re-routing them on capacity errors.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.EC2LaunchPlanner
+ */
+public class EC2LaunchPlannerTest {
+    private AWSTaskExecutor executor;
+
+    /**
+     * Launches instances in every zone but those listed as full, recording how many went where.
+     */
+    static class ZoneLauncher implements EC2LaunchPlanner.Launcher {
+        final Set<String>                 full     = new HashSet<String>();
+        final Map<String, AtomicInteger>  counts   = new ConcurrentHashMap<String, AtomicInteger>();
+        final Map<String, AtomicInteger>  calls    = new ConcurrentHashMap<String, AtomicInteger>();
+        final Set<String>                 tokens   = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        final AtomicInteger               sequence = new AtomicInteger(0);
+
+        ZoneLauncher( String ... full ) {
+            this.full.addAll(Arrays.asList(full));
+        }
+
+        @Override
+        public @Nonnull Collection<String> launch( @Nonnull EC2LaunchPlanner.Placement placement, int count, @Nullable String clientToken ) throws CloudException, InternalException {
+            String zone = placement.getDataCenterId();
+
+            assertTrue("Token reused: " + clientToken, clientToken == null || tokens.add(clientToken));
+            calls.putIfAbsent(zone, new AtomicInteger(0));
+            calls.get(zone).incrementAndGet();
+            if( full.contains(zone) ) {
+                throw new CloudException(CloudErrorType.CAPACITY, 500, "InsufficientInstanceCapacity", "No capacity in " + zone);
+            }
+            List<String> ids = new ArrayList<String>();
+
+            counts.putIfAbsent(zone, new AtomicInteger(0));
+            counts.get(zone).addAndGet(count);
+            for( int i = 0; i < count; i++ ) {
+                ids.add("i-" + sequence.incrementAndGet());
+            }
+            return ids;
+        }
+    }
+
+    static private List<EC2LaunchPlanner.Placement> zones( String ... zones ) {
+        List<EC2LaunchPlanner.Placement> placements = new ArrayList<EC2LaunchPlanner.Placement>();
+
+        for( String zone : zones ) {
+            placements.add(new EC2LaunchPlanner.Placement(zone, null));
+        }
+        return placements;
+    }
+
+    @Before
+    public void setUp() {
+        executor = new AWSTaskExecutor("test", 8, 64, false);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testSpreadAndReroute() throws Exception {
+        EC2LaunchPlanner planner = new EC2LaunchPlanner(executor, 100, 4);
+        ZoneLauncher launcher = new ZoneLauncher("us-east-1b");
+        Jiterator<String> ids = new Jiterator<String>();
+
+        int launched = planner.launch(zones("us-east-1a", "us-east-1b", "us-east-1c"), 1050, "token", launcher, ids);
+        ids.complete();
+
+        Set<String> unique = new HashSet<String>();
+        for( String id : ids ) {
+            unique.add(id);
+        }
+        assertEquals(1050, launched);
+        assertEquals(1050, unique.size());
+        assertFalse(launcher.counts.containsKey("us-east-1b"));
+        // eleven calls of 95 or 96 instances, the share of the full zone split over the other two
+        assertEquals(1050, launcher.counts.get("us-east-1a").get() + launcher.counts.get("us-east-1c").get());
+        assertTrue(launcher.counts.get("us-east-1a").get() >= 350);
+        assertTrue(launcher.counts.get("us-east-1c").get() >= 350);
+    }
+
+    @Test
+    public void testNoCapacityAnywhere() throws Exception {
+        EC2LaunchPlanner planner = new EC2LaunchPlanner(executor, 100, 4);
+
+        try {
+            planner.launch(zones("us-east-1a", "us-east-1b"), 300, null, new ZoneLauncher("us-east-1a", "us-east-1b"), new Jiterator<String>());
+            fail("Expected a capacity error");
+        }
+        catch( CloudException e ) {
+            assertEquals(CloudErrorType.CAPACITY, e.getErrorType());
+        }
+    }
+
+    @Test
+    public void testFallbackOnlyOnCapacity() throws Exception {
+        EC2LaunchPlanner planner = new EC2LaunchPlanner(executor, 100, 4, true);
+        List<EC2LaunchPlanner.Placement> placements = new ArrayList<EC2LaunchPlanner.Placement>();
+
+        placements.add(new EC2LaunchPlanner.Placement("us-east-1a", "subnet-a"));
+        placements.add(new EC2LaunchPlanner.Placement("us-east-1b", "subnet-b", true));
+        placements.add(new EC2LaunchPlanner.Placement("us-east-1c", "subnet-c", true));
+
+        ZoneLauncher launcher = new ZoneLauncher();
+
+        assertEquals(300, planner.launch(placements, 300, null, launcher, new Jiterator<String>()));
+        assertEquals(300, launcher.counts.get("us-east-1a").get());
+        assertEquals(1, launcher.counts.size());
+
+        launcher = new ZoneLauncher("us-east-1a");
+        assertEquals(300, planner.launch(placements, 300, null, launcher, new Jiterator<String>()));
+        assertFalse(launcher.counts.containsKey("us-east-1a"));
+        assertEquals(300, launcher.counts.get("us-east-1b").get() + ( launcher.counts.containsKey("us-east-1c") ? launcher.counts.get("us-east-1c").get() : 0 ));
+    }
+
+    @Test
+    public void testSkipsExhaustedPlacement() throws Exception {
+        EC2LaunchPlanner planner = new EC2LaunchPlanner(executor, 100, 1);
+        ZoneLauncher launcher = new ZoneLauncher("us-east-1b");
+
+        // chunks 1 and 3 are given to the full zone up front, only the first of them may be sent there
+        assertEquals(500, planner.launch(zones("us-east-1a", "us-east-1b"), 500, "token", launcher, new Jiterator<String>()));
+        assertEquals(500, launcher.counts.get("us-east-1a").get());
+        assertEquals(1, launcher.calls.get("us-east-1b").get());
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.compute.Architecture;
+import org.dasein.cloud.compute.VirtualMachineProduct;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the indexed VM product catalog, using the standard products resource.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.EC2ProductCatalog
+ */
+public class EC2ProductCatalogTest {
+
+    @Test
+    public void testGetProduct() throws Exception {
+        EC2ProductCatalog catalog = new EC2ProductCatalog("AWS", "AWS", null);
+        List<Architecture> all = Arrays.asList(Architecture.I32, Architecture.I64);
+        VirtualMachineProduct product = catalog.getProduct("m1.large", all, "us-east-1");
+
+        assertNotNull(product);
+        assertEquals("m1.large", product.getProviderProductId());
+        // m1.large is 64-bit only and is not offered in eu-central-1
+        assertNull(catalog.getProduct("m1.large", Collections.singletonList(Architecture.I32), "us-east-1"));
+        assertNull(catalog.getProduct("m1.large", all, "eu-central-1"));
+        assertNull(catalog.getProduct("m0.nonexistent", all, "us-east-1"));
+    }
+
+    @Test
+    public void testListProducts() throws Exception {
+        EC2ProductCatalog catalog = new EC2ProductCatalog("AWS", "AWS", null);
+        List<VirtualMachineProduct> products = catalog.listProducts(Architecture.I32, "us-east-1");
+
+        assertFalse(products.isEmpty());
+        for( VirtualMachineProduct product : products ) {
+            assertFalse("m1.large".equals(product.getProviderProductId()));
+        }
+        assertEquals(products.size(), catalog.listProducts(Architecture.I32, "us-east-1").size());
+        assertTrue(catalog.listProducts(null, "us-east-1").size() > catalog.listProducts(null, "eu-central-1").size());
+    }
+
+    @Test
+    public void testProductsAreNotShared() throws Exception {
+        EC2ProductCatalog catalog = new EC2ProductCatalog("AWS", "AWS", null);
+        List<Architecture> all = Arrays.asList(Architecture.I32, Architecture.I64);
+        VirtualMachineProduct product = catalog.getProduct("m1.large", all, "us-east-1");
+
+        assertNotNull(product);
+        product.setName("changed");
+        catalog.listProducts(null, "us-east-1").get(0).setName("changed");
+        assertNotSame(product, catalog.getProduct("m1.large", all, "us-east-1"));
+        assertFalse("changed".equals(catalog.getProduct("m1.large", all, "us-east-1").getName()));
+        assertFalse("changed".equals(catalog.listProducts(null, "us-east-1").get(0).getName()));
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (C) 2009-2015 Dell, Inc.
+ * See annotations for authorship information
+ *
+ * ====================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * ====================================================================
+ */
+
+package org.dasein.cloud.aws.compute;
+
+import org.dasein.cloud.aws.AWSTimeSeriesStoreTest;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the incremental fetching of stored spot price history.
+ *
+ * @version 2015.10 initial version
+ * @since 2015.10
+ * @see org.dasein.cloud.aws.compute.EC2SpotPriceStore
+ */
+public class EC2SpotPriceStoreTest {
+    static private final long MINUTE = AWSTimeSeriesStoreTest.MINUTE;
+
+    /**
+     * Serves a price change every minute in two zones, with the minute number modulo 1000 as the price.
+     */
+    static class MinuteFetcher extends AWSTimeSeriesStoreTest.MinuteFetcher<EC2SpotPriceStore.Prices> {
+        @Override
+        protected void add( @Nonnull EC2SpotPriceStore.Prices into, long timestamp ) {
+            into.add("m3.medium", "Linux/UNIX", "us-east-1a", timestamp, ( timestamp / MINUTE ) % 1000);
+            into.add("m3.medium", "Linux/UNIX", "us-east-1b", timestamp, ( timestamp / MINUTE ) % 1000);
+        }
+    }
+
+    @Test
+    public void testIncrementalRefresh() throws Exception {
+        EC2SpotPriceStore store = new EC2SpotPriceStore(10);
+        MinuteFetcher fetcher = new MinuteFetcher();
+        String key = EC2SpotPriceStore.getKey(Arrays.asList("m3.medium"), "Linux/UNIX", null);
+        long now = ( System.currentTimeMillis() / MINUTE ) * MINUTE;
+        long start = now - 7L * 24L * 60L * MINUTE;
+
+        EC2SpotPriceStore.Prices week = store.get(key, start, now, fetcher);
+
+        assertEquals(2 * 7 * 24 * 60, week.size());
+        for( int i = 1; i < week.size(); i++ ) {
+            assertTrue(week.getTimestamp(i - 1) <= week.getTimestamp(i));
+        }
+
+        // a minute later only the unsettled tail is fetched again
+        EC2SpotPriceStore.Prices next = store.get(key, start + MINUTE, now + MINUTE, fetcher);
+        long[] tail = fetcher.windows.get(1);
+
+        assertEquals(2 * 7 * 24 * 60, next.size());
+        assertEquals(start + MINUTE, next.getTimestamp(0));
+        assertEquals(now, next.getTimestamp(next.size() - 1));
+        assertTrue(tail[0] >= now - EC2SpotPriceStore.SETTLE_DELAY - MINUTE);
+        assertTrue(store.getFetchedCount() < 2 * 7 * 24 * 60 + 40);
+        for( int i = 0; i < next.size(); i++ ) {
+            assertEquals(( next.getTimestamp(i) / MINUTE ) % 1000, next.getPrice(i), 0.0f);
+        }
+        assertEquals("us-east-1a", next.get(0).getAvailabilityZone());
+        assertEquals("us-east-1b", next.get(1).getAvailabilityZone());
+    }
+
+    @Test
+    public void testSeparateQueries() throws Exception {
+        EC2SpotPriceStore store = new EC2SpotPriceStore(10);
+        MinuteFetcher fetcher = new MinuteFetcher();
+        long now = ( System.currentTimeMillis() / MINUTE ) * MINUTE;
+
+        store.get(EC2SpotPriceStore.getKey(null, "Linux/UNIX", null), now - 60L * MINUTE, now, fetcher);
+        store.get(EC2SpotPriceStore.getKey(null, "Windows", null), now - 60L * MINUTE, now, fetcher);
+        // a different product is a different query and is fetched in full
+        assertEquals(now - 60L * MINUTE, fetcher.windows.get(1)[0]);
+        assertFalse(new EC2SpotPriceStore(0).isEnabled());
+    }
+}